@@ -0,0 +1,97 @@
+package com.gauntletai.agustinbiondi.chatgenius.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gauntletai.agustinbiondi.chatgenius.util.UuidV7;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson (de)serialization of messages as broadcast over STOMP and returned by the history
+ * endpoints: a message with reactions and, in the history shape, its top replies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MessageSerializationBenchmark {
+
+    private static final String CONTENT =
+            "Deploy is done, the new search is live for everyone. Let me know if anything looks off.";
+
+    private ObjectMapper objectMapper;
+    private MessageDTO broadcast;
+    private MessageDTO withReplies;
+    private byte[] incoming;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Configured like the application's mapper
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        UUID channelId = UuidV7.generate();
+        List<MessageDTO> replies = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            replies.add(message(channelId, "Reply number " + i + ", agreed on all points.", 2, List.of()));
+        }
+        broadcast = message(channelId, CONTENT, 5, List.of());
+        withReplies = message(channelId, CONTENT, 5, replies);
+        incoming = ("{\"content\":\"" + CONTENT + "\",\"channelId\":\"" + channelId + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static MessageDTO message(UUID channelId, String content, int reactions, List<MessageDTO> replies) {
+        UUID id = UuidV7.generate();
+        Set<ReactionDTO> reactionSet = new HashSet<>();
+        for (int i = 0; i < reactions; i++) {
+            reactionSet.add(ReactionDTO.builder()
+                    .id(UuidV7.generate())
+                    .emoji(i % 2 == 0 ? "👍" : "🎉")
+                    .userId("user_2abcDEFghiJKLmnoPQRst" + i)
+                    .username("member" + i)
+                    .messageId(id)
+                    .build());
+        }
+        String now = Instant.now().toString();
+        return MessageDTO.builder()
+                .id(id)
+                .content(content)
+                .createdBy("user_2abcDEFghiJKLmnoPQRstu")
+                .username("agustin")
+                .channelId(channelId)
+                .seq(1234)
+                .createdAt(now)
+                .reactions(reactionSet)
+                .replyCount(replies.size() * 4L)
+                .topReplies(replies)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] serializeBroadcast() throws Exception {
+        return objectMapper.writeValueAsBytes(broadcast);
+    }
+
+    @Benchmark
+    public byte[] serializeWithReplies() throws Exception {
+        return objectMapper.writeValueAsBytes(withReplies);
+    }
+
+    @Benchmark
+    public MessageDTO deserializeIncoming() throws Exception {
+        return objectMapper.readValue(incoming, MessageDTO.class);
+    }
+}
@@ -0,0 +1,135 @@
+package com.gauntletai.agustinbiondi.chatgenius.search;
+
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepositoryCustom.IndexableMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Index and query throughput of one channel shard over a synthetic corpus whose word
+ * frequencies follow a Zipf-like curve, so common words have long posting lists and
+ * rare ones short lists, as in real chat.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ChannelIndexShardBenchmark {
+
+    private static final int VOCABULARY = 20_000;
+
+    @State(Scope.Benchmark)
+    public static class Corpus {
+        @Param({"10000", "100000"})
+        public int messages;
+
+        String[] words;
+        List<IndexableMessage> documents;
+        ChannelIndexShard shard;
+        IndexQuery commonTerm;
+        IndexQuery rareTerm;
+        IndexQuery typedPrefix;
+        IndexQuery twoTerms;
+        IndexQuery phrase;
+
+        @Setup(Level.Trial)
+        public void build() {
+            Random random = new Random(42);
+            words = new String[VOCABULARY];
+            for (int i = 0; i < VOCABULARY; i++) {
+                words[i] = word(random);
+            }
+            UUID channelId = UUID.randomUUID();
+            Instant start = Instant.parse("2025-01-01T00:00:00Z");
+            documents = new ArrayList<>(messages);
+            for (int i = 0; i < messages; i++) {
+                StringBuilder content = new StringBuilder();
+                int length = 5 + random.nextInt(25);
+                for (int w = 0; w < length; w++) {
+                    content.append(words[zipf(random)]).append(' ');
+                }
+                documents.add(new IndexableMessage(new UUID(0L, i), channelId, "user-" + random.nextInt(200),
+                        "user", null, content.toString(), start.plusSeconds(i), i + 1));
+            }
+            shard = new ChannelIndexShard();
+            documents.forEach(shard::add);
+
+            commonTerm = IndexQuery.parse(words[0] + " ");
+            rareTerm = IndexQuery.parse(words[VOCABULARY / 2] + " ");
+            typedPrefix = IndexQuery.parse(words[3].substring(0, 2));
+            twoTerms = IndexQuery.parse(words[1] + " " + words[40] + " ");
+            phrase = IndexQuery.parse('"' + words[0] + " " + words[1] + '"');
+        }
+
+        private static String word(Random random) {
+            int length = 3 + random.nextInt(7);
+            StringBuilder word = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            return word.toString();
+        }
+
+        // Inverse-CDF sample of a 1/rank distribution over the vocabulary
+        private static int zipf(Random random) {
+            return (int) Math.min(VOCABULARY - 1, Math.exp(random.nextDouble() * Math.log(VOCABULARY)) - 1);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+        ChannelIndexShard shard;
+        int next;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            shard = new ChannelIndexShard();
+            next = 0;
+        }
+    }
+
+    @Benchmark
+    public boolean indexMessage(Corpus corpus, Writer writer) {
+        IndexableMessage template = corpus.documents.get(writer.next % corpus.documents.size());
+        IndexableMessage message = new IndexableMessage(new UUID(1L, writer.next++), template.channelId(),
+                template.userId(), template.username(), null, template.content(), template.createdAt(),
+                template.seq());
+        return writer.shard.add(message);
+    }
+
+    @Benchmark
+    public int commonTerm(Corpus corpus) {
+        return corpus.shard.search(corpus.commonTerm, 10).size();
+    }
+
+    @Benchmark
+    public int rareTerm(Corpus corpus) {
+        return corpus.shard.search(corpus.rareTerm, 10).size();
+    }
+
+    @Benchmark
+    public int typedPrefix(Corpus corpus) {
+        return corpus.shard.search(corpus.typedPrefix, 10).size();
+    }
+
+    @Benchmark
+    public int twoTerms(Corpus corpus) {
+        return corpus.shard.search(corpus.twoTerms, 10).size();
+    }
+
+    @Benchmark
+    public int phrase(Corpus corpus) {
+        return corpus.shard.search(corpus.phrase, 10).size();
+    }
+}
@@ -0,0 +1,70 @@
+package com.gauntletai.agustinbiondi.chatgenius.search;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Autocomplete lookups over a directory of generated user names such as "ana-kovacs42".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PrefixIndexBenchmark {
+
+    @Param({"10000", "200000"})
+    public int names;
+
+    private PrefixIndex<String> index;
+
+    @Setup(Level.Trial)
+    public void build() {
+        Random random = new Random(7);
+        Map<String, String> all = new HashMap<>();
+        for (int i = 0; i < names; i++) {
+            all.put("user_" + i, syllables(random, 2) + "-" + syllables(random, 3) + random.nextInt(100));
+        }
+        index = new PrefixIndex<>();
+        index.putAllAbsent(all);
+    }
+
+    private static String syllables(Random random, int count) {
+        String[] parts = {"ag", "us", "tin", "ma", "ri", "ko", "va", "lu", "ne", "sa", "to", "bi", "on", "di"};
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            name.append(parts[random.nextInt(parts.length)]);
+        }
+        return name.toString();
+    }
+
+    @Benchmark
+    public int oneLetter() {
+        return index.lookup("a", 10, value -> true).size();
+    }
+
+    @Benchmark
+    public int twoLetters() {
+        return index.lookup("ag", 10, value -> true).size();
+    }
+
+    @Benchmark
+    public int selective() {
+        return index.lookup("agusti", 10, value -> true).size();
+    }
+
+    @Benchmark
+    public void put() {
+        index.put("user_0", "agustin-biondi");
+    }
+}
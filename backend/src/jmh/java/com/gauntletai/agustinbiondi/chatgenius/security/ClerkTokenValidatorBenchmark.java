@@ -0,0 +1,84 @@
+package com.gauntletai.agustinbiondi.chatgenius.security;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Session token verification, run on every authenticated request and STOMP CONNECT. The key
+ * comes from an in-memory provider, as it does from the JWKS cache once warm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ClerkTokenValidatorBenchmark {
+
+    private static final String ISSUER = "https://clerk.example.com";
+    private static final String KEY_ID = "ins_benchmark";
+
+    private ClerkTokenValidator validator;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keys = generator.generateKeyPair();
+        RSAPublicKey publicKey = (RSAPublicKey) keys.getPublic();
+
+        Jwk jwk = Jwk.fromValues(Map.of(
+                "kid", KEY_ID,
+                "kty", "RSA",
+                "alg", "RS256",
+                "use", "sig",
+                "n", base64Url(publicKey.getModulus()),
+                "e", base64Url(publicKey.getPublicExponent())));
+        validator = new ClerkTokenValidator(ISSUER, keyId -> jwk);
+
+        // Shaped like a Clerk session token
+        Instant now = Instant.now();
+        token = JWT.create()
+                .withKeyId(KEY_ID)
+                .withIssuer(ISSUER)
+                .withSubject("user_2abcDEFghiJKLmnoPQRstu")
+                .withClaim("azp", "http://localhost:5173")
+                .withClaim("sid", "sess_2abcDEFghiJKLmnoPQRstu")
+                .withIssuedAt(now)
+                .withNotBefore(now.minus(10, ChronoUnit.SECONDS))
+                .withExpiresAt(now.plus(1, ChronoUnit.DAYS))
+                .sign(Algorithm.RSA256(publicKey, (RSAPrivateKey) keys.getPrivate()));
+    }
+
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    @Benchmark
+    public String verifyToken() {
+        return validator.verifyToken(token);
+    }
+}
@@ -0,0 +1,57 @@
+package com.gauntletai.agustinbiondi.chatgenius.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HMAC verification of a Clerk webhook delivery, using a user.created payload of typical size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ClerkWebhookVerifierBenchmark {
+
+    private static final String SECRET = "whsec_MfKQ9r8GKYqrTwjUPD8ILPZIo2LaLaSw";
+    private static final String SVIX_ID = "msg_2abcDEFghiJKLmnoPQRstu";
+    private static final String SVIX_TIMESTAMP = "1735689600";
+
+    private ClerkWebhookVerifier verifier;
+    private String payload;
+    private String signature;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        verifier = new ClerkWebhookVerifier(SECRET);
+        payload = "{\"data\":{\"id\":\"user_2abcDEFghiJKLmnoPQRstu\",\"object\":\"user\",\"username\":\"agustin\","
+                + "\"first_name\":\"Agustin\",\"last_name\":\"Biondi\",\"image_url\":\"https://img.clerk.com/"
+                + "eyJ0eXBlIjoiZGVmYXVsdCIsImlpZCI6Imluc18yYWJjIiwicmlkIjoidXNlcl8yYWJjIn0\","
+                + "\"email_addresses\":[{\"id\":\"idn_2abcDEFghiJKLmnoPQRstu\",\"object\":\"email_address\","
+                + "\"email_address\":\"agustin@example.com\",\"verification\":{\"status\":\"verified\","
+                + "\"strategy\":\"email_code\"},\"linked_to\":[]}],\"primary_email_address_id\":"
+                + "\"idn_2abcDEFghiJKLmnoPQRstu\",\"phone_numbers\":[],\"external_accounts\":[],"
+                + "\"public_metadata\":{},\"private_metadata\":{},\"unsafe_metadata\":{},"
+                + "\"created_at\":1735689600000,\"updated_at\":1735689600000,\"last_sign_in_at\":null},"
+                + "\"object\":\"event\",\"type\":\"user.created\"}";
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        signature = "v1," + Base64.getEncoder().encodeToString(
+                mac.doFinal((SVIX_ID + "." + SVIX_TIMESTAMP + "." + payload).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return verifier.verify(SVIX_ID, SVIX_TIMESTAMP, payload, signature);
+    }
+}
@@ -0,0 +1,97 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.gauntletai.agustinbiondi.chatgenius.dto.ChannelDTO;
+import com.gauntletai.agustinbiondi.chatgenius.dto.MessageDTO;
+import com.gauntletai.agustinbiondi.chatgenius.model.Channel;
+import com.gauntletai.agustinbiondi.chatgenius.model.Message;
+import com.gauntletai.agustinbiondi.chatgenius.model.User;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelMembershipRepository;
+import com.gauntletai.agustinbiondi.chatgenius.util.UuidV7;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping as done for every message and channel returned or broadcast. The
+ * membership count in ChannelServiceImpl.toDTO is a database query in the application; here it
+ * is a constant, so the channel benchmark measures the mapping alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DtoMappingBenchmark {
+
+    private MessageServiceImpl messageService;
+    private ChannelServiceImpl channelService;
+    private Message message;
+    private Message reply;
+    private Channel channel;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        messageService = new MessageServiceImpl(null, null, null, null);
+        ChannelMembershipRepository memberships = (ChannelMembershipRepository) Proxy.newProxyInstance(
+                ChannelMembershipRepository.class.getClassLoader(), new Class<?>[] {ChannelMembershipRepository.class},
+                (proxy, method, args) -> method.getName().equals("countByChannelId") ? 42L : null);
+        channelService = new ChannelServiceImpl(null, null, memberships, null, null, null, null, null, null, null,
+                null, null);
+
+        User author = User.builder()
+                .userId("user_2abcDEFghiJKLmnoPQRstu")
+                .username("agustin")
+                .email("agustin@example.com")
+                .role(User.Role.USER)
+                .build();
+        Instant now = Instant.now();
+        channel = Channel.builder()
+                .id(UuidV7.generate())
+                .name("general")
+                .description("Company-wide announcements and work-based matters")
+                .createdBy(author)
+                .createdAt(now)
+                .build();
+        message = Message.builder()
+                .id(UuidV7.generate())
+                .content("Deploy is done, the new search is live for everyone. Let me know if anything looks off.")
+                .seq(1234L)
+                .createdBy(author)
+                .channel(channel)
+                .createdAt(now)
+                .build();
+        reply = Message.builder()
+                .id(UuidV7.generate())
+                .content("Looks great, thanks!")
+                .seq(1235L)
+                .createdBy(author)
+                .channel(channel)
+                .parent(message)
+                .createdAt(now)
+                .editedAt(now)
+                .isEdited(true)
+                .build();
+    }
+
+    @Benchmark
+    public MessageDTO messageToDTO() {
+        return messageService.toDTO(message, "agustin");
+    }
+
+    @Benchmark
+    public MessageDTO editedReplyToDTO() {
+        return messageService.toDTO(reply, "agustin");
+    }
+
+    @Benchmark
+    public ChannelDTO channelToDTO() {
+        return channelService.toDTO(channel);
+    }
+}
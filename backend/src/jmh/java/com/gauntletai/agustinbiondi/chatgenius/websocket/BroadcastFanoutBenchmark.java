@@ -0,0 +1,121 @@
+package com.gauntletai.agustinbiondi.chatgenius.websocket;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.messaging.StompSubProtocolHandler;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One broadcast on /topic/messages reaching every subscriber: the simple broker matching
+ * subscriptions and copying the message per session, then the STOMP encoding of one frame
+ * per session. Sessions are stubs that only count the bytes handed to them, so the socket
+ * write is not included. Channels run inline, where the application hands work to executors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BroadcastFanoutBenchmark {
+
+    private static final String DESTINATION = "/topic/messages";
+
+    @Param({"100", "1000"})
+    public int subscribers;
+
+    private SimpleBrokerMessageHandler broker;
+    private Message<byte[]> broadcast;
+    private long bytesSent;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StompSubProtocolHandler stomp = new StompSubProtocolHandler();
+        Map<String, WebSocketSession> sessions = new HashMap<>();
+        MessageChannel clientOutbound = (message, timeout) -> {
+            stomp.handleMessageToClient(sessions.get(SimpMessageHeaderAccessor.getSessionId(message.getHeaders())),
+                    message);
+            return true;
+        };
+        broker = new SimpleBrokerMessageHandler(new ExecutorSubscribableChannel(), clientOutbound,
+                new ExecutorSubscribableChannel(), List.of("/topic", "/queue"));
+        broker.start();
+
+        for (int i = 0; i < subscribers; i++) {
+            String sessionId = "session-" + i;
+            sessions.put(sessionId, session(sessionId));
+            broker.handleMessage(message(SimpMessageType.CONNECT, sessionId, null));
+            broker.handleMessage(message(SimpMessageType.SUBSCRIBE, sessionId, "sub-0"));
+        }
+
+        String json = "{\"id\":\"01942f3a-7b2c-7d4e-9f10-2a3b4c5d6e7f\",\"content\":\"Deploy is done, the new "
+                + "search is live for everyone. Let me know if anything looks off.\",\"createdBy\":"
+                + "\"user_2abcDEFghiJKLmnoPQRstu\",\"username\":\"agustin\",\"channelId\":"
+                + "\"01942f3a-0000-7d4e-9f10-2a3b4c5d6e7f\",\"parentId\":null,\"seq\":1234,\"createdAt\":"
+                + "\"2025-01-01T00:00:00Z\",\"editedAt\":null,\"reactions\":[],\"replyCount\":0,"
+                + "\"topReplies\":[],\"edited\":false}";
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setDestination(DESTINATION);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        broadcast = MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8), headers.getMessageHeaders());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        broker.stop();
+    }
+
+    private static Message<byte[]> message(SimpMessageType type, String sessionId, String subscriptionId) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(type);
+        headers.setSessionId(sessionId);
+        if (subscriptionId != null) {
+            headers.setSubscriptionId(subscriptionId);
+            headers.setDestination(DESTINATION);
+        }
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+
+    private WebSocketSession session(String id) {
+        Map<String, Object> attributes = new HashMap<>();
+        return (WebSocketSession) Proxy.newProxyInstance(WebSocketSession.class.getClassLoader(),
+                new Class<?>[] {WebSocketSession.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getId" -> id;
+                    case "isOpen" -> true;
+                    case "getAttributes" -> attributes;
+                    case "sendMessage" -> {
+                        bytesSent += ((WebSocketMessage<?>) args[0]).getPayloadLength();
+                        yield null;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    @Benchmark
+    public long broadcast() {
+        broker.handleMessage(broadcast);
+        return bytesSent;
+    }
+}
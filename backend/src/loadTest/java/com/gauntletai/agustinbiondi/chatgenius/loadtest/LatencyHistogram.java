@@ -0,0 +1,84 @@
+package com.gauntletai.agustinbiondi.chatgenius.loadtest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies in microseconds, counted in log-linear buckets: exact below 128 us, then 64
+ * buckets per power of two, so any percentile is within about 1.6% of the recorded value.
+ * Recording is a single atomic increment, cheap enough to call for every delivery on every
+ * client thread.
+ */
+final class LatencyHistogram {
+
+	private static final int SUB_BUCKETS = 64;
+	private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+	// Up to 2^40 us, about 12 days, which no measurement here gets near
+	private static final int BUCKETS = LINEAR_LIMIT + 34 * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder total = new LongAdder();
+	private final LongAdder sumMicros = new LongAdder();
+	private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+	void recordNanos(long nanos) {
+		long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+		counts.incrementAndGet(Math.min(BUCKETS - 1, index(micros)));
+		total.increment();
+		sumMicros.add(micros);
+		maxMicros.accumulate(micros);
+	}
+
+	long count() {
+		return total.sum();
+	}
+
+	double meanMillis() {
+		long count = count();
+		return count == 0 ? 0 : sumMicros.sum() / 1000.0 / count;
+	}
+
+	double maxMillis() {
+		return maxMicros.get() / 1000.0;
+	}
+
+	/**
+	 * The latency at or below which {@code percentile} percent of the recordings fall, in
+	 * milliseconds; the upper bound of the bucket it lands in.
+	 */
+	double percentileMillis(double percentile) {
+		long count = count();
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(upperBound(i), maxMicros.get()) / 1000.0;
+			}
+		}
+		return maxMillis();
+	}
+
+	private static int index(long micros) {
+		if (micros < LINEAR_LIMIT) {
+			return (int) micros;
+		}
+		// micros >> shift lands in [64, 128): the top seven bits pick the bucket
+		int shift = 63 - Long.numberOfLeadingZeros(micros) - 6;
+		return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (int) (micros >> shift) - SUB_BUCKETS;
+	}
+
+	private static long upperBound(int index) {
+		if (index < LINEAR_LIMIT) {
+			return index;
+		}
+		int shift = (index - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+		long top = (index - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+		return ((top + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,87 @@
+package com.gauntletai.agustinbiondi.chatgenius.loadtest;
+
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the process while a scenario runs: CPU, heap, threads and GC, plus the queue depth
+ * of the server's STOMP channel executors, which is where a saturated broker shows first.
+ * Clients run in the same JVM, so CPU, heap and GC include their share.
+ */
+final class ResourceSampler implements AutoCloseable {
+
+	record Usage(double avgCpuPercent, double maxCpuPercent, long maxHeapMb, int maxThreads, long gcCount,
+				 long gcMillis, Map<String, Integer> maxQueueDepth) {}
+
+	private static final long INTERVAL_MS = 500;
+
+	private final com.sun.management.OperatingSystemMXBean os =
+			(com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+	private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+	private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+	private final Map<String, ThreadPoolTaskExecutor> executors;
+	private final Map<String, Integer> maxQueueDepth = new TreeMap<>();
+	private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "loadtest-sampler");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final long gcCountAtStart;
+	private final long gcMillisAtStart;
+
+	private double cpuSum;
+	private double cpuMax;
+	private int cpuSamples;
+	private long heapMax;
+	private int threadsMax;
+
+	ResourceSampler(Map<String, ThreadPoolTaskExecutor> executors) {
+		this.executors = executors;
+		executors.keySet().forEach(name -> maxQueueDepth.put(name, 0));
+		gcCountAtStart = gcCount();
+		gcMillisAtStart = gcMillis();
+		timer.scheduleAtFixedRate(this::sample, 0, INTERVAL_MS, TimeUnit.MILLISECONDS);
+	}
+
+	synchronized Usage usage() {
+		return new Usage(cpuSamples == 0 ? 0 : cpuSum / cpuSamples, cpuMax, heapMax / (1024 * 1024), threadsMax,
+				gcCount() - gcCountAtStart, gcMillis() - gcMillisAtStart, new TreeMap<>(maxQueueDepth));
+	}
+
+	@Override
+	public void close() {
+		timer.shutdownNow();
+	}
+
+	private synchronized void sample() {
+		double cpu = os.getProcessCpuLoad();
+		if (cpu >= 0) {
+			cpuSum += cpu * 100;
+			cpuMax = Math.max(cpuMax, cpu * 100);
+			cpuSamples++;
+		}
+		heapMax = Math.max(heapMax, memory.getHeapMemoryUsage().getUsed());
+		threadsMax = Math.max(threadsMax, threads.getThreadCount());
+		executors.forEach((name, executor) ->
+				maxQueueDepth.merge(name, executor.getThreadPoolExecutor().getQueue().size(), Math::max));
+	}
+
+	private static long gcCount() {
+		return ManagementFactory.getGarbageCollectorMXBeans().stream()
+				.mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+	}
+
+	private static long gcMillis() {
+		return ManagementFactory.getGarbageCollectorMXBeans().stream()
+				.mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+	}
+}
@@ -0,0 +1,57 @@
+package com.gauntletai.agustinbiondi.chatgenius.loadtest;
+
+import java.time.Duration;
+
+/**
+ * The fixed load shapes run before a release. Every message is broadcast on /topic/messages,
+ * so each one is delivered to every connected client: deliveries per second are
+ * {@code clients * messagesPerSecond}. Change a scenario only together with its budget, so
+ * results stay comparable from one release to the next.
+ */
+enum Scenario {
+
+	/**
+	 * A quick end-to-end check of the harness and the server wiring.
+	 */
+	SMOKE(50, 5, 20, 0.1, Duration.ofSeconds(5), Duration.ofSeconds(15), 250),
+
+	/**
+	 * A busy workspace: a thousand people online, steady chatter across many channels.
+	 */
+	STEADY(1000, 50, 50, 0.2, Duration.ofSeconds(15), Duration.ofSeconds(60), 500),
+
+	/**
+	 * Broadcast pressure: many clients and modest traffic, dominated by outbound fan-out.
+	 */
+	FANOUT(3000, 20, 20, 0.05, Duration.ofSeconds(20), Duration.ofSeconds(60), 1000),
+
+	/**
+	 * Write pressure: fewer clients sending fast, dominated by the group-commit pipeline.
+	 */
+	BURST(200, 20, 1000, 0.1, Duration.ofSeconds(10), Duration.ofSeconds(30), 1000);
+
+	final int clients;
+	final int channels;
+	final int messagesPerSecond;
+	/**
+	 * Chance that a sent message also gets a reaction once its author sees it delivered.
+	 */
+	final double reactionRatio;
+	final Duration warmup;
+	final Duration duration;
+	/**
+	 * Highest acceptable p99 send-to-deliver latency, in milliseconds.
+	 */
+	final long p99BudgetMillis;
+
+	Scenario(int clients, int channels, int messagesPerSecond, double reactionRatio, Duration warmup,
+			 Duration duration, long p99BudgetMillis) {
+		this.clients = clients;
+		this.channels = channels;
+		this.messagesPerSecond = messagesPerSecond;
+		this.reactionRatio = reactionRatio;
+		this.warmup = warmup;
+		this.duration = duration;
+		this.p99BudgetMillis = p99BudgetMillis;
+	}
+}
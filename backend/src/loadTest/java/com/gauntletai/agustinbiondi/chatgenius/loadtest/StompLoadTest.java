@@ -0,0 +1,527 @@
+package com.gauntletai.agustinbiondi.chatgenius.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gauntletai.agustinbiondi.chatgenius.model.Channel;
+import com.gauntletai.agustinbiondi.chatgenius.model.User;
+import com.gauntletai.agustinbiondi.chatgenius.util.UuidV7;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end STOMP load scenarios against the application running in this JVM, the way the
+ * browser client uses it: SockJS connections authenticated with a bearer token, subscribed
+ * to /topic/messages and /topic/reactions, sending through /app/channels/{id}/messages and
+ * reacting over REST. Tokens come from {@link StubTokenIssuer} instead of Clerk. Each
+ * scenario reports send-to-deliver latency percentiles for messages and reactions,
+ * throughput and resource usage, prints them and writes them to
+ * build/reports/loadtest/&lt;scenario&gt;.json. It fails on lost deliveries or when the p99
+ * message latency is over the scenario's budget.
+ * <p>
+ * Skipped unless LOADTEST_DB_URL points at a disposable database; the schema is created on
+ * startup and every run adds its own users, channels and messages, e.g.
+ * <pre>
+ * ulimit -n 65536
+ * LOADTEST_DB_URL=jdbc:postgresql://localhost:5432/chatgenius_load ./gradlew loadTest --tests '*StompLoadTest.steady'
+ * </pre>
+ * LOADTEST_DB_USER and LOADTEST_DB_PASSWORD are optional. Run on a quiet machine and compare
+ * with the previous release's reports.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("prod")
+@EnabledIfEnvironmentVariable(named = "LOADTEST_DB_URL", matches = ".+")
+class StompLoadTest {
+
+	private static final int CONNECT_WAVE = 200;
+	private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(30);
+	private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(15);
+	private static final long TICK_MS = 10;
+	private static final String MARKER = "loadtest ";
+	private static final String REACTION = URLEncoder.encode("👍", StandardCharsets.UTF_8);
+
+	private static final StubTokenIssuer issuer = startIssuer();
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private ApplicationContext context;
+
+	@DynamicPropertySource
+	static void properties(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", () -> System.getenv("LOADTEST_DB_URL"));
+		registry.add("spring.datasource.username", () -> env("LOADTEST_DB_USER", "postgres"));
+		registry.add("spring.datasource.password", () -> env("LOADTEST_DB_PASSWORD", "postgres"));
+		registry.add("clerk.issuer", issuer::issuer);
+		registry.add("clerk.secret-key", () -> "loadtest");
+		registry.add("clerk.webhook-secret", () -> "loadtest");
+		// Production logs every message at INFO, which would bury the report
+		registry.add("logging.level.com.gauntletai", () -> "WARN");
+	}
+
+	@AfterAll
+	static void stopIssuer() {
+		issuer.close();
+	}
+
+	@Test
+	void smoke() throws Exception {
+		run(Scenario.SMOKE);
+	}
+
+	@Test
+	void steady() throws Exception {
+		run(Scenario.STEADY);
+	}
+
+	@Test
+	void fanout() throws Exception {
+		run(Scenario.FANOUT);
+	}
+
+	@Test
+	void burst() throws Exception {
+		run(Scenario.BURST);
+	}
+
+	private void run(Scenario scenario) throws Exception {
+		List<UUID> channels = createWorkspace(scenario);
+		Run run = new Run(scenario);
+		WebSocketStompClient stompClient = new WebSocketStompClient(
+				new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+		stompClient.setDefaultHeartbeat(new long[] {0, 0});
+		HttpClient http = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+
+		List<LoadClient> clients = new ArrayList<>(scenario.clients);
+		for (int i = 0; i < scenario.clients; i++) {
+			clients.add(new LoadClient(i, userId(scenario, i), channels.get(i % channels.size()), run, http,
+					"http://localhost:" + port));
+		}
+		try (ResourceSampler sampler = new ResourceSampler(channelExecutors())) {
+			connect(stompClient, clients, run);
+			drive(clients, run);
+			awaitDeliveries(run);
+			Report report = run.report(sampler.usage(), String.valueOf(context.getBean("webSocketMessageBrokerStats")));
+			publish(scenario, report);
+
+			assertThat(report.sendErrors()).as("messages the server did not accept").isZero();
+			assertThat(report.transportErrors()).as("connections that failed during the run").isZero();
+			assertThat(report.lostDeliveries()).as("message deliveries still missing after the drain").isZero();
+			assertThat(report.reactionErrors()).as("reactions the server did not accept").isZero();
+			assertThat(report.lostReactionDeliveries()).as("reaction deliveries still missing after the drain").isZero();
+			assertThat(report.message().p99Ms()).as("p99 send-to-deliver latency in ms")
+					.isLessThanOrEqualTo(scenario.p99BudgetMillis);
+		} finally {
+			clients.forEach(LoadClient::disconnect);
+			stompClient.stop();
+		}
+	}
+
+	/**
+	 * One user per client and public channels with every client as a member of one of them,
+	 * written directly so setup time does not depend on the API under test.
+	 */
+	private List<UUID> createWorkspace(Scenario scenario) {
+		Timestamp now = Timestamp.from(Instant.now());
+		List<Object[]> users = new ArrayList<>(scenario.clients);
+		for (int i = 0; i < scenario.clients; i++) {
+			String userId = userId(scenario, i);
+			users.add(new Object[] {userId, userId, userId + "@loadtest.invalid", User.Role.USER.name(), now});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO users (user_id, username, email, role, created_at) VALUES (?, ?, ?, ?, ?) "
+				+ "ON CONFLICT (user_id) DO NOTHING", users);
+
+		String runId = Long.toString(System.currentTimeMillis(), 36);
+		List<UUID> channels = new ArrayList<>(scenario.channels);
+		List<Object[]> channelRows = new ArrayList<>(scenario.channels);
+		for (int c = 0; c < scenario.channels; c++) {
+			UUID id = UuidV7.generate();
+			channels.add(id);
+			channelRows.add(new Object[] {id, "loadtest-" + runId + "-" + c, "Load test " + scenario,
+					Channel.Type.PUBLIC.name(), userId(scenario, c % scenario.clients), now});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO channels (id, name, description, type, created_by, created_at) "
+				+ "VALUES (?, ?, ?, ?, ?, ?)", channelRows);
+
+		List<Object[]> memberships = new ArrayList<>(scenario.clients);
+		for (int i = 0; i < scenario.clients; i++) {
+			memberships.add(new Object[] {UuidV7.generate(), channels.get(i % channels.size()), userId(scenario, i), now, now});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO channel_memberships (id, channel_id, user_id, joined_at, last_read_at) "
+				+ "VALUES (?, ?, ?, ?, ?)", memberships);
+		return channels;
+	}
+
+	private void connect(WebSocketStompClient stompClient, List<LoadClient> clients, Run run) throws Exception {
+		String url = "http://localhost:" + port + "/ws";
+		for (int from = 0; from < clients.size(); from += CONNECT_WAVE) {
+			List<CompletableFuture<StompSession>> wave = new ArrayList<>(CONNECT_WAVE);
+			for (LoadClient client : clients.subList(from, Math.min(clients.size(), from + CONNECT_WAVE))) {
+				StompHeaders connectHeaders = new StompHeaders();
+				connectHeaders.add("Authorization", "Bearer " + client.token);
+				client.connectStarted = System.nanoTime();
+				wave.add(stompClient.connectAsync(url, new WebSocketHttpHeaders(), connectHeaders, client)
+						.orTimeout(CONNECT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+			}
+			CompletableFuture.allOf(wave.toArray(CompletableFuture[]::new)).get();
+		}
+		// Subscriptions are processed asynchronously; the warmup covers the rest
+		run.connected = clients.size();
+	}
+
+	/**
+	 * Send at the scenario's rate from one timer thread, spreading messages over the clients
+	 * round-robin, through the warmup and the measured window.
+	 */
+	private void drive(List<LoadClient> clients, Run run) throws InterruptedException {
+		ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+		long start = System.nanoTime();
+		run.measureFrom = start + run.scenario.warmup.toNanos();
+		run.measureUntil = run.measureFrom + run.scenario.duration.toNanos();
+		AtomicLong sent = new AtomicLong();
+		timer.scheduleAtFixedRate(() -> {
+			long now = System.nanoTime();
+			long due = (now - start) * run.scenario.messagesPerSecond / 1_000_000_000L;
+			while (sent.get() < due && System.nanoTime() < run.measureUntil) {
+				clients.get((int) (sent.getAndIncrement() % clients.size())).sendMessage();
+			}
+		}, 0, TICK_MS, TimeUnit.MILLISECONDS);
+		Thread.sleep(TimeUnit.NANOSECONDS.toMillis(run.measureUntil - start));
+		timer.shutdown();
+		timer.awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	private void awaitDeliveries(Run run) throws InterruptedException {
+		long deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+		while (System.nanoTime() < deadline
+				&& (run.messageLatency.count() < run.expectedDeliveries()
+				|| run.reactionLatency.count() < run.expectedReactionDeliveries()
+				|| run.reactionsInFlight.sum() > 0)) {
+			Thread.sleep(100);
+		}
+	}
+
+	private Map<String, ThreadPoolTaskExecutor> channelExecutors() {
+		Map<String, ThreadPoolTaskExecutor> executors = new LinkedHashMap<>();
+		context.getBeansOfType(ThreadPoolTaskExecutor.class).forEach((name, executor) -> {
+			if (name.endsWith("ChannelExecutor")) {
+				executors.put(name, executor);
+			}
+		});
+		return executors;
+	}
+
+	private void publish(Scenario scenario, Report report) throws IOException {
+		System.out.println(report.describe());
+		Path dir = Path.of(System.getProperty("loadtest.reportDir", "build/reports/loadtest"));
+		Files.createDirectories(dir);
+		Path file = dir.resolve(scenario.name().toLowerCase() + ".json");
+		objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+		System.out.println("Report written to " + file.toAbsolutePath());
+	}
+
+	private static String userId(Scenario scenario, int client) {
+		return "loadtest-" + scenario.name().toLowerCase() + "-" + client;
+	}
+
+	private static StubTokenIssuer startIssuer() {
+		try {
+			return new StubTokenIssuer();
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not start the stub token issuer", e);
+		}
+	}
+
+	private static String env(String name, String defaultValue) {
+		String value = System.getenv(name);
+		return value != null && !value.isBlank() ? value : defaultValue;
+	}
+
+	/**
+	 * Shared state of one scenario run. Only messages sent inside the measured window count;
+	 * each of them is expected at every client.
+	 */
+	private static final class Run {
+
+		final Scenario scenario;
+		final LatencyHistogram messageLatency = new LatencyHistogram();
+		final LatencyHistogram reactionLatency = new LatencyHistogram();
+		final LatencyHistogram connectLatency = new LatencyHistogram();
+		final LongAdder sent = new LongAdder();
+		final LongAdder sendErrors = new LongAdder();
+		final LongAdder transportErrors = new LongAdder();
+		final LongAdder reactionsAccepted = new LongAdder();
+		final LongAdder reactionsInFlight = new LongAdder();
+		final LongAdder reactionErrors = new LongAdder();
+		// Message id to the time its reaction was posted
+		final Map<String, Long> reactedAt = new ConcurrentHashMap<>();
+		volatile long measureFrom = Long.MAX_VALUE;
+		volatile long measureUntil = Long.MAX_VALUE;
+		volatile int connected;
+
+		Run(Scenario scenario) {
+			this.scenario = scenario;
+		}
+
+		boolean measured(long sentAt) {
+			return sentAt >= measureFrom && sentAt < measureUntil;
+		}
+
+		long expectedDeliveries() {
+			return sent.sum() * connected;
+		}
+
+		long expectedReactionDeliveries() {
+			return reactionsAccepted.sum() * connected;
+		}
+
+		Report report(ResourceSampler.Usage usage, String brokerStats) {
+			double seconds = scenario.duration.toNanos() / 1e9;
+			return new Report(scenario.name(), scenario.clients, scenario.channels, scenario.messagesPerSecond,
+					scenario.duration.toSeconds(), sent.sum() / seconds, messageLatency.count() / seconds,
+					sent.sum(), sendErrors.sum(), transportErrors.sum(), expectedDeliveries() - messageLatency.count(),
+					reactionsAccepted.sum(), reactionErrors.sum(),
+					expectedReactionDeliveries() - reactionLatency.count(),
+					Percentiles.of(messageLatency), Percentiles.of(reactionLatency), Percentiles.of(connectLatency),
+					usage, brokerStats);
+		}
+	}
+
+	record Percentiles(long count, double meanMs, double p50Ms, double p90Ms, double p99Ms, double p999Ms,
+					   double maxMs) {
+
+		static Percentiles of(LatencyHistogram histogram) {
+			return new Percentiles(histogram.count(), histogram.meanMillis(), histogram.percentileMillis(50),
+					histogram.percentileMillis(90), histogram.percentileMillis(99), histogram.percentileMillis(99.9),
+					histogram.maxMillis());
+		}
+
+		String describe() {
+			return String.format("n=%,d mean=%.1f p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f ms",
+					count, meanMs, p50Ms, p90Ms, p99Ms, p999Ms, maxMs);
+		}
+	}
+
+	record Report(String scenario, int clients, int channels, int targetMessagesPerSecond, long durationSeconds,
+				  double messagesPerSecond, double deliveriesPerSecond, long sent, long sendErrors, long transportErrors,
+				  long lostDeliveries, long reactions, long reactionErrors, long lostReactionDeliveries,
+				  Percentiles message, Percentiles reaction, Percentiles connect, ResourceSampler.Usage resources,
+				  String brokerStats) {
+
+		String describe() {
+			return String.join(System.lineSeparator(),
+					String.format("Load scenario %s: %,d clients, %d channels, %d msg/s for %d s",
+							scenario, clients, channels, targetMessagesPerSecond, durationSeconds),
+					String.format("  throughput  %,.0f msg/s sent, %,.0f deliveries/s", messagesPerSecond,
+							deliveriesPerSecond),
+					String.format("  messages    %,d sent, %,d rejected, %,d transport errors, %,d deliveries lost",
+							sent, sendErrors, transportErrors, lostDeliveries),
+					"  message     " + message.describe(),
+					String.format("  reactions   %,d posted, %,d rejected, %,d deliveries lost", reactions,
+							reactionErrors, lostReactionDeliveries),
+					"  reaction    " + reaction.describe(),
+					"  connect     " + connect.describe(),
+					String.format("  resources   cpu avg %.0f%% max %.0f%%, heap max %,d MB, threads max %d, "
+									+ "gc %d collections %,d ms", resources.avgCpuPercent(), resources.maxCpuPercent(),
+							resources.maxHeapMb(), resources.maxThreads(), resources.gcCount(), resources.gcMillis()),
+					"  queues      max depth " + resources.maxQueueDepth(),
+					"  broker      " + brokerStats);
+		}
+	}
+
+	/**
+	 * One simulated user: a STOMP session subscribed like the browser client. Deliveries are
+	 * matched by scanning the raw frame for the marker rather than parsing JSON, so thousands
+	 * of clients reading every broadcast do not turn the harness into the bottleneck.
+	 */
+	private static final class LoadClient extends StompSessionHandlerAdapter {
+
+		private final int index;
+		private final String token;
+		private final UUID channelId;
+		private final Run run;
+		private final HttpClient http;
+		private final String baseUrl;
+		private volatile StompSession session;
+		volatile long connectStarted;
+
+		LoadClient(int index, String userId, UUID channelId, Run run, HttpClient http, String baseUrl) {
+			this.index = index;
+			// Signed once and reused for the connection and every reaction
+			this.token = issuer.token(userId);
+			this.channelId = channelId;
+			this.run = run;
+			this.http = http;
+			this.baseUrl = baseUrl;
+		}
+
+		@Override
+		public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+			this.session = session;
+			run.connectLatency.recordNanos(System.nanoTime() - connectStarted);
+			session.subscribe("/topic/messages", new RawFrames(this::onMessage));
+			session.subscribe("/topic/reactions", new RawFrames(this::onReaction));
+			session.subscribe("/user/queue/unread", new RawFrames(payload -> {}));
+		}
+
+		@Override
+		public void handleException(StompSession session, StompCommand command, StompHeaders headers,
+									byte[] payload, Throwable exception) {
+			run.sendErrors.increment();
+		}
+
+		@Override
+		public void handleTransportError(StompSession session, Throwable exception) {
+			run.transportErrors.increment();
+		}
+
+		@Override
+		public void handleFrame(StompHeaders headers, Object payload) {
+			// An ERROR frame from the server, typically a rejected send
+			run.sendErrors.increment();
+		}
+
+		void sendMessage() {
+			long sentAt = System.nanoTime();
+			String body = "{\"channelId\":\"" + channelId + "\",\"content\":\"" + MARKER + sentAt + " " + index + "\"}";
+			StompHeaders headers = new StompHeaders();
+			headers.setDestination("/app/channels/" + channelId + "/messages");
+			headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+			try {
+				session.send(headers, body.getBytes(StandardCharsets.UTF_8));
+				if (run.measured(sentAt)) {
+					run.sent.increment();
+				}
+			} catch (RuntimeException e) {
+				run.sendErrors.increment();
+			}
+		}
+
+		void disconnect() {
+			StompSession current = session;
+			if (current != null && current.isConnected()) {
+				current.disconnect();
+			}
+		}
+
+		private void onMessage(String frame) {
+			long now = System.nanoTime();
+			int at = frame.indexOf(MARKER);
+			if (at < 0) {
+				return;
+			}
+			int timeStart = at + MARKER.length();
+			int timeEnd = frame.indexOf(' ', timeStart);
+			long sentAt = Long.parseLong(frame, timeStart, timeEnd, 10);
+			if (!run.measured(sentAt)) {
+				return;
+			}
+			run.messageLatency.recordNanos(now - sentAt);
+			int author = Integer.parseInt(frame, timeEnd + 1, frame.indexOf('"', timeEnd + 1), 10);
+			if (author == index && ThreadLocalRandom.current().nextDouble() < run.scenario.reactionRatio) {
+				react(field(frame, "\"id\":\""));
+			}
+		}
+
+		private void onReaction(String frame) {
+			long now = System.nanoTime();
+			Long reactedAt = run.reactedAt.get(field(frame, "\"messageId\":\""));
+			if (reactedAt != null) {
+				run.reactionLatency.recordNanos(now - reactedAt);
+			}
+		}
+
+		private void react(String messageId) {
+			HttpRequest request = HttpRequest.newBuilder(
+							URI.create(baseUrl + "/api/messages/" + messageId + "/reactions?emoji=" + REACTION))
+					.header("Authorization", "Bearer " + token)
+					.POST(HttpRequest.BodyPublishers.noBody())
+					.build();
+			run.reactionsInFlight.increment();
+			run.reactedAt.put(messageId, System.nanoTime());
+			http.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+				if (error == null && response.statusCode() == 200) {
+					run.reactionsAccepted.increment();
+				} else {
+					run.reactedAt.remove(messageId);
+					run.reactionErrors.increment();
+				}
+				run.reactionsInFlight.decrement();
+			});
+		}
+
+		private static String field(String frame, String prefix) {
+			int start = frame.indexOf(prefix) + prefix.length();
+			return frame.substring(start, frame.indexOf('"', start));
+		}
+	}
+
+	private record RawFrames(Consumer<String> consumer) implements StompFrameHandler {
+
+		@Override
+		public Type getPayloadType(StompHeaders headers) {
+			return byte[].class;
+		}
+
+		@Override
+		public void handleFrame(StompHeaders headers, Object payload) {
+			consumer.accept(new String((byte[]) payload, StandardCharsets.UTF_8));
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package com.gauntletai.agustinbiondi.chatgenius.loadtest;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Stands in for Clerk: serves a JWKS document on a local port and signs RS256 session tokens
+ * with the matching key. Point clerk.issuer at {@link #issuer()} and the server verifies the
+ * tokens through its normal path, fetching and caching the key like it does in production.
+ */
+final class StubTokenIssuer implements AutoCloseable {
+
+	private static final String KEY_ID = "loadtest";
+	private static final Duration TOKEN_TTL = Duration.ofHours(2);
+
+	private final RSAPublicKey publicKey;
+	private final Algorithm algorithm;
+	private final HttpServer server;
+	private final String issuer;
+
+	StubTokenIssuer() throws IOException {
+		KeyPair keys;
+		try {
+			KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+			generator.initialize(2048);
+			keys = generator.generateKeyPair();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		publicKey = (RSAPublicKey) keys.getPublic();
+		algorithm = Algorithm.RSA256(publicKey, (RSAPrivateKey) keys.getPrivate());
+
+		byte[] jwks = jwks().getBytes(StandardCharsets.UTF_8);
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/.well-known/jwks.json", exchange -> {
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, jwks.length);
+			try (OutputStream body = exchange.getResponseBody()) {
+				body.write(jwks);
+			}
+		});
+		server.start();
+		issuer = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+	}
+
+	String issuer() {
+		return issuer;
+	}
+
+	/**
+	 * A session token for the user, valid long enough for any scenario.
+	 */
+	String token(String userId) {
+		Instant now = Instant.now();
+		return JWT.create()
+				.withKeyId(KEY_ID)
+				.withIssuer(issuer)
+				.withSubject(userId)
+				.withIssuedAt(now)
+				.withExpiresAt(now.plus(TOKEN_TTL))
+				.sign(algorithm);
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+	}
+
+	private String jwks() {
+		return "{\"keys\":[{\"kty\":\"RSA\",\"use\":\"sig\",\"alg\":\"RS256\",\"kid\":\"" + KEY_ID + "\","
+				+ "\"n\":\"" + base64Url(publicKey.getModulus()) + "\","
+				+ "\"e\":\"" + base64Url(publicKey.getPublicExponent()) + "\"}]}";
+	}
+
+	/**
+	 * Unsigned big-endian bytes, as JWK expects, without the sign byte BigInteger may add.
+	 */
+	private static String base64Url(BigInteger value) {
+		byte[] bytes = value.toByteArray();
+		if (bytes.length > 1 && bytes[0] == 0) {
+			bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+}
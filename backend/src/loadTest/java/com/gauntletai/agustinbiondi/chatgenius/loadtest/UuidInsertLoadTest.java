@@ -0,0 +1,104 @@
+package com.gauntletai.agustinbiondi.chatgenius.loadtest;
+
+import com.gauntletai.agustinbiondi.chatgenius.util.UuidV7;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares insert throughput and primary key index size of random (v4) and time-ordered (v7)
+ * ids on a real Postgres, in tables it creates and drops again. Skipped unless LOADTEST_DB_URL
+ * points at a disposable database, e.g.
+ * <pre>
+ * LOADTEST_DB_URL=jdbc:postgresql://localhost:5432/chatgenius_load ./gradlew loadTest --tests '*UuidInsertLoadTest'
+ * </pre>
+ * LOADTEST_DB_USER, LOADTEST_DB_PASSWORD and LOADTEST_UUID_ROWS are optional.
+ */
+@EnabledIfEnvironmentVariable(named = "LOADTEST_DB_URL", matches = ".+")
+class UuidInsertLoadTest {
+
+	private static final int BATCH_SIZE = 1000;
+
+	@Test
+	void compareRandomAndTimeOrderedPrimaryKeys() throws SQLException {
+		int rows = Integer.parseInt(env("LOADTEST_UUID_ROWS", "500000"));
+		try (Connection connection = DriverManager.getConnection(
+				System.getenv("LOADTEST_DB_URL"),
+				env("LOADTEST_DB_USER", "postgres"),
+				env("LOADTEST_DB_PASSWORD", "postgres"))) {
+			// Warm up the connection and JIT before measuring
+			run(connection, "bench_uuid_warmup", UUID::randomUUID, 20_000);
+
+			Result v4 = run(connection, "bench_uuid_v4", UUID::randomUUID, rows);
+			Result v7 = run(connection, "bench_uuid_v7", UuidV7::generate, rows);
+
+			System.out.printf("UUID insert benchmark, %,d rows in batches of %d%n", rows, BATCH_SIZE);
+			System.out.printf("  v4: %,8d ms  %,10.0f rows/s  pkey %,d kB%n", v4.millis, v4.rowsPerSecond(rows), v4.indexBytes / 1024);
+			System.out.printf("  v7: %,8d ms  %,10.0f rows/s  pkey %,d kB%n", v7.millis, v7.rowsPerSecond(rows), v7.indexBytes / 1024);
+
+			assertThat(v4.rowCount).isEqualTo(rows);
+			assertThat(v7.rowCount).isEqualTo(rows);
+		}
+	}
+
+	private Result run(Connection connection, String table, Supplier<UUID> ids, int rows) throws SQLException {
+		try (Statement ddl = connection.createStatement()) {
+			ddl.execute("DROP TABLE IF EXISTS " + table);
+			ddl.execute("CREATE TABLE " + table + " (id UUID PRIMARY KEY, channel_id UUID NOT NULL, " +
+					"created_at TIMESTAMP WITH TIME ZONE NOT NULL, content TEXT NOT NULL)");
+		}
+
+		UUID channelId = UUID.randomUUID();
+		connection.setAutoCommit(false);
+		long start = System.nanoTime();
+		try (PreparedStatement insert = connection.prepareStatement(
+				"INSERT INTO " + table + " (id, channel_id, created_at, content) VALUES (?, ?, ?, ?)")) {
+			for (int i = 1; i <= rows; i++) {
+				insert.setObject(1, ids.get());
+				insert.setObject(2, channelId);
+				insert.setTimestamp(3, Timestamp.from(Instant.now()));
+				insert.setString(4, "benchmark message " + i);
+				insert.addBatch();
+				if (i % BATCH_SIZE == 0 || i == rows) {
+					insert.executeBatch();
+					connection.commit();
+				}
+			}
+		}
+		long millis = (System.nanoTime() - start) / 1_000_000;
+		connection.setAutoCommit(true);
+
+		try (Statement query = connection.createStatement();
+			 ResultSet rs = query.executeQuery("SELECT pg_relation_size('" + table + "_pkey'), " +
+					 "(SELECT COUNT(*) FROM " + table + ")")) {
+			rs.next();
+			Result result = new Result(millis, rs.getLong(1), rs.getLong(2));
+			query.execute("DROP TABLE " + table);
+			return result;
+		}
+	}
+
+	private static String env(String name, String defaultValue) {
+		String value = System.getenv(name);
+		return value != null && !value.isBlank() ? value : defaultValue;
+	}
+
+	private record Result(long millis, long indexBytes, long rowCount) {
+
+		double rowsPerSecond(int rows) {
+			return rows * 1000.0 / Math.max(1, millis);
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package com.gauntletai.agustinbiondi.chatgenius.aspect;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+
+/**
+ * Times STOMP handler methods the way Spring times HTTP requests in http.server.requests:
+ * one timer per mapping and outcome, tagged with the mapping pattern rather than the
+ * concrete destination so channel ids do not multiply the series.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class MessageHandlerMetricsAspect {
+
+    public static final String METRIC_NAME = "stomp.server.requests";
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("@annotation(org.springframework.messaging.handler.annotation.MessageMapping) "
+            + "|| @annotation(org.springframework.messaging.simp.annotation.SubscribeMapping)")
+    public Object timeHandler(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(METRIC_NAME)
+                    .description("STOMP messages handled by @MessageMapping and @SubscribeMapping methods")
+                    .tag("destination", destination(method))
+                    .tag("handler", method.getDeclaringClass().getSimpleName() + "." + method.getName())
+                    .tag("outcome", "none".equals(exception) ? "SUCCESS" : "ERROR")
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+
+    private static String destination(Method method) {
+        MessageMapping messageMapping = method.getAnnotation(MessageMapping.class);
+        if (messageMapping != null && messageMapping.value().length > 0) {
+            return messageMapping.value()[0];
+        }
+        SubscribeMapping subscribeMapping = method.getAnnotation(SubscribeMapping.class);
+        if (subscribeMapping != null && subscribeMapping.value().length > 0) {
+            return subscribeMapping.value()[0];
+        }
+        return "";
+    }
+}
@@ -0,0 +1,154 @@
+package com.gauntletai.agustinbiondi.chatgenius.config;
+
+import com.gauntletai.agustinbiondi.chatgenius.search.AutocompleteIndex;
+import com.gauntletai.agustinbiondi.chatgenius.search.MessageSearchIndex;
+import com.gauntletai.agustinbiondi.chatgenius.service.ChannelDirectoryCache;
+import com.gauntletai.agustinbiondi.chatgenius.service.ChannelEventBuffer;
+import com.gauntletai.agustinbiondi.chatgenius.service.MessageWritePipeline;
+import com.gauntletai.agustinbiondi.chatgenius.service.ReadReceiptBuffer;
+import com.gauntletai.agustinbiondi.chatgenius.service.UnreadCounters;
+import com.gauntletai.agustinbiondi.chatgenius.websocket.SessionResumeRegistry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.messaging.StompSubProtocolHandler;
+import org.springframework.web.socket.messaging.SubProtocolHandler;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Exposes the counters our in-memory components already keep as Micrometer meters.
+ * HTTP timers, the Hikari pool and the STOMP channel executors are bound by Spring Boot
+ * itself (http.server.requests, hikaricp.connections.*, executor.* tagged by bean name).
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder messagingMetrics(MessageWritePipeline writePipeline, UnreadCounters unreadCounters,
+                                        ReadReceiptBuffer readReceipts) {
+        return registry -> {
+            Gauge.builder("chatgenius.messages.write.queued", writePipeline, MessageWritePipeline::getQueueDepth)
+                    .description("Messages waiting in channel mailboxes to be written")
+                    .register(registry);
+            Gauge.builder("chatgenius.messages.write.mailbox.max", writePipeline,
+                            MessageWritePipeline::getMaxMailboxDepth)
+                    .description("Depth of the fullest channel mailbox")
+                    .register(registry);
+            Gauge.builder("chatgenius.messages.write.writers", writePipeline, MessageWritePipeline::getActiveWriters)
+                    .description("Channels with a live writer")
+                    .register(registry);
+            counter(registry, "chatgenius.messages.write.batches", writePipeline, MessageWritePipeline::getBatches);
+            counter(registry, "chatgenius.messages.written", writePipeline, MessageWritePipeline::getWrittenMessages);
+            counter(registry, "chatgenius.messages.write.evicted", writePipeline,
+                    MessageWritePipeline::getEvictedWriters);
+
+            Gauge.builder("chatgenius.unread.channels", unreadCounters, UnreadCounters::getLoadedChannels)
+                    .register(registry);
+            counter(registry, "chatgenius.unread.flushed", unreadCounters, UnreadCounters::getFlushedCounters);
+            counter(registry, "chatgenius.unread.pushed", unreadCounters, UnreadCounters::getPushedDeltas);
+
+            Gauge.builder("chatgenius.read.receipts.pending", readReceipts, ReadReceiptBuffer::getPendingReceipts)
+                    .register(registry);
+            counter(registry, "chatgenius.read.receipts.received", readReceipts,
+                    ReadReceiptBuffer::getReceivedReceipts);
+            counter(registry, "chatgenius.read.receipts.flushed", readReceipts, ReadReceiptBuffer::getFlushedReceipts);
+        };
+    }
+
+    @Bean
+    public MeterBinder websocketMetrics(@Qualifier("subProtocolWebSocketHandler") WebSocketHandler webSocketHandler,
+                                        SessionResumeRegistry sessionResumeRegistry) {
+        return registry -> {
+            if (webSocketHandler instanceof SubProtocolWebSocketHandler subProtocolHandler) {
+                SubProtocolWebSocketHandler.Stats sessions = subProtocolHandler.getStats();
+                Gauge.builder("stomp.sessions", sessions, SubProtocolWebSocketHandler.Stats::getWebSocketSessions)
+                        .tag("transport", "websocket")
+                        .description("Open STOMP sessions")
+                        .register(registry);
+                Gauge.builder("stomp.sessions", sessions, SubProtocolWebSocketHandler.Stats::getHttpStreamingSessions)
+                        .tag("transport", "http-streaming")
+                        .register(registry);
+                Gauge.builder("stomp.sessions", sessions, SubProtocolWebSocketHandler.Stats::getHttpPollingSessions)
+                        .tag("transport", "http-polling")
+                        .register(registry);
+                counter(registry, "stomp.sessions.closed", sessions,
+                        SubProtocolWebSocketHandler.Stats::getLimitExceededSessions, "reason", "limit-exceeded");
+                counter(registry, "stomp.sessions.closed", sessions,
+                        SubProtocolWebSocketHandler.Stats::getNoMessagesReceivedSessions, "reason", "no-messages");
+                counter(registry, "stomp.sessions.closed", sessions,
+                        SubProtocolWebSocketHandler.Stats::getTransportErrorSessions, "reason", "transport-error");
+                for (SubProtocolHandler protocolHandler : subProtocolHandler.getProtocolHandlers()) {
+                    if (protocolHandler instanceof StompSubProtocolHandler stompHandler) {
+                        StompSubProtocolHandler.Stats frames = stompHandler.getStats();
+                        counter(registry, "stomp.frames", frames,
+                                StompSubProtocolHandler.Stats::getTotalConnect, "command", "CONNECT");
+                        counter(registry, "stomp.frames", frames,
+                                StompSubProtocolHandler.Stats::getTotalConnected, "command", "CONNECTED");
+                        counter(registry, "stomp.frames", frames,
+                                StompSubProtocolHandler.Stats::getTotalDisconnect, "command", "DISCONNECT");
+                    }
+                }
+            }
+
+            Gauge.builder("stomp.subscriptions", sessionResumeRegistry, SessionResumeRegistry::getLiveSubscriptions)
+                    .description("Broker subscriptions held by live sessions")
+                    .register(registry);
+            Gauge.builder("stomp.sessions.detached", sessionResumeRegistry,
+                            SessionResumeRegistry::getDetachedSessions)
+                    .description("Disconnected sessions kept for resume")
+                    .register(registry);
+            counter(registry, "stomp.sessions.resumed", sessionResumeRegistry,
+                    SessionResumeRegistry::getResumedSessions);
+            counter(registry, "stomp.sessions.resume.failed", sessionResumeRegistry,
+                    SessionResumeRegistry::getFailedResumes);
+            counter(registry, "stomp.sessions.replayed.events", sessionResumeRegistry,
+                    SessionResumeRegistry::getReplayedEvents);
+        };
+    }
+
+    @Bean
+    public MeterBinder cacheMetrics(ChannelDirectoryCache channelDirectoryCache, ChannelEventBuffer channelEventBuffer,
+                                    MessageSearchIndex messageSearchIndex, AutocompleteIndex autocompleteIndex) {
+        return registry -> {
+            // Same names and tags as Spring's cache metrics, so hit ratio queries work across all caches
+            counter(registry, "cache.gets", channelDirectoryCache,
+                    ChannelDirectoryCache::getHits, "cache", "channel-directory", "result", "hit");
+            counter(registry, "cache.gets", channelDirectoryCache,
+                    ChannelDirectoryCache::getMisses, "cache", "channel-directory", "result", "miss");
+            counter(registry, "cache.gets", channelEventBuffer,
+                    ChannelEventBuffer::getHits, "cache", "channel-events", "result", "hit");
+            counter(registry, "cache.gets", channelEventBuffer,
+                    ChannelEventBuffer::getMisses, "cache", "channel-events", "result", "miss");
+
+            Gauge.builder("chatgenius.search.indexed.channels", messageSearchIndex,
+                            MessageSearchIndex::getIndexedChannels)
+                    .register(registry);
+            Gauge.builder("chatgenius.search.indexed.messages", messageSearchIndex,
+                            MessageSearchIndex::getIndexedMessages)
+                    .register(registry);
+            Gauge.builder("chatgenius.search.oversized.channels", messageSearchIndex,
+                            MessageSearchIndex::getOversizedChannels)
+                    .register(registry);
+            counter(registry, "chatgenius.search.queries", messageSearchIndex, MessageSearchIndex::getQueries);
+            Gauge.builder("chatgenius.autocomplete.indexed.users", autocompleteIndex,
+                            AutocompleteIndex::getIndexedUsers)
+                    .register(registry);
+            Gauge.builder("chatgenius.autocomplete.indexed.channels", autocompleteIndex,
+                            AutocompleteIndex::getIndexedChannels)
+                    .register(registry);
+            counter(registry, "chatgenius.autocomplete.lookups", autocompleteIndex, AutocompleteIndex::getLookups);
+        };
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, T source, ToDoubleFunction<T> count,
+                                    String... tags) {
+        FunctionCounter.builder(name, source, count).tags(tags).register(registry);
+    }
+}
@@ -4,7 +4,10 @@ import com.gauntletai.agustinbiondi.chatgenius.security.ClerkAuthFilter;
 import com.gauntletai.agustinbiondi.chatgenius.security.ClerkAuthenticationEntryPoint;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.core.env.Environment;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -25,7 +28,37 @@ public class SecurityConfig {
     @Value("${app.security.development-mode:true}")
     private boolean developmentMode;
 
+    /**
+     * Actuator endpoints. With management.server.port set apart, EndpointRequest only matches
+     * requests to the management context, whose port is not exposed publicly, so scrapers need
+     * no token there. If management shares the application port the endpoints are admin-only.
+     */
     @Bean
+    @Order(1)
+    public SecurityFilterChain managementFilterChain(HttpSecurity http) throws Exception {
+        boolean separatePort = ManagementPortType.get(environment) == ManagementPortType.DIFFERENT;
+        http
+            .securityMatcher(EndpointRequest.toAnyEndpoint())
+            .csrf(csrf -> csrf.disable())
+            .authorizeHttpRequests(auth -> {
+                if (separatePort) {
+                    auth.anyRequest().permitAll();
+                } else {
+                    auth.anyRequest().hasRole("ADMIN");
+                }
+            })
+            .exceptionHandling(ex -> ex
+                .authenticationEntryPoint(authenticationEntryPoint)
+            )
+            .addFilterBefore(clerkAuthFilter, UsernamePasswordAuthenticationFilter.class)
+            .sessionManagement(session -> session
+                .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+            );
+        return http.build();
+    }
+
+    @Bean
+    @Order(2)
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         boolean isDevProfile = false;
 
@@ -46,6 +79,7 @@ public class SecurityConfig {
                 )
                 .authorizeHttpRequests(auth -> auth
                     .requestMatchers("/ws/**", "/api/webhook/clerk", "/api/auth/**").permitAll()
+                    .requestMatchers("/api/admin/**").hasRole("ADMIN")
                     .anyRequest().authenticated()
                 )
                 .exceptionHandling(ex -> ex
@@ -63,6 +97,7 @@ public class SecurityConfig {
                 )
                 .authorizeHttpRequests(auth -> auth
                     .requestMatchers("/ws/**", "/api/webhook/clerk", "/api/auth/**").permitAll()
+                    .requestMatchers("/api/admin/**").hasRole("ADMIN")
                     .anyRequest().authenticated()
                 )
                 .exceptionHandling(ex -> ex
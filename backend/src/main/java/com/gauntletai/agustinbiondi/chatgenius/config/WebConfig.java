@@ -17,6 +17,7 @@ public class WebConfig implements WebMvcConfigurer {
             .allowedOrigins(allowedOrigins.split(","))
             .allowedMethods("GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS")
             .allowedHeaders("*")
+            .exposedHeaders("ETag", "X-Channel-Directory-Version")
             .allowCredentials(true)
             .maxAge(3600); // 1 hour
     }
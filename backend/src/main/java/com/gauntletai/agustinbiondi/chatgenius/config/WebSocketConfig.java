@@ -1,6 +1,10 @@
 package com.gauntletai.agustinbiondi.chatgenius.config;
 
+import com.gauntletai.agustinbiondi.chatgenius.diagnostics.BroadcastEventRecorder;
 import com.gauntletai.agustinbiondi.chatgenius.security.ClerkChannelInterceptor;
+import com.gauntletai.agustinbiondi.chatgenius.websocket.BroadcastLatencyRecorder;
+import com.gauntletai.agustinbiondi.chatgenius.websocket.GracefulSessionCloser;
+import com.gauntletai.agustinbiondi.chatgenius.websocket.SessionResumeRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.ChannelRegistration;
@@ -8,6 +12,7 @@ import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
@@ -15,11 +20,19 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final ClerkChannelInterceptor clerkChannelInterceptor;
+    private final SessionResumeRegistry sessionResumeRegistry;
+    private final GracefulSessionCloser gracefulSessionCloser;
+    private final BroadcastLatencyRecorder broadcastLatencyRecorder;
+    private final BroadcastEventRecorder broadcastEventRecorder;
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        config.enableSimpleBroker("/topic", "/queue");
         config.setApplicationDestinationPrefixes("/app");
+        // Sessions receive broadcasts in event id order, which resume replay relies on
+        config.setPreservePublishOrder(true);
+        config.configureBrokerChannel().interceptors(sessionResumeRegistry.broadcastRecorder(),
+                broadcastLatencyRecorder.broadcastTimer(), broadcastEventRecorder.fanoutRecorder());
     }
 
     @Override
@@ -31,6 +44,12 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        registration.interceptors(clerkChannelInterceptor);
+        registration.interceptors(broadcastLatencyRecorder.arrivalStamper(), clerkChannelInterceptor,
+                sessionResumeRegistry.subscriptionTracker());
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.addDecoratorFactory(gracefulSessionCloser::decorate);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,110 @@
+package com.gauntletai.agustinbiondi.chatgenius.controller;
+
+import com.gauntletai.agustinbiondi.chatgenius.diagnostics.FlightRecorderService;
+import com.gauntletai.agustinbiondi.chatgenius.dto.FlightRecordingDTO;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Java Flight Recorder recordings for diagnosing latency in production. Dumps open in JDK
+ * Mission Control or {@code jfr print}. Restricted to admins in {@code SecurityConfig}.
+ */
+@RestController
+@RequestMapping("/api/admin/jfr/recordings")
+@RequiredArgsConstructor
+@Validated
+public class AdminDiagnosticsController {
+
+    private final FlightRecorderService flightRecorderService;
+
+    @GetMapping
+    public ResponseEntity<List<FlightRecordingDTO>> getRecordings() {
+        return ResponseEntity.ok(flightRecorderService.findAll());
+    }
+
+    /**
+     * Start a recording that stops on its own after {@code durationSeconds}.
+     * Settings are the JDK's {@code default} (low overhead) or {@code profile} (more detail).
+     */
+    @PostMapping
+    public ResponseEntity<?> startRecording(
+            @RequestParam(defaultValue = "profile") String settings,
+            @RequestParam(required = false) @Min(1) Long durationSeconds,
+            @RequestParam(required = false) @Min(1) Long maxSizeMb) {
+        try {
+            FlightRecordingDTO recording = flightRecorderService.start(settings,
+                    durationSeconds != null ? Duration.ofSeconds(durationSeconds) : null,
+                    maxSizeMb != null ? maxSizeMb * 1024 * 1024 : null);
+            return ResponseEntity.status(HttpStatus.CREATED).body(recording);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/{recordingId}")
+    public ResponseEntity<FlightRecordingDTO> getRecording(@PathVariable long recordingId) {
+        return flightRecorderService.find(recordingId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/{recordingId}/stop")
+    public ResponseEntity<FlightRecordingDTO> stopRecording(@PathVariable long recordingId) {
+        return flightRecorderService.stop(recordingId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Download the recording's data so far; running recordings keep recording.
+     */
+    @GetMapping("/{recordingId}/dump")
+    public ResponseEntity<StreamingResponseBody> dumpRecording(@PathVariable long recordingId) throws IOException {
+        Optional<Path> dump = flightRecorderService.dump(recordingId);
+        if (dump.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Path file = dump.get();
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(Files.size(file))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("recording-" + recordingId + ".jfr").build().toString())
+                .body(body);
+    }
+
+    @DeleteMapping("/{recordingId}")
+    public ResponseEntity<?> closeRecording(@PathVariable long recordingId) {
+        if (flightRecorderService.close(recordingId)) {
+            return ResponseEntity.noContent().build();
+        }
+        if (flightRecorderService.find(recordingId).isPresent()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("The continuous recording cannot be closed");
+        }
+        return ResponseEntity.notFound().build();
+    }
+}
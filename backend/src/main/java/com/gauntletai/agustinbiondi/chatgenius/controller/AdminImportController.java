@@ -0,0 +1,53 @@
+package com.gauntletai.agustinbiondi.chatgenius.controller;
+
+import com.gauntletai.agustinbiondi.chatgenius.dto.ImportJobDTO;
+import com.gauntletai.agustinbiondi.chatgenius.model.User;
+import com.gauntletai.agustinbiondi.chatgenius.service.ImportService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Imports of external chat archives. Restricted to admins in {@code SecurityConfig}.
+ */
+@RestController
+@RequestMapping("/api/admin/imports")
+@RequiredArgsConstructor
+public class AdminImportController {
+
+    private final ImportService importService;
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> startSlackImport(@RequestParam("archive") MultipartFile archive) throws IOException {
+        String userId = ((User) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getUserId();
+        try (InputStream in = archive.getInputStream()) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(importService.startSlackImport(in, userId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid archive: " + e.getMessage());
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ImportJobDTO>> getRecentImports(
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit) {
+        return ResponseEntity.ok(importService.findRecentJobs(limit));
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ImportJobDTO> getImport(@PathVariable UUID jobId) {
+        return importService.findJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
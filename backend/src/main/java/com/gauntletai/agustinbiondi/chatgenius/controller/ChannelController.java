@@ -4,20 +4,37 @@ import com.gauntletai.agustinbiondi.chatgenius.dto.ChannelDTO;
 import com.gauntletai.agustinbiondi.chatgenius.dto.ChannelMessagesDTO;
 import com.gauntletai.agustinbiondi.chatgenius.dto.MessageDTO;
 import com.gauntletai.agustinbiondi.chatgenius.model.User;
+import com.gauntletai.agustinbiondi.chatgenius.service.ChannelExportService;
 import com.gauntletai.agustinbiondi.chatgenius.service.ChannelService;
 import com.gauntletai.agustinbiondi.chatgenius.service.MessageService;
+import com.gauntletai.agustinbiondi.chatgenius.service.ResourceVersionRegistry;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.zip.GZIPOutputStream;
 
 @Slf4j
 @RestController
@@ -25,8 +42,16 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class ChannelController {
 
+    private static final String DIRECTORY_VERSION_HEADER = "X-Channel-Directory-Version";
+    private static final String EXPORT_TIMEOUT_INTERCEPTOR = ChannelController.class.getName() + ".exportTimeout";
+
     private final ChannelService channelService;
     private final MessageService messageService;
+    private final ResourceVersionRegistry resourceVersions;
+    private final ChannelExportService channelExportService;
+
+    @Value("${app.export.request-timeout-ms:1800000}")
+    private long exportTimeoutMs;
 
     @PostMapping
     public ResponseEntity<ChannelDTO> createChannel(
@@ -52,15 +77,48 @@ public class ChannelController {
     }
 
     @GetMapping("/{channelId}")
-    public ResponseEntity<ChannelDTO> getChannel(@PathVariable UUID channelId) {
+    public ResponseEntity<ChannelDTO> getChannel(
+            @PathVariable UUID channelId,
+            @RequestHeader(value = ConditionalGet.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = resourceVersions.channelETag(channelId);
+        if (ConditionalGet.isNotModified(ifNoneMatch, eTag)) {
+            return ConditionalGet.notModified(eTag);
+        }
         return channelService.findById(channelId)
-                .map(ResponseEntity::ok)
+                .map(channel -> ConditionalGet.ok(eTag).body(channel))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/unread")
+    public ResponseEntity<Map<UUID, Integer>> getUnreadCounts() {
+        String userId = ((User) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getUserId();
+        return ResponseEntity.ok(channelService.getUnreadCounts(userId));
+    }
+
+    @PostMapping("/{channelId}/read")
+    public ResponseEntity<Void> markChannelRead(
+            @PathVariable UUID channelId) {
+        String userId = ((User) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getUserId();
+        channelService.markChannelRead(channelId, userId);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/public")
-    public ResponseEntity<List<ChannelDTO>> getPublicChannels() {
-        return ResponseEntity.ok(channelService.findAllPublicChannels());
+    public ResponseEntity<List<ChannelDTO>> getPublicChannels(
+            @RequestHeader(value = ConditionalGet.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        long version = channelService.getDirectoryVersion();
+        String eTag = resourceVersions.directoryETag(version);
+        if (ConditionalGet.isNotModified(ifNoneMatch, eTag)) {
+            return ConditionalGet.notModified(eTag);
+        }
+        return ConditionalGet.ok(eTag)
+                .header(DIRECTORY_VERSION_HEADER, String.valueOf(version))
+                .body(channelService.findAllPublicChannels());
+    }
+
+    @GetMapping("/directory/version")
+    public ResponseEntity<Map<String, Long>> getDirectoryVersion() {
+        return ResponseEntity.ok(Map.of("version", channelService.getDirectoryVersion()));
     }
 
     @GetMapping("/user")
@@ -77,6 +135,15 @@ public class ChannelController {
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/{channelId}/members/bulk")
+    public ResponseEntity<Map<String, Integer>> addMembers(
+            @PathVariable UUID channelId,
+            @Valid @RequestBody AddMembersRequest request) {
+        String userId = ((User) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getUserId();
+        int added = channelService.addMembers(channelId, request.userIds(), userId);
+        return ResponseEntity.ok(Map.of("added", added));
+    }
+
     @DeleteMapping("/{channelId}/members")
     public ResponseEntity<Void> leaveChannel(
             @PathVariable UUID channelId) {
@@ -86,9 +153,10 @@ public class ChannelController {
     }
 
     @GetMapping("/{channelId}/members")
-    public ResponseEntity<Set<String>> getChannelMembers(
-            @PathVariable UUID channelId) {
-        return ResponseEntity.ok(channelService.getChannelMembers(channelId));
+    public ResponseEntity<Page<String>> getChannelMembers(
+            @PathVariable UUID channelId,
+            @PageableDefault(size = 100) Pageable pageable) {
+        return ResponseEntity.ok(channelService.getChannelMembers(channelId, pageable));
     }
 
     @GetMapping("/{channelId}/members/{userId}")
@@ -106,16 +174,72 @@ public class ChannelController {
     }
 
     @GetMapping("/available")
-    public ResponseEntity<List<ChannelDTO>> getAvailableChannels() {
+    public ResponseEntity<List<ChannelDTO>> getAvailableChannels(
+            @RequestHeader(value = ConditionalGet.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         String userId = ((User) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getUserId();
-        return ResponseEntity.ok(channelService.findPublicAndUserDirectMessageChannels(userId));
+        long version = channelService.getDirectoryVersion();
+        String eTag = resourceVersions.directoryETag(version, userId);
+        if (ConditionalGet.isNotModified(ifNoneMatch, eTag)) {
+            return ConditionalGet.notModified(eTag);
+        }
+        return ConditionalGet.ok(eTag)
+                .header(DIRECTORY_VERSION_HEADER, String.valueOf(version))
+                .body(channelService.findPublicAndUserDirectMessageChannels(userId));
     }
 
     @GetMapping("/{channelId}/messages")
     public ResponseEntity<Page<MessageDTO>> getChannelMessages(
             @PathVariable UUID channelId,
-            Pageable pageable) {
+            Pageable pageable,
+            @RequestHeader(value = ConditionalGet.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String userId = ((User) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getUserId();
+        messageService.checkReadAccess(channelId, userId);
+        String eTag = resourceVersions.channelETag(channelId, userId, pageable);
+        if (ConditionalGet.isNotModified(ifNoneMatch, eTag)) {
+            return ConditionalGet.notModified(eTag);
+        }
         Page<MessageDTO> messages = messageService.getLatestParentMessagesWithDetails(channelId, pageable);
-        return ResponseEntity.ok(messages);
+        return ConditionalGet.ok(eTag).body(messages);
+    }
+
+    /**
+     * The channel's full history as NDJSON, gzip-compressed on request. Access is checked
+     * before the response starts; the body is then written from a database cursor on an
+     * async thread, so the request thread is released immediately. If no export slot frees up
+     * in time, the async thread answers 503 instead of a body. Only this request gets the long
+     * export timeout; every other async request keeps the container default.
+     */
+    @GetMapping("/{channelId}/export")
+    public ResponseEntity<StreamingResponseBody> exportChannel(
+            @PathVariable UUID channelId,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            NativeWebRequest webRequest) {
+        String userId = ((User) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getUserId();
+        ChannelDTO channel = channelExportService.authorizeExport(channelId, userId);
+        // StreamingResponseBody offers no timeout of its own; the interceptor runs just before
+        // the async request starts, which is the last point its timeout can still be changed
+        WebAsyncUtils.getAsyncManager(webRequest).registerCallableInterceptor(EXPORT_TIMEOUT_INTERCEPTOR,
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                        ((AsyncWebRequest) request).setTimeout(exportTimeoutMs);
+                    }
+                });
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 8192);
+                channelExportService.writeExport(channel, compressed);
+                compressed.finish();
+            } else {
+                channelExportService.writeExport(channel, out);
+            }
+        };
+        String filename = "channel-" + channel.getId() + (gzip ? ".ndjson.gz" : ".ndjson");
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
     }
-} 
\ No newline at end of file
+
+    public record AddMembersRequest(@NotEmpty @Size(max = 5000) Set<String> userIds) {}
+}
@@ -1,27 +1,22 @@
 package com.gauntletai.agustinbiondi.chatgenius.controller;
 
+import com.gauntletai.agustinbiondi.chatgenius.security.ClerkWebhookVerifier;
 import com.gauntletai.agustinbiondi.chatgenius.service.UserService;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import com.fasterxml.jackson.databind.JsonNode;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
-import java.util.Base64;
 
 @RestController
 @RequestMapping("/api/webhook/clerk")
 public class ClerkWebhookController {
 
-    @Value("${clerk.webhook-secret}")
-    private String webhookSecret;
-
     private final UserService userService;
+    private final ClerkWebhookVerifier webhookVerifier;
 
-    public ClerkWebhookController(UserService userService) {
+    public ClerkWebhookController(UserService userService, ClerkWebhookVerifier webhookVerifier) {
         this.userService = userService;
+        this.webhookVerifier = webhookVerifier;
     }
 
     @PostMapping
@@ -32,7 +27,7 @@ public class ClerkWebhookController {
             @RequestHeader("svix-signature") String svixSignature
     ) {
         try {
-            if (!verifyWebhookSignature(svixId, svixTimestamp, payload.toString(), svixSignature)) {
+            if (!webhookVerifier.verify(svixId, svixTimestamp, payload.toString(), svixSignature)) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid signature");
             }
 
@@ -68,21 +63,4 @@ public class ClerkWebhookController {
     private void handleUserDeleted(JsonNode data) {
         userService.deleteUser(data.get("id").asText());
     }
-
-    private boolean verifyWebhookSignature(String svixId, String svixTimestamp, String payload, String signature) {
-        try {
-            String toSign = svixId + "." + svixTimestamp + "." + payload;
-            Mac mac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secretKeySpec = new SecretKeySpec(
-                webhookSecret.getBytes(StandardCharsets.UTF_8), 
-                "HmacSHA256"
-            );
-            mac.init(secretKeySpec);
-            String computedSignature = Base64.getEncoder()
-                .encodeToString(mac.doFinal(toSign.getBytes(StandardCharsets.UTF_8)));
-            return signature.equals("v1," + computedSignature);
-        } catch (Exception e) {
-            return false;
-        }
-    }
 } 
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.gauntletai.agustinbiondi.chatgenius.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Helpers for answering If-None-Match before the service layer is called. Endpoints
+ * whose content depends on access check it first, so a 304 is never an answer to an
+ * outsider.
+ * Responses are marked private/no-cache so browsers keep them and revalidate
+ * with the ETag instead of dropping them under the default no-store policy.
+ */
+final class ConditionalGet {
+
+    static final String IF_NONE_MATCH = "If-None-Match";
+
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private ConditionalGet() {
+    }
+
+    static boolean isNotModified(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .cacheControl(REVALIDATE)
+                .build();
+    }
+
+    static ResponseEntity.BodyBuilder ok(String eTag) {
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(REVALIDATE);
+    }
+}
@@ -2,6 +2,7 @@ package com.gauntletai.agustinbiondi.chatgenius.controller;
 
 import com.gauntletai.agustinbiondi.chatgenius.dto.MessageDTO;
 import com.gauntletai.agustinbiondi.chatgenius.service.MessageService;
+import com.gauntletai.agustinbiondi.chatgenius.service.ResourceVersionRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -17,11 +18,19 @@ import com.gauntletai.agustinbiondi.chatgenius.model.User;
 @RequiredArgsConstructor
 public class MessageController {
     private final MessageService messageService;
+    private final ResourceVersionRegistry resourceVersions;
 
     @GetMapping("/parents")
     public ResponseEntity<Page<MessageDTO>> getLatestParentMessages(
-            @PathVariable UUID channelId) {
-        return ResponseEntity.ok(messageService.getLatestParentMessages(channelId));
+            @PathVariable UUID channelId,
+            @RequestHeader(value = ConditionalGet.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String userId = ((User) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getUserId();
+        messageService.checkReadAccess(channelId, userId);
+        String eTag = resourceVersions.channelETag(channelId, userId, "parents");
+        if (ConditionalGet.isNotModified(ifNoneMatch, eTag)) {
+            return ConditionalGet.notModified(eTag);
+        }
+        return ConditionalGet.ok(eTag).body(messageService.getLatestParentMessages(channelId));
     }
 
 } 
\ No newline at end of file
@@ -36,10 +36,10 @@ public class ReactionController {
     public ResponseEntity<ReactionDTO> addReaction(
             @PathVariable @NotNull UUID messageId,
             @RequestParam @NotBlank String emoji) {
-        String userId = SecurityContextHolder.getContext().getAuthentication().getName();
-        log.debug("REST request to add reaction {} to message {} by user {}", emoji, messageId, userId);
+        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        log.debug("REST request to add reaction {} to message {} by user {}", emoji, messageId, user.getUserId());
         
-        ReactionDTO reaction = reactionService.addReaction(userId, messageId, emoji);
+        ReactionDTO reaction = reactionService.addReaction(user.getUserId(), messageId, emoji);
         
         // Broadcast the reaction update to all subscribers
         webSocketEventHandler.broadcastReactionUpdate(messageId);
@@ -0,0 +1,84 @@
+package com.gauntletai.agustinbiondi.chatgenius.controller;
+
+import com.gauntletai.agustinbiondi.chatgenius.dto.AutocompleteSuggestionDTO;
+import com.gauntletai.agustinbiondi.chatgenius.dto.MessageSearchResponseDTO;
+import com.gauntletai.agustinbiondi.chatgenius.model.User;
+import com.gauntletai.agustinbiondi.chatgenius.service.SearchService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.UUID;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private final SearchService searchService;
+
+    /**
+     * Full-text message search, the backend of the grep command. The query accepts
+     * web search syntax: quoted phrases, OR and -excluded terms. A cursor that was not
+     * returned by an earlier page is rejected with 400.
+     */
+    @GetMapping("/messages")
+    public ResponseEntity<?> searchMessages(
+            @RequestParam("q") @NotBlank @Size(max = 256) String query,
+            @RequestParam(required = false) UUID channelId,
+            @RequestParam(required = false) String authorId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit) {
+        String userId = ((User) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getUserId();
+        try {
+            return ResponseEntity.ok(searchService.searchMessages(userId, query, channelId, authorId, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Search-as-you-type: newest messages containing every word, the last one as a prefix.
+     * Quoted text matches as a phrase and a trailing * makes any word a prefix.
+     */
+    @GetMapping("/messages/instant")
+    public ResponseEntity<MessageSearchResponseDTO> instantSearch(
+            @RequestParam("q") @NotBlank @Size(max = 256) String query,
+            @RequestParam(required = false) UUID channelId,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(50) int limit) {
+        String userId = ((User) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getUserId();
+        return ResponseEntity.ok(searchService.instantSearch(userId, query, channelId, limit));
+    }
+
+    /**
+     * Autocomplete for user names, e.g. while typing {@code dm @ag}.
+     */
+    @GetMapping("/users")
+    public ResponseEntity<List<AutocompleteSuggestionDTO>> autocompleteUsers(
+            @RequestParam("q") @NotBlank @Size(max = 64) String prefix,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(50) int limit) {
+        return ResponseEntity.ok(searchService.autocompleteUsers(prefix, limit));
+    }
+
+    /**
+     * Autocomplete for channel names among the channels the user can see.
+     */
+    @GetMapping("/channels")
+    public ResponseEntity<List<AutocompleteSuggestionDTO>> autocompleteChannels(
+            @RequestParam("q") @NotBlank @Size(max = 64) String prefix,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(50) int limit) {
+        String userId = ((User) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getUserId();
+        return ResponseEntity.ok(searchService.autocompleteChannels(userId, prefix, limit));
+    }
+}
@@ -0,0 +1,40 @@
+package com.gauntletai.agustinbiondi.chatgenius.controller;
+
+import com.gauntletai.agustinbiondi.chatgenius.dto.SyncCursorDTO;
+import com.gauntletai.agustinbiondi.chatgenius.dto.SyncResponseDTO;
+import com.gauntletai.agustinbiondi.chatgenius.model.User;
+import com.gauntletai.agustinbiondi.chatgenius.service.SyncService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+public class SyncController {
+
+    private final SyncService syncService;
+
+    /**
+     * Catch up all open channels in one request after a reconnect, instead of
+     * refetching a full message page per channel.
+     */
+    @PostMapping
+    public ResponseEntity<SyncResponseDTO> sync(@Valid @RequestBody SyncRequest request) {
+        String userId = ((User) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getUserId();
+        return ResponseEntity.ok(syncService.sync(userId, request.epoch(), request.cursors()));
+    }
+
+    public record SyncRequest(String epoch, @NotNull @Size(max = 100) List<@Valid SyncCursorDTO> cursors) {}
+}
@@ -1,6 +1,7 @@
 package com.gauntletai.agustinbiondi.chatgenius.controller;
 
 import com.gauntletai.agustinbiondi.chatgenius.dto.UserDTO;
+import com.gauntletai.agustinbiondi.chatgenius.service.ResourceVersionRegistry;
 import com.gauntletai.agustinbiondi.chatgenius.service.UserService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -18,6 +19,7 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final ResourceVersionRegistry resourceVersions;
 
     @GetMapping("/exists/{userId}")
     public ResponseEntity<Boolean> checkUserExists(@PathVariable String userId) {
@@ -39,16 +41,27 @@ public class UserController {
     }
 
     @GetMapping("/{userId}")
-    public ResponseEntity<UserDTO> findById(@PathVariable String userId) {
+    public ResponseEntity<UserDTO> findById(
+            @PathVariable String userId,
+            @RequestHeader(value = ConditionalGet.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = resourceVersions.userETag(userId);
+        if (ConditionalGet.isNotModified(ifNoneMatch, eTag)) {
+            return ConditionalGet.notModified(eTag);
+        }
         return userService.findById(userId)
-                .map(ResponseEntity::ok)
+                .map(user -> ConditionalGet.ok(eTag).body(user))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<UserDTO>> findAll() {
-        return ResponseEntity.ok(userService.findAll());
+    public ResponseEntity<List<UserDTO>> findAll(
+            @RequestHeader(value = ConditionalGet.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = resourceVersions.userListETag();
+        if (ConditionalGet.isNotModified(ifNoneMatch, eTag)) {
+            return ConditionalGet.notModified(eTag);
+        }
+        return ConditionalGet.ok(eTag).body(userService.findAll());
     }
 
     @DeleteMapping("/{userId}")
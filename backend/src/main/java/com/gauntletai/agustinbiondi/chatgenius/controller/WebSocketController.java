@@ -1,12 +1,20 @@
 package com.gauntletai.agustinbiondi.chatgenius.controller;
 
+import com.gauntletai.agustinbiondi.chatgenius.diagnostics.BroadcastEventRecorder;
+import com.gauntletai.agustinbiondi.chatgenius.diagnostics.MessageReceivedEvent;
 import com.gauntletai.agustinbiondi.chatgenius.dto.MessageDTO;
+import com.gauntletai.agustinbiondi.chatgenius.dto.WebSocketSessionDTO;
 import com.gauntletai.agustinbiondi.chatgenius.service.MessageService;
+import com.gauntletai.agustinbiondi.chatgenius.websocket.SessionResumeRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
 
 import java.security.Principal;
@@ -18,15 +26,24 @@ import java.util.UUID;
 public class WebSocketController {
 
     private final MessageService messageService;
+    private final SessionResumeRegistry sessionResumeRegistry;
+    private final SimpMessagingTemplate messagingTemplate;
 
+    /**
+     * Persists the message and broadcasts it on the global messages topic. The broadcast
+     * carries the channel and message ids as internal headers for the broker's JFR event.
+     */
     @MessageMapping("/channels/{channelId}/messages")
-    @SendTo("/topic/messages")
-    public MessageDTO handleMessage(
+    public void handleMessage(
             @DestinationVariable UUID channelId,
             MessageDTO messageDto,
             Principal principal
     ) {
         String userId = principal.getName();
+        MessageReceivedEvent received = new MessageReceivedEvent();
+        received.begin();
+        String outcome = "OK";
+        MessageDTO processedMessage = null;
         try {
             log.info("Received message from user {} in channel {}: {}", 
                     userId, channelId, messageDto.getContent());
@@ -35,21 +52,34 @@ public class WebSocketController {
                 throw new IllegalArgumentException("Message content cannot be null");
             }
 
-            MessageDTO processedMessage = messageService.handleIncomingMessage(messageDto, channelId, userId);
-            
-            log.info("Broadcasting message {} to global messages topic", 
-                    processedMessage.getId());
-            
-            return processedMessage;
+            processedMessage = messageService.handleIncomingMessage(messageDto, channelId, userId);
         } catch (IllegalArgumentException e) {
+            outcome = e.getClass().getSimpleName();
             log.warn("Invalid message received from user {} in channel {}: {}", 
                     userId, channelId, e.getMessage());
             throw e;
         } catch (Exception e) {
+            outcome = e.getClass().getSimpleName();
             log.error("Error processing message from user {} in channel {}: {}", 
                     userId, channelId, e.getMessage(), e);
             throw e;
+        } finally {
+            received.end();
+            if (received.shouldCommit()) {
+                received.channelId = channelId.toString();
+                received.userId = userId;
+                received.messageId = processedMessage != null ? processedMessage.getId().toString() : null;
+                received.contentLength = messageDto != null && messageDto.getContent() != null
+                        ? messageDto.getContent().length() : 0;
+                received.outcome = outcome;
+                received.commit();
+            }
         }
+
+        log.info("Broadcasting message {} to global messages topic", 
+                processedMessage.getId());
+        messagingTemplate.convertAndSend("/topic/messages", processedMessage,
+                BroadcastEventRecorder.headers(channelId, processedMessage.getId()));
     }
 
     @MessageMapping("/channels/{channelId}/typing")
@@ -64,4 +94,16 @@ public class WebSocketController {
         
         return userId;
     }
-} 
\ No newline at end of file
+
+    /**
+     * Answered directly to the subscriber: a fresh resume token for the next reconnect,
+     * and whether this connection resumed a previous session.
+     */
+    @SubscribeMapping("/session")
+    public WebSocketSessionDTO handleSessionSubscription(
+            @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId,
+            Principal principal
+    ) {
+        return sessionResumeRegistry.describe(sessionId, principal.getName());
+    }
+}
@@ -0,0 +1,34 @@
+package com.gauntletai.agustinbiondi.chatgenius.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The simple broker fanning one broadcast out to its subscribers: matching subscriptions and
+ * handing a copy per session to the outbound channel. Writing to the sockets happens after,
+ * on the outbound channel's threads.
+ */
+@Name("chatgenius.Broadcast")
+@Label("Broadcast")
+@Category({"ChatGenius", "WebSocket"})
+@Description("Broker fan-out of a topic broadcast to its subscribers")
+@StackTrace(false)
+public class BroadcastEvent extends jdk.jfr.Event {
+
+    @Label("Destination")
+    public String destination;
+
+    @Label("Channel Id")
+    public String channelId;
+
+    @Label("Message Id")
+    public String messageId;
+
+    @Label("Payload Size")
+    @DataAmount
+    public int payloadSize;
+}
@@ -0,0 +1,83 @@
+package com.gauntletai.agustinbiondi.chatgenius.diagnostics;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Records a {@link BroadcastEvent} for each topic message the broker fans out. Senders that
+ * want the event tied to a chat message pass {@link #headers} when sending; those headers are
+ * not native STOMP headers, so they never reach clients.
+ */
+@Component
+public class BroadcastEventRecorder {
+
+    private static final String CHANNEL_ID_HEADER = "chatgenius.channelId";
+    private static final String MESSAGE_ID_HEADER = "chatgenius.messageId";
+    private static final String BROKER_PREFIX = "/topic/";
+
+    private final ThreadLocal<BroadcastEvent> handling = new ThreadLocal<>();
+
+    /**
+     * Headers naming the channel and message a broadcast is about, for
+     * {@code SimpMessagingTemplate.convertAndSend(destination, payload, headers)}.
+     */
+    public static MessageHeaders headers(UUID channelId, UUID messageId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setHeader(CHANNEL_ID_HEADER, channelId);
+        accessor.setHeader(MESSAGE_ID_HEADER, messageId);
+        accessor.setLeaveMutable(true);
+        return accessor.getMessageHeaders();
+    }
+
+    /**
+     * Times the broker handling each topic message. Register on the broker channel.
+     */
+    public ChannelInterceptor fanoutRecorder() {
+        return new ExecutorChannelInterceptor() {
+            @Override
+            public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+                String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+                // The user destination handler also listens on the broker channel
+                if (handler instanceof AbstractBrokerMessageHandler && destination != null
+                        && destination.startsWith(BROKER_PREFIX)) {
+                    BroadcastEvent event = new BroadcastEvent();
+                    event.begin();
+                    handling.set(event);
+                }
+                return message;
+            }
+
+            @Override
+            public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler,
+                                            Exception ex) {
+                BroadcastEvent event = handling.get();
+                if (event == null) {
+                    return;
+                }
+                handling.remove();
+                event.end();
+                if (event.shouldCommit()) {
+                    MessageHeaders headers = message.getHeaders();
+                    event.destination = SimpMessageHeaderAccessor.getDestination(headers);
+                    event.channelId = toString(headers.get(CHANNEL_ID_HEADER));
+                    event.messageId = toString(headers.get(MESSAGE_ID_HEADER));
+                    event.payloadSize = message.getPayload() instanceof byte[] bytes ? bytes.length : 0;
+                    event.commit();
+                }
+            }
+
+            private static String toString(Object value) {
+                return value != null ? value.toString() : null;
+            }
+        };
+    }
+}
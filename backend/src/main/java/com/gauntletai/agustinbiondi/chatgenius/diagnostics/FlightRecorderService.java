@@ -0,0 +1,239 @@
+package com.gauntletai.agustinbiondi.chatgenius.diagnostics;
+
+import com.gauntletai.agustinbiondi.chatgenius.dto.FlightRecordingDTO;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Java Flight Recorder recordings of the running application. A continuous recording keeps
+ * the last stretch of JDK and application events so a latency spike can be dumped after the
+ * fact; admins can also start short, full-detail recordings. Every recording is bounded in
+ * duration or age and in size, and only a few on-demand recordings are kept at once.
+ */
+@Slf4j
+@Service
+public class FlightRecorderService {
+
+    public static final String CONTINUOUS_NAME = "continuous";
+
+    /**
+     * Events emitted by the application, see the event classes for what each one spans.
+     */
+    static final List<Class<? extends Event>> APPLICATION_EVENTS = List.of(
+            MessageReceivedEvent.class, MessageValidatedEvent.class, MessagePersistedEvent.class,
+            MessageBatchWrittenEvent.class, BroadcastEvent.class, TokenVerifiedEvent.class,
+            ReactionWrittenEvent.class);
+
+    private static final Set<String> SETTINGS = Set.of("default", "profile");
+
+    private final boolean continuousEnabled;
+    private final Duration continuousMaxAge;
+    private final long continuousMaxSize;
+    private final Duration continuousThreshold;
+    private final Duration defaultDuration;
+    private final Duration maxDuration;
+    private final long maxSize;
+    private final int maxRecordings;
+
+    private final Map<Long, Recording> recordings = new ConcurrentHashMap<>();
+    private volatile Recording continuous;
+
+    public FlightRecorderService(@Value("${app.jfr.continuous.enabled:true}") boolean continuousEnabled,
+                                 @Value("${app.jfr.continuous.max-age-ms:1800000}") long continuousMaxAgeMs,
+                                 @Value("${app.jfr.continuous.max-size-mb:200}") long continuousMaxSizeMb,
+                                 @Value("${app.jfr.continuous.threshold-ms:10}") long continuousThresholdMs,
+                                 @Value("${app.jfr.recording.default-duration-ms:60000}") long defaultDurationMs,
+                                 @Value("${app.jfr.recording.max-duration-ms:900000}") long maxDurationMs,
+                                 @Value("${app.jfr.recording.max-size-mb:250}") long maxSizeMb,
+                                 @Value("${app.jfr.recording.max-recordings:3}") int maxRecordings) {
+        this.continuousEnabled = continuousEnabled;
+        this.continuousMaxAge = Duration.ofMillis(continuousMaxAgeMs);
+        this.continuousMaxSize = continuousMaxSizeMb * 1024 * 1024;
+        this.continuousThreshold = Duration.ofMillis(continuousThresholdMs);
+        this.defaultDuration = Duration.ofMillis(defaultDurationMs);
+        this.maxDuration = Duration.ofMillis(maxDurationMs);
+        this.maxSize = maxSizeMb * 1024 * 1024;
+        this.maxRecordings = maxRecordings;
+    }
+
+    /**
+     * Start the continuous recording with the JDK's low-overhead settings. Application events
+     * shorter than the threshold are left out so a busy server does not fill the buffer with
+     * routine messages.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startContinuous() {
+        if (!continuousEnabled) {
+            return;
+        }
+        try {
+            Recording recording = new Recording(Configuration.getConfiguration("default"));
+            recording.setName(CONTINUOUS_NAME);
+            recording.setMaxAge(continuousMaxAge);
+            recording.setMaxSize(continuousMaxSize);
+            for (Class<? extends Event> eventType : APPLICATION_EVENTS) {
+                recording.enable(eventType).withThreshold(continuousThreshold);
+            }
+            recording.start();
+            continuous = recording;
+            log.info("Started continuous flight recording (max age {}, max size {} MB)",
+                    continuousMaxAge, continuousMaxSize / 1024 / 1024);
+        } catch (IOException | ParseException | IllegalStateException e) {
+            log.warn("Could not start continuous flight recording: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void closeAll() {
+        recordings.values().forEach(Recording::close);
+        recordings.clear();
+        Recording recording = continuous;
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    /**
+     * Start an on-demand recording of everything, application events included, for the given
+     * time. It stops on its own and is kept for dumping until closed. JFR applies the most
+     * detailed settings of all running recordings, so meanwhile the continuous recording also
+     * gets every application event.
+     *
+     * @throws IllegalArgumentException for unknown settings or limits above the configured ones
+     * @throws IllegalStateException when the maximum number of recordings is already kept
+     */
+    public synchronized FlightRecordingDTO start(String settings, Duration duration, Long maxSizeBytes) {
+        if (!SETTINGS.contains(settings)) {
+            throw new IllegalArgumentException("Settings must be one of " + SETTINGS);
+        }
+        Duration recordFor = duration != null ? duration : defaultDuration;
+        if (recordFor.isNegative() || recordFor.isZero() || recordFor.compareTo(maxDuration) > 0) {
+            throw new IllegalArgumentException(
+                    "Duration must be positive and at most " + maxDuration.toSeconds() + "s");
+        }
+        long sizeLimit = maxSizeBytes != null ? maxSizeBytes : maxSize;
+        if (sizeLimit <= 0 || sizeLimit > maxSize) {
+            throw new IllegalArgumentException("Max size must be positive and at most " + maxSize + " bytes");
+        }
+        if (recordings.size() >= maxRecordings) {
+            throw new IllegalStateException("At most " + maxRecordings + " recordings are kept; close one first");
+        }
+
+        Recording recording;
+        try {
+            recording = new Recording(Configuration.getConfiguration(settings));
+        } catch (IOException | ParseException e) {
+            throw new RuntimeException("Could not load JFR settings " + settings, e);
+        }
+        recording.setName("on-demand-" + settings);
+        recording.setDuration(recordFor);
+        recording.setMaxSize(sizeLimit);
+        for (Class<? extends Event> eventType : APPLICATION_EVENTS) {
+            recording.enable(eventType).withoutThreshold();
+        }
+        recording.start();
+        recordings.put(recording.getId(), recording);
+        log.info("Started flight recording {} with {} settings for {}", recording.getId(), settings, recordFor);
+        return toDTO(recording);
+    }
+
+    public List<FlightRecordingDTO> findAll() {
+        Recording recording = continuous;
+        return Stream.concat(Stream.ofNullable(recording), recordings.values().stream())
+                .sorted(Comparator.comparingLong(Recording::getId))
+                .map(this::toDTO)
+                .toList();
+    }
+
+    public Optional<FlightRecordingDTO> find(long id) {
+        return recording(id).map(this::toDTO);
+    }
+
+    /**
+     * Stop a recording early. Its data stays available for dumping.
+     */
+    public Optional<FlightRecordingDTO> stop(long id) {
+        return recording(id).map(recording -> {
+            if (recording.getState() == RecordingState.RUNNING || recording.getState() == RecordingState.DELAYED) {
+                recording.stop();
+                log.info("Stopped flight recording {}", id);
+            }
+            return toDTO(recording);
+        });
+    }
+
+    /**
+     * Write the recording's data so far to a temporary .jfr file, which the caller deletes
+     * once sent. Works on running recordings, including the continuous one.
+     */
+    public Optional<Path> dump(long id) throws IOException {
+        Optional<Recording> found = recording(id);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        Path file = Files.createTempFile("chatgenius-" + id + "-", ".jfr");
+        try {
+            found.get().dump(file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return Optional.of(file);
+    }
+
+    /**
+     * Discard an on-demand recording and its data. The continuous recording cannot be closed.
+     */
+    public boolean close(long id) {
+        Recording recording = recordings.remove(id);
+        if (recording == null) {
+            return false;
+        }
+        recording.close();
+        log.info("Closed flight recording {}", id);
+        return true;
+    }
+
+    private Optional<Recording> recording(long id) {
+        Recording recording = continuous;
+        if (recording != null && recording.getId() == id) {
+            return Optional.of(recording);
+        }
+        return Optional.ofNullable(recordings.get(id));
+    }
+
+    private FlightRecordingDTO toDTO(Recording recording) {
+        return FlightRecordingDTO.builder()
+                .id(recording.getId())
+                .name(recording.getName())
+                .state(recording.getState().name())
+                .startedAt(recording.getStartTime())
+                .stoppedAt(recording.getState() == RecordingState.STOPPED ? recording.getStopTime() : null)
+                .durationMs(recording.getDuration() != null ? recording.getDuration().toMillis() : null)
+                .maxAgeMs(recording.getMaxAge() != null ? recording.getMaxAge().toMillis() : null)
+                .maxSizeBytes(recording.getMaxSize())
+                .sizeBytes(recording.getSize())
+                .build();
+    }
+}
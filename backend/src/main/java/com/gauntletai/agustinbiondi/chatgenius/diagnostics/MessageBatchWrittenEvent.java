@@ -0,0 +1,41 @@
+package com.gauntletai.agustinbiondi.chatgenius.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One group-commit transaction of the write pipeline: the write check query, the batched
+ * insert and the commit, for messages of a single channel.
+ */
+@Name("chatgenius.MessageBatchWritten")
+@Label("Message Batch Written")
+@Category({"ChatGenius", "Messages"})
+@Description("Group-commit transaction writing a batch of one channel's messages")
+@StackTrace(false)
+public class MessageBatchWrittenEvent extends jdk.jfr.Event {
+
+    @Label("Channel Id")
+    public String channelId;
+
+    @Label("Batch Size")
+    public int batchSize;
+
+    @Label("Committed Messages")
+    @Description("Messages written; the rest were rejected by the write check")
+    public int committedMessages;
+
+    @Label("First Message Id")
+    @Description("Committed message with the lowest sequence number")
+    public String firstMessageId;
+
+    @Label("Last Message Id")
+    @Description("Committed message with the highest sequence number")
+    public String lastMessageId;
+
+    @Label("Failed")
+    @Description("The transaction rolled back; its messages are retried one by one")
+    public boolean failed;
+}
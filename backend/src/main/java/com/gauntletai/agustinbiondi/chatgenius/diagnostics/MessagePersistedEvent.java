@@ -0,0 +1,33 @@
+package com.gauntletai.agustinbiondi.chatgenius.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One message's wait on the write pipeline, from being queued until its batch committed.
+ * Includes time in the channel's mailbox and the linger before the batch was cut; the
+ * database part is the matching {@link MessageBatchWrittenEvent}.
+ */
+@Name("chatgenius.MessagePersisted")
+@Label("Message Persisted")
+@Category({"ChatGenius", "Messages"})
+@Description("Wait for a message's write batch to commit, including queueing")
+@StackTrace(false)
+public class MessagePersistedEvent extends jdk.jfr.Event {
+
+    @Label("Channel Id")
+    public String channelId;
+
+    @Label("Message Id")
+    @Description("Empty when the write failed")
+    public String messageId;
+
+    @Label("Sequence")
+    public long seq;
+
+    @Label("Committed")
+    public boolean committed;
+}
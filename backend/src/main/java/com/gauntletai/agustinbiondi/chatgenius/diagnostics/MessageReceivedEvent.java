@@ -0,0 +1,37 @@
+package com.gauntletai.agustinbiondi.chatgenius.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A chat message handled by the STOMP controller, from the handler being invoked until the
+ * message is durable and ready to broadcast. Validation and persistence events recorded on
+ * the same thread fall inside it.
+ */
+@Name("chatgenius.MessageReceived")
+@Label("Message Received")
+@Category({"ChatGenius", "Messages"})
+@Description("Incoming chat message handled up to the point it is broadcast")
+@StackTrace(false)
+public class MessageReceivedEvent extends jdk.jfr.Event {
+
+    @Label("Channel Id")
+    public String channelId;
+
+    @Label("Message Id")
+    @Description("Empty when the message was rejected")
+    public String messageId;
+
+    @Label("User Id")
+    public String userId;
+
+    @Label("Content Length")
+    public int contentLength;
+
+    @Label("Outcome")
+    @Description("OK, or the simple name of the exception that rejected the message")
+    public String outcome;
+}
@@ -0,0 +1,31 @@
+package com.gauntletai.agustinbiondi.chatgenius.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The request-thread checks on an incoming message before it is queued for writing. Channel
+ * membership and parent checks run later, in the batch's write query.
+ */
+@Name("chatgenius.MessageValidated")
+@Label("Message Validated")
+@Category({"ChatGenius", "Messages"})
+@Description("Checks on an incoming message before it is queued for writing")
+@StackTrace(false)
+public class MessageValidatedEvent extends jdk.jfr.Event {
+
+    @Label("Channel Id")
+    public String channelId;
+
+    @Label("User Id")
+    public String userId;
+
+    @Label("Content Length")
+    public int contentLength;
+
+    @Label("Valid")
+    public boolean valid;
+}
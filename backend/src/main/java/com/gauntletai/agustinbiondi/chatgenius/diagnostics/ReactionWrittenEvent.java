@@ -0,0 +1,35 @@
+package com.gauntletai.agustinbiondi.chatgenius.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Adding or removing a reaction, from the service call until its transaction commits.
+ * Writes that roll back are not recorded.
+ */
+@Name("chatgenius.ReactionWritten")
+@Label("Reaction Written")
+@Category({"ChatGenius", "Reactions"})
+@Description("Reaction added to or removed from a message")
+@StackTrace(false)
+public class ReactionWrittenEvent extends jdk.jfr.Event {
+
+    @Label("Channel Id")
+    public String channelId;
+
+    @Label("Message Id")
+    public String messageId;
+
+    @Label("User Id")
+    public String userId;
+
+    @Label("Emoji")
+    public String emoji;
+
+    @Label("Operation")
+    @Description("ADD or REMOVE")
+    public String operation;
+}
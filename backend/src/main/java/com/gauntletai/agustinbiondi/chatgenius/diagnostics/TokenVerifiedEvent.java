@@ -0,0 +1,28 @@
+package com.gauntletai.agustinbiondi.chatgenius.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Verification of a Clerk session token, including the JWKS lookup for its signing key.
+ */
+@Name("chatgenius.TokenVerified")
+@Label("Token Verified")
+@Category({"ChatGenius", "Security"})
+@Description("Clerk session token verification, including the signing key lookup")
+@StackTrace(false)
+public class TokenVerifiedEvent extends jdk.jfr.Event {
+
+    @Label("Key Id")
+    public String keyId;
+
+    @Label("User Id")
+    @Description("Empty when verification failed")
+    public String userId;
+
+    @Label("Valid")
+    public boolean valid;
+}
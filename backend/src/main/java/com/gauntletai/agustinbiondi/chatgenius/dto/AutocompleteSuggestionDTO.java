@@ -0,0 +1,25 @@
+package com.gauntletai.agustinbiondi.chatgenius.dto;
+
+import com.gauntletai.agustinbiondi.chatgenius.model.Channel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutocompleteSuggestionDTO {
+    /**
+     * User id or channel id.
+     */
+    private String id;
+
+    private String name;
+
+    /**
+     * Channel type; null for users.
+     */
+    private Channel.Type type;
+}
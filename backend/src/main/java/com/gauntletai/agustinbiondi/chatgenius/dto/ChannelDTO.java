@@ -32,5 +32,24 @@ public class ChannelDTO {
 
     private Instant createdAt;
 
+    /**
+     * Only read when creating a channel. Channel lists never populate this;
+     * members are served page by page from /api/channels/{id}/members.
+     */
+    @Size(max = 5000, message = "A channel cannot be created with more than 5000 members")
     private Set<String> memberIds;
+
+    private long memberCount;
+
+    // Constructor for JPQL projection
+    public ChannelDTO(UUID id, String name, String description, Channel.Type type,
+                      String createdBy, Instant createdAt, Long memberCount) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.type = type;
+        this.createdBy = createdBy;
+        this.createdAt = createdAt;
+        this.memberCount = memberCount != null ? memberCount : 0;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,53 @@
+package com.gauntletai.agustinbiondi.chatgenius.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChannelSyncDTO {
+    public enum Status {
+        OK,
+        UNAVAILABLE
+    }
+
+    private UUID channelId;
+
+    private Status status;
+
+    /**
+     * Messages with a seq above the cursor, in seq order.
+     */
+    private List<MessageDTO> messages;
+
+    /**
+     * Current reactions of every message whose reactions changed since the cursor.
+     */
+    private Map<UUID, List<ReactionDTO>> reactions;
+
+    /**
+     * True when reaction changes could not be determined; the client should reload
+     * reactions of the messages it displays.
+     */
+    private boolean reactionsReset;
+
+    /**
+     * True when more messages are pending than one response carries; sync again with {@link #cursor}.
+     */
+    private boolean hasMore;
+
+    /**
+     * Whether the answer came from the in-memory event buffer rather than the database.
+     */
+    private boolean fromBuffer;
+
+    private SyncCursorDTO cursor;
+}
@@ -0,0 +1,38 @@
+package com.gauntletai.agustinbiondi.chatgenius.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlightRecordingDTO {
+    private long id;
+    private String name;
+
+    /**
+     * NEW, DELAYED, RUNNING, STOPPED or CLOSED, as reported by the JDK.
+     */
+    private String state;
+
+    private Instant startedAt;
+    private Instant stoppedAt;
+
+    /**
+     * Recording stops on its own after this long; null for the continuous recording.
+     */
+    private Long durationMs;
+
+    /**
+     * Continuous recording only: older data is discarded as new data comes in.
+     */
+    private Long maxAgeMs;
+
+    private long maxSizeBytes;
+    private long sizeBytes;
+}
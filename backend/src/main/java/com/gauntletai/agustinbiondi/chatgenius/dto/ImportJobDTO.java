@@ -0,0 +1,47 @@
+package com.gauntletai.agustinbiondi.chatgenius.dto;
+
+import com.gauntletai.agustinbiondi.chatgenius.model.ImportJob;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobDTO {
+    private UUID id;
+    private ImportJob.Stage stage;
+
+    /**
+     * Last archive file whose messages are committed; a restarted import resumes after it.
+     */
+    private String checkpoint;
+
+    private long importedUsers;
+    private long importedChannels;
+    private long importedMessages;
+    private long importedReactions;
+    private long skippedMessages;
+
+    /**
+     * Messages imported per second since the job first started, across restarts.
+     */
+    private double messagesPerSecond;
+
+    private String error;
+
+    /**
+     * Consecutive failed runs; the job is retried at {@code nextAttemptAt} until it fails for good.
+     */
+    private int attempts;
+    private Instant nextAttemptAt;
+    private String requestedBy;
+    private Instant requestedAt;
+    private Instant startedAt;
+    private Instant completedAt;
+}
@@ -34,6 +34,11 @@ public class MessageDTO {
 
     private UUID parentId;
 
+    /**
+     * Per-channel sequence number; lets clients detect gaps and fetch missing ranges.
+     */
+    private long seq;
+
     private String createdAt;
 
     private String editedAt;
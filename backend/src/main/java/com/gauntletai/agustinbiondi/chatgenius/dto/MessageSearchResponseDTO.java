@@ -0,0 +1,21 @@
+package com.gauntletai.agustinbiondi.chatgenius.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageSearchResponseDTO {
+    private List<MessageSearchResultDTO> results;
+
+    /**
+     * Pass back as the cursor parameter to fetch the next page; null on the last page.
+     */
+    private String nextCursor;
+}
@@ -0,0 +1,38 @@
+package com.gauntletai.agustinbiondi.chatgenius.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageSearchResultDTO {
+    private UUID messageId;
+
+    private UUID channelId;
+
+    private String channelName;
+
+    private String userId;
+
+    private String username;
+
+    private UUID parentId;
+
+    private Instant createdAt;
+
+    private long seq;
+
+    private float rank;
+
+    /**
+     * HTML-escaped excerpt of the message with the matched terms wrapped in mark tags.
+     */
+    private String snippet;
+}
@@ -0,0 +1,26 @@
+package com.gauntletai.agustinbiondi.chatgenius.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Position of a client in one channel: the highest message seq it has and the last
+ * event id it received from a sync response. Both come back in every sync response.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncCursorDTO {
+    @NotNull(message = "Channel ID cannot be null")
+    private UUID channelId;
+
+    private long seq;
+
+    private long eventId;
+}
@@ -0,0 +1,21 @@
+package com.gauntletai.agustinbiondi.chatgenius.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncResponseDTO {
+    /**
+     * Server epoch the returned event ids belong to; send it back with the next sync.
+     */
+    private String epoch;
+
+    private List<ChannelSyncDTO> channels;
+}
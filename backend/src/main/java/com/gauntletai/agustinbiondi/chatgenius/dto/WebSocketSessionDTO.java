@@ -0,0 +1,37 @@
+package com.gauntletai.agustinbiondi.chatgenius.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebSocketSessionDTO {
+    /**
+     * Send back in the resume-token header of the next CONNECT, together with the event-id
+     * of the last broadcast received in last-event-id.
+     */
+    private String resumeToken;
+
+    private String epoch;
+
+    /**
+     * True when the subscriptions of the previous session were restored on this one. Only
+     * possible within the same server process; after a restart it is always false.
+     */
+    private boolean resumed;
+
+    private int restoredSubscriptions;
+
+    private int replayedEvents;
+
+    /**
+     * False when the session was not resumed, when the CONNECT did not carry last-event-id,
+     * or when events were missed that the replay buffer no longer held; the client should
+     * catch up through /api/sync.
+     */
+    private boolean replayComplete;
+}
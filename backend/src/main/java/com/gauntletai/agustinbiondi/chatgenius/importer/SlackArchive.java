@@ -0,0 +1,148 @@
+package com.gauntletai.agustinbiondi.chatgenius.importer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Read-only view of a Slack workspace export: users.json, channels.json, groups.json for
+ * private channels, and one folder per channel holding a JSON array of messages per day.
+ * Arrays are parsed one element at a time, so memory depends on the largest single
+ * record rather than on the size of the file. Direct message folders are not read.
+ */
+public final class SlackArchive implements Closeable {
+
+    public record User(String id, String name, String email, boolean deleted) {}
+
+    public record Channel(String id, String name, String purpose, long createdEpochSeconds, String creator,
+                          List<String> members, boolean isPrivate) {}
+
+    public record Reaction(String name, List<String> users) {}
+
+    /**
+     * A message as exported. {@code ts} is Slack's "seconds.micros" timestamp, which also
+     * identifies the message within its channel; replies carry their parent's ts as {@code threadTs}.
+     */
+    public record Message(String ts, String threadTs, String user, String subtype, String text, String editedTs,
+                          List<String> fileNames, List<Reaction> reactions) {}
+
+    public interface RecordHandler<T> {
+        void accept(T record) throws IOException;
+    }
+
+    private final ZipFile zip;
+    private final ObjectMapper objectMapper;
+
+    private SlackArchive(ZipFile zip, ObjectMapper objectMapper) {
+        this.zip = zip;
+        this.objectMapper = objectMapper;
+    }
+
+    public static SlackArchive open(Path path, ObjectMapper objectMapper) throws IOException {
+        return new SlackArchive(new ZipFile(path.toFile()), objectMapper);
+    }
+
+    public void readUsers(RecordHandler<User> handler) throws IOException {
+        readArray("users.json", node -> {
+            JsonNode profile = node.path("profile");
+            String displayName = text(profile, "display_name");
+            String name = displayName != null && !displayName.isBlank() ? displayName : text(node, "name");
+            handler.accept(new User(text(node, "id"), name, text(profile, "email"), node.path("deleted").asBoolean()));
+        });
+    }
+
+    public List<Channel> readChannels() throws IOException {
+        List<Channel> channels = new ArrayList<>();
+        readArray("channels.json", node -> channels.add(channel(node, false)));
+        readArray("groups.json", node -> channels.add(channel(node, true)));
+        return channels;
+    }
+
+    /**
+     * Names of the daily message files in the given channel folders, in ascending order:
+     * by folder, then by date.
+     */
+    public List<String> messageFiles(Collection<String> folders) {
+        List<String> files = new ArrayList<>();
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            String name = entries.nextElement().getName();
+            int slash = name.indexOf('/');
+            if (slash > 0 && name.endsWith(".json") && name.indexOf('/', slash + 1) < 0
+                    && folders.contains(name.substring(0, slash))) {
+                files.add(name);
+            }
+        }
+        files.sort(null);
+        return files;
+    }
+
+    public void readMessages(String file, RecordHandler<Message> handler) throws IOException {
+        readArray(file, node -> {
+            if (!"message".equals(text(node, "type"))) {
+                return;
+            }
+            List<String> fileNames = new ArrayList<>();
+            node.path("files").forEach(f -> {
+                String name = text(f, "name");
+                if (name != null) {
+                    fileNames.add(name);
+                }
+            });
+            List<Reaction> reactions = new ArrayList<>();
+            node.path("reactions").forEach(r -> {
+                List<String> users = new ArrayList<>();
+                r.path("users").forEach(u -> users.add(u.asText()));
+                reactions.add(new Reaction(text(r, "name"), users));
+            });
+            handler.accept(new Message(text(node, "ts"), text(node, "thread_ts"), text(node, "user"),
+                    text(node, "subtype"), text(node, "text"), text(node.path("edited"), "ts"),
+                    fileNames, reactions));
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        zip.close();
+    }
+
+    private static Channel channel(JsonNode node, boolean isPrivate) {
+        List<String> members = new ArrayList<>();
+        node.path("members").forEach(member -> members.add(member.asText()));
+        return new Channel(text(node, "id"), text(node, "name"), text(node.path("purpose"), "value"),
+                node.path("created").asLong(), text(node, "creator"), members, isPrivate);
+    }
+
+    private void readArray(String file, RecordHandler<JsonNode> handler) throws IOException {
+        ZipEntry entry = zip.getEntry(file);
+        if (entry == null) {
+            return;
+        }
+        try (InputStream in = zip.getInputStream(entry);
+             JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array in " + file);
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                handler.accept(objectMapper.readTree(parser));
+            }
+        }
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+}
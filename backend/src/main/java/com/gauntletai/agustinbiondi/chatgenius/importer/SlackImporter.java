@@ -0,0 +1,451 @@
+package com.gauntletai.agustinbiondi.chatgenius.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gauntletai.agustinbiondi.chatgenius.model.Channel;
+import com.gauntletai.agustinbiondi.chatgenius.model.ImportJob;
+import com.gauntletai.agustinbiondi.chatgenius.model.ImportJob.Stage;
+import com.gauntletai.agustinbiondi.chatgenius.model.Message;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelMembershipRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ImportJobRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepositoryCustom.ImportedMessage;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepositoryCustom.ImportedReaction;
+import com.gauntletai.agustinbiondi.chatgenius.repository.UserRepository;
+import com.gauntletai.agustinbiondi.chatgenius.search.AutocompleteIndex;
+import com.gauntletai.agustinbiondi.chatgenius.search.MessageSearchIndex;
+import com.gauntletai.agustinbiondi.chatgenius.search.ReadableChannels;
+import com.gauntletai.agustinbiondi.chatgenius.service.ChannelDirectoryCache;
+import com.gauntletai.agustinbiondi.chatgenius.service.ChannelEventBuffer;
+import com.gauntletai.agustinbiondi.chatgenius.service.MessageWritePipeline;
+import com.gauntletai.agustinbiondi.chatgenius.service.ResourceVersionRegistry;
+import com.gauntletai.agustinbiondi.chatgenius.util.TransactionCallbacks;
+import com.gauntletai.agustinbiondi.chatgenius.util.UuidV7;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Works through {@link ImportJob}s one at a time. Users and channels of the archive are
+ * mapped onto existing rows where they match (users by email, channels by name and type)
+ * and created otherwise; then messages, replies and reactions are bulk-loaded with COPY
+ * in batches of whole daily files, each committed together with its checkpoint. Imported
+ * messages take sequence numbers after everything already in the channel, and after each
+ * batch the channel's cached sequence block and sync event log are dropped, so live
+ * messages are numbered after the history and reconnecting clients re-read it. Ids are
+ * derived from the archive, so a resumed or repeated import never duplicates a row.
+ * An unreadable archive fails the job. Other errors are retried with doubling delays, during
+ * which later jobs run; a job that fails that many times in a row without progress fails.
+ */
+@Slf4j
+@Component
+public class SlackImporter {
+
+    /**
+     * Users created by an import get this id prefix and a placeholder email, so the real
+     * person can still sign up later.
+     */
+    public static final String USER_ID_PREFIX = "slack:";
+
+    private static final Set<Stage> FINISHED = Set.of(Stage.DONE, Stage.FAILED);
+    private static final Set<String> TEXT_SUBTYPES = Set.of("thread_broadcast", "file_share", "me_message", "bot_message");
+    private static final Pattern MARKUP = Pattern.compile("<([@#!])?([^>|]+)(?:\\|([^>]*))?>");
+    private static final int MAX_CHANNEL_NAME = 50;
+    private static final int MAX_DESCRIPTION = 255;
+    private static final int MAX_EMOJI = 32;
+
+    record MappedUser(String userId, String username) {}
+
+    private record MappedChannel(UUID id, String slackId) {}
+
+    private final ImportJobRepository jobRepository;
+    private final UserRepository userRepository;
+    private final ChannelRepository channelRepository;
+    private final ChannelMembershipRepository membershipRepository;
+    private final MessageRepository messageRepository;
+    private final MessageWritePipeline messageWritePipeline;
+    private final ChannelEventBuffer channelEventBuffer;
+    private final ChannelDirectoryCache channelDirectoryCache;
+    private final ResourceVersionRegistry resourceVersions;
+    private final MessageSearchIndex messageSearchIndex;
+    private final AutocompleteIndex autocompleteIndex;
+    private final ReadableChannels readableChannels;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+
+    private final AtomicLong importedMessages = new AtomicLong();
+    private final AtomicLong importedReactions = new AtomicLong();
+
+    public SlackImporter(ImportJobRepository jobRepository, UserRepository userRepository,
+                         ChannelRepository channelRepository, ChannelMembershipRepository membershipRepository,
+                         MessageRepository messageRepository, MessageWritePipeline messageWritePipeline,
+                         ChannelEventBuffer channelEventBuffer, ChannelDirectoryCache channelDirectoryCache,
+                         ResourceVersionRegistry resourceVersions, MessageSearchIndex messageSearchIndex,
+                         AutocompleteIndex autocompleteIndex, ReadableChannels readableChannels,
+                         TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                         @Value("${app.import.batch-size:5000}") int batchSize,
+                         @Value("${app.import.max-attempts:5}") int maxAttempts,
+                         @Value("${app.import.retry-backoff-ms:60000}") long retryBackoffMs) {
+        this.jobRepository = jobRepository;
+        this.userRepository = userRepository;
+        this.channelRepository = channelRepository;
+        this.membershipRepository = membershipRepository;
+        this.messageRepository = messageRepository;
+        this.messageWritePipeline = messageWritePipeline;
+        this.channelEventBuffer = channelEventBuffer;
+        this.channelDirectoryCache = channelDirectoryCache;
+        this.resourceVersions = resourceVersions;
+        this.messageSearchIndex = messageSearchIndex;
+        this.autocompleteIndex = autocompleteIndex;
+        this.readableChannels = readableChannels;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = Duration.ofMillis(retryBackoffMs);
+    }
+
+    public long getImportedMessages() {
+        return importedMessages.get();
+    }
+
+    public long getImportedReactions() {
+        return importedReactions.get();
+    }
+
+    @Scheduled(fixedDelayString = "${app.import.poll-interval-ms:5000}")
+    public void runPendingImports() {
+        for (ImportJob job : jobRepository.findPendingJobs(FINISHED, Instant.now(), PageRequest.of(0, 1))) {
+            try {
+                run(job);
+            } catch (IOException e) {
+                log.error("Import {} failed: the archive could not be read", job.getId(), e);
+                transactionTemplate.executeWithoutResult(status ->
+                        jobRepository.finish(job.getId(), Stage.FAILED.name(), String.valueOf(e.getMessage())));
+            } catch (RuntimeException e) {
+                recordFailedAttempt(job, e);
+            }
+        }
+    }
+
+    private void recordFailedAttempt(ImportJob job, RuntimeException e) {
+        int attempts = job.getAttempts() + 1;
+        String error = String.valueOf(e.getMessage());
+        if (attempts >= maxAttempts) {
+            log.error("Import {} failed at stage {} after {} attempts", job.getId(), job.getStage(), attempts, e);
+            transactionTemplate.executeWithoutResult(status ->
+                    jobRepository.finish(job.getId(), Stage.FAILED.name(), error));
+            return;
+        }
+        Instant retryAt = Instant.now().plus(retryBackoff.multipliedBy(1L << Math.min(attempts - 1, 10)));
+        log.error("Import {} stopped at stage {} (attempt {} of {}), will resume at {}", job.getId(), job.getStage(),
+                attempts, maxAttempts, retryAt, e);
+        transactionTemplate.executeWithoutResult(status ->
+                jobRepository.recordFailedAttempt(job.getId(), error, retryAt));
+    }
+
+    void run(ImportJob job) throws IOException {
+        long started = System.nanoTime();
+        UUID jobId = job.getId();
+        log.info("Importing {} from stage {}, after {}", job.getArchivePath(), job.getStage(), job.getCheckpoint());
+        transactionTemplate.executeWithoutResult(status -> jobRepository.markStarted(jobId));
+
+        try (SlackArchive archive = SlackArchive.open(Path.of(job.getArchivePath()), objectMapper)) {
+            // Mapping is repeated on resume: both steps are idempotent and only count rows they create
+            Map<String, MappedUser> users = importUsers(archive, jobId, job.getStage() == Stage.USERS);
+            Map<String, MappedChannel> channels =
+                    importChannels(archive, jobId, users, job.getRequestedBy(), job.getStage() != Stage.MESSAGES);
+            importMessages(archive, job, users, channels);
+            transactionTemplate.executeWithoutResult(status -> jobRepository.finish(jobId, Stage.DONE.name(), null));
+            channels.values().forEach(channel -> messageSearchIndex.indexChannel(channel.id()));
+        }
+        Files.deleteIfExists(Path.of(job.getArchivePath()));
+        log.info("Import {} finished in {} s", jobId, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started));
+    }
+
+    private Map<String, MappedUser> importUsers(SlackArchive archive, UUID jobId, boolean count) throws IOException {
+        List<SlackArchive.User> archived = new ArrayList<>();
+        archive.readUsers(archived::add);
+        Map<String, MappedUser> users = new HashMap<>();
+        long created = transactionTemplate.execute(status -> {
+            long inserted = 0;
+            for (SlackArchive.User user : archived) {
+                MappedUser mapped = mapUser(user);
+                if (mapped == null) {
+                    continue;
+                }
+                users.put(user.id(), mapped);
+                if (mapped.userId().startsWith(USER_ID_PREFIX)
+                        && userRepository.insertImportedUser(mapped.userId(), mapped.username(),
+                                user.id() + "@slack-import.invalid", user.deleted()) > 0) {
+                    inserted++;
+                    resourceVersions.bumpUser(mapped.userId());
+                    if (!user.deleted()) {
+                        TransactionCallbacks.afterCommit(() ->
+                                autocompleteIndex.putUser(mapped.userId(), mapped.username()));
+                    }
+                }
+            }
+            if (count) {
+                jobRepository.completeStage(jobId, Stage.CHANNELS.name(), inserted, 0);
+            }
+            return inserted;
+        });
+        log.info("Import {} mapped {} users, created {}", jobId, users.size(), created);
+        return users;
+    }
+
+    private MappedUser mapUser(SlackArchive.User user) {
+        if (user.id() == null || user.name() == null) {
+            return null;
+        }
+        if (user.email() != null) {
+            var existing = userRepository.findByEmail(user.email());
+            if (existing.isPresent()) {
+                return new MappedUser(existing.get().getUserId(), existing.get().getUsername());
+            }
+        }
+        return new MappedUser(USER_ID_PREFIX + user.id(), user.name());
+    }
+
+    private Map<String, MappedChannel> importChannels(SlackArchive archive, UUID jobId, Map<String, MappedUser> users,
+                                                      String requestedBy, boolean count) throws IOException {
+        Map<String, MappedChannel> channels = new HashMap<>();
+        long created = 0;
+        for (SlackArchive.Channel channel : archive.readChannels()) {
+            if (channel.id() == null || channel.name() == null) {
+                continue;
+            }
+            Channel.Type type = channel.isPrivate() ? Channel.Type.PRIVATE : Channel.Type.PUBLIC;
+            String name = truncate(channel.name(), MAX_CHANNEL_NAME);
+            MappedUser creator = channel.creator() != null ? users.get(channel.creator()) : null;
+            Set<String> memberIds = new LinkedHashSet<>();
+            channel.members().forEach(member -> {
+                MappedUser mapped = users.get(member);
+                if (mapped != null) {
+                    memberIds.add(mapped.userId());
+                }
+            });
+            UUID derivedId = UuidV7.derive(TimeUnit.SECONDS.toMillis(channel.createdEpochSeconds()),
+                    "slack-channel:" + channel.id());
+
+            int inserted = transactionTemplate.execute(status -> {
+                int rows = channelRepository.insertImportedChannel(derivedId, name,
+                        truncate(channel.purpose(), MAX_DESCRIPTION), type.name(),
+                        creator != null ? creator.userId() : requestedBy,
+                        Instant.ofEpochSecond(channel.createdEpochSeconds()));
+                // A live channel with the same name and type takes the history instead
+                UUID channelId = channelRepository.findIdByNameAndType(name, type).orElse(derivedId);
+                membershipRepository.insertMembershipsIgnoringExisting(channelId, memberIds);
+                channels.put(channel.name(), new MappedChannel(channelId, channel.id()));
+                channelDirectoryCache.invalidatePublic();
+                channelDirectoryCache.invalidateUsers(memberIds);
+                resourceVersions.bumpChannel(channelId);
+                TransactionCallbacks.afterCommit(() -> {
+                    readableChannels.invalidate(memberIds);
+                    autocompleteIndex.putChannel(channelId, name, type);
+                });
+                return rows;
+            });
+            created += inserted;
+        }
+        if (count) {
+            long total = created;
+            transactionTemplate.executeWithoutResult(status ->
+                    jobRepository.completeStage(jobId, Stage.MESSAGES.name(), 0, total));
+        }
+        log.info("Import {} mapped {} channels, created {}", jobId, channels.size(), created);
+        return channels;
+    }
+
+    private void importMessages(SlackArchive archive, ImportJob job, Map<String, MappedUser> users,
+                                Map<String, MappedChannel> channels) throws IOException {
+        long started = System.nanoTime();
+        long messagesBefore = job.getImportedMessages();
+        long[] totals = {0, 0};
+        Batch batch = new Batch();
+        for (String file : archive.messageFiles(channels.keySet())) {
+            if (job.getCheckpoint() != null && file.compareTo(job.getCheckpoint()) <= 0) {
+                continue;
+            }
+            MappedChannel channel = channels.get(file.substring(0, file.indexOf('/')));
+            if (batch.channel != null && batch.channel != channel) {
+                flush(job.getId(), batch, totals);
+            }
+            batch.channel = channel;
+            archive.readMessages(file, message -> batch.add(convert(message, channel, users)));
+            batch.lastFile = file;
+            if (batch.messages.size() >= batchSize) {
+                flush(job.getId(), batch, totals);
+                long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started));
+                log.info("Import {}: {} messages, {} reactions so far ({} messages/s), at {}", job.getId(),
+                        messagesBefore + totals[0], totals[1], totals[0] / seconds, file);
+            }
+        }
+        flush(job.getId(), batch, totals);
+    }
+
+    private void flush(UUID jobId, Batch batch, long[] totals) {
+        if (batch.lastFile == null) {
+            return;
+        }
+        UUID channelId = batch.channel.id();
+        // The copy reserves seqs from channels.message_seq_reserved; with the channel's live writes
+        // paused, none of them can hold or commit a number below the imported range
+        messageWritePipeline.runExclusively(channelId, () -> transactionTemplate.executeWithoutResult(status -> {
+            int messages = messageRepository.copyImportedMessages(channelId, batch.messages);
+            int reactions = messageRepository.copyImportedReactions(batch.reactions);
+            jobRepository.recordProgress(jobId, batch.lastFile, messages, reactions, batch.skipped);
+            resourceVersions.bumpChannel(channelId);
+            if (messages > 0) {
+                channelEventBuffer.invalidateChannel(channelId);
+            }
+            totals[0] += messages;
+            totals[1] += reactions;
+            importedMessages.addAndGet(messages);
+            importedReactions.addAndGet(reactions);
+        }));
+        batch.clear();
+    }
+
+    private Converted convert(SlackArchive.Message message, MappedChannel channel, Map<String, MappedUser> users) {
+        MappedUser author = message.user() != null ? users.get(message.user()) : null;
+        if (author == null || message.ts() == null) {
+            return null;
+        }
+        String content = content(message, users);
+        if (content.isEmpty()) {
+            return null;
+        }
+        Instant createdAt = instantOf(message.ts());
+        UUID id = messageId(channel, message.ts());
+        UUID parentId = message.threadTs() != null && !message.threadTs().equals(message.ts())
+                ? messageId(channel, message.threadTs()) : null;
+        String type = message.subtype() == null || TEXT_SUBTYPES.contains(message.subtype())
+                ? Message.Type.TEXT.name() : Message.Type.SYSTEM.name();
+        Instant editedAt = message.editedTs() != null ? instantOf(message.editedTs()) : null;
+
+        List<ImportedReaction> reactions = new ArrayList<>();
+        for (SlackArchive.Reaction reaction : message.reactions()) {
+            if (reaction.name() == null) {
+                continue;
+            }
+            String emoji = truncate(":" + reaction.name() + ":", MAX_EMOJI);
+            Set<String> reactors = new HashSet<>();
+            for (String user : reaction.users()) {
+                MappedUser reactor = users.get(user);
+                if (reactor != null && reactors.add(reactor.userId())) {
+                    reactions.add(new ImportedReaction(id, reactor.userId(), emoji));
+                }
+            }
+        }
+        return new Converted(new ImportedMessage(id, author.userId(), parentId, type, content, createdAt, editedAt),
+                reactions);
+    }
+
+    /**
+     * Slack markup turned into plain text: mentions become @name and #channel, links keep
+     * their label or URL, and the three escaped HTML characters are restored.
+     */
+    static String content(SlackArchive.Message message, Map<String, MappedUser> users) {
+        String text = message.text() != null ? message.text() : "";
+        Matcher matcher = MARKUP.matcher(text);
+        StringBuilder plain = new StringBuilder(text.length());
+        while (matcher.find()) {
+            String sigil = matcher.group(1);
+            String target = matcher.group(2);
+            String label = matcher.group(3);
+            String replacement;
+            if ("@".equals(sigil)) {
+                MappedUser user = users.get(target);
+                replacement = "@" + (user != null ? user.username() : label != null ? label : target);
+            } else if ("#".equals(sigil)) {
+                replacement = "#" + (label != null ? label : target);
+            } else if ("!".equals(sigil)) {
+                replacement = "@" + (label != null ? label : target);
+            } else {
+                replacement = label != null && !label.isEmpty() ? label : target;
+            }
+            matcher.appendReplacement(plain, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(plain);
+        String content = plain.toString()
+                .replace("&lt;", "<").replace("&gt;", ">").replace("&amp;", "&")
+                .replace("\u0000", "")
+                .strip();
+        if (content.isEmpty() && !message.fileNames().isEmpty()) {
+            content = "[file] " + String.join(", ", message.fileNames());
+        }
+        return content;
+    }
+
+    private static UUID messageId(MappedChannel channel, String ts) {
+        return UuidV7.derive(instantOf(ts).toEpochMilli(), "slack-message:" + channel.slackId() + ":" + ts);
+    }
+
+    static Instant instantOf(String ts) {
+        int dot = ts.indexOf('.');
+        if (dot < 0) {
+            return Instant.ofEpochSecond(Long.parseLong(ts));
+        }
+        String fraction = (ts.substring(dot + 1) + "000000000").substring(0, 9);
+        return Instant.ofEpochSecond(Long.parseLong(ts.substring(0, dot)), Long.parseLong(fraction));
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+
+    private record Converted(ImportedMessage message, List<ImportedReaction> reactions) {}
+
+    /**
+     * Messages of whole daily files of one channel, waiting to be copied in.
+     */
+    private static final class Batch {
+        MappedChannel channel;
+        String lastFile;
+        final List<ImportedMessage> messages = new ArrayList<>();
+        final List<ImportedReaction> reactions = new ArrayList<>();
+        long skipped;
+
+        void add(Converted converted) {
+            if (converted == null) {
+                skipped++;
+                return;
+            }
+            messages.add(converted.message());
+            reactions.addAll(converted.reactions());
+        }
+
+        void clear() {
+            lastFile = null;
+            messages.clear();
+            reactions.clear();
+            skipped = 0;
+        }
+    }
+}
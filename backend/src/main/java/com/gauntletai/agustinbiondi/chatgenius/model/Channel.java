@@ -3,6 +3,7 @@ package com.gauntletai.agustinbiondi.chatgenius.model;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SQLRestriction;
 import org.hibernate.annotations.UuidGenerator;
 
 import java.time.Instant;
@@ -14,9 +15,10 @@ import java.util.UUID;
 @Table(name = "channels",
        indexes = @Index(name = "idx_channels_name", columnList = "name"),
        uniqueConstraints = @UniqueConstraint(
-           name = "uk_channels_name_non_dm",
-           columnNames = {"name", "type"}
+           name = "uk_channels_dm_key",
+           columnNames = {"dm_key"}
        ))
+@SQLRestriction("deleted_at IS NULL")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -52,16 +54,34 @@ public class Channel {
     @JoinColumn(name = "created_by", nullable = false, columnDefinition = "VARCHAR(255)")
     private User createdBy;
 
+    /**
+     * Canonical "userA:userB" pair key (sorted user ids) for direct message channels, null otherwise.
+     */
+    @Column(name = "dm_key", length = 511)
+    private String dmKey;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
     private Instant createdAt;
 
-    @OneToMany(mappedBy = "channel", cascade = CascadeType.ALL, orphanRemoval = true)
+    /**
+     * Set when the channel is deleted. Deleted channels are hidden from every query and
+     * their messages, reactions and memberships are removed in batches by ChannelPurger.
+     */
+    @Column(name = "deleted_at", columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private Instant deletedAt;
+
+    @OneToMany(mappedBy = "channel")
     @Builder.Default
     private Set<ChannelMembership> memberships = new HashSet<>();
 
-    @OneToMany(mappedBy = "channel", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OneToMany(mappedBy = "channel")
     @Builder.Default
     private Set<Message> messages = new HashSet<>();
 
+    public static String directMessageKey(String userId1, String userId2) {
+        return userId1.compareTo(userId2) <= 0
+                ? userId1 + ":" + userId2
+                : userId2 + ":" + userId1;
+    }
 } 
\ No newline at end of file
@@ -3,14 +3,14 @@ package com.gauntletai.agustinbiondi.chatgenius.model;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
-import org.hibernate.annotations.UuidGenerator;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
 @Table(name = "channel_memberships",
-       uniqueConstraints = @UniqueConstraint(columnNames = {"channel_id", "user_id"}))
+       uniqueConstraints = @UniqueConstraint(columnNames = {"channel_id", "user_id"}),
+       indexes = @Index(name = "idx_channel_memberships_user", columnList = "user_id"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -20,8 +20,7 @@ import java.util.UUID;
 @EqualsAndHashCode(of = "id")
 public class ChannelMembership {
     @Id
-    @GeneratedValue
-    @UuidGenerator
+    @GeneratedUuidV7
     @Column(columnDefinition = "UUID", updatable = false, nullable = false)
     private UUID id;
 
@@ -0,0 +1,95 @@
+package com.gauntletai.agustinbiondi.chatgenius.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Checkpoint for importing an external chat archive. Each batch of messages commits
+ * together with {@code checkpoint}, the last archive entry it completed, so a restart
+ * resumes after it. Counters cover the whole job, across restarts. A run that fails without
+ * committing any progress counts as an attempt; the job is retried after
+ * {@code nextAttemptAt} until it runs out of attempts.
+ */
+@Entity
+@Table(name = "import_jobs",
+       indexes = @Index(name = "idx_import_jobs_stage", columnList = "stage,requested_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(of = "id")
+public class ImportJob {
+    public enum Stage {
+        USERS,
+        CHANNELS,
+        MESSAGES,
+        DONE,
+        FAILED
+    }
+
+    @Id
+    @GeneratedUuidV7
+    @Column(columnDefinition = "UUID", updatable = false, nullable = false)
+    private UUID id;
+
+    /**
+     * Path of the uploaded archive on the server.
+     */
+    @Column(name = "archive_path", nullable = false, length = 1024)
+    private String archivePath;
+
+    @Column(name = "requested_by", nullable = false, columnDefinition = "VARCHAR(255)")
+    private String requestedBy;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private Stage stage = Stage.USERS;
+
+    @Column(length = 1024)
+    private String checkpoint;
+
+    @Column(name = "imported_users", nullable = false)
+    private long importedUsers;
+
+    @Column(name = "imported_channels", nullable = false)
+    private long importedChannels;
+
+    @Column(name = "imported_messages", nullable = false)
+    private long importedMessages;
+
+    @Column(name = "imported_reactions", nullable = false)
+    private long importedReactions;
+
+    @Column(name = "skipped_messages", nullable = false)
+    private long skippedMessages;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    /**
+     * Consecutive runs that failed without committing progress.
+     */
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private Instant nextAttemptAt;
+
+    @CreationTimestamp
+    @Column(name = "requested_at", nullable = false, updatable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private Instant requestedAt;
+
+    @Column(name = "started_at", columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private Instant startedAt;
+
+    @Column(name = "completed_at", columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private Instant completedAt;
+}
@@ -3,7 +3,6 @@ package com.gauntletai.agustinbiondi.chatgenius.model;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
-import org.hibernate.annotations.UuidGenerator;
 
 import java.time.Instant;
 import java.util.*;
@@ -12,7 +11,8 @@ import java.util.*;
 @Table(name = "messages",
        indexes = {
            @Index(name = "idx_messages_channel_created", columnList = "channel_id,created_at"),
-           @Index(name = "idx_messages_parent", columnList = "parent_id")
+           @Index(name = "idx_messages_parent", columnList = "parent_id"),
+           @Index(name = "idx_messages_created_by", columnList = "created_by")
        })
 @Getter
 @Setter
@@ -27,14 +27,20 @@ public class Message {
     }
 
     @Id
-    @GeneratedValue
-    @UuidGenerator
+    @GeneratedUuidV7
     @Column(columnDefinition = "UUID", updatable = false, nullable = false)
     private UUID id;
 
     @Column(nullable = false, columnDefinition = "TEXT")
     private String content;
 
+    /**
+     * Per-channel, strictly increasing sequence number assigned by MessageSequenceAllocator.
+     * Unique per channel; gaps are possible after failed writes or restarts.
+     */
+    @Column(name = "seq", updatable = false)
+    private Long seq;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     @Builder.Default
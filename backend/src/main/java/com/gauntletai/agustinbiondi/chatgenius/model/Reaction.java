@@ -2,7 +2,6 @@ package com.gauntletai.agustinbiondi.chatgenius.model;
 
 import jakarta.persistence.*;
 import lombok.*;
-import org.hibernate.annotations.UuidGenerator;
 
 import java.util.UUID;
 
@@ -26,8 +25,7 @@ import java.util.UUID;
 @EqualsAndHashCode(of = "id")
 public class Reaction {
     @Id
-    @GeneratedValue
-    @UuidGenerator
+    @GeneratedUuidV7
     @Column(columnDefinition = "UUID", updatable = false, nullable = false)
     private UUID id;
 
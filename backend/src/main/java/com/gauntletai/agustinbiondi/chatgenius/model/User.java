@@ -16,6 +16,11 @@ import java.time.Instant;
 @EqualsAndHashCode(of = "userId")
 public class User {
 
+    /**
+     * Owner of messages and channels whose author deleted their account.
+     */
+    public static final String DELETED_USER_ID = "deleted-user";
+
     public enum Role {
         ADMIN,
         USER
@@ -39,4 +44,15 @@ public class User {
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
     private Instant createdAt;
+
+    /**
+     * Set when the account is deleted. The row stays until UserPurger has removed
+     * or reassigned everything that references it.
+     */
+    @Column(name = "deleted_at", columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private Instant deletedAt;
+
+    public boolean isDeleted() {
+        return deletedAt != null;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.gauntletai.agustinbiondi.chatgenius.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+/**
+ * Checkpoint for purging a deleted user's data. The stage and row count are updated
+ * in the same transaction as each batch, so a restart resumes where it stopped.
+ */
+@Entity
+@Table(name = "user_purge_jobs",
+       indexes = @Index(name = "idx_user_purge_jobs_stage", columnList = "stage,requested_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EqualsAndHashCode(of = "userId")
+public class UserPurgeJob {
+    /**
+     * Purge stages, declared in the order they run.
+     */
+    public enum Stage {
+        REACTIONS,
+        MEMBERSHIPS,
+        MESSAGES,
+        CHANNELS,
+        USER,
+        DONE
+    }
+
+    // No foreign key: the job outlives the user row it purges
+    @Id
+    @Column(name = "user_id", nullable = false, columnDefinition = "VARCHAR(255)")
+    private String userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private Stage stage = Stage.REACTIONS;
+
+    @Column(name = "processed_rows", nullable = false)
+    private long processedRows;
+
+    @CreationTimestamp
+    @Column(name = "requested_at", nullable = false, updatable = false, columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private Instant requestedAt;
+
+    @Column(name = "completed_at", columnDefinition = "TIMESTAMP WITH TIME ZONE")
+    private Instant completedAt;
+}
@@ -2,14 +2,19 @@ package com.gauntletai.agustinbiondi.chatgenius.repository;
 
 import com.gauntletai.agustinbiondi.chatgenius.model.Channel;
 import com.gauntletai.agustinbiondi.chatgenius.model.ChannelMembership;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.UUID;
 
 @Repository
-public interface ChannelMembershipRepository extends JpaRepository<ChannelMembership, UUID> {
+public interface ChannelMembershipRepository extends JpaRepository<ChannelMembership, UUID>, ChannelMembershipRepositoryCustom {
     boolean existsByChannelAndUserUserId(Channel channel, String userId);
     
     boolean existsByChannelIdAndUserUserId(UUID channelId, String userId);
@@ -17,4 +22,30 @@ public interface ChannelMembershipRepository extends JpaRepository<ChannelMember
     void deleteByChannelIdAndUserUserId(UUID channelId, String userId);
     
     List<ChannelMembership> findByChannelId(UUID channelId);
-} 
\ No newline at end of file
+
+    long countByChannelId(UUID channelId);
+
+    @Query("SELECT m.user.userId FROM ChannelMembership m WHERE m.channel.id = :channelId")
+    List<String> findUserIdsByChannelId(@Param("channelId") UUID channelId);
+
+    @Query(value = "SELECT m.user.userId FROM ChannelMembership m WHERE m.channel.id = :channelId ORDER BY m.joinedAt, m.id",
+           countQuery = "SELECT COUNT(m) FROM ChannelMembership m WHERE m.channel.id = :channelId")
+    Page<String> findMemberUserIdsByChannelId(@Param("channelId") UUID channelId, Pageable pageable);
+
+    @Modifying
+    @Query(value = "DELETE FROM channel_memberships WHERE id IN (" +
+                   "SELECT id FROM channel_memberships WHERE channel_id = :channelId LIMIT :limit)",
+           nativeQuery = true)
+    int deleteBatchByChannelId(@Param("channelId") UUID channelId, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM channel_memberships WHERE id IN (" +
+                   "SELECT id FROM channel_memberships WHERE user_id = :userId LIMIT :limit)",
+           nativeQuery = true)
+    int deleteBatchByUserId(@Param("userId") String userId, @Param("limit") int limit);
+
+    @Query("SELECT DISTINCT other.user.userId FROM ChannelMembership m " +
+           "JOIN ChannelMembership other ON other.channel = m.channel " +
+           "WHERE m.user.userId = :userId AND m.channel.type = :type")
+    List<String> findCoMemberUserIds(@Param("userId") String userId, @Param("type") Channel.Type type);
+}
@@ -0,0 +1,43 @@
+package com.gauntletai.agustinbiondi.chatgenius.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public interface ChannelMembershipRepositoryCustom {
+
+    record UnreadCount(UUID channelId, String userId, int count) {}
+
+    record ReadPosition(UUID channelId, String userId, LocalDateTime readAt) {}
+
+    /**
+     * Insert memberships for the given users, a few hundred per statement, skipping users who
+     * are already members. Callers must have validated that the users exist.
+     *
+     * @return the number of memberships actually created
+     */
+    int insertMembershipsIgnoringExisting(UUID channelId, Collection<String> userIds);
+
+    /**
+     * Persisted unread counts of every member of a channel, keyed by user id.
+     */
+    Map<String, Integer> findUnreadCountsByChannelId(UUID channelId);
+
+    /**
+     * Persisted unread counts of a user across the live channels they belong to.
+     */
+    Map<UUID, Integer> findUnreadCountsByUserId(String userId);
+
+    /**
+     * Overwrite the stored unread counts with one UPDATE ... FROM (VALUES ...) per chunk.
+     */
+    void updateUnreadCounts(List<UnreadCount> counts);
+
+    /**
+     * Advance last_read_at with one UPDATE ... FROM (VALUES ...) per chunk. A position older
+     * than the stored one is ignored, so receipts can be applied in any order.
+     */
+    void updateLastReadAt(List<ReadPosition> positions);
+}
@@ -0,0 +1,111 @@
+package com.gauntletai.agustinbiondi.chatgenius.repository;
+
+import com.gauntletai.agustinbiondi.chatgenius.util.UuidV7;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class ChannelMembershipRepositoryCustomImpl implements ChannelMembershipRepositoryCustom {
+
+    // One statement per chunk: its update count is the number of rows actually inserted, which a
+    // JDBC batch cannot report once the driver rewrites it into a multi-row insert
+    private static final String INSERT_MEMBERSHIPS =
+            "INSERT INTO channel_memberships (id, channel_id, user_id, joined_at) " +
+            "SELECT m.id, ?, m.user_id, now() FROM unnest(?::uuid[], ?::varchar[]) AS m(id, user_id) " +
+            "ON CONFLICT (channel_id, user_id) DO NOTHING";
+
+    private static final String SELECT_CHANNEL_UNREAD =
+            "SELECT user_id, unread_count FROM channel_memberships WHERE channel_id = ?";
+
+    private static final String SELECT_USER_UNREAD =
+            "SELECT m.channel_id, m.unread_count FROM channel_memberships m " +
+            "JOIN channels c ON c.id = m.channel_id " +
+            "WHERE m.user_id = ? AND c.deleted_at IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.channels.membership-batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public int insertMembershipsIgnoringExisting(UUID channelId, Collection<String> userIds) {
+        List<String> ids = List.copyOf(userIds);
+        int inserted = 0;
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<String> chunk = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            UUID[] membershipIds = new UUID[chunk.size()];
+            Arrays.setAll(membershipIds, i -> UuidV7.generate());
+            inserted += jdbcTemplate.update(INSERT_MEMBERSHIPS, ps -> {
+                ps.setObject(1, channelId);
+                ps.setArray(2, ps.getConnection().createArrayOf("uuid", membershipIds));
+                ps.setArray(3, ps.getConnection().createArrayOf("varchar", chunk.toArray()));
+            });
+        }
+        return inserted;
+    }
+
+    @Override
+    public Map<String, Integer> findUnreadCountsByChannelId(UUID channelId) {
+        Map<String, Integer> counts = new HashMap<>();
+        jdbcTemplate.query(SELECT_CHANNEL_UNREAD,
+                rs -> { counts.put(rs.getString(1), rs.getInt(2)); },
+                channelId);
+        return counts;
+    }
+
+    @Override
+    public Map<UUID, Integer> findUnreadCountsByUserId(String userId) {
+        Map<UUID, Integer> counts = new HashMap<>();
+        jdbcTemplate.query(SELECT_USER_UNREAD,
+                rs -> { counts.put(rs.getObject(1, UUID.class), rs.getInt(2)); },
+                userId);
+        return counts;
+    }
+
+    @Override
+    public void updateUnreadCounts(List<UnreadCount> counts) {
+        for (int from = 0; from < counts.size(); from += batchSize) {
+            List<UnreadCount> chunk = counts.subList(from, Math.min(from + batchSize, counts.size()));
+            String sql = "UPDATE channel_memberships m SET unread_count = v.unread_count FROM (VALUES " +
+                    String.join(", ", Collections.nCopies(chunk.size(), "(CAST(? AS uuid), ?, ?)")) +
+                    ") AS v(channel_id, user_id, unread_count) " +
+                    "WHERE m.channel_id = v.channel_id AND m.user_id = v.user_id";
+            List<Object> args = new ArrayList<>(chunk.size() * 3);
+            for (UnreadCount count : chunk) {
+                args.add(count.channelId());
+                args.add(count.userId());
+                args.add(count.count());
+            }
+            jdbcTemplate.update(sql, args.toArray());
+        }
+    }
+
+    @Override
+    public void updateLastReadAt(List<ReadPosition> positions) {
+        for (int from = 0; from < positions.size(); from += batchSize) {
+            List<ReadPosition> chunk = positions.subList(from, Math.min(from + batchSize, positions.size()));
+            String sql = "UPDATE channel_memberships m SET last_read_at = v.read_at FROM (VALUES " +
+                    String.join(", ", Collections.nCopies(chunk.size(), "(CAST(? AS uuid), ?, CAST(? AS timestamp))")) +
+                    ") AS v(channel_id, user_id, read_at) " +
+                    "WHERE m.channel_id = v.channel_id AND m.user_id = v.user_id " +
+                    "AND (m.last_read_at IS NULL OR m.last_read_at < v.read_at)";
+            List<Object> args = new ArrayList<>(chunk.size() * 3);
+            for (ReadPosition position : chunk) {
+                args.add(position.channelId());
+                args.add(position.userId());
+                args.add(position.readAt());
+            }
+            jdbcTemplate.update(sql, args.toArray());
+        }
+    }
+}
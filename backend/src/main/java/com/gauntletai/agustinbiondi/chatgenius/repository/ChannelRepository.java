@@ -1,35 +1,126 @@
 package com.gauntletai.agustinbiondi.chatgenius.repository;
 
+import com.gauntletai.agustinbiondi.chatgenius.dto.ChannelDTO;
 import com.gauntletai.agustinbiondi.chatgenius.model.Channel;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface ChannelRepository extends JpaRepository<Channel, UUID> {
-    List<Channel> findByType(Channel.Type type);
-    
-    List<Channel> findByMembershipsUserUserId(String userId);
-    
-    @Query("SELECT c FROM Channel c " +
-           "WHERE c.type = 'DIRECT_MESSAGE' " +
-           "AND EXISTS (SELECT m1 FROM ChannelMembership m1 WHERE m1.channel = c AND m1.user.userId = :userId1) " +
-           "AND EXISTS (SELECT m2 FROM ChannelMembership m2 WHERE m2.channel = c AND m2.user.userId = :userId2)")
-    Optional<Channel> findDirectMessageChannelBetweenUsers(
-            @Param("userId1") String userId1,
-            @Param("userId2") String userId2);
-
-    @Query("SELECT c FROM Channel c " +
-           "WHERE c.type = 'PUBLIC' " +
-           "OR (c.type = 'DIRECT_MESSAGE' AND EXISTS " +
-           "(SELECT m FROM ChannelMembership m WHERE m.channel = c AND m.user.userId = :userId))")
-    List<Channel> findPublicAndUserDirectMessageChannels(@Param("userId") String userId);
+public interface ChannelRepository extends JpaRepository<Channel, UUID>, ChannelRepositoryCustom {
+
+    String CHANNEL_SUMMARY_SELECT =
+            "SELECT new com.gauntletai.agustinbiondi.chatgenius.dto.ChannelDTO(" +
+            "c.id, c.name, c.description, c.type, c.createdBy.userId, c.createdAt, COUNT(m.id)) " +
+            "FROM Channel c LEFT JOIN c.memberships m ";
+
+    String CHANNEL_SUMMARY_GROUP_BY =
+            " GROUP BY c.id, c.name, c.description, c.type, c.createdBy.userId, c.createdAt";
+
+    /**
+     * Channel list rows with member counts, aggregated in a single query so
+     * the sidebar never hydrates memberships or users.
+     */
+    @Query(CHANNEL_SUMMARY_SELECT +
+           "WHERE c.type = :type" +
+           CHANNEL_SUMMARY_GROUP_BY)
+    List<ChannelDTO> findChannelSummariesByType(@Param("type") Channel.Type type);
+
+    @Query(CHANNEL_SUMMARY_SELECT +
+           "WHERE c.id IN (SELECT um.channel.id FROM ChannelMembership um WHERE um.user.userId = :userId)" +
+           CHANNEL_SUMMARY_GROUP_BY)
+    List<ChannelDTO> findChannelSummariesByMember(@Param("userId") String userId);
+
+    @Query(CHANNEL_SUMMARY_SELECT +
+           "WHERE c.type = 'DIRECT_MESSAGE' AND c.id IN " +
+           "(SELECT um.channel.id FROM ChannelMembership um WHERE um.user.userId = :userId)" +
+           CHANNEL_SUMMARY_GROUP_BY)
+    List<ChannelDTO> findDirectMessageChannelSummariesByMember(@Param("userId") String userId);
+
+    Optional<Channel> findByDmKey(String dmKey);
+
+    /**
+     * Insert a direct message channel unless one already exists for the pair key.
+     * Returns 1 when this call created the channel, 0 when it already existed.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO channels (id, name, type, created_by, created_at, dm_key) " +
+                   "VALUES (:id, :name, 'DIRECT_MESSAGE', :createdBy, now(), :dmKey) " +
+                   "ON CONFLICT (dm_key) DO NOTHING",
+           nativeQuery = true)
+    int insertDirectMessageChannelIfAbsent(
+            @Param("id") UUID id,
+            @Param("name") String name,
+            @Param("createdBy") String createdBy,
+            @Param("dmKey") String dmKey);
+
+    /**
+     * Insert a channel from an imported archive unless the id, or a live channel with the same
+     * name and type, already exists. Returns 1 when this call created the channel.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO channels (id, name, description, type, created_by, created_at) " +
+                   "VALUES (:id, :name, :description, :type, :createdBy, :createdAt) " +
+                   "ON CONFLICT DO NOTHING",
+           nativeQuery = true)
+    int insertImportedChannel(
+            @Param("id") UUID id,
+            @Param("name") String name,
+            @Param("description") String description,
+            @Param("type") String type,
+            @Param("createdBy") String createdBy,
+            @Param("createdAt") Instant createdAt);
+
+    @Query("SELECT c.id FROM Channel c WHERE c.name = :name AND c.type = :type")
+    Optional<UUID> findIdByNameAndType(@Param("name") String name, @Param("type") Channel.Type type);
+
+    /**
+     * Soft-delete a channel and release its DM pair key so the pair can start a new conversation.
+     */
+    @Modifying
+    @Query(value = "UPDATE channels SET deleted_at = now(), dm_key = NULL WHERE id = :id AND deleted_at IS NULL",
+           nativeQuery = true)
+    int markDeleted(@Param("id") UUID id);
+
+    @Query(value = "SELECT id FROM channels WHERE deleted_at IS NOT NULL ORDER BY deleted_at LIMIT :limit",
+           nativeQuery = true)
+    List<UUID> findDeletedChannelIds(@Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM channels WHERE id = :id AND deleted_at IS NOT NULL", nativeQuery = true)
+    int purgeDeletedChannel(@Param("id") UUID id);
+
+    @Query("SELECT c.id FROM Channel c WHERE c.id IN :channelIds AND (c.type = :publicType OR EXISTS (" +
+           "SELECT 1 FROM ChannelMembership cm WHERE cm.channel = c AND cm.user.userId = :userId))")
+    List<UUID> findAccessibleChannelIds(@Param("channelIds") Collection<UUID> channelIds,
+                                        @Param("userId") String userId,
+                                        @Param("publicType") Channel.Type publicType);
+
+    /**
+     * Every live channel the user can read: public channels and the ones they belong to.
+     */
+    @Query("SELECT c.id FROM Channel c WHERE c.type = :publicType OR EXISTS (" +
+           "SELECT 1 FROM ChannelMembership cm WHERE cm.channel = c AND cm.user.userId = :userId)")
+    List<UUID> findReadableChannelIds(@Param("userId") String userId, @Param("publicType") Channel.Type publicType);
 
     @Query("SELECT COUNT(cm) > 0 FROM ChannelMembership cm WHERE cm.channel.id = :channelId AND cm.user.userId = :userId")
     boolean isUserMember(UUID channelId, String userId);
-} 
\ No newline at end of file
+
+    /**
+     * Move up to {@code limit} channels of a deleted user, including soft-deleted ones, to another owner.
+     */
+    @Modifying
+    @Query(value = "UPDATE channels SET created_by = :newOwner WHERE id IN (" +
+                   "SELECT id FROM channels WHERE created_by = :userId LIMIT :limit)",
+           nativeQuery = true)
+    int reassignBatchByCreatedBy(@Param("userId") String userId, @Param("newOwner") String newOwner,
+                                 @Param("limit") int limit);
+}
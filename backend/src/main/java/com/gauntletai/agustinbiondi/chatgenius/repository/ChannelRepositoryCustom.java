@@ -0,0 +1,19 @@
+package com.gauntletai.agustinbiondi.chatgenius.repository;
+
+import java.util.UUID;
+
+public interface ChannelRepositoryCustom {
+
+    /**
+     * Reserve the next {@code size} message sequence numbers of a channel.
+     * Runs in the caller's transaction and keeps the channel row locked until it ends.
+     *
+     * @return the highest reserved sequence number, or null if the channel does not exist
+     */
+    Long reserveMessageSeqBlock(UUID channelId, int size);
+
+    /**
+     * Hand back the unused tail of a reserved block, provided nobody reserved past it.
+     */
+    boolean releaseMessageSeqBlock(UUID channelId, long reservedUpTo, long lastUsed);
+}
@@ -0,0 +1,31 @@
+package com.gauntletai.agustinbiondi.chatgenius.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class ChannelRepositoryCustomImpl implements ChannelRepositoryCustom {
+
+    private static final String RESERVE_SEQ_BLOCK =
+            "UPDATE channels SET message_seq_reserved = message_seq_reserved + ? WHERE id = ? " +
+            "RETURNING message_seq_reserved";
+
+    private static final String RELEASE_SEQ_BLOCK =
+            "UPDATE channels SET message_seq_reserved = ? WHERE id = ? AND message_seq_reserved = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Long reserveMessageSeqBlock(UUID channelId, int size) {
+        List<Long> reserved = jdbcTemplate.queryForList(RESERVE_SEQ_BLOCK, Long.class, size, channelId);
+        return reserved.isEmpty() ? null : reserved.get(0);
+    }
+
+    @Override
+    public boolean releaseMessageSeqBlock(UUID channelId, long reservedUpTo, long lastUsed) {
+        return jdbcTemplate.update(RELEASE_SEQ_BLOCK, lastUsed, channelId, reservedUpTo) == 1;
+    }
+}
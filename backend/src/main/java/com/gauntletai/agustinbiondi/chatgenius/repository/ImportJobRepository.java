@@ -0,0 +1,61 @@
+package com.gauntletai.agustinbiondi.chatgenius.repository;
+
+import com.gauntletai.agustinbiondi.chatgenius.model.ImportJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, UUID> {
+
+    @Query("SELECT j FROM ImportJob j WHERE j.stage NOT IN :finished " +
+           "AND (j.nextAttemptAt IS NULL OR j.nextAttemptAt <= :now) ORDER BY j.requestedAt")
+    List<ImportJob> findPendingJobs(@Param("finished") Collection<ImportJob.Stage> finished,
+                                    @Param("now") Instant now, Pageable pageable);
+
+    List<ImportJob> findAllByOrderByRequestedAtDesc(Pageable pageable);
+
+    @Modifying
+    @Query(value = "UPDATE import_jobs SET started_at = now() WHERE id = :id AND started_at IS NULL",
+           nativeQuery = true)
+    int markStarted(@Param("id") UUID id);
+
+    @Modifying
+    @Query(value = "UPDATE import_jobs SET stage = :stage, imported_users = imported_users + :users, " +
+                   "imported_channels = imported_channels + :channels, attempts = 0, next_attempt_at = NULL " +
+                   "WHERE id = :id",
+           nativeQuery = true)
+    int completeStage(@Param("id") UUID id, @Param("stage") String stage, @Param("users") long users,
+                      @Param("channels") long channels);
+
+    @Modifying
+    @Query(value = "UPDATE import_jobs SET checkpoint = :checkpoint, " +
+                   "imported_messages = imported_messages + :messages, " +
+                   "imported_reactions = imported_reactions + :reactions, " +
+                   "skipped_messages = skipped_messages + :skipped, attempts = 0, next_attempt_at = NULL " +
+                   "WHERE id = :id",
+           nativeQuery = true)
+    int recordProgress(@Param("id") UUID id, @Param("checkpoint") String checkpoint, @Param("messages") long messages,
+                       @Param("reactions") long reactions, @Param("skipped") long skipped);
+
+    @Modifying
+    @Query(value = "UPDATE import_jobs SET attempts = attempts + 1, error = :error, " +
+                   "next_attempt_at = :nextAttemptAt WHERE id = :id",
+           nativeQuery = true)
+    int recordFailedAttempt(@Param("id") UUID id, @Param("error") String error,
+                            @Param("nextAttemptAt") Instant nextAttemptAt);
+
+    @Modifying
+    @Query(value = "UPDATE import_jobs SET stage = :stage, error = :error, completed_at = now(), " +
+                   "next_attempt_at = NULL WHERE id = :id",
+           nativeQuery = true)
+    int finish(@Param("id") UUID id, @Param("stage") String stage, @Param("error") String error);
+}
@@ -4,15 +4,17 @@ import com.gauntletai.agustinbiondi.chatgenius.model.Message;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface MessageRepository extends JpaRepository<Message, UUID> {
+public interface MessageRepository extends JpaRepository<Message, UUID>, MessageRepositoryCustom {
 
     /**
      * Fetch parent messages (messages without a parent) for a given channel.
@@ -28,4 +30,41 @@ public interface MessageRepository extends JpaRepository<Message, UUID> {
     List<Message> findTop3ByParentIdInOrderByCreatedAtDesc(List<UUID> parentIds);
 
     Long countByParentId(UUID parentId);
-} 
\ No newline at end of file
+
+    /**
+     * Messages of a channel after a known sequence number, served from uk_messages_channel_seq.
+     * Used by clients to fill gaps detected in the seq stream.
+     */
+    @Query("SELECT m FROM Message m JOIN FETCH m.createdBy WHERE m.channel.id = :channelId AND m.seq > :afterSeq " +
+           "ORDER BY m.seq ASC")
+    List<Message> findByChannelIdAndSeqGreaterThanOrderBySeqAsc(@Param("channelId") UUID channelId,
+                                                                @Param("afterSeq") long afterSeq,
+                                                                Pageable pageable);
+
+    @Query("SELECT m.channel.id FROM Message m WHERE m.id = :messageId")
+    Optional<UUID> findChannelIdById(@Param("messageId") UUID messageId);
+
+    /**
+     * Delete up to {@code limit} messages of a channel that have no replies left,
+     * so thread replies always go before their parents.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM messages WHERE id IN (" +
+                   "SELECT m.id FROM messages m WHERE m.channel_id = :channelId " +
+                   "AND NOT EXISTS (SELECT 1 FROM messages r WHERE r.parent_id = m.id) LIMIT :limit)",
+           nativeQuery = true)
+    int deleteLeafBatchByChannelId(@Param("channelId") UUID channelId, @Param("limit") int limit);
+
+    @Query(value = "SELECT DISTINCT channel_id FROM messages WHERE created_by = :userId", nativeQuery = true)
+    List<UUID> findChannelIdsByCreatedBy(@Param("userId") String userId);
+
+    /**
+     * Move up to {@code limit} messages of a deleted user to another owner.
+     */
+    @Modifying
+    @Query(value = "UPDATE messages SET created_by = :newOwner WHERE id IN (" +
+                   "SELECT id FROM messages WHERE created_by = :userId LIMIT :limit)",
+           nativeQuery = true)
+    int reassignBatchByCreatedBy(@Param("userId") String userId, @Param("newOwner") String newOwner,
+                                 @Param("limit") int limit);
+}
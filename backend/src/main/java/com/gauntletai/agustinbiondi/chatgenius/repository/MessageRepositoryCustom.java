@@ -0,0 +1,116 @@
+package com.gauntletai.agustinbiondi.chatgenius.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+public interface MessageRepositoryCustom {
+
+    record NewMessage(UUID id, UUID channelId, String userId, UUID parentId, String content, Instant createdAt,
+                      long seq) {
+
+        public NewMessage withSeq(long seq) {
+            return new NewMessage(id, channelId, userId, parentId, content, createdAt, seq);
+        }
+    }
+
+    /**
+     * Result of validating one {@link NewMessage}. {@code username} is null when the author
+     * does not exist or is deleted.
+     */
+    record WriteCheck(boolean channelFound, boolean hasAccess, String username, boolean parentFound) {}
+
+    /**
+     * Validate a batch of messages with a single query.
+     * Results are returned in the same order as the input.
+     */
+    List<WriteCheck> checkWrites(List<NewMessage> messages);
+
+    /**
+     * Insert text messages with one JDBC batch. Runs in the caller's transaction.
+     */
+    void insertMessages(List<NewMessage> messages);
+
+    /**
+     * Full-text query over the channels a user can access. {@code channelId} and
+     * {@code authorId} are optional filters; {@code afterRank}/{@code afterId} continue
+     * from the last hit of the previous page.
+     */
+    record SearchQuery(String userId, String text, UUID channelId, String authorId,
+                       Float afterRank, UUID afterId, int limit) {}
+
+    /**
+     * One search match. {@code snippet} is HTML-escaped content with the matched terms
+     * wrapped in {@code <mark>} tags.
+     */
+    record SearchHit(UUID messageId, UUID channelId, String channelName, String userId, String username,
+                     UUID parentId, Instant createdAt, long seq, float rank, String snippet) {}
+
+    /**
+     * Rank matches of the messages.content_tsv GIN index by ts_rank_cd, best first,
+     * with the message id as tie breaker for keyset pagination.
+     */
+    List<SearchHit> searchMessages(SearchQuery query);
+
+    /**
+     * A live message as loaded into the in-memory search index.
+     */
+    record IndexableMessage(UUID id, UUID channelId, String userId, String username, UUID parentId,
+                            String content, Instant createdAt, long seq) {}
+
+    /**
+     * Messages of live channels in (channel_id, seq) order, starting after the given position.
+     * Walks the uk_messages_channel_seq index, so each page costs the same however deep the scan is.
+     */
+    List<IndexableMessage> scanIndexableMessages(UUID afterChannelId, long afterSeq, int limit);
+
+    /**
+     * The given messages of live channels, in no particular order. Ids that no longer
+     * match a live message are left out.
+     */
+    List<IndexableMessage> findIndexableMessages(Collection<UUID> ids);
+
+    /**
+     * One message of a channel export. {@code reactionsJson} is a JSON array of
+     * {@code {"emoji", "userId"}} objects built by the database, never null.
+     */
+    record ExportedMessage(UUID id, long seq, UUID parentId, String userId, String username, String type,
+                           String content, Instant createdAt, Instant editedAt, String reactionsJson) {}
+
+    /**
+     * Every message of a channel in seq order, replies included, handed to {@code sink} one
+     * row at a time. Reads through a forward-only cursor that fetches {@code fetchSize} rows
+     * per round trip, so memory does not grow with the channel. Must run inside a transaction:
+     * the PostgreSQL driver only honours the fetch size with auto-commit off.
+     */
+    void streamChannelMessages(UUID channelId, int fetchSize, Consumer<ExportedMessage> sink);
+
+    /**
+     * A message from an imported archive, with its original timestamps. {@code type} is a
+     * {@code Message.Type} name.
+     */
+    record ImportedMessage(UUID id, String userId, UUID parentId, String type, String content,
+                           Instant createdAt, Instant editedAt) {}
+
+    record ImportedReaction(UUID messageId, String userId, String emoji) {}
+
+    /**
+     * Bulk-load messages of one channel: COPY into a temporary staging table, then insert the
+     * rows whose id is not stored yet, numbered in input order after the channel's reserved
+     * sequence numbers. Replies whose parent is neither stored nor in the batch are kept as
+     * top-level messages. Runs in the caller's transaction.
+     *
+     * @return the number of messages inserted
+     */
+    int copyImportedMessages(UUID channelId, List<ImportedMessage> messages);
+
+    /**
+     * Bulk-load reactions through a COPY staging table, skipping duplicates and reactions to
+     * messages that were not imported. Runs in the caller's transaction.
+     *
+     * @return the number of reactions inserted
+     */
+    int copyImportedReactions(List<ImportedReaction> reactions);
+}
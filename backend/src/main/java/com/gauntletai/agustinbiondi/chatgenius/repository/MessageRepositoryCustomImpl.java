@@ -0,0 +1,311 @@
+package com.gauntletai.agustinbiondi.chatgenius.repository;
+
+import com.gauntletai.agustinbiondi.chatgenius.util.UuidV7;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+public class MessageRepositoryCustomImpl implements MessageRepositoryCustom {
+
+    private static final String CHECK_WRITES_SELECT =
+            "SELECT v.idx, c.id IS NOT NULL AS channel_found, " +
+            "c.type = 'PUBLIC' OR EXISTS (SELECT 1 FROM channel_memberships cm " +
+            "WHERE cm.channel_id = v.channel_id AND cm.user_id = v.user_id) AS has_access, " +
+            "u.username, v.parent_id IS NULL OR p.id IS NOT NULL AS parent_found " +
+            "FROM (VALUES %s) AS v(idx, channel_id, user_id, parent_id) " +
+            "LEFT JOIN channels c ON c.id = v.channel_id AND c.deleted_at IS NULL " +
+            "LEFT JOIN users u ON u.user_id = v.user_id AND u.deleted_at IS NULL " +
+            "LEFT JOIN messages p ON p.id = v.parent_id";
+
+    private static final String CHECK_WRITES_ROW = "(?, CAST(? AS uuid), CAST(? AS varchar), CAST(? AS uuid))";
+
+    private static final String INSERT_MESSAGE =
+            "INSERT INTO messages (id, content, type, created_by, channel_id, parent_id, created_at, is_edited, seq) " +
+            "VALUES (?, ?, 'TEXT', ?, ?, ?, ?, false, ?)";
+
+    private static final String SEARCH_MATCHES =
+            "SELECT m.id, ts_rank_cd(m.content_tsv, q.query) AS rank " +
+            "FROM messages m " +
+            "JOIN channels c ON c.id = m.channel_id AND c.deleted_at IS NULL " +
+            "CROSS JOIN websearch_to_tsquery('english', ?) AS q(query) " +
+            "WHERE m.content_tsv @@ q.query " +
+            "AND (c.type = 'PUBLIC' OR EXISTS (SELECT 1 FROM channel_memberships cm " +
+            "WHERE cm.channel_id = m.channel_id AND cm.user_id = ?))";
+
+    // Snippets are built for the returned page only, from HTML-escaped content
+    private static final String SEARCH_RESULTS =
+            "SELECT m.id, m.channel_id, c.name AS channel_name, m.created_by, u.username, m.parent_id, " +
+            "m.created_at, m.seq, hits.rank, " +
+            "ts_headline('english', replace(replace(replace(m.content, '&', '&amp;'), '<', '&lt;'), '>', '&gt;'), " +
+            "websearch_to_tsquery('english', ?), " +
+            "'StartSel=<mark>, StopSel=</mark>, MaxWords=24, MinWords=8, MaxFragments=2') AS snippet " +
+            "FROM (%s) AS hits " +
+            "JOIN messages m ON m.id = hits.id " +
+            "JOIN channels c ON c.id = m.channel_id " +
+            "JOIN users u ON u.user_id = m.created_by " +
+            "ORDER BY hits.rank DESC, m.id DESC";
+
+    private static final String SCAN_INDEXABLE =
+            "SELECT m.id, m.channel_id, m.created_by, u.username, m.parent_id, m.content, m.created_at, m.seq " +
+            "FROM messages m " +
+            "JOIN channels c ON c.id = m.channel_id AND c.deleted_at IS NULL " +
+            "LEFT JOIN users u ON u.user_id = m.created_by " +
+            "WHERE (m.channel_id, m.seq) > (CAST(? AS uuid), ?) AND m.content IS NOT NULL " +
+            "ORDER BY m.channel_id, m.seq LIMIT ?";
+
+    private static final String FIND_INDEXABLE =
+            "SELECT m.id, m.channel_id, m.created_by, u.username, m.parent_id, m.content, m.created_at, m.seq " +
+            "FROM messages m " +
+            "JOIN channels c ON c.id = m.channel_id AND c.deleted_at IS NULL " +
+            "LEFT JOIN users u ON u.user_id = m.created_by " +
+            "WHERE m.id = ANY(?)";
+
+    private static final RowMapper<IndexableMessage> INDEXABLE_MESSAGE = (rs, rowNum) -> new IndexableMessage(
+            rs.getObject("id", UUID.class),
+            rs.getObject("channel_id", UUID.class),
+            rs.getString("created_by"),
+            rs.getString("username"),
+            rs.getObject("parent_id", UUID.class),
+            rs.getString("content"),
+            rs.getTimestamp("created_at").toInstant(),
+            rs.getLong("seq"));
+
+    // Reactions are aggregated per row through idx_reactions_message, so the cursor stays a single pass
+    private static final String STREAM_CHANNEL_MESSAGES =
+            "SELECT m.id, m.seq, m.parent_id, m.created_by, u.username, m.type, m.content, m.created_at, " +
+            "m.edited_at, (SELECT COALESCE(json_agg(json_build_object('emoji', r.emoji, 'userId', r.user_id) " +
+            "ORDER BY r.emoji, r.user_id), '[]') FROM reactions r WHERE r.message_id = m.id) AS reactions " +
+            "FROM messages m " +
+            "LEFT JOIN users u ON u.user_id = m.created_by " +
+            "WHERE m.channel_id = ? " +
+            "ORDER BY m.seq";
+
+    // Staging tables for archive imports; COPY cannot skip conflicts, the INSERT ... SELECT after it can
+    private static final String CREATE_IMPORT_MESSAGES =
+            "CREATE TEMP TABLE import_messages (ord INTEGER, id UUID, created_by VARCHAR(255), parent_id UUID, " +
+            "type VARCHAR(255), content TEXT, created_at TIMESTAMPTZ, edited_at TIMESTAMPTZ) ON COMMIT DROP";
+
+    private static final String COPY_IMPORT_MESSAGES =
+            "COPY import_messages (ord, id, created_by, parent_id, type, content, created_at, edited_at) " +
+            "FROM STDIN WITH (FORMAT csv)";
+
+    // Sequence numbers are reserved only for rows that are not stored yet, so a re-run leaves no gaps
+    private static final String INSERT_IMPORTED_MESSAGES =
+            "WITH fresh AS (" +
+            "SELECT s.*, ROW_NUMBER() OVER (ORDER BY s.ord) AS n FROM import_messages s " +
+            "WHERE NOT EXISTS (SELECT 1 FROM messages m WHERE m.id = s.id)), " +
+            "reserved AS (" +
+            "UPDATE channels SET message_seq_reserved = message_seq_reserved + (SELECT COUNT(*) FROM fresh) " +
+            "WHERE id = ? RETURNING message_seq_reserved - (SELECT COUNT(*) FROM fresh) AS base) " +
+            "INSERT INTO messages (id, content, type, created_by, channel_id, parent_id, created_at, edited_at, " +
+            "is_edited, seq) " +
+            "SELECT f.id, f.content, f.type, f.created_by, ?, " +
+            "CASE WHEN EXISTS (SELECT 1 FROM messages p WHERE p.id = f.parent_id) " +
+            "OR EXISTS (SELECT 1 FROM import_messages q WHERE q.id = f.parent_id) THEN f.parent_id END, " +
+            "f.created_at, f.edited_at, f.edited_at IS NOT NULL, r.base + f.n " +
+            "FROM fresh f CROSS JOIN reserved r " +
+            "ON CONFLICT (id) DO NOTHING";
+
+    private static final String CREATE_IMPORT_REACTIONS =
+            "CREATE TEMP TABLE import_reactions (id UUID, message_id UUID, user_id VARCHAR(255), " +
+            "emoji VARCHAR(32)) ON COMMIT DROP";
+
+    private static final String COPY_IMPORT_REACTIONS =
+            "COPY import_reactions (id, message_id, user_id, emoji) FROM STDIN WITH (FORMAT csv)";
+
+    private static final String INSERT_IMPORTED_REACTIONS =
+            "INSERT INTO reactions (id, emoji, user_id, message_id) " +
+            "SELECT s.id, s.emoji, s.user_id, s.message_id FROM import_reactions s " +
+            "JOIN messages m ON m.id = s.message_id " +
+            "ON CONFLICT (message_id, user_id, emoji) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<WriteCheck> checkWrites(List<NewMessage> messages) {
+        String sql = String.format(CHECK_WRITES_SELECT,
+                String.join(", ", Collections.nCopies(messages.size(), CHECK_WRITES_ROW)));
+        Object[] params = new Object[messages.size() * 4];
+        for (int i = 0; i < messages.size(); i++) {
+            NewMessage message = messages.get(i);
+            params[i * 4] = i;
+            params[i * 4 + 1] = message.channelId();
+            params[i * 4 + 2] = message.userId();
+            params[i * 4 + 3] = message.parentId();
+        }
+
+        WriteCheck[] checks = new WriteCheck[messages.size()];
+        jdbcTemplate.query(sql, rs -> {
+            checks[rs.getInt("idx")] = new WriteCheck(
+                    rs.getBoolean("channel_found"),
+                    rs.getBoolean("has_access"),
+                    rs.getString("username"),
+                    rs.getBoolean("parent_found"));
+        }, params);
+        return new ArrayList<>(Arrays.asList(checks));
+    }
+
+    @Override
+    public void insertMessages(List<NewMessage> messages) {
+        jdbcTemplate.batchUpdate(INSERT_MESSAGE, messages, messages.size(), (ps, message) -> {
+            ps.setObject(1, message.id());
+            ps.setString(2, message.content());
+            ps.setString(3, message.userId());
+            ps.setObject(4, message.channelId());
+            ps.setObject(5, message.parentId());
+            ps.setTimestamp(6, Timestamp.from(message.createdAt()));
+            ps.setLong(7, message.seq());
+        });
+    }
+
+    @Override
+    public List<SearchHit> searchMessages(SearchQuery query) {
+        StringBuilder matches = new StringBuilder(SEARCH_MATCHES);
+        List<Object> params = new ArrayList<>();
+        params.add(query.text());
+        params.add(query.text());
+        params.add(query.userId());
+        if (query.channelId() != null) {
+            matches.append(" AND m.channel_id = ?");
+            params.add(query.channelId());
+        }
+        if (query.authorId() != null) {
+            matches.append(" AND m.created_by = ?");
+            params.add(query.authorId());
+        }
+        if (query.afterRank() != null && query.afterId() != null) {
+            matches.append(" AND (ts_rank_cd(m.content_tsv, q.query), m.id) < (CAST(? AS real), CAST(? AS uuid))");
+            params.add(query.afterRank());
+            params.add(query.afterId());
+        }
+        matches.append(" ORDER BY rank DESC, m.id DESC LIMIT ?");
+        params.add(query.limit());
+
+        return jdbcTemplate.query(String.format(SEARCH_RESULTS, matches), (rs, rowNum) -> new SearchHit(
+                rs.getObject("id", UUID.class),
+                rs.getObject("channel_id", UUID.class),
+                rs.getString("channel_name"),
+                rs.getString("created_by"),
+                rs.getString("username"),
+                rs.getObject("parent_id", UUID.class),
+                rs.getTimestamp("created_at").toInstant(),
+                rs.getLong("seq"),
+                rs.getFloat("rank"),
+                rs.getString("snippet")), params.toArray());
+    }
+
+    @Override
+    public List<IndexableMessage> scanIndexableMessages(UUID afterChannelId, long afterSeq, int limit) {
+        return jdbcTemplate.query(SCAN_INDEXABLE, INDEXABLE_MESSAGE, afterChannelId, afterSeq, limit);
+    }
+
+    @Override
+    public List<IndexableMessage> findIndexableMessages(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_INDEXABLE);
+            statement.setArray(1, connection.createArrayOf("uuid", ids.toArray()));
+            return statement;
+        }, INDEXABLE_MESSAGE);
+    }
+
+    @Override
+    public void streamChannelMessages(UUID channelId, int fetchSize, Consumer<ExportedMessage> sink) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(STREAM_CHANNEL_MESSAGES,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            statement.setObject(1, channelId);
+            return statement;
+        }, rs -> {
+            Timestamp editedAt = rs.getTimestamp("edited_at");
+            sink.accept(new ExportedMessage(
+                    rs.getObject("id", UUID.class),
+                    rs.getLong("seq"),
+                    rs.getObject("parent_id", UUID.class),
+                    rs.getString("created_by"),
+                    rs.getString("username"),
+                    rs.getString("type"),
+                    rs.getString("content"),
+                    rs.getTimestamp("created_at").toInstant(),
+                    editedAt == null ? null : editedAt.toInstant(),
+                    rs.getString("reactions")));
+        });
+    }
+
+    @Override
+    public int copyImportedMessages(UUID channelId, List<ImportedMessage> messages) {
+        if (messages.isEmpty()) {
+            return 0;
+        }
+        StringBuilder csv = new StringBuilder(messages.size() * 128);
+        for (int i = 0; i < messages.size(); i++) {
+            ImportedMessage message = messages.get(i);
+            appendCsvRow(csv, i, message.id(), message.userId(), message.parentId(), message.type(),
+                    message.content(), message.createdAt(), message.editedAt());
+        }
+        jdbcTemplate.execute(CREATE_IMPORT_MESSAGES);
+        copyIn(COPY_IMPORT_MESSAGES, csv);
+        return jdbcTemplate.update(INSERT_IMPORTED_MESSAGES, channelId, channelId);
+    }
+
+    @Override
+    public int copyImportedReactions(List<ImportedReaction> reactions) {
+        if (reactions.isEmpty()) {
+            return 0;
+        }
+        StringBuilder csv = new StringBuilder(reactions.size() * 96);
+        for (ImportedReaction reaction : reactions) {
+            appendCsvRow(csv, UuidV7.generate(), reaction.messageId(), reaction.userId(), reaction.emoji());
+        }
+        jdbcTemplate.execute(CREATE_IMPORT_REACTIONS);
+        copyIn(COPY_IMPORT_REACTIONS, csv);
+        return jdbcTemplate.update(INSERT_IMPORTED_REACTIONS);
+    }
+
+    private void copyIn(String sql, CharSequence csv) {
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn(sql, new StringReader(csv.toString()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * One CSV line for COPY: nulls as unquoted empty fields, everything else quoted.
+     */
+    private static void appendCsvRow(StringBuilder csv, Object... values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                csv.append(',');
+            }
+            Object value = values[i];
+            if (value != null) {
+                csv.append('"').append(value.toString().replace("\"", "\"\"")).append('"');
+            }
+        }
+        csv.append('\n');
+    }
+}
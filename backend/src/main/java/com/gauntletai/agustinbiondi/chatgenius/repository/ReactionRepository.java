@@ -2,6 +2,7 @@ package com.gauntletai.agustinbiondi.chatgenius.repository;
 
 import com.gauntletai.agustinbiondi.chatgenius.model.Reaction;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -43,4 +44,21 @@ public interface ReactionRepository extends JpaRepository<Reaction, UUID> {
      */
     @Query("SELECT COUNT(r) FROM Reaction r WHERE r.message.id = :messageId AND r.emoji = :emoji")
     long countByMessageIdAndEmoji(@Param("messageId") UUID messageId, @Param("emoji") String emoji);
-} 
\ No newline at end of file
+
+    /**
+     * Delete up to {@code limit} reactions on messages of a channel.
+     * Used by the channel purger to remove a deleted channel in bounded batches.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM reactions WHERE id IN (" +
+                   "SELECT r.id FROM reactions r JOIN messages m ON m.id = r.message_id " +
+                   "WHERE m.channel_id = :channelId LIMIT :limit)",
+           nativeQuery = true)
+    int deleteBatchByChannelId(@Param("channelId") UUID channelId, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM reactions WHERE id IN (" +
+                   "SELECT id FROM reactions WHERE user_id = :userId LIMIT :limit)",
+           nativeQuery = true)
+    int deleteBatchByUserId(@Param("userId") String userId, @Param("limit") int limit);
+}
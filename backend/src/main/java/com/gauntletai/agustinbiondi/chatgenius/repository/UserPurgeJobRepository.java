@@ -0,0 +1,29 @@
+package com.gauntletai.agustinbiondi.chatgenius.repository;
+
+import com.gauntletai.agustinbiondi.chatgenius.model.UserPurgeJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UserPurgeJobRepository extends JpaRepository<UserPurgeJob, String> {
+
+    @Query("SELECT j FROM UserPurgeJob j WHERE j.stage <> :stage ORDER BY j.requestedAt")
+    List<UserPurgeJob> findPendingJobs(@Param("stage") UserPurgeJob.Stage done, Pageable pageable);
+
+    @Modifying
+    @Query(value = "UPDATE user_purge_jobs SET processed_rows = processed_rows + :rows WHERE user_id = :userId",
+           nativeQuery = true)
+    int recordProgress(@Param("userId") String userId, @Param("rows") int rows);
+
+    @Modifying
+    @Query(value = "UPDATE user_purge_jobs SET stage = :stage, " +
+                   "completed_at = CASE WHEN :stage = 'DONE' THEN now() END WHERE user_id = :userId",
+           nativeQuery = true)
+    int advanceStage(@Param("userId") String userId, @Param("stage") String stage);
+}
@@ -2,8 +2,13 @@ package com.gauntletai.agustinbiondi.chatgenius.repository;
 
 import com.gauntletai.agustinbiondi.chatgenius.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +17,22 @@ public interface UserRepository extends JpaRepository<User, String> {
     Optional<User> findByEmail(String email);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+
+    Optional<User> findByUserIdAndDeletedAtIsNull(String userId);
+    boolean existsByUserIdAndDeletedAtIsNull(String userId);
+    List<User> findAllByDeletedAtIsNull();
+
+    @Query("SELECT u.userId FROM User u WHERE u.userId IN :userIds AND u.deletedAt IS NULL")
+    List<String> findExistingUserIds(@Param("userIds") Collection<String> userIds);
+
+    /**
+     * Create a user for an imported archive unless the id or email is already taken.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO users (user_id, username, email, role, created_at, deleted_at) " +
+                   "VALUES (:userId, :username, :email, 'USER', now(), CASE WHEN :deleted THEN now() END) " +
+                   "ON CONFLICT DO NOTHING",
+           nativeQuery = true)
+    int insertImportedUser(@Param("userId") String userId, @Param("username") String username,
+                           @Param("email") String email, @Param("deleted") boolean deleted);
 } 
\ No newline at end of file
@@ -0,0 +1,173 @@
+package com.gauntletai.agustinbiondi.chatgenius.search;
+
+import com.gauntletai.agustinbiondi.chatgenius.model.Channel;
+import com.gauntletai.agustinbiondi.chatgenius.model.User;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.UserRepository;
+import com.gauntletai.agustinbiondi.chatgenius.search.PrefixIndex.Suggestion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Prefix indexes over usernames and channel names for autocomplete. Loaded from the
+ * database in the background at startup, then kept current by user webhooks and channel
+ * changes; removals that happen while the load runs are remembered so it cannot bring the
+ * entries back. Direct message channels are not indexed; their names are generated from the
+ * pair of users, who are found through the user index instead.
+ */
+@Slf4j
+@Component
+public class AutocompleteIndex {
+
+    private final UserRepository userRepository;
+    private final ChannelRepository channelRepository;
+    private final ReadableChannels readableChannels;
+    private final PrefixIndex<String> users = new PrefixIndex<>();
+    private final PrefixIndex<UUID> channels = new PrefixIndex<>();
+    private final Map<UUID, Channel.Type> channelTypes = new ConcurrentHashMap<>();
+    // Removed while the startup load reads its snapshot, so the load must not bring them back.
+    // Guarded by this; null once the load has finished
+    private Set<String> removedUsers = new HashSet<>();
+    private Set<UUID> removedChannels = new HashSet<>();
+
+    private final AtomicLong lookups = new AtomicLong();
+
+    public AutocompleteIndex(UserRepository userRepository, ChannelRepository channelRepository,
+                             ReadableChannels readableChannels) {
+        this.userRepository = userRepository;
+        this.channelRepository = channelRepository;
+        this.readableChannels = readableChannels;
+    }
+
+    public int getIndexedUsers() {
+        return users.size();
+    }
+
+    public int getIndexedChannels() {
+        return channels.size();
+    }
+
+    public long getLookups() {
+        return lookups.get();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startLoad() {
+        Thread.ofVirtual().name("autocomplete-index-load").start(this::load);
+    }
+
+    public void putUser(String userId, String username) {
+        if (!User.DELETED_USER_ID.equals(userId)) {
+            users.put(userId, username);
+        }
+    }
+
+    public synchronized void removeUser(String userId) {
+        if (removedUsers != null) {
+            removedUsers.add(userId);
+        }
+        users.remove(userId);
+    }
+
+    public void putChannel(UUID channelId, String name, Channel.Type type) {
+        if (type != Channel.Type.DIRECT_MESSAGE) {
+            channelTypes.put(channelId, type);
+            channels.put(channelId, name);
+        }
+    }
+
+    public Channel.Type channelType(UUID channelId) {
+        return channelTypes.get(channelId);
+    }
+
+    public synchronized void removeChannel(UUID channelId) {
+        if (removedChannels != null) {
+            removedChannels.add(channelId);
+        }
+        channels.remove(channelId);
+        channelTypes.remove(channelId);
+    }
+
+    public List<Suggestion<String>> users(String prefix, int limit) {
+        lookups.incrementAndGet();
+        return users.lookup(prefix, limit, userId -> true);
+    }
+
+    /**
+     * Public channels plus the private channels the user belongs to. Membership is only
+     * looked up when a private channel is among the candidates.
+     */
+    public List<Suggestion<UUID>> channels(String userId, String prefix, int limit) {
+        lookups.incrementAndGet();
+        AtomicReference<Set<UUID>> readable = new AtomicReference<>();
+        return channels.lookup(prefix, limit, channelId -> {
+            if (channelTypes.get(channelId) == Channel.Type.PUBLIC) {
+                return true;
+            }
+            if (readable.get() == null) {
+                readable.set(readableChannels.of(userId));
+            }
+            return readable.get().contains(channelId);
+        });
+    }
+
+    void load() {
+        long started = System.nanoTime();
+        try {
+            Map<String, String> usernames = new HashMap<>();
+            for (User user : userRepository.findAllByDeletedAtIsNull()) {
+                if (!User.DELETED_USER_ID.equals(user.getUserId())) {
+                    usernames.put(user.getUserId(), user.getUsername());
+                }
+            }
+            Map<UUID, Channel> loadedChannels = new HashMap<>();
+            for (Channel channel : channelRepository.findAll()) {
+                if (channel.getType() != Channel.Type.DIRECT_MESSAGE) {
+                    loadedChannels.put(channel.getId(), channel);
+                }
+            }
+            applyLoad(usernames, loadedChannels);
+            log.info("Loaded autocomplete index: {} users and {} channels in {} ms", users.size(), channels.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (RuntimeException e) {
+            log.error("Failed to load the autocomplete index", e);
+        } finally {
+            stopTrackingRemovals();
+        }
+    }
+
+    /**
+     * Merge the snapshot into the indexes, skipping entries removed since it was read.
+     * Entries put meanwhile are newer than the snapshot and are kept.
+     */
+    private synchronized void applyLoad(Map<String, String> usernames, Map<UUID, Channel> loadedChannels) {
+        usernames.keySet().removeAll(removedUsers);
+        users.putAllAbsent(usernames);
+
+        loadedChannels.keySet().removeAll(removedChannels);
+        Map<UUID, String> channelNames = new HashMap<>();
+        loadedChannels.forEach((channelId, channel) -> {
+            channelTypes.putIfAbsent(channelId, channel.getType());
+            channelNames.put(channelId, channel.getName());
+        });
+        channels.putAllAbsent(channelNames);
+    }
+
+    private synchronized void stopTrackingRemovals() {
+        removedUsers = null;
+        removedChannels = null;
+    }
+}
@@ -0,0 +1,492 @@
+package com.gauntletai.agustinbiondi.chatgenius.search;
+
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepositoryCustom.IndexableMessage;
+import com.gauntletai.agustinbiondi.chatgenius.search.IndexQuery.Clause;
+import com.gauntletai.agustinbiondi.chatgenius.search.IndexQuery.Word;
+import com.gauntletai.agustinbiondi.chatgenius.search.Tokenizer.Token;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index of one channel's messages. Doc ids are assigned in the order messages are
+ * added, which is not necessarily their seq order: the startup rebuild can add old
+ * messages after live ones. Messages are never removed one by one; a deleted channel
+ * drops its whole shard.
+ * <p>
+ * Only postings and a few primitive columns per document (id, creation time, seq) are kept;
+ * content, authors and snippets stay in the database and are read back for the hits.
+ */
+public final class ChannelIndexShard {
+
+    /**
+     * Indexed terms a single prefix word may expand to. Short prefixes stop matching
+     * rarer terms rather than decoding the whole dictionary.
+     */
+    public static final int MAX_PREFIX_EXPANSION = 256;
+
+    public static final Comparator<Match> NEWEST_FIRST = Comparator
+            .comparing(Match::createdAt)
+            .thenComparingLong(Match::seq)
+            .reversed();
+
+    /**
+     * A matching message and the number of query word occurrences in it.
+     */
+    public record Match(UUID messageId, Instant createdAt, long seq, int score) {}
+
+    /**
+     * Documents of one clause in increasing doc id order, with their occurrence counts and,
+     * for phrase evaluation, their positions.
+     */
+    private record DocSet(int[] docs, int[] frequencies, int[][] positions, int size) {}
+
+    private static final DocSet EMPTY = new DocSet(new int[0], new int[0], null, 0);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, PostingList> terms = new TreeMap<>();
+    // Columns by doc id
+    private int documents;
+    private long[] idHigh = new long[16];
+    private long[] idLow = new long[16];
+    private long[] createdAtMicros = new long[16];
+    private long[] seqs = new long[16];
+    // Open-addressing table of doc id + 1 by message id, at most half full; 0 marks a free slot
+    private int[] slots = new int[32];
+
+    /**
+     * Index a message unless it is already present.
+     *
+     * @return false when the message was already indexed
+     */
+    public boolean add(IndexableMessage message) {
+        lock.writeLock().lock();
+        try {
+            int slot = slotOf(message.id());
+            if (slots[slot] != 0) {
+                return false;
+            }
+            slots[slot] = documents + 1;
+            append(message);
+            if (documents * 2 > slots.length) {
+                rehash();
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long postingBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 0;
+            for (PostingList postings : terms.values()) {
+                bytes += postings.sizeInBytes();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The newest {@code limit} messages matching every clause of the query.
+     */
+    public List<Match> search(IndexQuery query, int limit) {
+        if (query.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            DocSet matches = null;
+            for (Clause clause : query.clauses()) {
+                DocSet clauseDocs;
+                if (clause.words().size() == 1) {
+                    clauseDocs = collect(clause.words().get(0), false);
+                } else if (clause.words().stream().noneMatch(Word::prefix)) {
+                    clauseDocs = exactPhrase(clause.words());
+                } else {
+                    clauseDocs = phrase(clause.words());
+                }
+                matches = matches == null ? clauseDocs : intersect(matches, clauseDocs);
+                if (matches.size() == 0) {
+                    return List.of();
+                }
+            }
+
+            return newest(matches, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void append(IndexableMessage message) {
+        int docId = documents++;
+        if (docId == seqs.length) {
+            idHigh = Arrays.copyOf(idHigh, docId * 2);
+            idLow = Arrays.copyOf(idLow, docId * 2);
+            createdAtMicros = Arrays.copyOf(createdAtMicros, docId * 2);
+            seqs = Arrays.copyOf(seqs, docId * 2);
+        }
+        idHigh[docId] = message.id().getMostSignificantBits();
+        idLow[docId] = message.id().getLeastSignificantBits();
+        createdAtMicros[docId] = message.createdAt().getEpochSecond() * 1_000_000
+                + message.createdAt().getNano() / 1_000;
+        seqs[docId] = message.seq();
+
+        // Positions per term, in first-occurrence order
+        Map<String, int[]> positions = new LinkedHashMap<>();
+        Map<String, Integer> counts = new HashMap<>();
+        List<Token> tokens = Tokenizer.tokenize(message.content());
+        for (int position = 0; position < tokens.size(); position++) {
+            String term = tokens.get(position).term();
+            int count = counts.getOrDefault(term, 0);
+            int[] termPositions = positions.computeIfAbsent(term, t -> new int[2]);
+            if (count == termPositions.length) {
+                termPositions = Arrays.copyOf(termPositions, count * 2);
+                positions.put(term, termPositions);
+            }
+            termPositions[count] = position;
+            counts.put(term, count + 1);
+        }
+        positions.forEach((term, termPositions) ->
+                terms.computeIfAbsent(term, t -> new PostingList()).add(docId, termPositions, counts.get(term)));
+    }
+
+    /**
+     * The slot holding the message's doc id, or the free slot where it belongs.
+     */
+    private int slotOf(UUID id) {
+        long high = id.getMostSignificantBits();
+        long low = id.getLeastSignificantBits();
+        int mask = slots.length - 1;
+        int slot = mix(high, low) & mask;
+        while (slots[slot] != 0) {
+            int docId = slots[slot] - 1;
+            if (idHigh[docId] == high && idLow[docId] == low) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        int[] grown = new int[slots.length * 2];
+        int mask = grown.length - 1;
+        for (int docId = 0; docId < documents; docId++) {
+            int slot = mix(idHigh[docId], idLow[docId]) & mask;
+            while (grown[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            grown[slot] = docId + 1;
+        }
+        slots = grown;
+    }
+
+    // UUIDv7 ids share their leading timestamp bits, so fold and scramble all 128 bits
+    private static int mix(long high, long low) {
+        long h = (high ^ Long.rotateLeft(low, 32)) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private List<PostingList> postings(Word word) {
+        if (!word.prefix()) {
+            PostingList postings = terms.get(word.term());
+            return postings == null ? List.of() : List.of(postings);
+        }
+        List<PostingList> expanded = new ArrayList<>();
+        for (PostingList postings : terms.subMap(word.term(), true, word.term() + Character.MAX_VALUE, false).values()) {
+            expanded.add(postings);
+            if (expanded.size() == MAX_PREFIX_EXPANSION) {
+                break;
+            }
+        }
+        return expanded;
+    }
+
+    private DocSet collect(Word word, boolean withPositions) {
+        List<PostingList> lists = postings(word);
+        if (lists.size() == 1) {
+            PostingList postings = lists.get(0);
+            int[] docs = new int[postings.documents()];
+            int[] frequencies = new int[docs.length];
+            int[][] positions = withPositions ? new int[docs.length][] : null;
+            PostingList.Cursor cursor = postings.cursor();
+            int size = 0;
+            while (cursor.next()) {
+                docs[size] = cursor.docId();
+                frequencies[size] = cursor.frequency();
+                if (withPositions) {
+                    positions[size] = Arrays.copyOf(cursor.positions(), cursor.frequency());
+                }
+                size++;
+            }
+            return new DocSet(docs, frequencies, positions, size);
+        }
+
+        if (!withPositions) {
+            // Union of a prefix expansion, counted in a dense array indexed by doc id
+            int[] counts = new int[documents];
+            int matched = 0;
+            for (PostingList postings : lists) {
+                PostingList.Cursor cursor = postings.cursor();
+                while (cursor.next()) {
+                    if (counts[cursor.docId()] == 0) {
+                        matched++;
+                    }
+                    counts[cursor.docId()] += cursor.frequency();
+                }
+            }
+            int[] docs = new int[matched];
+            int[] frequencies = new int[matched];
+            int size = 0;
+            for (int docId = 0; size < matched; docId++) {
+                if (counts[docId] > 0) {
+                    docs[size] = docId;
+                    frequencies[size] = counts[docId];
+                    size++;
+                }
+            }
+            return new DocSet(docs, frequencies, null, size);
+        }
+
+        // A prefix inside a phrase: merge the per-term positions of each document
+        TreeMap<Integer, int[]> union = new TreeMap<>();
+        Map<Integer, Integer> frequencies = new HashMap<>();
+        for (PostingList postings : lists) {
+            PostingList.Cursor cursor = postings.cursor();
+            while (cursor.next()) {
+                frequencies.merge(cursor.docId(), cursor.frequency(), Integer::sum);
+                int[] current = Arrays.copyOf(cursor.positions(), cursor.frequency());
+                union.merge(cursor.docId(), current, ChannelIndexShard::mergeSorted);
+            }
+        }
+        int[] docs = new int[union.size()];
+        int[] docFrequencies = new int[docs.length];
+        int[][] positions = withPositions ? new int[docs.length][] : null;
+        int size = 0;
+        for (Map.Entry<Integer, int[]> entry : union.entrySet()) {
+            docs[size] = entry.getKey();
+            docFrequencies[size] = frequencies.get(entry.getKey());
+            if (withPositions) {
+                positions[size] = entry.getValue();
+            }
+            size++;
+        }
+        return new DocSet(docs, docFrequencies, positions, size);
+    }
+
+    /**
+     * Phrase of exact words: advance one cursor per word to common documents and compare
+     * positions in place, decoding positions only for documents that contain every word.
+     */
+    private DocSet exactPhrase(List<Word> words) {
+        PostingList.Cursor[] cursors = new PostingList.Cursor[words.size()];
+        int capacity = Integer.MAX_VALUE;
+        for (int w = 0; w < cursors.length; w++) {
+            PostingList postings = terms.get(words.get(w).term());
+            if (postings == null) {
+                return EMPTY;
+            }
+            cursors[w] = postings.cursor();
+            capacity = Math.min(capacity, postings.documents());
+        }
+        for (PostingList.Cursor cursor : cursors) {
+            cursor.next();
+        }
+
+        int[] docs = new int[capacity];
+        int[] frequencies = new int[capacity];
+        int size = 0;
+        while (true) {
+            int target = -1;
+            for (PostingList.Cursor cursor : cursors) {
+                target = Math.max(target, cursor.docId());
+            }
+            boolean aligned = true;
+            for (PostingList.Cursor cursor : cursors) {
+                while (cursor.docId() < target) {
+                    if (!cursor.next()) {
+                        return new DocSet(docs, frequencies, null, size);
+                    }
+                }
+                aligned &= cursor.docId() == target;
+            }
+            if (!aligned) {
+                continue;
+            }
+            int occurrences = 0;
+            int[] starts = cursors[0].positions();
+            for (int i = 0; i < cursors[0].frequency(); i++) {
+                boolean adjacent = true;
+                for (int w = 1; w < cursors.length && adjacent; w++) {
+                    adjacent = Arrays.binarySearch(cursors[w].positions(), 0, cursors[w].frequency(),
+                            starts[i] + w) >= 0;
+                }
+                if (adjacent) {
+                    occurrences++;
+                }
+            }
+            if (occurrences > 0) {
+                docs[size] = target;
+                frequencies[size] = occurrences * cursors.length;
+                size++;
+            }
+            if (!cursors[0].next()) {
+                return new DocSet(docs, frequencies, null, size);
+            }
+        }
+    }
+
+    private DocSet phrase(List<Word> words) {
+        List<DocSet> sets = new ArrayList<>(words.size());
+        for (Word word : words) {
+            DocSet set = collect(word, true);
+            if (set.size() == 0) {
+                return EMPTY;
+            }
+            sets.add(set);
+        }
+
+        DocSet first = sets.get(0);
+        int[] docs = new int[first.size()];
+        int[] frequencies = new int[first.size()];
+        int[] cursors = new int[sets.size()];
+        int size = 0;
+        candidates:
+        for (int i = 0; i < first.size(); i++) {
+            int docId = first.docs()[i];
+            for (int s = 1; s < sets.size(); s++) {
+                DocSet set = sets.get(s);
+                int at = Arrays.binarySearch(set.docs(), cursors[s], set.size(), docId);
+                if (at < 0) {
+                    cursors[s] = -at - 1;
+                    continue candidates;
+                }
+                cursors[s] = at;
+            }
+            int occurrences = 0;
+            for (int start : first.positions()[i]) {
+                boolean adjacent = true;
+                for (int s = 1; s < sets.size() && adjacent; s++) {
+                    adjacent = Arrays.binarySearch(sets.get(s).positions()[cursors[s]], start + s) >= 0;
+                }
+                if (adjacent) {
+                    occurrences++;
+                }
+            }
+            if (occurrences > 0) {
+                docs[size] = docId;
+                frequencies[size] = occurrences * sets.size();
+                size++;
+            }
+        }
+        return new DocSet(docs, frequencies, null, size);
+    }
+
+    /**
+     * The {@code limit} newest matches. Candidates go into a small array sorted newest first,
+     * so most of a long match list is rejected by one comparison with the oldest entry.
+     */
+    private List<Match> newest(DocSet matches, int limit) {
+        int[] top = new int[Math.min(limit, matches.size())];
+        int size = 0;
+        for (int i = 0; i < matches.size(); i++) {
+            int docId = matches.docs()[i];
+            if (size == top.length && !isNewer(docId, matches.docs()[top[size - 1]])) {
+                continue;
+            }
+            int at = size == top.length ? size - 1 : size++;
+            while (at > 0 && isNewer(docId, matches.docs()[top[at - 1]])) {
+                top[at] = top[at - 1];
+                at--;
+            }
+            top[at] = i;
+        }
+        List<Match> result = new ArrayList<>(size);
+        for (int j = 0; j < size; j++) {
+            int docId = matches.docs()[top[j]];
+            long micros = createdAtMicros[docId];
+            result.add(new Match(new UUID(idHigh[docId], idLow[docId]),
+                    Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000), Math.floorMod(micros, 1_000_000) * 1_000L),
+                    seqs[docId], matches.frequencies()[top[j]]));
+        }
+        return result;
+    }
+
+    private boolean isNewer(int docId, int otherDocId) {
+        if (createdAtMicros[docId] != createdAtMicros[otherDocId]) {
+            return createdAtMicros[docId] > createdAtMicros[otherDocId];
+        }
+        return seqs[docId] > seqs[otherDocId];
+    }
+
+    private static DocSet intersect(DocSet a, DocSet b) {
+        DocSet small = a.size() <= b.size() ? a : b;
+        DocSet large = small == a ? b : a;
+        int[] docs = new int[small.size()];
+        int[] frequencies = new int[small.size()];
+        int size = 0;
+        int from = 0;
+        for (int i = 0; i < small.size() && from < large.size(); i++) {
+            int at = Arrays.binarySearch(large.docs(), from, large.size(), small.docs()[i]);
+            if (at >= 0) {
+                docs[size] = small.docs()[i];
+                frequencies[size] = small.frequencies()[i] + large.frequencies()[at];
+                size++;
+                from = at + 1;
+            } else {
+                from = -at - 1;
+            }
+        }
+        return new DocSet(docs, frequencies, null, size);
+    }
+
+    private static int[] mergeSorted(int[] a, int[] b) {
+        int[] merged = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < a.length && j < b.length) {
+            merged[k++] = a[i] <= b[j] ? a[i++] : b[j++];
+        }
+        while (i < a.length) {
+            merged[k++] = a[i++];
+        }
+        while (j < b.length) {
+            merged[k++] = b[j++];
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,151 @@
+package com.gauntletai.agustinbiondi.chatgenius.search;
+
+import com.gauntletai.agustinbiondi.chatgenius.search.Tokenizer.Token;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A parsed search-as-you-type query. Every clause must match. Words are separate clauses,
+ * text in double quotes is a phrase, and a word ending in {@code *} is a prefix. The last
+ * word is also treated as a prefix while it is still being typed, that is when the query
+ * does not end with a space or a closing quote.
+ */
+public final class IndexQuery {
+
+    /**
+     * Clauses beyond this are ignored; they rarely narrow a result further.
+     */
+    public static final int MAX_CLAUSES = 16;
+
+    /**
+     * One word of a clause. A prefix word matches every indexed term that starts with it.
+     */
+    public record Word(String term, boolean prefix) {
+
+        boolean matches(String indexed) {
+            return prefix ? indexed.startsWith(term) : indexed.equals(term);
+        }
+    }
+
+    /**
+     * Words that must appear next to each other and in order. A one-word clause is a plain term.
+     */
+    public record Clause(List<Word> words) {}
+
+    private final List<Clause> clauses;
+
+    private IndexQuery(List<Clause> clauses) {
+        this.clauses = List.copyOf(clauses);
+    }
+
+    public static IndexQuery parse(String text) {
+        List<Clause> clauses = new ArrayList<>();
+        int from = 0;
+        while (from < text.length() && clauses.size() < MAX_CLAUSES) {
+            int quote = text.indexOf('"', from);
+            int wordsEnd = quote < 0 ? text.length() : quote;
+            for (Word word : words(text, from, wordsEnd)) {
+                clauses.add(new Clause(List.of(word)));
+            }
+            if (quote < 0) {
+                break;
+            }
+            int close = text.indexOf('"', quote + 1);
+            List<Word> phrase = words(text, quote + 1, close < 0 ? text.length() : close);
+            if (!phrase.isEmpty()) {
+                clauses.add(new Clause(phrase));
+            }
+            from = close < 0 ? text.length() : close + 1;
+        }
+        return new IndexQuery(clauses.size() > MAX_CLAUSES ? clauses.subList(0, MAX_CLAUSES) : clauses);
+    }
+
+    public List<Clause> clauses() {
+        return clauses;
+    }
+
+    public boolean isEmpty() {
+        return clauses.isEmpty();
+    }
+
+    /**
+     * An HTML-escaped excerpt of at most about {@code maxLength} characters around the first
+     * match, with every matching word wrapped in {@code <mark>} tags.
+     */
+    public String highlight(String content, int maxLength) {
+        List<Token> tokens = Tokenizer.tokenize(content);
+        int firstMatch = 0;
+        for (Token token : tokens) {
+            if (matches(token.term())) {
+                firstMatch = token.start();
+                break;
+            }
+        }
+        int start = Math.max(0, firstMatch - maxLength / 4);
+        for (Token token : tokens) {
+            if (token.end() > start) {
+                start = Math.min(start, token.start());
+                break;
+            }
+        }
+        int end = Math.min(content.length(), start + maxLength);
+
+        StringBuilder snippet = new StringBuilder();
+        if (start > 0) {
+            snippet.append('…');
+        }
+        int written = start;
+        for (Token token : tokens) {
+            if (token.start() < start || token.end() > end) {
+                continue;
+            }
+            if (matches(token.term())) {
+                escape(content, written, token.start(), snippet);
+                snippet.append("<mark>");
+                escape(content, token.start(), token.end(), snippet);
+                snippet.append("</mark>");
+                written = token.end();
+            }
+        }
+        escape(content, written, end, snippet);
+        if (end < content.length()) {
+            snippet.append('…');
+        }
+        return snippet.toString();
+    }
+
+    private boolean matches(String term) {
+        for (Clause clause : clauses) {
+            for (Word word : clause.words()) {
+                if (word.matches(term)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<Word> words(String text, int from, int to) {
+        List<Word> words = new ArrayList<>();
+        for (Token token : Tokenizer.tokenize(text.substring(from, to))) {
+            int end = from + token.end();
+            boolean starred = end < text.length() && text.charAt(end) == '*';
+            words.add(new Word(token.term(), starred || end == text.length()));
+        }
+        return words;
+    }
+
+    private static void escape(String content, int from, int to, StringBuilder out) {
+        for (int i = from; i < to; i++) {
+            char c = content.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
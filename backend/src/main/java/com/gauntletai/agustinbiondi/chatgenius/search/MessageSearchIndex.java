@@ -0,0 +1,253 @@
+package com.gauntletai.agustinbiondi.chatgenius.search;
+
+import com.gauntletai.agustinbiondi.chatgenius.dto.MessageDTO;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepositoryCustom.IndexableMessage;
+import com.gauntletai.agustinbiondi.chatgenius.search.ChannelIndexShard.Match;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-process inverted index over message content, one {@link ChannelIndexShard} per channel,
+ * for search-as-you-type. Matching runs in memory; only the page of hits is read back from
+ * the database for authors and snippets. The index is rebuilt from the messages table in
+ * the background at startup and kept current by every batch that
+ * {@code MessageWritePipeline} commits.
+ * <p>
+ * A channel whose shard grows past {@code app.search.index.max-documents-per-channel} is
+ * dropped from the index for good, which bounds the heap a single channel can take. Until
+ * the rebuild has finished, and for any search that covers such a channel,
+ * {@link #covers} is false and callers fall back to database search.
+ */
+@Slf4j
+@Component
+public class MessageSearchIndex {
+
+    private static final int SNIPPET_LENGTH = 200;
+
+    /**
+     * A match of an index query with its highlighted excerpt.
+     */
+    public record Hit(IndexableMessage message, int score, String snippet) {}
+
+    private final MessageRepository messageRepository;
+    private final ReadableChannels readableChannels;
+    private final boolean enabled;
+    private final int rebuildBatchSize;
+    private final int maxDocumentsPerChannel;
+    private final Map<UUID, ChannelIndexShard> shards = new ConcurrentHashMap<>();
+    // Channels too large to index; searches over them go to the database
+    private final Set<UUID> oversizedChannels = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    private final AtomicLong indexedMessages = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+
+    public MessageSearchIndex(MessageRepository messageRepository,
+                              ReadableChannels readableChannels,
+                              @Value("${app.search.index.enabled:true}") boolean enabled,
+                              @Value("${app.search.index.rebuild-batch-size:5000}") int rebuildBatchSize,
+                              @Value("${app.search.index.max-documents-per-channel:100000}") int maxDocumentsPerChannel) {
+        this.messageRepository = messageRepository;
+        this.readableChannels = readableChannels;
+        this.enabled = enabled;
+        this.rebuildBatchSize = rebuildBatchSize;
+        this.maxDocumentsPerChannel = maxDocumentsPerChannel;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Whether {@link #search} sees every message the user could find in the given channel,
+     * or in all their readable channels when {@code channelId} is null.
+     */
+    public boolean covers(String userId, UUID channelId) {
+        if (!ready) {
+            return false;
+        }
+        if (oversizedChannels.isEmpty()) {
+            return true;
+        }
+        if (channelId != null) {
+            return !oversizedChannels.contains(channelId);
+        }
+        return readableChannels.of(userId).stream().noneMatch(oversizedChannels::contains);
+    }
+
+    public int getIndexedChannels() {
+        return shards.size();
+    }
+
+    public long getIndexedMessages() {
+        return indexedMessages.get();
+    }
+
+    public int getOversizedChannels() {
+        return oversizedChannels.size();
+    }
+
+    public long getQueries() {
+        return queries.get();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startRebuild() {
+        if (enabled) {
+            Thread.ofVirtual().name("message-index-rebuild").start(this::rebuild);
+        }
+    }
+
+    /**
+     * Add a committed message. Messages the rebuild has already loaded are ignored.
+     */
+    public void index(MessageDTO message) {
+        if (!enabled || message.getContent() == null) {
+            return;
+        }
+        add(new IndexableMessage(message.getId(), message.getChannelId(), message.getCreatedBy(),
+                message.getUsername(), message.getParentId(), message.getContent(),
+                Instant.parse(message.getCreatedAt()), message.getSeq()));
+    }
+
+    /**
+     * Load every message of one channel, for history written behind the index's back such as
+     * an archive import. Messages already in the shard are skipped.
+     */
+    public void indexChannel(UUID channelId) {
+        if (!enabled) {
+            return;
+        }
+        long afterSeq = Long.MIN_VALUE;
+        while (!oversizedChannels.contains(channelId)) {
+            List<IndexableMessage> page = messageRepository.scanIndexableMessages(channelId, afterSeq, rebuildBatchSize);
+            for (IndexableMessage message : page) {
+                if (!message.channelId().equals(channelId)) {
+                    return;
+                }
+                add(message);
+                afterSeq = message.seq();
+            }
+            if (page.size() < rebuildBatchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drop a deleted channel's shard.
+     */
+    public void dropChannel(UUID channelId) {
+        ChannelIndexShard shard = shards.remove(channelId);
+        if (shard != null) {
+            indexedMessages.addAndGet(-shard.size());
+        }
+        oversizedChannels.remove(channelId);
+    }
+
+    /**
+     * The newest {@code limit} messages matching the query in the channels the user can read,
+     * optionally restricted to one channel. Hits whose message no longer exists are left out.
+     * Authors, parents and content come from the database, so they are always current.
+     */
+    public List<Hit> search(String userId, String text, UUID channelId, int limit) {
+        queries.incrementAndGet();
+        IndexQuery query = IndexQuery.parse(text);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        Set<UUID> readable = readableChannels.of(userId);
+        Collection<UUID> channelIds = channelId != null ? List.of(channelId) : readable;
+
+        List<Match> matches = new ArrayList<>();
+        for (UUID id : channelIds) {
+            ChannelIndexShard shard = shards.get(id);
+            if (shard != null && readable.contains(id)) {
+                matches.addAll(shard.search(query, limit));
+            }
+        }
+        matches.sort(ChannelIndexShard.NEWEST_FIRST);
+        List<Match> page = matches.subList(0, Math.min(limit, matches.size()));
+        if (page.isEmpty()) {
+            return List.of();
+        }
+
+        Map<UUID, IndexableMessage> messages = messageRepository
+                .findIndexableMessages(page.stream().map(Match::messageId).toList()).stream()
+                .collect(Collectors.toMap(IndexableMessage::id, Function.identity()));
+        List<Hit> hits = new ArrayList<>(page.size());
+        for (Match match : page) {
+            IndexableMessage message = messages.get(match.messageId());
+            if (message != null) {
+                hits.add(new Hit(message, match.score(), query.highlight(message.content(), SNIPPET_LENGTH)));
+            }
+        }
+        return hits;
+    }
+
+    private void rebuild() {
+        long started = System.nanoTime();
+        UUID afterChannelId = new UUID(0L, 0L);
+        long afterSeq = Long.MIN_VALUE;
+        long loaded = 0;
+        try {
+            while (true) {
+                List<IndexableMessage> page =
+                        messageRepository.scanIndexableMessages(afterChannelId, afterSeq, rebuildBatchSize);
+                page.forEach(this::add);
+                loaded += page.size();
+                if (page.size() < rebuildBatchSize) {
+                    break;
+                }
+                IndexableMessage last = page.get(page.size() - 1);
+                afterChannelId = last.channelId();
+                // Skip the rest of a channel that outgrew the index
+                afterSeq = oversizedChannels.contains(last.channelId()) ? Long.MAX_VALUE : last.seq();
+            }
+            ready = true;
+            log.info("Rebuilt message search index: {} messages in {} channels in {} ms, {} channels left to the "
+                            + "database", indexedMessages.get(), shards.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), oversizedChannels.size());
+        } catch (RuntimeException e) {
+            log.error("Message search index rebuild failed after {} messages, falling back to database search",
+                    loaded, e);
+        }
+    }
+
+    private void add(IndexableMessage message) {
+        UUID channelId = message.channelId();
+        if (oversizedChannels.contains(channelId)) {
+            return;
+        }
+        ChannelIndexShard shard = shards.computeIfAbsent(channelId, id -> new ChannelIndexShard());
+        if (!shard.add(message)) {
+            return;
+        }
+        indexedMessages.incrementAndGet();
+        if (shard.size() > maxDocumentsPerChannel && oversizedChannels.add(channelId)) {
+            log.info("Channel {} has more than {} messages, searching it in the database from now on",
+                    channelId, maxDocumentsPerChannel);
+        }
+        // Also catches a shard another thread recreated while this channel was being dropped
+        if (oversizedChannels.contains(channelId) && shards.remove(channelId, shard)) {
+            indexedMessages.addAndGet(-shard.size());
+        }
+    }
+}
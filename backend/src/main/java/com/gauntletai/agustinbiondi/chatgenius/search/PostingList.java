@@ -0,0 +1,126 @@
+package com.gauntletai.agustinbiondi.chatgenius.search;
+
+import java.util.Arrays;
+
+/**
+ * Postings of one term within one shard, compressed into a byte array. Each document is
+ * stored as the gap to the previous doc id, its number of positions and the gaps between
+ * those positions, all as unsigned varints, so a typical posting costs 3-4 bytes instead
+ * of the 12+ of a boxed representation. Doc ids must be appended in increasing order.
+ * Not thread-safe; {@link ChannelIndexShard} guards every instance with its lock.
+ */
+public final class PostingList {
+
+    private byte[] bytes = new byte[16];
+    private int length;
+    private int lastDocId = -1;
+    private int documents;
+
+    public int documents() {
+        return documents;
+    }
+
+    public int sizeInBytes() {
+        return length;
+    }
+
+    public void add(int docId, int[] positions, int count) {
+        if (docId <= lastDocId) {
+            throw new IllegalArgumentException("Doc ids must increase: " + docId + " after " + lastDocId);
+        }
+        writeVarint(docId - lastDocId);
+        writeVarint(count);
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            writeVarint(positions[i] - previous);
+            previous = positions[i];
+        }
+        lastDocId = docId;
+        documents++;
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    private void writeVarint(int value) {
+        if (bytes.length - length < 5) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + 5));
+        }
+        while ((value & ~0x7F) != 0) {
+            bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[length++] = (byte) value;
+    }
+
+    /**
+     * Forward-only decoder over the postings present when it was created.
+     */
+    public final class Cursor {
+        private final byte[] data = bytes;
+        private final int end = length;
+        private int offset;
+        private int docId = -1;
+        private int frequency;
+        private int[] positions = new int[4];
+        private boolean positionsRead = true;
+
+        public boolean next() {
+            if (!positionsRead) {
+                // Skip the varints of positions nobody asked for without decoding them
+                for (int i = 0; i < frequency; i++) {
+                    while (data[offset++] < 0) {
+                        // continuation byte
+                    }
+                }
+            }
+            if (offset >= end) {
+                return false;
+            }
+            docId += readVarint();
+            frequency = readVarint();
+            positionsRead = false;
+            return true;
+        }
+
+        public int docId() {
+            return docId;
+        }
+
+        public int frequency() {
+            return frequency;
+        }
+
+        /**
+         * Positions of the current document in increasing order, decoded on first use; only the
+         * first {@link #frequency()} entries are valid and the array is reused by {@link #next()}.
+         */
+        public int[] positions() {
+            if (!positionsRead) {
+                if (positions.length < frequency) {
+                    positions = new int[Math.max(frequency, positions.length * 2)];
+                }
+                int position = 0;
+                for (int i = 0; i < frequency; i++) {
+                    position += readVarint();
+                    positions[i] = position;
+                }
+                positionsRead = true;
+            }
+            return positions;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.gauntletai.agustinbiondi.chatgenius.search;
+
+import com.gauntletai.agustinbiondi.chatgenius.search.Tokenizer.Token;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Names kept as sorted arrays of lower-cased keys for autocomplete. Each name is reachable
+ * from its start and from the start of every later word in it, so "ag" finds both
+ * "agustin" and "dev-agustin". Readers binary-search immutable snapshots without locking;
+ * writers publish a changed copy, found and shifted with binary search and array copies.
+ */
+public final class PrefixIndex<T> {
+
+    /**
+     * Candidates looked at per array and lookup. A one-letter prefix in a large directory
+     * stops here instead of ranking every name.
+     */
+    public static final int MAX_CANDIDATES = 2000;
+
+    private static final Comparator<Entry<?>> BY_KEY = Comparator.comparing(Entry::key);
+
+    /**
+     * One way into a name.
+     */
+    private record Entry<T>(String key, String name, T value) {}
+
+    /**
+     * A suggestion and its rank: 0 for an exact match, 1 for a match at the start of the
+     * name and 2 for a match at the start of a later word.
+     */
+    public record Suggestion<T>(T value, String name, int tier) {}
+
+    private static final Comparator<Suggestion<?>> BEST_FIRST = Comparator
+            .comparingInt((Suggestion<?> suggestion) -> suggestion.tier())
+            .thenComparingInt(suggestion -> suggestion.name().length())
+            .thenComparing(Suggestion::name, String.CASE_INSENSITIVE_ORDER);
+
+    private final Map<T, String> names = new HashMap<>();
+    // Keys at the start of each name, and keys at the start of its later words
+    private volatile Entry<T>[] wholeNames = newArray(0);
+    private volatile Entry<T>[] laterWords = newArray(0);
+
+    public synchronized int size() {
+        return names.size();
+    }
+
+    /**
+     * Add a name or replace the one stored for the value.
+     */
+    public synchronized void put(T value, String name) {
+        String previous = names.put(value, name);
+        List<Entry<T>> oldWhole = new ArrayList<>(1);
+        List<Entry<T>> oldWords = new ArrayList<>();
+        if (previous != null) {
+            keys(value, previous, oldWhole, oldWords);
+        }
+        List<Entry<T>> whole = new ArrayList<>(1);
+        List<Entry<T>> words = new ArrayList<>();
+        keys(value, name, whole, words);
+        // Each array is published once, so readers never see the value missing
+        wholeNames = insert(delete(wholeNames, oldWhole), whole);
+        laterWords = insert(delete(laterWords, oldWords), words);
+    }
+
+    public synchronized void remove(T value) {
+        String previous = names.remove(value);
+        if (previous != null) {
+            List<Entry<T>> whole = new ArrayList<>(1);
+            List<Entry<T>> words = new ArrayList<>();
+            keys(value, previous, whole, words);
+            wholeNames = delete(wholeNames, whole);
+            laterWords = delete(laterWords, words);
+        }
+    }
+
+    /**
+     * Add many names at once, keeping the stored name of values that are already present.
+     * Used for the initial load, so it never undoes a put that raced with it.
+     */
+    public synchronized void putAllAbsent(Map<T, String> all) {
+        List<Entry<T>> whole = new ArrayList<>(all.size());
+        List<Entry<T>> words = new ArrayList<>();
+        all.forEach((value, name) -> {
+            if (names.putIfAbsent(value, name) == null) {
+                keys(value, name, whole, words);
+            }
+        });
+        wholeNames = merge(wholeNames, whole);
+        laterWords = merge(laterWords, words);
+    }
+
+    /**
+     * Best matches for a prefix: exact names first, then names starting with it, then names
+     * with a later word starting with it; shorter names first within a tier. Later words are
+     * not searched when names starting with the prefix already fill the result.
+     */
+    public List<Suggestion<T>> lookup(String prefix, int limit, Predicate<T> filter) {
+        String key = prefix.toLowerCase(Locale.ROOT);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        List<Suggestion<T>> best = new ArrayList<>(limit + 1);
+        collect(wholeNames, key, limit, filter, best, false);
+        if (best.size() < limit) {
+            collect(laterWords, key, limit, filter, best, true);
+        }
+        return best;
+    }
+
+    private void collect(Entry<T>[] entries, String key, int limit, Predicate<T> filter,
+                         List<Suggestion<T>> best, boolean laterWord) {
+        int from = lowerBound(entries, key);
+        int end = Math.min(entries.length, from + MAX_CANDIDATES);
+        for (int i = from; i < end; i++) {
+            Entry<T> entry = entries[i];
+            if (!entry.key().startsWith(key)) {
+                break;
+            }
+            int tier = laterWord ? 2 : entry.key().length() == key.length() ? 0 : 1;
+            Suggestion<T> candidate = new Suggestion<>(entry.value(), entry.name(), tier);
+            // Most candidates lose to the current worst and never reach the filter
+            if (best.size() == limit && BEST_FIRST.compare(candidate, best.get(limit - 1)) >= 0) {
+                continue;
+            }
+            if (laterWord && containsValue(best, entry.value())) {
+                continue;
+            }
+            if (!filter.test(entry.value())) {
+                continue;
+            }
+            int at = best.size();
+            while (at > 0 && BEST_FIRST.compare(candidate, best.get(at - 1)) < 0) {
+                at--;
+            }
+            best.add(at, candidate);
+            if (best.size() > limit) {
+                best.remove(limit);
+            }
+        }
+    }
+
+    private static <T> boolean containsValue(List<Suggestion<T>> suggestions, T value) {
+        for (Suggestion<T> suggestion : suggestions) {
+            if (suggestion.value().equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <T> void keys(T value, String name, List<Entry<T>> whole, List<Entry<T>> words) {
+        whole.add(new Entry<>(name.toLowerCase(Locale.ROOT), name, value));
+        List<Token> tokens = Tokenizer.tokenize(name);
+        for (int i = 0; i < tokens.size(); i++) {
+            // The first word is already covered by the whole name unless the name starts with punctuation
+            if (i > 0 || tokens.get(i).start() > 0) {
+                words.add(new Entry<>(name.substring(tokens.get(i).start()).toLowerCase(Locale.ROOT), name, value));
+            }
+        }
+    }
+
+    /**
+     * A copy of {@code current} without the given entries, found by binary search on their keys.
+     */
+    private static <T> Entry<T>[] delete(Entry<T>[] current, List<Entry<T>> removed) {
+        Entry<T>[] result = current;
+        for (Entry<T> entry : removed) {
+            for (int i = lowerBound(result, entry.key()); i < result.length && result[i].key().equals(entry.key()); i++) {
+                if (result[i].value().equals(entry.value())) {
+                    Entry<T>[] shorter = newArray(result.length - 1);
+                    System.arraycopy(result, 0, shorter, 0, i);
+                    System.arraycopy(result, i + 1, shorter, i, result.length - i - 1);
+                    result = shorter;
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A copy of {@code current} with a few entries inserted at their sorted positions.
+     */
+    private static <T> Entry<T>[] insert(Entry<T>[] current, List<Entry<T>> added) {
+        Entry<T>[] result = current;
+        for (Entry<T> entry : added) {
+            int at = lowerBound(result, entry.key());
+            Entry<T>[] longer = newArray(result.length + 1);
+            System.arraycopy(result, 0, longer, 0, at);
+            longer[at] = entry;
+            System.arraycopy(result, at, longer, at + 1, result.length - at);
+            result = longer;
+        }
+        return result;
+    }
+
+    /**
+     * A sorted copy of {@code current} merged with {@code added} in one pass.
+     */
+    private static <T> Entry<T>[] merge(Entry<T>[] current, List<Entry<T>> added) {
+        if (added.isEmpty()) {
+            return current;
+        }
+        added.sort(BY_KEY);
+        Entry<T>[] merged = newArray(current.length + added.size());
+        int size = 0;
+        int next = 0;
+        for (Entry<T> entry : current) {
+            while (next < added.size() && BY_KEY.compare(added.get(next), entry) < 0) {
+                merged[size++] = added.get(next++);
+            }
+            merged[size++] = entry;
+        }
+        while (next < added.size()) {
+            merged[size++] = added.get(next++);
+        }
+        return merged;
+    }
+
+    private static <T> int lowerBound(Entry<T>[] sorted, String key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid].key().compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Entry<T>[] newArray(int size) {
+        return (Entry<T>[]) new Entry[size];
+    }
+}
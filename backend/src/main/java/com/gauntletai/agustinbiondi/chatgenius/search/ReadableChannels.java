@@ -0,0 +1,59 @@
+package com.gauntletai.agustinbiondi.chatgenius.search;
+
+import com.gauntletai.agustinbiondi.chatgenius.model.Channel;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The channels each user can read, for filtering in-memory search results. Loaded with one
+ * query per user and kept for the access TTL; membership changes drop a user's entry
+ * early, so the TTL only bounds staleness from paths that do not report them.
+ */
+@Component
+public class ReadableChannels {
+
+    private record Entry(Set<UUID> channelIds, long loadedNanos) {}
+
+    private final ChannelRepository channelRepository;
+    private final long ttlNanos;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public ReadableChannels(ChannelRepository channelRepository,
+                            @Value("${app.search.index.access-ttl-ms:30000}") long ttlMs) {
+        this.channelRepository = channelRepository;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+    }
+
+    public Set<UUID> of(String userId) {
+        Entry cached = entries.get(userId);
+        if (cached != null && System.nanoTime() - cached.loadedNanos() <= ttlNanos) {
+            return cached.channelIds();
+        }
+        Set<UUID> channelIds = new HashSet<>(channelRepository.findReadableChannelIds(userId, Channel.Type.PUBLIC));
+        entries.put(userId, new Entry(channelIds, System.nanoTime()));
+        return channelIds;
+    }
+
+    /**
+     * Reload the readable channels of these users on their next lookup.
+     */
+    public void invalidate(Collection<String> userIds) {
+        userIds.forEach(entries::remove);
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.index.access-ttl-ms:30000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> now - entry.loadedNanos() > ttlNanos);
+    }
+}
@@ -0,0 +1,56 @@
+package com.gauntletai.agustinbiondi.chatgenius.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits text into lower-cased runs of letters and digits. There is no stemming or stop
+ * word list: prefix queries cover most of what stemming would, and chat messages are
+ * short enough that common words cost little.
+ */
+public final class Tokenizer {
+
+    /**
+     * Longer runs are indexed by their first {@code MAX_TERM_LENGTH} characters.
+     */
+    public static final int MAX_TERM_LENGTH = 64;
+
+    /**
+     * A term and the [start, end) range of the text it was read from.
+     */
+    public record Token(String term, int start, int end) {}
+
+    private Tokenizer() {
+    }
+
+    public static List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder term = new StringBuilder();
+        int start = -1;
+        int i = 0;
+        while (i < text.length()) {
+            int codePoint = text.codePointAt(i);
+            int next = i + Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint)) {
+                if (start < 0) {
+                    start = i;
+                }
+                if (term.length() < MAX_TERM_LENGTH) {
+                    term.appendCodePoint(Character.toLowerCase(codePoint));
+                }
+            } else if (start >= 0) {
+                tokens.add(new Token(term.toString(), start, i));
+                term.setLength(0);
+                start = -1;
+            }
+            i = next;
+        }
+        if (start >= 0) {
+            tokens.add(new Token(term.toString(), start, text.length()));
+        }
+        return tokens;
+    }
+}
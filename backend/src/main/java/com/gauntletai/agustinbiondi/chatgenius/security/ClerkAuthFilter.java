@@ -63,7 +63,7 @@ public class ClerkAuthFilter extends OncePerRequestFilter {
     }
 
     private void setAuthentication(String clerkUserId) {
-        userRepository.findById(clerkUserId).ifPresent(user -> {
+        userRepository.findByUserIdAndDeletedAtIsNull(clerkUserId).ifPresent(user -> {
             var authorities = List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole()));
             log.debug("Setting authentication for user {} with role {}", user.getUserId(), user.getRole());
             var authentication = new UsernamePasswordAuthenticationToken(
@@ -1,6 +1,9 @@
 package com.gauntletai.agustinbiondi.chatgenius.security;
 
+import com.gauntletai.agustinbiondi.chatgenius.model.User;
 import com.gauntletai.agustinbiondi.chatgenius.repository.UserRepository;
+import com.gauntletai.agustinbiondi.chatgenius.websocket.SessionResumeRegistry;
+import com.gauntletai.agustinbiondi.chatgenius.websocket.SessionResumeTokens;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.Message;
@@ -20,13 +23,31 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ClerkChannelInterceptor implements ChannelInterceptor {
 
+    public static final String RESUME_TOKEN_HEADER = "resume-token";
+    public static final String LAST_EVENT_ID_HEADER = "last-event-id";
+
     private final ClerkTokenValidator tokenValidator;
     private final UserRepository userRepository;
+    private final SessionResumeTokens resumeTokens;
+    private final SessionResumeRegistry sessionResumeRegistry;
 
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
         StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
         
+        if (accessor != null && StompCommand.SUBSCRIBE.equals(accessor.getCommand()) && accessor.getUser() != null) {
+            // The session was authenticated at CONNECT, no need to verify the token again
+            return message;
+        }
+
+        if (accessor != null && StompCommand.CONNECT.equals(accessor.getCommand())
+                && accessor.getFirstNativeHeader(RESUME_TOKEN_HEADER) != null) {
+            if (resume(accessor)) {
+                return message;
+            }
+            log.debug("Resume token rejected, falling back to the Authorization header");
+        }
+
         if (accessor != null && (StompCommand.CONNECT.equals(accessor.getCommand()) 
                 || StompCommand.SUBSCRIBE.equals(accessor.getCommand()))) {
             
@@ -41,14 +62,8 @@ public class ClerkChannelInterceptor implements ChannelInterceptor {
                     log.debug("WebSocket token verified for user: {}", clerkUserId);
                     
                     // Find user and set authentication
-                    userRepository.findById(clerkUserId).ifPresent(user -> {
-                        var authorities = List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole()));
-                        var authentication = new UsernamePasswordAuthenticationToken(
-                            clerkUserId, // Use userId as principal name
-                            null,
-                            authorities
-                        );
-                        accessor.setUser(authentication);
+                    userRepository.findByUserIdAndDeletedAtIsNull(clerkUserId).ifPresent(user -> {
+                        accessor.setUser(authentication(user));
                         log.debug("WebSocket authentication set for user: {}", clerkUserId);
                     });
                 } catch (Exception e) {
@@ -63,4 +78,46 @@ public class ClerkChannelInterceptor implements ChannelInterceptor {
         
         return message;
     }
-} 
\ No newline at end of file
+
+    /**
+     * Authenticate a CONNECT from its resume token, skipping the Clerk verification, and
+     * ask the registry to restore the previous session's subscriptions.
+     */
+    private boolean resume(StompHeaderAccessor accessor) {
+        var resumeToken = resumeTokens.verify(accessor.getFirstNativeHeader(RESUME_TOKEN_HEADER));
+        if (resumeToken.isEmpty()) {
+            return false;
+        }
+        var user = userRepository.findByUserIdAndDeletedAtIsNull(resumeToken.get().userId());
+        if (user.isEmpty()) {
+            return false;
+        }
+        accessor.setUser(authentication(user.get()));
+        sessionResumeRegistry.beginResume(accessor.getSessionId(), user.get().getUserId(), resumeToken.get(),
+                lastEventId(accessor));
+        log.debug("WebSocket session resumed for user: {}", user.get().getUserId());
+        return true;
+    }
+
+    // The client's position is only a hint; a missing or garbled one makes the replay incomplete
+    private static Long lastEventId(StompHeaderAccessor accessor) {
+        String value = accessor.getFirstNativeHeader(LAST_EVENT_ID_HEADER);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private UsernamePasswordAuthenticationToken authentication(User user) {
+        var authorities = List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole()));
+        return new UsernamePasswordAuthenticationToken(
+            user.getUserId(), // Use userId as principal name
+            null,
+            authorities
+        );
+    }
+}
@@ -7,7 +7,9 @@ import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.auth0.jwt.interfaces.JWTVerifier;
+import com.gauntletai.agustinbiondi.chatgenius.diagnostics.TokenVerifiedEvent;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -23,17 +25,25 @@ public class ClerkTokenValidator {
     private final JwkProvider jwkProvider;
     private final String clerkIssuer;
 
+    @Autowired
     public ClerkTokenValidator(
             @Value("${clerk.issuer}") String clerkIssuer
     ) {
-        this.clerkIssuer = clerkIssuer;
-        this.jwkProvider = new JwkProviderBuilder(getJwksUrl(clerkIssuer))
+        this(clerkIssuer, new JwkProviderBuilder(getJwksUrl(clerkIssuer))
                 .cached(10, 24, TimeUnit.HOURS) // Cache up to 10 JWKs for 24 hours
                 .rateLimited(10, 1, TimeUnit.MINUTES) // Max 10 requests per minute
-                .build();
+                .build());
+    }
+
+    /**
+     * Verify against keys from the given provider instead of the issuer's JWKS endpoint.
+     */
+    ClerkTokenValidator(String clerkIssuer, JwkProvider jwkProvider) {
+        this.clerkIssuer = clerkIssuer;
+        this.jwkProvider = jwkProvider;
     }
 
-    private URL getJwksUrl(String issuer) {
+    private static URL getJwksUrl(String issuer) {
         try {
             return URI.create(issuer + "/.well-known/jwks.json").toURL();
         } catch (Exception e) {
@@ -42,8 +52,11 @@ public class ClerkTokenValidator {
     }
 
     public String verifyToken(String token) {
+        TokenVerifiedEvent event = new TokenVerifiedEvent();
+        event.begin();
+        DecodedJWT jwt = null;
         try {
-            DecodedJWT jwt = JWT.decode(token);
+            jwt = JWT.decode(token);
             
             // Get the public key from Clerk's JWKS endpoint
             RSAPublicKey publicKey = (RSAPublicKey) jwkProvider.get(jwt.getKeyId()).getPublicKey();
@@ -56,6 +69,7 @@ public class ClerkTokenValidator {
             
             // Verify the token
             jwt = verifier.verify(token);
+            event.valid = true;
             
             // Return the Clerk User ID (subject)
             return jwt.getSubject();
@@ -66,6 +80,13 @@ public class ClerkTokenValidator {
         } catch (Exception e) {
             log.error("Token processing failed", e);
             throw new RuntimeException("Token processing failed", e);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.keyId = jwt != null ? jwt.getKeyId() : null;
+                event.userId = event.valid ? jwt.getSubject() : null;
+                event.commit();
+            }
         }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.gauntletai.agustinbiondi.chatgenius.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Checks the Svix signature Clerk puts on webhook deliveries: an HMAC-SHA256 of
+ * "id.timestamp.payload" under the webhook secret.
+ */
+@Component
+public class ClerkWebhookVerifier {
+
+    private final String webhookSecret;
+
+    public ClerkWebhookVerifier(@Value("${clerk.webhook-secret}") String webhookSecret) {
+        this.webhookSecret = webhookSecret;
+    }
+
+    public boolean verify(String svixId, String svixTimestamp, String payload, String signature) {
+        try {
+            String toSign = svixId + "." + svixTimestamp + "." + payload;
+            Mac mac = Mac.getInstance("HmacSHA256");
+            SecretKeySpec secretKeySpec = new SecretKeySpec(
+                webhookSecret.getBytes(StandardCharsets.UTF_8),
+                "HmacSHA256"
+            );
+            mac.init(secretKeySpec);
+            String computedSignature = Base64.getEncoder()
+                .encodeToString(mac.doFinal(toSign.getBytes(StandardCharsets.UTF_8)));
+            return signature.equals("v1," + computedSignature);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
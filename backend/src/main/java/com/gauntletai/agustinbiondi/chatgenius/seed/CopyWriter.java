@@ -0,0 +1,105 @@
+package com.gauntletai.agustinbiondi.chatgenius.seed;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams CSV rows into one table through COPY FROM STDIN, committing every
+ * {@code batchRows} rows so a long load shows progress and keeps each transaction bounded.
+ * Rows are encoded into a small buffer and handed to the driver as it fills, so memory
+ * does not depend on the number of rows.
+ */
+@Slf4j
+final class CopyWriter implements AutoCloseable {
+
+    private static final int BUFFER_CHARS = 1 << 16;
+
+    private final Connection connection;
+    private final String table;
+    private final String sql;
+    private final int batchRows;
+    private final StringBuilder buffer = new StringBuilder(BUFFER_CHARS + 4096);
+    private final long started = System.nanoTime();
+    private CopyIn copy;
+    private long rows;
+    private int rowsInBatch;
+
+    CopyWriter(Connection connection, String table, String columns, int batchRows) {
+        this.connection = connection;
+        this.table = table;
+        this.sql = "COPY " + table + " (" + columns + ") FROM STDIN WITH (FORMAT csv)";
+        this.batchRows = batchRows;
+    }
+
+    /**
+     * Append one row; nulls are written as unquoted empty fields, everything else quoted.
+     */
+    void row(Object... values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                buffer.append(',');
+            }
+            Object value = values[i];
+            if (value != null) {
+                String text = value.toString();
+                buffer.append('"');
+                if (text.indexOf('"') >= 0) {
+                    buffer.append(text.replace("\"", "\"\""));
+                } else {
+                    buffer.append(text);
+                }
+                buffer.append('"');
+            }
+        }
+        buffer.append('\n');
+        rows++;
+        rowsInBatch++;
+        if (buffer.length() >= BUFFER_CHARS) {
+            flushBuffer();
+        }
+        if (rowsInBatch >= batchRows) {
+            commitBatch();
+            long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            log.info("Seeded {} rows into {} ({} rows/s)", rows, table, rows * 1000 / millis);
+        }
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        commitBatch();
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        log.info("Seeded {}: {} rows in {} ms ({} rows/s)", table, rows, millis, rows * 1000 / millis);
+    }
+
+    private void flushBuffer() throws SQLException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        if (copy == null) {
+            copy = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+        }
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    private void commitBatch() throws SQLException {
+        flushBuffer();
+        if (copy != null) {
+            copy.endCopy();
+            copy = null;
+            connection.commit();
+        }
+        rowsInBatch = 0;
+    }
+}
@@ -0,0 +1,385 @@
+package com.gauntletai.agustinbiondi.chatgenius.seed;
+
+import com.gauntletai.agustinbiondi.chatgenius.model.Channel;
+import com.gauntletai.agustinbiondi.chatgenius.model.Message;
+import com.gauntletai.agustinbiondi.chatgenius.model.User;
+import com.gauntletai.agustinbiondi.chatgenius.util.UuidV7;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills an empty database with a synthetic workspace for load tests and benchmarks:
+ * <pre>
+ * ./gradlew bootRun --args='--spring.profiles.active=dev,seed --app.seed.messages=10000000'
+ * </pre>
+ * Channel sizes and activity follow a Zipf curve, a share of messages are thread replies
+ * to recent messages, and reactions per message are geometric. Every value is drawn from
+ * random streams derived from {@code app.seed.seed} per channel and per pass, and all ids
+ * and timestamps are computed from them, so the same settings always produce the same rows.
+ * Rows are written with COPY: users, channels, memberships, messages and reactions, each in
+ * its own pass. The full-text GIN index is dropped for the load and rebuilt once at the end.
+ */
+@Slf4j
+@Component
+@Profile("seed")
+public class DatasetSeeder implements ApplicationRunner {
+
+    private static final String USER_ID_FORMAT = "seed-user-%07d";
+    private static final String[] EMOJI = {"👍", "❤️", "😂", "🎉", "👀", "🙏", "🔥", "✅", "😮", "😢", "🚀", "💯"};
+    private static final int VOCABULARY = 5000;
+    private static final int RECENT_PARENTS = 20;
+
+    // Salts for the independent random streams of each pass
+    private static final long CHANNELS = 1;
+    private static final long MEMBERS = 2;
+    private static final long MESSAGES = 3;
+    private static final long REACTIONS = 4;
+
+    private final DataSource dataSource;
+    private final ApplicationContext applicationContext;
+    private final long seed;
+    private final int users;
+    private final int channels;
+    private final double privateChannelRatio;
+    private final int membersPerChannel;
+    private final long messages;
+    private final double replyRatio;
+    private final double reactionsPerMessage;
+    private final Instant endTime;
+    private final Duration history;
+    private final int batchSize;
+    private final boolean exitWhenDone;
+
+    private final String[] vocabulary;
+
+    /**
+     * Everything about a channel needed to regenerate its rows in any pass.
+     */
+    private record ChannelPlan(int index, UUID id, String name, Channel.Type type, Instant createdAt,
+                               int memberCount, String createdBy, long messageCount) {}
+
+    /**
+     * Receives generated messages in seq order.
+     */
+    private interface MessageSink {
+        void accept(UUID id, UUID parentId, String userId, Instant createdAt, long seq, String content)
+                throws SQLException;
+    }
+
+    public DatasetSeeder(DataSource dataSource, ApplicationContext applicationContext,
+                         @Value("${app.seed.seed:42}") long seed,
+                         @Value("${app.seed.users:10000}") int users,
+                         @Value("${app.seed.channels:1000}") int channels,
+                         @Value("${app.seed.private-channel-ratio:0.2}") double privateChannelRatio,
+                         @Value("${app.seed.members-per-channel:50}") int membersPerChannel,
+                         @Value("${app.seed.messages:1000000}") long messages,
+                         @Value("${app.seed.reply-ratio:0.3}") double replyRatio,
+                         @Value("${app.seed.reactions-per-message:0.5}") double reactionsPerMessage,
+                         @Value("${app.seed.end-time:2025-01-01T00:00:00Z}") String endTime,
+                         @Value("${app.seed.history-days:365}") int historyDays,
+                         @Value("${app.seed.batch-size:200000}") int batchSize,
+                         @Value("${app.seed.exit-when-done:true}") boolean exitWhenDone) {
+        if (users < 2 || channels < 1 || messages < 0 || historyDays < 1) {
+            throw new IllegalArgumentException("Seeding needs at least 2 users, 1 channel and 1 day of history");
+        }
+        this.dataSource = dataSource;
+        this.applicationContext = applicationContext;
+        this.seed = seed;
+        this.users = users;
+        this.channels = channels;
+        this.privateChannelRatio = privateChannelRatio;
+        this.membersPerChannel = Math.max(2, Math.min(membersPerChannel, users));
+        this.messages = messages;
+        this.replyRatio = replyRatio;
+        this.reactionsPerMessage = reactionsPerMessage;
+        this.endTime = Instant.parse(endTime);
+        this.history = Duration.ofDays(historyDays);
+        this.batchSize = batchSize;
+        this.exitWhenDone = exitWhenDone;
+        this.vocabulary = vocabulary(new SplittableRandom(seed));
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            if (alreadySeeded(connection)) {
+                log.warn("Seed users already exist, nothing to do; seed into an empty database to start over");
+            } else {
+                seed(connection);
+            }
+        }
+        if (exitWhenDone) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+
+    private void seed(Connection connection) throws SQLException {
+        long started = System.nanoTime();
+        log.info("Seeding {} users, {} channels, {} messages with seed {}", users, channels, messages, seed);
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP INDEX IF EXISTS idx_messages_content_tsv");
+            connection.commit();
+        }
+
+        seedUsers(connection);
+        List<ChannelPlan> plans = planChannels();
+        seedChannels(connection, plans);
+        seedMemberships(connection, plans);
+        seedMessages(connection, plans);
+        seedReactions(connection, plans);
+
+        log.info("Rebuilding the full-text index");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_messages_content_tsv ON messages USING GIN (content_tsv)");
+            connection.commit();
+            connection.setAutoCommit(true);
+            statement.execute("ANALYZE users, channels, channel_memberships, messages, reactions");
+        }
+        log.info("Seeding finished in {} s", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started));
+    }
+
+    private boolean alreadySeeded(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT 1 FROM users WHERE user_id = ?")) {
+            statement.setString(1, userId(0));
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private void seedUsers(Connection connection) throws SQLException {
+        SplittableRandom random = new SplittableRandom(seed);
+        long span = history.toMillis();
+        try (CopyWriter copy = new CopyWriter(connection, "users", "user_id, username, email, role, created_at",
+                batchSize)) {
+            for (int i = 0; i < users; i++) {
+                String userId = userId(i);
+                String username = vocabulary[random.nextInt(VOCABULARY)] + "." + vocabulary[random.nextInt(VOCABULARY)]
+                        + i;
+                copy.row(userId, username, userId + "@seed.invalid", User.Role.USER.name(),
+                        endTime.minusMillis(span + random.nextLong(span)));
+            }
+        }
+    }
+
+    /**
+     * Channel i gets a 1/(i+1) share of the messages and of the memberships, like the
+     * long tail of a real workspace: a few busy channels and many quiet ones.
+     */
+    private List<ChannelPlan> planChannels() {
+        double[] weights = new double[channels];
+        double total = 0;
+        for (int i = 0; i < channels; i++) {
+            weights[i] = 1.0 / (i + 1);
+            total += weights[i];
+        }
+        long[] messageCounts = apportion(messages, weights, total);
+        long[] memberCounts = apportion((long) membersPerChannel * channels, weights, total);
+
+        long span = history.toMillis();
+        List<ChannelPlan> plans = new ArrayList<>(channels);
+        for (int i = 0; i < channels; i++) {
+            SplittableRandom random = random(i, CHANNELS);
+            Channel.Type type = random.nextDouble() < privateChannelRatio ? Channel.Type.PRIVATE : Channel.Type.PUBLIC;
+            int memberCount = (int) Math.max(2, Math.min(users, memberCounts[i]));
+            Instant createdAt = endTime.minusMillis(span - random.nextLong(span / 10 + 1));
+            String name = vocabulary[random.nextInt(VOCABULARY)] + "-" + i;
+            int[] members = members(i, memberCount);
+            plans.add(new ChannelPlan(i, UuidV7.derive(createdAt.toEpochMilli(), "seed-channel:" + seed + ":" + i),
+                    name, type, createdAt, memberCount, userId(members[random.nextInt(members.length)]),
+                    messageCounts[i]));
+        }
+        return plans;
+    }
+
+    private void seedChannels(Connection connection, List<ChannelPlan> plans) throws SQLException {
+        try (CopyWriter copy = new CopyWriter(connection, "channels",
+                "id, name, description, type, created_by, created_at, message_seq_reserved", batchSize)) {
+            for (ChannelPlan plan : plans) {
+                copy.row(plan.id(), plan.name(), "Seeded channel " + plan.index(), plan.type().name(),
+                        plan.createdBy(), plan.createdAt(), plan.messageCount());
+            }
+        }
+    }
+
+    private void seedMemberships(Connection connection, List<ChannelPlan> plans) throws SQLException {
+        try (CopyWriter copy = new CopyWriter(connection, "channel_memberships",
+                "id, channel_id, user_id, joined_at, last_read_at", batchSize)) {
+            for (ChannelPlan plan : plans) {
+                String joinedAt = plan.createdAt().toString();
+                String readAt = endTime.toString();
+                int member = 0;
+                for (int user : members(plan.index(), plan.memberCount())) {
+                    copy.row(UuidV7.derive(plan.createdAt().toEpochMilli(), "seed-membership:" + plan.id() + ":" + member++),
+                            plan.id(), userId(user), joinedAt, readAt);
+                }
+            }
+        }
+    }
+
+    private void seedMessages(Connection connection, List<ChannelPlan> plans) throws SQLException {
+        try (CopyWriter copy = new CopyWriter(connection, "messages",
+                "id, content, type, created_by, channel_id, parent_id, created_at, is_edited, seq", batchSize)) {
+            for (ChannelPlan plan : plans) {
+                generateMessages(plan, (id, parentId, userId, createdAt, seq, content) ->
+                        copy.row(id, content, Message.Type.TEXT.name(), userId, plan.id(), parentId, createdAt,
+                                false, seq));
+            }
+        }
+    }
+
+    private void seedReactions(Connection connection, List<ChannelPlan> plans) throws SQLException {
+        // Geometric number of reactions per message with the configured mean
+        double more = reactionsPerMessage / (1 + reactionsPerMessage);
+        try (CopyWriter copy = new CopyWriter(connection, "reactions", "id, emoji, user_id, message_id", batchSize)) {
+            for (ChannelPlan plan : plans) {
+                SplittableRandom random = random(plan.index(), REACTIONS);
+                int[] members = members(plan.index(), plan.memberCount());
+                Set<String> seen = new HashSet<>();
+                generateMessages(plan, (id, parentId, userId, createdAt, seq, content) -> {
+                    seen.clear();
+                    int reaction = 0;
+                    while (random.nextDouble() < more) {
+                        String emoji = EMOJI[skewed(random, EMOJI.length)];
+                        String reactor = userId(members[random.nextInt(members.length)]);
+                        if (seen.add(reactor + emoji)) {
+                            copy.row(UuidV7.derive(createdAt.toEpochMilli(), "seed-reaction:" + id + ":" + reaction++),
+                                    emoji, reactor, id);
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * The messages of a channel, spread evenly over the time since it was created. Authors are
+     * skewed towards a few talkative members; replies go to one of the latest top-level messages.
+     */
+    private void generateMessages(ChannelPlan plan, MessageSink sink) throws SQLException {
+        SplittableRandom random = random(plan.index(), MESSAGES);
+        int[] members = members(plan.index(), plan.memberCount());
+        long start = plan.createdAt().toEpochMilli();
+        double step = (double) (endTime.toEpochMilli() - start) / Math.max(1, plan.messageCount());
+        UUID[] recent = new UUID[RECENT_PARENTS];
+        int recentCount = 0;
+        StringBuilder content = new StringBuilder();
+        for (long seq = 1; seq <= plan.messageCount(); seq++) {
+            Instant createdAt = Instant.ofEpochMilli(start + (long) (step * (seq - 1 + random.nextDouble())));
+            UUID id = UuidV7.derive(createdAt.toEpochMilli(), "seed-message:" + plan.id() + ":" + seq);
+            UUID parentId = null;
+            if (recentCount > 0 && random.nextDouble() < replyRatio) {
+                parentId = recent[(recentCount - 1 - skewed(random, Math.min(recentCount, RECENT_PARENTS))) % RECENT_PARENTS];
+            } else {
+                recent[recentCount++ % RECENT_PARENTS] = id;
+            }
+            String userId = userId(members[skewed(random, members.length)]);
+
+            content.setLength(0);
+            int words = 3 + (int) (-Math.log(1 - random.nextDouble()) * 8);
+            for (int w = 0; w < words; w++) {
+                if (w > 0) {
+                    content.append(' ');
+                }
+                content.append(vocabulary[zipf(random, VOCABULARY)]);
+            }
+            sink.accept(id, parentId, userId, createdAt, seq, content.toString());
+        }
+    }
+
+    /**
+     * Distinct user indexes of a channel's members in ascending order (Floyd's sampling).
+     */
+    private int[] members(int channel, int count) {
+        SplittableRandom random = random(channel, MEMBERS);
+        Set<Integer> chosen = new HashSet<>(count * 2);
+        for (int j = users - count; j < users; j++) {
+            int candidate = random.nextInt(j + 1);
+            chosen.add(chosen.contains(candidate) ? j : candidate);
+        }
+        int[] members = chosen.stream().mapToInt(Integer::intValue).toArray();
+        Arrays.sort(members);
+        return members;
+    }
+
+    private SplittableRandom random(int channel, long pass) {
+        return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + channel * 31L + pass);
+    }
+
+    private static String userId(int index) {
+        return String.format(USER_ID_FORMAT, index);
+    }
+
+    /**
+     * Split {@code total} in proportion to the weights, handing out the remainder to the
+     * largest fractions so the parts add up exactly.
+     */
+    private static long[] apportion(long total, double[] weights, double weightSum) {
+        long[] parts = new long[weights.length];
+        double[] fractions = new double[weights.length];
+        long assigned = 0;
+        for (int i = 0; i < weights.length; i++) {
+            double exact = total * weights[i] / weightSum;
+            parts[i] = (long) exact;
+            fractions[i] = exact - parts[i];
+            assigned += parts[i];
+        }
+        Integer[] order = new Integer[weights.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(fractions[b], fractions[a]));
+        for (int i = 0; assigned < total; i = (i + 1) % order.length, assigned++) {
+            parts[order[i]]++;
+        }
+        return parts;
+    }
+
+    // Index in [0, bound) biased towards 0
+    private static int skewed(SplittableRandom random, int bound) {
+        double r = random.nextDouble();
+        return (int) (bound * r * r);
+    }
+
+    // Inverse-CDF sample of a 1/rank distribution
+    private static int zipf(SplittableRandom random, int bound) {
+        return (int) Math.min(bound - 1, Math.exp(random.nextDouble() * Math.log(bound)) - 1);
+    }
+
+    private static String[] vocabulary(SplittableRandom random) {
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            int length = 2 + random.nextInt(8);
+            StringBuilder word = new StringBuilder(length);
+            for (int c = 0; c < length; c++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            words[i] = word.toString();
+        }
+        return words;
+    }
+}
@@ -0,0 +1,112 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.gauntletai.agustinbiondi.chatgenius.dto.ChannelDTO;
+import com.gauntletai.agustinbiondi.chatgenius.util.TransactionCallbacks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches the channel directory served by /api/channels/public and /api/channels/available.
+ * The public list is shared by everyone; direct message lists are cached per user.
+ * Every invalidation bumps a monotonically increasing version so clients can tell
+ * whether their copy is still current without refetching it.
+ */
+@Slf4j
+@Component
+public class ChannelDirectoryCache {
+
+    private final int maxCachedUsers;
+    private final AtomicLong version = new AtomicLong(1);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final Object lock = new Object();
+    private final Map<String, List<ChannelDTO>> directMessageChannels = new ConcurrentHashMap<>();
+    private volatile List<ChannelDTO> publicChannels;
+
+    public ChannelDirectoryCache(@Value("${app.channels.directory-cache.max-users:10000}") int maxCachedUsers) {
+        this.maxCachedUsers = maxCachedUsers;
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public List<ChannelDTO> getPublicChannels(Supplier<List<ChannelDTO>> loader) {
+        List<ChannelDTO> cached = publicChannels;
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+        long loadedAtVersion = version.get();
+        List<ChannelDTO> loaded = List.copyOf(loader.get());
+        synchronized (lock) {
+            // An invalidation that raced with the load means the result may already be stale
+            if (version.get() == loadedAtVersion) {
+                publicChannels = loaded;
+            }
+        }
+        return loaded;
+    }
+
+    public List<ChannelDTO> getDirectMessageChannels(String userId, Supplier<List<ChannelDTO>> loader) {
+        List<ChannelDTO> cached = directMessageChannels.get(userId);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+        long loadedAtVersion = version.get();
+        List<ChannelDTO> loaded = List.copyOf(loader.get());
+        synchronized (lock) {
+            if (version.get() == loadedAtVersion) {
+                if (directMessageChannels.size() >= maxCachedUsers) {
+                    log.debug("Channel directory cache reached {} users, clearing DM entries", maxCachedUsers);
+                    directMessageChannels.clear();
+                }
+                directMessageChannels.put(userId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Drop the shared public list once the current transaction commits.
+     */
+    public void invalidatePublic() {
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (lock) {
+                version.incrementAndGet();
+                publicChannels = null;
+            }
+        });
+    }
+
+    /**
+     * Drop the direct message lists of the given users once the current transaction commits.
+     */
+    public void invalidateUsers(Collection<String> userIds) {
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (lock) {
+                version.incrementAndGet();
+                userIds.forEach(directMessageChannels::remove);
+            }
+        });
+    }
+}
@@ -0,0 +1,187 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.gauntletai.agustinbiondi.chatgenius.dto.MessageDTO;
+import com.gauntletai.agustinbiondi.chatgenius.util.TransactionCallbacks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Bounded per-channel log of recent committed events, used by the sync API to answer
+ * "what changed since cursor" without touching the database. Event ids are global and
+ * only meaningful within one process lifetime, so they are qualified by the process epoch
+ * of {@link ResourceVersionRegistry}.
+ * Each log remembers the newest event it had to drop, which tells whether it can still
+ * prove completeness for a given cursor.
+ */
+@Slf4j
+@Component
+public class ChannelEventBuffer {
+
+    public enum EventType {
+        MESSAGE_CREATED,
+        REACTIONS_CHANGED
+    }
+
+    public record BufferedEvent(long eventId, EventType type, UUID messageId, MessageDTO message) {}
+
+    private static final class ChannelLog {
+        private final Deque<BufferedEvent> events = new ArrayDeque<>();
+        // Events with an id up to and including this one may have been dropped
+        private long coveredAfter;
+
+        private ChannelLog(long coveredAfter) {
+            this.coveredAfter = coveredAfter;
+        }
+    }
+
+    private final String epoch;
+    private final AtomicLong lastEventId = new AtomicLong();
+    private final Map<UUID, ChannelLog> logs = new ConcurrentHashMap<>();
+    private final int eventsPerChannel;
+    private final int maxChannels;
+    private volatile long clearedUpTo;
+    // Appends share the read side; clearing all logs takes the write side so no append is lost mid-clear
+    private final ReadWriteLock clearLock = new ReentrantReadWriteLock();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ChannelEventBuffer(ResourceVersionRegistry resourceVersions,
+                              @Value("${app.sync.buffer.events-per-channel:500}") int eventsPerChannel,
+                              @Value("${app.sync.buffer.max-channels:5000}") int maxChannels) {
+        this.epoch = resourceVersions.getEpoch();
+        this.eventsPerChannel = eventsPerChannel;
+        this.maxChannels = maxChannels;
+    }
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    public long getLastEventId() {
+        return lastEventId.get();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Record a message that has already been committed.
+     */
+    public void recordMessageCreated(MessageDTO message) {
+        append(message.getChannelId(), EventType.MESSAGE_CREATED, message.getId(), message);
+    }
+
+    /**
+     * Record a committed change to the reactions of a message.
+     */
+    public void recordReactionsChanged(UUID channelId, UUID messageId) {
+        append(channelId, EventType.REACTIONS_CHANGED, messageId, null);
+    }
+
+    /**
+     * Events of a channel after {@code afterEventId}, or empty if the buffer cannot guarantee
+     * it still holds all of them (other epoch, dropped events or an evicted log).
+     */
+    public Optional<List<BufferedEvent>> eventsSince(UUID channelId, String cursorEpoch, long afterEventId) {
+        if (!epoch.equals(cursorEpoch)) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        ChannelLog channelLog = logs.get(channelId);
+        if (channelLog == null) {
+            // No log means no events since the logs were last cleared
+            if (afterEventId >= clearedUpTo) {
+                hits.incrementAndGet();
+                return Optional.of(List.of());
+            }
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        synchronized (channelLog) {
+            if (afterEventId < channelLog.coveredAfter) {
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+            List<BufferedEvent> result = new ArrayList<>();
+            for (BufferedEvent event : channelLog.events) {
+                if (event.eventId() > afterEventId) {
+                    result.add(event);
+                }
+            }
+            hits.incrementAndGet();
+            return Optional.of(result);
+        }
+    }
+
+    /**
+     * Drop what is buffered for a channel once the current transaction commits, for writes
+     * that bypass the buffer such as archive imports. Syncs from any earlier cursor then read
+     * the channel from the database.
+     */
+    public void invalidateChannel(UUID channelId) {
+        TransactionCallbacks.afterCommit(() -> update(channelId, channelLog -> {
+            channelLog.events.clear();
+            // A fresh id, so even a cursor at the newest event so far is no longer covered
+            channelLog.coveredAfter = lastEventId.incrementAndGet();
+        }));
+    }
+
+    private void append(UUID channelId, EventType type, UUID messageId, MessageDTO message) {
+        update(channelId, channelLog -> {
+            channelLog.events.addLast(new BufferedEvent(lastEventId.incrementAndGet(), type, messageId, message));
+            while (channelLog.events.size() > eventsPerChannel) {
+                channelLog.coveredAfter = channelLog.events.removeFirst().eventId();
+            }
+        });
+    }
+
+    private void update(UUID channelId, Consumer<ChannelLog> change) {
+        if (logs.size() >= maxChannels && !logs.containsKey(channelId)) {
+            clear();
+        }
+        clearLock.readLock().lock();
+        try {
+            ChannelLog channelLog = logs.computeIfAbsent(channelId, id -> new ChannelLog(clearedUpTo));
+            // Ids are taken under the log's lock so each log stays ordered by event id,
+            // and a reader that saw lastEventId also sees every event up to it
+            synchronized (channelLog) {
+                change.accept(channelLog);
+            }
+        } finally {
+            clearLock.readLock().unlock();
+        }
+    }
+
+    private void clear() {
+        clearLock.writeLock().lock();
+        try {
+            if (logs.size() >= maxChannels) {
+                clearedUpTo = lastEventId.get();
+                logs.clear();
+                log.debug("Channel event buffer reached {} channels, cleared", maxChannels);
+            }
+        } finally {
+            clearLock.writeLock().unlock();
+        }
+    }
+}
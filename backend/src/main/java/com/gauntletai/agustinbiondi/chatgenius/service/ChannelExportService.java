@@ -0,0 +1,23 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.gauntletai.agustinbiondi.chatgenius.dto.ChannelDTO;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.UUID;
+
+public interface ChannelExportService {
+    /**
+     * Check that the user can read the channel before any of the export is written.
+     */
+    ChannelDTO authorizeExport(UUID channelId, String userId);
+
+    /**
+     * Write the channel's full history as NDJSON: a channel line, then one line per message
+     * in seq order, replies and reactions included. Streams from a database cursor, so
+     * memory stays flat however long the history is. Fails with a 503
+     * {@link org.springframework.web.server.ResponseStatusException} before writing anything
+     * when no export slot frees up in time.
+     */
+    void writeExport(ChannelDTO channel, OutputStream out) throws IOException;
+}
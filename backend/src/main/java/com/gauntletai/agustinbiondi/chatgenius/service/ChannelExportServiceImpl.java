@@ -0,0 +1,171 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gauntletai.agustinbiondi.chatgenius.dto.ChannelDTO;
+import com.gauntletai.agustinbiondi.chatgenius.model.Channel;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepositoryCustom.ExportedMessage;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Channel history exports streamed straight from a JDBC cursor into the response. Each
+ * export holds a database connection until the client has read it all, so only a few run
+ * at once; the rest wait a bounded time for a slot before opening their transaction and
+ * are turned away with a 503 if none frees up.
+ */
+@Slf4j
+@Service
+public class ChannelExportServiceImpl implements ChannelExportService {
+
+    private final ChannelRepository channelRepository;
+    private final MessageRepository messageRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int fetchSize;
+    private final int maxConcurrent;
+    private final long slotTimeoutMs;
+    private final Semaphore slots;
+
+    private final AtomicLong exportedMessages = new AtomicLong();
+
+    public ChannelExportServiceImpl(ChannelRepository channelRepository, MessageRepository messageRepository,
+                                    ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                                    @Value("${app.export.fetch-size:1000}") int fetchSize,
+                                    @Value("${app.export.max-concurrent:4}") int maxConcurrent,
+                                    @Value("${app.export.slot-timeout-ms:10000}") long slotTimeoutMs) {
+        this.channelRepository = channelRepository;
+        this.messageRepository = messageRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.fetchSize = fetchSize;
+        this.maxConcurrent = maxConcurrent;
+        this.slotTimeoutMs = slotTimeoutMs;
+        this.slots = new Semaphore(maxConcurrent, true);
+    }
+
+    public long getExportedMessages() {
+        return exportedMessages.get();
+    }
+
+    public int getActiveExports() {
+        return maxConcurrent - slots.availablePermits();
+    }
+
+    public int getQueuedExports() {
+        return slots.getQueueLength();
+    }
+
+    @Override
+    public ChannelDTO authorizeExport(UUID channelId, String userId) {
+        Channel channel = channelRepository.findById(channelId)
+                .orElseThrow(() -> new EntityNotFoundException("Channel not found: " + channelId));
+        if (channel.getType() != Channel.Type.PUBLIC && !channelRepository.isUserMember(channelId, userId)) {
+            log.warn("User {} attempted to export private channel {}", userId, channelId);
+            throw new AccessDeniedException("You do not have access to this channel");
+        }
+        return ChannelDTO.builder()
+                .id(channel.getId())
+                .name(channel.getName())
+                .description(channel.getDescription())
+                .type(channel.getType())
+                .createdBy(channel.getCreatedBy().getUserId())
+                .createdAt(channel.getCreatedAt())
+                .build();
+    }
+
+    @Override
+    public void writeExport(ChannelDTO channel, OutputStream out) throws IOException {
+        try {
+            // Nothing has been written yet, so the response can still become an error
+            if (!slots.tryAcquire(slotTimeoutMs, TimeUnit.MILLISECONDS)) {
+                log.warn("No export slot for channel {} within {} ms", channel.getId(), slotTimeoutMs);
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many exports running, try again later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for an export slot");
+        }
+        long started = System.nanoTime();
+        long[] lines = {0};
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            // Lines are separated by hand; the generator must not close the response stream
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(null);
+            writeChannel(json, channel);
+            readOnlyTransaction.executeWithoutResult(status ->
+                    messageRepository.streamChannelMessages(channel.getId(), fetchSize, message -> {
+                        try {
+                            writeMessage(json, message);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        lines[0]++;
+                    }));
+        } catch (UncheckedIOException e) {
+            // Usually the client going away; the cursor and its transaction are already released
+            throw e.getCause();
+        } finally {
+            slots.release();
+            exportedMessages.addAndGet(lines[0]);
+        }
+        log.info("Exported {} messages of channel {} in {} ms", lines[0], channel.getId(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private static void writeChannel(JsonGenerator json, ChannelDTO channel) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("kind", "channel");
+        json.writeStringField("id", channel.getId().toString());
+        json.writeStringField("name", channel.getName());
+        json.writeStringField("description", channel.getDescription());
+        json.writeStringField("type", channel.getType().name());
+        json.writeStringField("createdBy", channel.getCreatedBy());
+        writeInstant(json, "createdAt", channel.getCreatedAt());
+        writeInstant(json, "exportedAt", Instant.now());
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private static void writeMessage(JsonGenerator json, ExportedMessage message) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("kind", "message");
+        json.writeStringField("id", message.id().toString());
+        json.writeNumberField("seq", message.seq());
+        json.writeStringField("parentId", message.parentId() == null ? null : message.parentId().toString());
+        json.writeStringField("userId", message.userId());
+        json.writeStringField("username", message.username());
+        json.writeStringField("type", message.type());
+        json.writeStringField("content", message.content());
+        writeInstant(json, "createdAt", message.createdAt());
+        writeInstant(json, "editedAt", message.editedAt());
+        json.writeFieldName("reactions");
+        json.writeRawValue(message.reactionsJson());
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private static void writeInstant(JsonGenerator json, String field, Instant value) throws IOException {
+        json.writeStringField(field, value == null ? null : value.toString());
+    }
+}
@@ -0,0 +1,103 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelMembershipRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ReactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Removes soft-deleted channels in the background. Each batch runs in its own short
+ * transaction, in foreign key order: reactions, messages (replies before parents),
+ * memberships and finally the channel row. A restart simply resumes with whatever
+ * rows are left, since every step only deletes rows of already-deleted channels.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChannelPurger {
+
+    private final ChannelRepository channelRepository;
+    private final MessageRepository messageRepository;
+    private final ReactionRepository reactionRepository;
+    private final ChannelMembershipRepository membershipRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.channels.purge.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.channels.purge.channels-per-run:10}")
+    private int channelsPerRun;
+
+    private final AtomicLong purgedChannels = new AtomicLong();
+    private final AtomicLong purgedMessages = new AtomicLong();
+    private final AtomicLong purgedReactions = new AtomicLong();
+    private final AtomicLong purgedMemberships = new AtomicLong();
+
+    public long getPurgedChannels() {
+        return purgedChannels.get();
+    }
+
+    public long getPurgedMessages() {
+        return purgedMessages.get();
+    }
+
+    public long getPurgedReactions() {
+        return purgedReactions.get();
+    }
+
+    public long getPurgedMemberships() {
+        return purgedMemberships.get();
+    }
+
+    @Scheduled(fixedDelayString = "${app.channels.purge.interval-ms:5000}")
+    public void purgeDeletedChannels() {
+        List<UUID> channelIds = channelRepository.findDeletedChannelIds(channelsPerRun);
+        for (UUID channelId : channelIds) {
+            try {
+                purgeChannel(channelId);
+            } catch (RuntimeException e) {
+                log.error("Failed to purge deleted channel {}, will retry on the next run", channelId, e);
+            }
+        }
+    }
+
+    void purgeChannel(UUID channelId) {
+        long start = System.nanoTime();
+        long reactions = deleteInBatches(channelId, "reactions", purgedReactions,
+                () -> reactionRepository.deleteBatchByChannelId(channelId, batchSize));
+        long messages = deleteInBatches(channelId, "messages", purgedMessages,
+                () -> messageRepository.deleteLeafBatchByChannelId(channelId, batchSize));
+        long memberships = deleteInBatches(channelId, "memberships", purgedMemberships,
+                () -> membershipRepository.deleteBatchByChannelId(channelId, batchSize));
+        Integer deleted = transactionTemplate.execute(status -> channelRepository.purgeDeletedChannel(channelId));
+        if (deleted != null && deleted > 0) {
+            purgedChannels.incrementAndGet();
+        }
+        log.info("Purged channel {}: {} messages, {} reactions, {} memberships in {} ms",
+                channelId, messages, reactions, memberships, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private long deleteInBatches(UUID channelId, String what, AtomicLong counter, IntSupplier batch) {
+        long total = 0;
+        int deleted;
+        do {
+            Integer result = transactionTemplate.execute(status -> batch.getAsInt());
+            deleted = result != null ? result : 0;
+            total += deleted;
+            counter.addAndGet(deleted);
+            log.debug("Purged {} {} of channel {} ({} so far)", deleted, what, channelId, total);
+        } while (deleted > 0);
+        return total;
+    }
+}
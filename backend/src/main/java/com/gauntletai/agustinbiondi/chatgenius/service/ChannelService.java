@@ -1,11 +1,14 @@
 package com.gauntletai.agustinbiondi.chatgenius.service;
 
 import com.gauntletai.agustinbiondi.chatgenius.dto.ChannelDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
 import java.util.Set;
+import java.util.UUID;
 
 public interface ChannelService {
     ChannelDTO createChannel(ChannelDTO channelDTO, String userId);
@@ -15,9 +18,13 @@ public interface ChannelService {
     List<ChannelDTO> findAllPublicChannels();
     List<ChannelDTO> findUserChannels(String userId);
     void addMember(UUID channelId, String userId);
+    int addMembers(UUID channelId, Set<String> userIds, String requesterId);
     void removeMember(UUID channelId, String userId);
-    Set<String> getChannelMembers(UUID channelId);
+    Page<String> getChannelMembers(UUID channelId, Pageable pageable);
     boolean isUserMember(UUID channelId, String userId);
     ChannelDTO createDirectMessageChannel(String userId1, String userId2);
     List<ChannelDTO> findPublicAndUserDirectMessageChannels(String userId);
+    long getDirectoryVersion();
+    Map<UUID, Integer> getUnreadCounts(String userId);
+    void markChannelRead(UUID channelId, String userId);
 } 
\ No newline at end of file
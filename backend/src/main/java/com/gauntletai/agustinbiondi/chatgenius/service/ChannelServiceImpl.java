@@ -7,16 +7,25 @@ import com.gauntletai.agustinbiondi.chatgenius.model.User;
 import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelMembershipRepository;
 import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelRepository;
 import com.gauntletai.agustinbiondi.chatgenius.repository.UserRepository;
+import com.gauntletai.agustinbiondi.chatgenius.search.AutocompleteIndex;
+import com.gauntletai.agustinbiondi.chatgenius.search.MessageSearchIndex;
+import com.gauntletai.agustinbiondi.chatgenius.search.ReadableChannels;
+import com.gauntletai.agustinbiondi.chatgenius.util.StripedLocks;
+import com.gauntletai.agustinbiondi.chatgenius.util.TransactionCallbacks;
 import com.gauntletai.agustinbiondi.chatgenius.websocket.WebSocketEventHandler;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.Lock;
 
 @Slf4j
 @Service
@@ -27,6 +36,15 @@ public class ChannelServiceImpl implements ChannelService {
     private final UserRepository userRepository;
     private final ChannelMembershipRepository membershipRepository;
     private final WebSocketEventHandler webSocketEventHandler;
+    private final ChannelDirectoryCache channelDirectoryCache;
+    private final ResourceVersionRegistry resourceVersions;
+    private final UnreadCounters unreadCounters;
+    private final ReadReceiptBuffer readReceipts;
+    private final MessageSearchIndex messageSearchIndex;
+    private final ReadableChannels readableChannels;
+    private final AutocompleteIndex autocompleteIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final StripedLocks directMessageLocks = new StripedLocks(64);
 
     @Override
     @Transactional
@@ -43,25 +61,23 @@ public class ChannelServiceImpl implements ChannelService {
                 .createdBy(creator)
                 .build();
 
-        channel = channelRepository.save(channel);
-        addMemberInternal(channel, creator);
+        // Flush so the batched JDBC membership inserts can reference the new row
+        channel = channelRepository.saveAndFlush(channel);
 
+        Set<String> memberIds = new LinkedHashSet<>();
+        memberIds.add(userId);
         if (channelDTO.getMemberIds() != null) {
-            Channel finalChannel = channel;
-            channelDTO.getMemberIds().stream()
-                    .filter(memberId -> !memberId.equals(userId))
-                    .forEach(memberId -> {
-                        User member = userRepository.findById(memberId)
-                                .orElseThrow(() -> new EntityNotFoundException("User not found: " + memberId));
-                        addMemberInternal(finalChannel, member);
-                    });
-        }
-
-        ChannelDTO createdChannel = toDTO(channelRepository.findById(channel.getId())
-                .orElseThrow(() -> new EntityNotFoundException("Channel not found after creation")));
-        
-        webSocketEventHandler.broadcastChannelCreated(createdChannel);
-        
+            memberIds.addAll(channelDTO.getMemberIds());
+        }
+        addMembersInternal(channel, memberIds);
+
+        ChannelDTO createdChannel = toDTO(channel);
+        invalidateDirectory(channel);
+        TransactionCallbacks.afterCommit(() -> {
+            autocompleteIndex.putChannel(createdChannel.getId(), createdChannel.getName(), createdChannel.getType());
+            webSocketEventHandler.broadcastChannelCreated(createdChannel);
+        });
+
         return createdChannel;
     }
 
@@ -77,8 +93,16 @@ public class ChannelServiceImpl implements ChannelService {
 
         channel.setName(channelDTO.getName());
         channel.setDescription(channelDTO.getDescription());
-        
-        return toDTO(channelRepository.save(channel));
+
+        ChannelDTO updatedChannel = toDTO(channelRepository.save(channel));
+        invalidateDirectory(channel);
+        resourceVersions.bumpChannel(channelId);
+        TransactionCallbacks.afterCommit(() -> {
+            autocompleteIndex.putChannel(channelId, updatedChannel.getName(), updatedChannel.getType());
+            webSocketEventHandler.broadcastChannelUpdated(updatedChannel);
+        });
+
+        return updatedChannel;
     }
 
     @Override
@@ -88,8 +112,16 @@ public class ChannelServiceImpl implements ChannelService {
                 .orElseThrow(() -> new EntityNotFoundException("Channel not found: " + channelId));
 
         ChannelDTO deletedChannel = toDTO(channel);
-        channelRepository.delete(channel);
-        webSocketEventHandler.broadcastChannelDeleted(deletedChannel);
+        invalidateDirectory(channel);
+        resourceVersions.bumpChannel(channelId);
+        // Messages, reactions and memberships are removed in the background by ChannelPurger
+        channelRepository.markDeleted(channelId);
+        TransactionCallbacks.afterCommit(() -> {
+            unreadCounters.forgetChannel(channelId);
+            messageSearchIndex.dropChannel(channelId);
+            autocompleteIndex.removeChannel(channelId);
+            webSocketEventHandler.broadcastChannelDeleted(deletedChannel);
+        });
     }
 
     @Override
@@ -99,21 +131,15 @@ public class ChannelServiceImpl implements ChannelService {
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<ChannelDTO> findAllPublicChannels() {
-        return channelRepository.findByType(Channel.Type.PUBLIC)
-                .stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return channelDirectoryCache.getPublicChannels(
+                () -> channelRepository.findChannelSummariesByType(Channel.Type.PUBLIC));
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ChannelDTO> findUserChannels(String userId) {
-        return channelRepository.findByMembershipsUserUserId(userId)
-                .stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        return channelRepository.findChannelSummariesByMember(userId);
     }
 
     @Override
@@ -131,6 +157,42 @@ public class ChannelServiceImpl implements ChannelService {
         }
 
         addMemberInternal(channel, user);
+        invalidateDirectory(channel, List.of(userId));
+        resourceVersions.bumpChannel(channelId);
+        TransactionCallbacks.afterCommit(() -> {
+            unreadCounters.refreshMembers(channelId);
+            readableChannels.invalidate(List.of(userId));
+        });
+    }
+
+    @Override
+    @Transactional
+    public int addMembers(UUID channelId, Set<String> userIds, String requesterId) {
+        Channel channel = channelRepository.findById(channelId)
+                .orElseThrow(() -> new EntityNotFoundException("Channel not found: " + channelId));
+
+        if (channel.getType() == Channel.Type.DIRECT_MESSAGE) {
+            throw new AccessDeniedException("Cannot add members to a direct message channel");
+        }
+        if (!channel.getCreatedBy().getUserId().equals(requesterId)
+                && !membershipRepository.existsByChannelIdAndUserUserId(channelId, requesterId)) {
+            throw new AccessDeniedException("Only channel members can invite users");
+        }
+
+        int added = addMembersInternal(channel, userIds);
+        log.info("Added {} of {} requested members to channel {}", added, userIds.size(), channelId);
+
+        if (added > 0) {
+            invalidateDirectory(channel);
+            resourceVersions.bumpChannel(channelId);
+            ChannelDTO changedChannel = toDTO(channel);
+            TransactionCallbacks.afterCommit(() -> {
+                unreadCounters.refreshMembers(channelId);
+                readableChannels.invalidate(userIds);
+                webSocketEventHandler.broadcastChannelMembershipChanged(changedChannel);
+            });
+        }
+        return added;
     }
 
     @Override
@@ -144,15 +206,21 @@ public class ChannelServiceImpl implements ChannelService {
         }
 
         membershipRepository.deleteByChannelIdAndUserUserId(channelId, userId);
+        invalidateDirectory(channel, List.of(userId));
+        resourceVersions.bumpChannel(channelId);
+        TransactionCallbacks.afterCommit(() -> {
+            unreadCounters.refreshMembers(channelId);
+            readableChannels.invalidate(List.of(userId));
+        });
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Set<String> getChannelMembers(UUID channelId) {
-        return membershipRepository.findByChannelId(channelId)
-                .stream()
-                .map(membership -> membership.getUser().getUserId())
-                .collect(Collectors.toSet());
+    public Page<String> getChannelMembers(UUID channelId, Pageable pageable) {
+        if (!channelRepository.existsById(channelId)) {
+            throw new EntityNotFoundException("Channel not found: " + channelId);
+        }
+        return membershipRepository.findMemberUserIdsByChannelId(channelId, pageable);
     }
 
     @Override
@@ -162,42 +230,95 @@ public class ChannelServiceImpl implements ChannelService {
     }
 
     @Override
-    @Transactional
     public ChannelDTO createDirectMessageChannel(String userId1, String userId2) {
-        // Check if DM channel already exists
-        Optional<Channel> existingChannel = channelRepository
-                .findDirectMessageChannelBetweenUsers(userId1, userId2);
-        
+        String dmKey = Channel.directMessageKey(userId1, userId2);
+
+        // Fast path: a unique index probe on the canonical pair key
+        Optional<ChannelDTO> existingChannel = transactionTemplate.execute(status ->
+                channelRepository.findByDmKey(dmKey).map(this::toDTO));
         if (existingChannel.isPresent()) {
-            return toDTO(existingChannel.get());
+            return existingChannel.get();
+        }
+
+        // Serialize creation per pair in this process; the upsert covers other nodes
+        Lock lock = directMessageLocks.get(dmKey);
+        lock.lock();
+        try {
+            return transactionTemplate.execute(status -> getOrCreateDirectMessageChannel(dmKey, userId1, userId2));
+        } finally {
+            lock.unlock();
         }
+    }
 
-        User user1 = userRepository.findById(userId1)
+    private ChannelDTO getOrCreateDirectMessageChannel(String dmKey, String userId1, String userId2) {
+        User user1 = userRepository.findByUserIdAndDeletedAtIsNull(userId1)
                 .orElseThrow(() -> new EntityNotFoundException("User not found: " + userId1));
-        User user2 = userRepository.findById(userId2)
+        User user2 = userRepository.findByUserIdAndDeletedAtIsNull(userId2)
                 .orElseThrow(() -> new EntityNotFoundException("User not found: " + userId2));
 
-        Channel channel = Channel.builder()
-                .name(generateDmChannelName(user1, user2))
-                .type(Channel.Type.DIRECT_MESSAGE)
-                .createdBy(user1)
-                .build();
+        int created = channelRepository.insertDirectMessageChannelIfAbsent(
+                UUID.randomUUID(), generateDmChannelName(user1, user2), userId1, dmKey);
+        Channel channel = channelRepository.findByDmKey(dmKey)
+                .orElseThrow(() -> new EntityNotFoundException("Direct message channel not found: " + dmKey));
 
-        channel = channelRepository.save(channel);
-        addMemberInternal(channel, user1);
-        addMemberInternal(channel, user2);
+        if (created == 1) {
+            log.info("Created direct message channel {} for {}", channel.getId(), dmKey);
+            addMemberInternal(channel, user1);
+            addMemberInternal(channel, user2);
+            channelDirectoryCache.invalidateUsers(List.of(userId1, userId2));
+        }
 
         return toDTO(channel);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<ChannelDTO> findPublicAndUserDirectMessageChannels(String userId) {
         log.info("Fetching public channels and DM channels for user: {}", userId);
-        return channelRepository.findPublicAndUserDirectMessageChannels(userId)
-                .stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+        List<ChannelDTO> publicChannels = findAllPublicChannels();
+        List<ChannelDTO> directMessageChannels = channelDirectoryCache.getDirectMessageChannels(userId,
+                () -> channelRepository.findDirectMessageChannelSummariesByMember(userId));
+
+        List<ChannelDTO> channels = new ArrayList<>(publicChannels.size() + directMessageChannels.size());
+        channels.addAll(publicChannels);
+        channels.addAll(directMessageChannels);
+        return channels;
+    }
+
+    @Override
+    public long getDirectoryVersion() {
+        return channelDirectoryCache.getVersion();
+    }
+
+    @Override
+    public Map<UUID, Integer> getUnreadCounts(String userId) {
+        return unreadCounters.countsFor(userId);
+    }
+
+    @Override
+    public void markChannelRead(UUID channelId, String userId) {
+        // Membership is answered by the channel's loaded counters, so a hot scroll costs no queries
+        if (!unreadCounters.reset(channelId, userId)) {
+            throw new AccessDeniedException("Not a member of channel: " + channelId);
+        }
+        readReceipts.record(channelId, userId, LocalDateTime.now());
+    }
+
+    /**
+     * Validate all users with one IN query, then insert the missing memberships in JDBC batches.
+     */
+    private int addMembersInternal(Channel channel, Set<String> userIds) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        Set<String> existingUserIds = new HashSet<>(userRepository.findExistingUserIds(userIds));
+        if (existingUserIds.size() < userIds.size()) {
+            List<String> missing = userIds.stream()
+                    .filter(id -> !existingUserIds.contains(id))
+                    .limit(10)
+                    .toList();
+            throw new EntityNotFoundException("Users not found: " + missing);
+        }
+        return membershipRepository.insertMembershipsIgnoringExisting(channel.getId(), userIds);
     }
 
     private void addMemberInternal(Channel channel, User user) {
@@ -209,15 +330,33 @@ public class ChannelServiceImpl implements ChannelService {
         }
     }
 
+    private void invalidateDirectory(Channel channel) {
+        invalidateDirectory(channel, Collections.emptyList());
+    }
+
+    /**
+     * Evict the cached directory entries a channel appears in. Public lists carry
+     * member counts, so membership changes on public channels invalidate them too.
+     */
+    private void invalidateDirectory(Channel channel, Collection<String> changedMemberIds) {
+        switch (channel.getType()) {
+            case PUBLIC -> channelDirectoryCache.invalidatePublic();
+            case DIRECT_MESSAGE -> {
+                Set<String> affectedUsers = new HashSet<>(changedMemberIds);
+                affectedUsers.addAll(membershipRepository.findUserIdsByChannelId(channel.getId()));
+                channelDirectoryCache.invalidateUsers(affectedUsers);
+            }
+            case PRIVATE -> {
+                // Private channels are not part of the cached directory
+            }
+        }
+    }
+
     private String generateDmChannelName(User user1, User user2) {
         return String.format("DM:%s:%s", user1.getUsername(), user2.getUsername());
     }
 
-    private ChannelDTO toDTO(Channel channel) {
-        Set<String> memberIds = channel.getMemberships().stream()
-                .map(membership -> membership.getUser().getUserId())
-                .collect(Collectors.toSet());
-
+    ChannelDTO toDTO(Channel channel) {
         return ChannelDTO.builder()
                 .id(channel.getId())
                 .name(channel.getName())
@@ -225,7 +364,7 @@ public class ChannelServiceImpl implements ChannelService {
                 .type(channel.getType())
                 .createdBy(channel.getCreatedBy().getUserId())
                 .createdAt(channel.getCreatedAt())
-                .memberIds(memberIds)
+                .memberCount(membershipRepository.countByChannelId(channel.getId()))
                 .build();
     }
 } 
\ No newline at end of file
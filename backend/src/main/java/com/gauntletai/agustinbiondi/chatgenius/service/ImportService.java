@@ -0,0 +1,21 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.gauntletai.agustinbiondi.chatgenius.dto.ImportJobDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ImportService {
+    /**
+     * Store an uploaded Slack export archive and queue it for import. The import itself
+     * runs in the background; poll the returned job for progress.
+     */
+    ImportJobDTO startSlackImport(InputStream archive, String userId) throws IOException;
+
+    Optional<ImportJobDTO> findJob(UUID jobId);
+
+    List<ImportJobDTO> findRecentJobs(int limit);
+}
@@ -0,0 +1,108 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.gauntletai.agustinbiondi.chatgenius.dto.ImportJobDTO;
+import com.gauntletai.agustinbiondi.chatgenius.model.ImportJob;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ImportJobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Accepts archive uploads for {@link com.gauntletai.agustinbiondi.chatgenius.importer.SlackImporter}.
+ * Archives are kept on disk until their job is done so an interrupted import can resume.
+ */
+@Slf4j
+@Service
+public class ImportServiceImpl implements ImportService {
+
+    private final ImportJobRepository jobRepository;
+    private final Path directory;
+
+    public ImportServiceImpl(ImportJobRepository jobRepository,
+                             @Value("${app.import.directory:${java.io.tmpdir}/chatgenius-imports}") String directory) {
+        this.jobRepository = jobRepository;
+        this.directory = Path.of(directory);
+    }
+
+    @Override
+    public ImportJobDTO startSlackImport(InputStream archive, String userId) throws IOException {
+        Files.createDirectories(directory);
+        Path file = Files.createTempFile(directory, "slack-", ".zip");
+        try {
+            Files.copy(archive, file, StandardCopyOption.REPLACE_EXISTING);
+            checkArchive(file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        ImportJob job = jobRepository.save(ImportJob.builder()
+                .archivePath(file.toString())
+                .requestedBy(userId)
+                .build());
+        log.info("User {} queued import {} ({} bytes)", userId, job.getId(), Files.size(file));
+        return toDTO(job);
+    }
+
+    @Override
+    public Optional<ImportJobDTO> findJob(UUID jobId) {
+        return jobRepository.findById(jobId).map(this::toDTO);
+    }
+
+    @Override
+    public List<ImportJobDTO> findRecentJobs(int limit) {
+        return jobRepository.findAllByOrderByRequestedAtDesc(PageRequest.of(0, limit)).stream()
+                .map(this::toDTO)
+                .toList();
+    }
+
+    private static void checkArchive(Path file) throws IOException {
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            if (zip.getEntry("users.json") == null || zip.getEntry("channels.json") == null) {
+                throw new IllegalArgumentException("Not a Slack export: users.json and channels.json are required");
+            }
+        } catch (ZipException e) {
+            throw new IllegalArgumentException("Not a zip archive", e);
+        }
+    }
+
+    private ImportJobDTO toDTO(ImportJob job) {
+        double messagesPerSecond = 0;
+        if (job.getStartedAt() != null) {
+            Instant end = job.getCompletedAt() != null ? job.getCompletedAt() : Instant.now();
+            long millis = Math.max(1, Duration.between(job.getStartedAt(), end).toMillis());
+            messagesPerSecond = job.getImportedMessages() * 1000.0 / millis;
+        }
+        return ImportJobDTO.builder()
+                .id(job.getId())
+                .stage(job.getStage())
+                .checkpoint(job.getCheckpoint())
+                .importedUsers(job.getImportedUsers())
+                .importedChannels(job.getImportedChannels())
+                .importedMessages(job.getImportedMessages())
+                .importedReactions(job.getImportedReactions())
+                .skippedMessages(job.getSkippedMessages())
+                .messagesPerSecond(messagesPerSecond)
+                .error(job.getError())
+                .attempts(job.getAttempts())
+                .nextAttemptAt(job.getNextAttemptAt())
+                .requestedBy(job.getRequestedBy())
+                .requestedAt(job.getRequestedAt())
+                .startedAt(job.getStartedAt())
+                .completedAt(job.getCompletedAt())
+                .build();
+    }
+}
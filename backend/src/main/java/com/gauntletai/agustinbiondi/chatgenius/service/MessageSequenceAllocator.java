@@ -0,0 +1,125 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelRepository;
+import com.gauntletai.agustinbiondi.chatgenius.util.StripedLocks;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Hands out strictly increasing per-channel message sequence numbers from blocks reserved
+ * in channels.message_seq_reserved, so the database is only touched once per block.
+ * A block reserved inside a transaction that rolls back must be {@link #discard discarded},
+ * because the reservation rolled back with it. On shutdown the unused tail of each block
+ * is returned so restarts do not leave large gaps.
+ */
+@Slf4j
+@Component
+public class MessageSequenceAllocator {
+
+    /**
+     * Numbers {@code next} to {@code limit} are reserved and unused; a new block is empty.
+     */
+    private static final class Block {
+        private long next = 1;
+        private long limit;
+    }
+
+    private final ChannelRepository channelRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int blockSize;
+    private final StripedLocks locks = new StripedLocks(64);
+    private final Map<UUID, Block> blocks = new ConcurrentHashMap<>();
+    private final AtomicLong reservations = new AtomicLong();
+
+    public MessageSequenceAllocator(ChannelRepository channelRepository,
+                                    TransactionTemplate transactionTemplate,
+                                    @Value("${app.messages.seq-block-size:1000}") int blockSize) {
+        this.channelRepository = channelRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.blockSize = blockSize;
+    }
+
+    public long getReservations() {
+        return reservations.get();
+    }
+
+    /**
+     * Allocate {@code count} consecutive sequence numbers and return the first one.
+     * Must be called inside the transaction that persists the messages.
+     */
+    public long allocate(UUID channelId, int count) {
+        Lock lock = locks.get(channelId);
+        lock.lock();
+        try {
+            Block block = blocks.computeIfAbsent(channelId, id -> new Block());
+            if (block.limit - block.next + 1 < count) {
+                // The remaining tail is skipped rather than split, so the range stays contiguous
+                int size = Math.max(blockSize, count);
+                Long reservedUpTo = channelRepository.reserveMessageSeqBlock(channelId, size);
+                if (reservedUpTo == null) {
+                    blocks.remove(channelId);
+                    throw new EntityNotFoundException("Channel not found: " + channelId);
+                }
+                block.next = reservedUpTo - size + 1;
+                block.limit = reservedUpTo;
+                reservations.incrementAndGet();
+            }
+            long first = block.next;
+            block.next += count;
+            return first;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forget the in-memory block of a channel after the transaction that used it rolled back.
+     */
+    public void discard(UUID channelId) {
+        Lock lock = locks.get(channelId);
+        lock.lock();
+        try {
+            blocks.remove(channelId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return the unused part of a channel's block, e.g. when its writer goes idle.
+     */
+    public void release(UUID channelId) {
+        Lock lock = locks.get(channelId);
+        lock.lock();
+        try {
+            Block block = blocks.remove(channelId);
+            if (block != null && block.next <= block.limit) {
+                transactionTemplate.executeWithoutResult(status ->
+                        channelRepository.releaseMessageSeqBlock(channelId, block.limit, block.next - 1));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void releaseAll() {
+        for (UUID channelId : blocks.keySet()) {
+            try {
+                release(channelId);
+            } catch (RuntimeException e) {
+                log.warn("Could not release sequence block of channel {}: {}", channelId, e.getMessage());
+            }
+        }
+    }
+}
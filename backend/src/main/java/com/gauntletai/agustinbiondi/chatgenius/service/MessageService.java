@@ -1,14 +1,25 @@
 package com.gauntletai.agustinbiondi.chatgenius.service;
 
 import com.gauntletai.agustinbiondi.chatgenius.dto.MessageDTO;
-import com.gauntletai.agustinbiondi.chatgenius.model.Message;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import java.util.List;
 import java.util.UUID;
 
 public interface MessageService {
-    Message save(Message message);
     MessageDTO handleIncomingMessage(MessageDTO messageDto, UUID channelId, String userId);
     Page<MessageDTO> getLatestParentMessagesWithDetails(UUID channelId, Pageable pageable);
     Page<MessageDTO> getLatestParentMessages(UUID channelId);
+
+    /**
+     * Throws unless the user may read the channel's messages. Checked before a conditional
+     * request is answered, so a 304 never confirms a page to someone who cannot read it.
+     */
+    void checkReadAccess(UUID channelId, String userId);
+
+    /**
+     * Messages of a channel with a seq above {@code afterSeq}, in seq order. Does not check
+     * access; callers must have verified the user can read the channel.
+     */
+    List<MessageDTO> getMessagesAfterSeq(UUID channelId, long afterSeq, int limit);
 } 
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.gauntletai.agustinbiondi.chatgenius.service;
 
+import com.gauntletai.agustinbiondi.chatgenius.diagnostics.MessagePersistedEvent;
+import com.gauntletai.agustinbiondi.chatgenius.diagnostics.MessageValidatedEvent;
 import com.gauntletai.agustinbiondi.chatgenius.dto.MessageDTO;
 import com.gauntletai.agustinbiondi.chatgenius.dto.ReactionDTO;
 import com.gauntletai.agustinbiondi.chatgenius.model.Channel;
@@ -12,7 +14,9 @@ import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -21,6 +25,10 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -33,25 +41,29 @@ public class MessageServiceImpl implements MessageService {
     private final MessageRepository messageRepository;
     private final UserRepository userRepository;
     private final ChannelRepository channelRepository;
+    private final MessageWritePipeline messageWritePipeline;
 
-    private String formatInstant(Instant instant) {
+    @Value("${app.messages.write.timeout-ms:5000}")
+    private long writeTimeoutMs;
+
+    private static String formatInstant(Instant instant) {
         if (instant == null) {
-            log.warn("Received null instant to format");
+            // Unedited messages have no editedAt
             return null;
         }
         String isoString = instant.toString();
-        log.info("Formatting instant: {} to ISO string: {}", instant, isoString);
+        log.debug("Formatting instant: {} to ISO string: {}", instant, isoString);
         return isoString;
     }
 
-    private MessageDTO toDTO(Message message, String username) {
-        log.info("Converting message to DTO - Message ID: {}, Raw createdAt: {}", 
+    static MessageDTO toDTO(Message message, String username) {
+        log.debug("Converting message to DTO - Message ID: {}, Raw createdAt: {}", 
             message.getId(), message.getCreatedAt());
         
         String createdAtStr = formatInstant(message.getCreatedAt());
         String editedAtStr = formatInstant(message.getEditedAt());
         
-        log.info("Message {} timestamp conversion - Original: {}, Formatted: {}", 
+        log.debug("Message {} timestamp conversion - Original: {}, Formatted: {}", 
             message.getId(), message.getCreatedAt(), createdAtStr);
         
         MessageDTO dto = MessageDTO.builder()
@@ -61,6 +73,7 @@ public class MessageServiceImpl implements MessageService {
                 .username(username)
                 .channelId(message.getChannel().getId())
                 .parentId(message.getParent() != null ? message.getParent().getId() : null)
+                .seq(message.getSeq() != null ? message.getSeq() : 0)
                 .createdAt(createdAtStr)
                 .editedAt(editedAtStr)
                 .isEdited(message.isEdited())
@@ -69,10 +82,21 @@ public class MessageServiceImpl implements MessageService {
                 .topReplies(Collections.emptyList())
                 .build();
         
-        log.info("Created DTO for message {} with createdAt: {}", message.getId(), dto.getCreatedAt());
+        log.debug("Created DTO for message {} with createdAt: {}", message.getId(), dto.getCreatedAt());
         return dto;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void checkReadAccess(UUID channelId, String userId) {
+        Channel channel = channelRepository.findById(channelId)
+                .orElseThrow(() -> new EntityNotFoundException("Channel not found: " + channelId));
+        if (channel.getType() != Channel.Type.PUBLIC && !channelRepository.isUserMember(channelId, userId)) {
+            log.warn("User {} attempted to access messages in private channel {}", userId, channelId);
+            throw new AccessDeniedException("You do not have access to this channel");
+        }
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Page<MessageDTO> getLatestParentMessagesWithDetails(UUID channelId, Pageable pageable) {
@@ -83,18 +107,8 @@ public class MessageServiceImpl implements MessageService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found: " + userId));
 
-        // Get channel
-        Channel channel = channelRepository.findById(channelId)
-                .orElseThrow(() -> new EntityNotFoundException("Channel not found: " + channelId));
-
         // Check if user has access to channel
-        if (channel.getType() != Channel.Type.PUBLIC) {
-            boolean isMember = channelRepository.isUserMember(channelId, userId);
-            if (!isMember) {
-                log.warn("User {} attempted to access messages in private channel {}", userId, channelId);
-                throw new AccessDeniedException("You do not have access to this channel");
-            }
-        }
+        checkReadAccess(channelId, userId);
 
         // Fetch parent messages with pagination
         Page<Message> parentMessagesPage = messageRepository.findParentMessagesByChannelId(channelId, pageable);
@@ -149,6 +163,7 @@ public class MessageServiceImpl implements MessageService {
                     .createdBy(userIdToUsername.get(parent.getCreatedBy().getUserId()))
                     .channelId(parent.getChannel().getId())
                     .parentId(null)
+                    .seq(parent.getSeq() != null ? parent.getSeq() : 0)
                     .createdAt(formatInstant(parent.getCreatedAt()))
                     .editedAt(formatInstant(parent.getEditedAt()))
                     .isEdited(parent.isEdited())
@@ -159,71 +174,63 @@ public class MessageServiceImpl implements MessageService {
         });
     }
 
+    /**
+     * Queue the message on the group-commit pipeline and wait until its batch has committed,
+     * so the caller only broadcasts messages that are durable.
+     */
     @Override
-    @Transactional
-    public Message save(Message message) {
-        return messageRepository.save(message);
-    }
-
-    @Override
-    @Transactional
     public MessageDTO handleIncomingMessage(MessageDTO messageDto, UUID channelId, String userId) {
-        log.info("Processing incoming message for channel {} from user {}", channelId, userId);
+        log.debug("Processing incoming message for channel {} from user {}", channelId, userId);
         
-        // Validate input parameters
-        if (channelId == null) {
-            throw new IllegalArgumentException("Channel ID cannot be null");
-        }
-        if (userId == null) {
-            throw new IllegalArgumentException("User ID cannot be null");
-        }
-        validateMessageContent(messageDto.getContent());
-
-        // Get channel and check access
-        Channel channel = channelRepository.findById(channelId)
-                .orElseThrow(() -> new EntityNotFoundException("Channel not found: " + channelId));
+        validateIncomingMessage(messageDto, channelId, userId);
 
-        // Check if user is member of private channel
-        if (channel.getType() != Channel.Type.PUBLIC) {
-            boolean isMember = channelRepository.isUserMember(channelId, userId);
-            if (!isMember) {
-                log.warn("User {} attempted to send message to private channel {}", userId, channelId);
-                throw new AccessDeniedException("You do not have access to this channel");
+        MessagePersistedEvent persisted = new MessagePersistedEvent();
+        persisted.begin();
+        MessageDTO saved = null;
+        try {
+            saved = awaitWrite(messageWritePipeline
+                    .submit(channelId, userId, messageDto.getContent(), messageDto.getParentId()), channelId);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Failed to save message", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while saving message", e);
+        } finally {
+            persisted.end();
+            if (persisted.shouldCommit()) {
+                persisted.channelId = channelId.toString();
+                persisted.committed = saved != null;
+                if (saved != null) {
+                    persisted.messageId = saved.getId().toString();
+                    persisted.seq = saved.getSeq();
+                }
+                persisted.commit();
             }
         }
+        return saved;
+    }
 
-        // Get user
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("User not found: " + userId));
-
-        // Create message with explicit timestamp
-        Message message = Message.builder()
-                .content(messageDto.getContent())
-                .channel(channel)
-                .createdBy(user)
-                .type(Message.Type.TEXT)
-                .createdAt(Instant.now()) // Explicitly set the timestamp
-                .parent(messageDto.getParentId() != null ? messageRepository.findById(messageDto.getParentId())
-                        .orElseThrow(() -> new EntityNotFoundException("Parent message not found: " + messageDto.getParentId()))
-                        : null)
-                .build();
-
+    /**
+     * Wait for the write, withdrawing it on timeout. A message that a batch has already taken
+     * cannot be withdrawn and may still commit, so that outcome is awaited instead: a committed
+     * message must reach the caller to be broadcast.
+     */
+    private MessageDTO awaitWrite(CompletableFuture<MessageDTO> write, UUID channelId)
+            throws ExecutionException, InterruptedException {
         try {
-            message = messageRepository.save(message);
-            // Force a flush to ensure the timestamp is set
-            messageRepository.flush();
-            log.info("Saved message {} to channel {} with createdAt: {} (raw)", 
-                message.getId(), channelId, message.getCreatedAt());
-        } catch (Exception e) {
-            log.error("Failed to save message to channel {}: {}", channelId, e.getMessage());
-            throw new RuntimeException("Failed to save message", e);
+            return write.get(writeTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (write.cancel(false)) {
+                log.error("Timed out after {} ms saving message to channel {}", writeTimeoutMs, channelId);
+                throw new RuntimeException("Timed out saving message", e);
+            }
+            log.warn("Message to channel {} still being written after {} ms, waiting for its commit",
+                    channelId, writeTimeoutMs);
+            return write.get();
         }
-
-        // Convert to DTO and return
-        MessageDTO resultDto = toDTO(message, user.getUsername());
-        log.info("Returning DTO for message {} with createdAt: {}", 
-            resultDto.getId(), resultDto.getCreatedAt());
-        return resultDto;
     }
 
     @Override
@@ -234,18 +241,8 @@ public class MessageServiceImpl implements MessageService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not founddd: " + userId));
 
-        // Get channel and verify access
-        Channel channel = channelRepository.findById(channelId)
-                .orElseThrow(() -> new EntityNotFoundException("Channel not found: " + channelId));
-
-        // Check if user has access to channel
-        if (channel.getType() != Channel.Type.PUBLIC) {
-            boolean isMember = channelRepository.isUserMember(channelId, userId);
-            if (!isMember) {
-                log.warn("User {} attempted to access messages in private channel {}", userId, channelId);
-                throw new AccessDeniedException("You do not have access to this channel");
-            }
-        }
+        // Verify access to the channel
+        checkReadAccess(channelId, userId);
 
         // Get messages with pagination
         Page<Message> messages = messageRepository.findParentMessagesByChannelId(
@@ -260,6 +257,7 @@ public class MessageServiceImpl implements MessageService {
                 .createdBy(message.getCreatedBy().getUsername())
                 .channelId(message.getChannel().getId())
                 .parentId(null) // These are parent messages
+                .seq(message.getSeq() != null ? message.getSeq() : 0)
                 .createdAt(formatInstant(message.getCreatedAt()))
                 .editedAt(formatInstant(message.getEditedAt()))
                 .isEdited(message.isEdited())
@@ -277,6 +275,38 @@ public class MessageServiceImpl implements MessageService {
                 .build());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<MessageDTO> getMessagesAfterSeq(UUID channelId, long afterSeq, int limit) {
+        return messageRepository.findByChannelIdAndSeqGreaterThanOrderBySeqAsc(channelId, afterSeq, PageRequest.of(0, limit))
+                .stream()
+                .map(message -> toDTO(message, message.getCreatedBy().getUsername()))
+                .toList();
+    }
+
+    private void validateIncomingMessage(MessageDTO messageDto, UUID channelId, String userId) {
+        MessageValidatedEvent event = new MessageValidatedEvent();
+        event.begin();
+        try {
+            if (channelId == null) {
+                throw new IllegalArgumentException("Channel ID cannot be null");
+            }
+            if (userId == null) {
+                throw new IllegalArgumentException("User ID cannot be null");
+            }
+            validateMessageContent(messageDto.getContent());
+            event.valid = true;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.channelId = channelId != null ? channelId.toString() : null;
+                event.userId = userId;
+                event.contentLength = messageDto.getContent() != null ? messageDto.getContent().length() : 0;
+                event.commit();
+            }
+        }
+    }
+
     private void validateMessageContent(String content) {
         if (content == null || content.trim().isEmpty()) {
             throw new ValidationException("Message content cannot be empty");
@@ -0,0 +1,485 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.gauntletai.agustinbiondi.chatgenius.diagnostics.MessageBatchWrittenEvent;
+import com.gauntletai.agustinbiondi.chatgenius.dto.MessageDTO;
+import com.gauntletai.agustinbiondi.chatgenius.model.Channel;
+import com.gauntletai.agustinbiondi.chatgenius.model.Message;
+import com.gauntletai.agustinbiondi.chatgenius.model.User;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepositoryCustom.NewMessage;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepositoryCustom.WriteCheck;
+import com.gauntletai.agustinbiondi.chatgenius.search.MessageSearchIndex;
+import com.gauntletai.agustinbiondi.chatgenius.util.UuidV7;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Group commit for incoming chat messages, with one single-writer actor per active channel.
+ * Each channel has a FIFO mailbox that at most one virtual thread drains at a time, so a
+ * channel's messages are written in arrival order and coalesced into batches: one
+ * validation query, one JDBC batch insert and one commit per batch. A semaphore caps how
+ * many batches hit the database at once so writers cannot starve the connection pool.
+ * Actors that stay idle are evicted. Each caller's future completes only after its message has been committed.
+ * Cancelling the future withdraws a message that is still queued; once a batch has taken it,
+ * cancelling fails and the caller has to wait for the commit, so no committed message goes unseen.
+ */
+@Slf4j
+@Component
+public class MessageWritePipeline {
+
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+    private static final long SHUTDOWN_POLL_MS = 10;
+    private static final long EXCLUSIVE_POLL_MS = 1;
+
+    private record PendingWrite(NewMessage message, PendingResult result) {}
+
+    /**
+     * A caller's future. The writer and a cancelling caller race for {@code taken}, so a message
+     * is either withdrawn before any batch sees it or written and reported.
+     */
+    private static final class PendingResult extends CompletableFuture<MessageDTO> {
+        private final AtomicBoolean taken = new AtomicBoolean();
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return taken.compareAndSet(false, true) && super.cancel(mayInterruptIfRunning);
+        }
+
+        private boolean take() {
+            return taken.compareAndSet(false, true);
+        }
+    }
+
+    /**
+     * Mailbox and scheduling state of one channel. {@code scheduled} is true while a drain
+     * task is queued or running, which is what keeps writes for the channel single-threaded.
+     */
+    private static final class ChannelWriter {
+        private final Queue<PendingWrite> mailbox = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile long lastActiveNanos = System.nanoTime();
+
+        private boolean isIdleSince(long cutoffNanos) {
+            return !scheduled.get() && mailbox.isEmpty() && lastActiveNanos - cutoffNanos < 0;
+        }
+    }
+
+    private final MessageRepository messageRepository;
+    private final ResourceVersionRegistry resourceVersions;
+    private final MessageSequenceAllocator sequenceAllocator;
+    private final ChannelEventBuffer channelEventBuffer;
+    private final MessageSearchIndex messageSearchIndex;
+    private final UnreadCounters unreadCounters;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final Semaphore databasePermits;
+    private final Map<UUID, ChannelWriter> writers = new ConcurrentHashMap<>();
+    private final int mailboxCapacity;
+    private final int maxBatchSize;
+    private final long lingerMs;
+    private final long idleNanos;
+    private volatile boolean running = true;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong writtenMessages = new AtomicLong();
+    private final AtomicLong evictedWriters = new AtomicLong();
+
+    public MessageWritePipeline(MessageRepository messageRepository,
+                                ResourceVersionRegistry resourceVersions,
+                                MessageSequenceAllocator sequenceAllocator,
+                                ChannelEventBuffer channelEventBuffer,
+                                MessageSearchIndex messageSearchIndex,
+                                UnreadCounters unreadCounters,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${app.messages.write.max-concurrent-batches:8}") int maxConcurrentBatches,
+                                @Value("${app.messages.write.mailbox-capacity:1000}") int mailboxCapacity,
+                                @Value("${app.messages.write.max-batch-size:256}") int maxBatchSize,
+                                @Value("${app.messages.write.linger-ms:5}") long lingerMs,
+                                @Value("${app.messages.write.idle-eviction-ms:60000}") long idleEvictionMs) {
+        this.messageRepository = messageRepository;
+        this.resourceVersions = resourceVersions;
+        this.sequenceAllocator = sequenceAllocator;
+        this.channelEventBuffer = channelEventBuffer;
+        this.messageSearchIndex = messageSearchIndex;
+        this.unreadCounters = unreadCounters;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("message-writer-", 0).factory());
+        this.databasePermits = new Semaphore(maxConcurrentBatches);
+        this.mailboxCapacity = mailboxCapacity;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerMs = lingerMs;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleEvictionMs);
+    }
+
+    /**
+     * Stop accepting messages and let the actors flush whatever is already in their mailboxes.
+     * The executor stays open until the mailboxes are empty, because a drain reschedules itself
+     * for what is left after each batch. Messages still queued after the timeout are failed.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        long deadline = System.nanoTime() + SHUTDOWN_TIMEOUT.toNanos();
+        while (hasPendingWrites() && System.nanoTime() - deadline < 0) {
+            Thread.sleep(SHUTDOWN_POLL_MS);
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+            log.warn("Message writers did not drain within {}s", SHUTDOWN_TIMEOUT.toSeconds());
+        }
+        int pending = getQueueDepth();
+        if (pending > 0) {
+            log.warn("Failing {} messages that were not written before shutdown", pending);
+            IllegalStateException cause = new IllegalStateException("Message writer is shutting down");
+            writers.values().forEach(writer -> failAll(writer, cause));
+        }
+    }
+
+    private boolean hasPendingWrites() {
+        return writers.values().stream().anyMatch(writer -> writer.scheduled.get() || !writer.mailbox.isEmpty());
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+
+    public long getWrittenMessages() {
+        return writtenMessages.get();
+    }
+
+    public long getEvictedWriters() {
+        return evictedWriters.get();
+    }
+
+    public int getActiveWriters() {
+        return writers.size();
+    }
+
+    public int getQueueDepth() {
+        return writers.values().stream().mapToInt(writer -> writer.depth.get()).sum();
+    }
+
+    public int getMaxMailboxDepth() {
+        return writers.values().stream().mapToInt(writer -> writer.depth.get()).max().orElse(0);
+    }
+
+    public Map<UUID, Integer> getMailboxDepths() {
+        return writers.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().depth.get()));
+    }
+
+    public CompletableFuture<MessageDTO> submit(UUID channelId, String userId, String content, UUID parentId) {
+        if (!running) {
+            throw new IllegalStateException("Message writer is shutting down");
+        }
+        PendingResult result = new PendingResult();
+        AtomicBoolean accepted = new AtomicBoolean();
+        // Enqueue inside compute so eviction can never drop an actor that is receiving a message,
+        // and so createdAt follows mailbox order
+        ChannelWriter writer = writers.compute(channelId, (id, existing) -> {
+            ChannelWriter target = existing != null ? existing : new ChannelWriter();
+            if (target.depth.get() >= mailboxCapacity) {
+                return target;
+            }
+            NewMessage message = new NewMessage(UuidV7.generate(), channelId, userId, parentId, content, Instant.now(), 0);
+            target.mailbox.add(new PendingWrite(message, result));
+            target.depth.incrementAndGet();
+            target.lastActiveNanos = System.nanoTime();
+            accepted.set(true);
+            return target;
+        });
+        if (!accepted.get()) {
+            throw new IllegalStateException("Message queue for channel " + channelId + " is full");
+        }
+        schedule(writer);
+        return result;
+    }
+
+    /**
+     * Run {@code work} while the channel's mailbox is paused: it waits for the batch being written,
+     * if any, and batches queue up behind it until it returns. For writers that bypass the mailbox
+     * and reserve sequence numbers themselves, like the Slack import. The channel's cached block
+     * is discarded first, so no live batch can commit a number below the range {@code work}
+     * reserves, and the next batch reserves a block above it.
+     */
+    public void runExclusively(UUID channelId, Runnable work) {
+        // Marked active inside compute, so eviction cannot drop the actor while it is paused
+        ChannelWriter writer = writers.compute(channelId, (id, existing) -> {
+            ChannelWriter target = existing != null ? existing : new ChannelWriter();
+            target.lastActiveNanos = System.nanoTime();
+            return target;
+        });
+        while (!writer.scheduled.compareAndSet(false, true)) {
+            try {
+                Thread.sleep(EXCLUSIVE_POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for the writer of channel " + channelId, e);
+            }
+        }
+        try {
+            sequenceAllocator.discard(channelId);
+            work.run();
+        } finally {
+            writer.lastActiveNanos = System.nanoTime();
+            writer.scheduled.set(false);
+            if (!writer.mailbox.isEmpty()) {
+                schedule(writer);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.messages.write.idle-check-ms:30000}")
+    void evictIdleWriters() {
+        long cutoff = System.nanoTime() - idleNanos;
+        for (UUID channelId : writers.keySet()) {
+            AtomicBoolean evicted = new AtomicBoolean();
+            writers.computeIfPresent(channelId, (id, writer) -> {
+                if (writer.isIdleSince(cutoff)) {
+                    evicted.set(true);
+                    return null;
+                }
+                return writer;
+            });
+            if (evicted.get()) {
+                evictedWriters.incrementAndGet();
+                sequenceAllocator.release(channelId);
+            }
+        }
+    }
+
+    private void schedule(ChannelWriter writer) {
+        if (writer.scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> drain(writer));
+            } catch (RejectedExecutionException e) {
+                writer.scheduled.set(false);
+                failAll(writer, new IllegalStateException("Message writer is shutting down"));
+            }
+        }
+    }
+
+    private void drain(ChannelWriter writer) {
+        List<PendingWrite> batch = new ArrayList<>();
+        try {
+            boolean more = take(writer, batch);
+            if (more && lingerMs > 0 && !writer.mailbox.isEmpty() && batch.size() + writer.depth.get() < maxBatchSize) {
+                // Others arrived alongside the first message: give the rest of the burst a
+                // moment to join the batch. A lone message is written right away
+                Thread.sleep(lingerMs);
+            }
+            while (more && batch.size() < maxBatchSize) {
+                more = take(writer, batch);
+            }
+            if (!batch.isEmpty()) {
+                databasePermits.acquire();
+                try {
+                    writeBatch(batch);
+                } finally {
+                    databasePermits.release();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            IllegalStateException cause = new IllegalStateException("Message writer interrupted");
+            batch.forEach(pending -> pending.result().completeExceptionally(cause));
+            failAll(writer, cause);
+        } finally {
+            writer.lastActiveNanos = System.nanoTime();
+            writer.scheduled.set(false);
+            // Reschedule if more messages arrived while this batch was being written
+            if (!writer.mailbox.isEmpty()) {
+                schedule(writer);
+            }
+        }
+    }
+
+    /**
+     * Move the next message of the mailbox into the batch, skipping any whose caller has
+     * cancelled it.
+     *
+     * @return false once the mailbox is empty
+     */
+    private static boolean take(ChannelWriter writer, List<PendingWrite> batch) {
+        PendingWrite pending;
+        while ((pending = writer.mailbox.poll()) != null) {
+            writer.depth.decrementAndGet();
+            if (pending.result().take()) {
+                batch.add(pending);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void failAll(ChannelWriter writer, RuntimeException cause) {
+        PendingWrite pending;
+        while ((pending = writer.mailbox.poll()) != null) {
+            writer.depth.decrementAndGet();
+            pending.result().completeExceptionally(cause);
+        }
+    }
+
+    private void writeBatch(List<PendingWrite> batch) {
+        MessageBatchWrittenEvent event = new MessageBatchWrittenEvent();
+        event.begin();
+        Map<PendingWrite, MessageDTO> committed;
+        try {
+            committed = transactionTemplate.execute(status -> persist(batch));
+        } catch (RuntimeException e) {
+            commitEvent(event, batch, null);
+            // Any block reserved by the failed transaction was rolled back with it
+            batch.stream().map(pending -> pending.message().channelId()).distinct()
+                    .forEach(sequenceAllocator::discard);
+            if (batch.size() == 1) {
+                log.error("Failed to save message to channel {}: {}",
+                        batch.get(0).message().channelId(), e.getMessage());
+                batch.get(0).result().completeExceptionally(new RuntimeException("Failed to save message", e));
+                return;
+            }
+            // Isolate the offending message instead of failing the whole batch
+            log.warn("Batch of {} messages failed, retrying individually: {}", batch.size(), e.getMessage());
+            batch.forEach(pending -> writeBatch(List.of(pending)));
+            return;
+        }
+        commitEvent(event, batch, committed);
+        batches.incrementAndGet();
+        writtenMessages.addAndGet(committed.size());
+        committed.values().stream()
+                .sorted(Comparator.comparingLong(MessageDTO::getSeq))
+                .forEach(message -> {
+                    channelEventBuffer.recordMessageCreated(message);
+                    messageSearchIndex.index(message);
+                });
+        committed.forEach((pending, dto) -> pending.result().complete(dto));
+        // Batches come from a single channel's mailbox
+        if (!committed.isEmpty()) {
+            UUID channelId = batch.get(0).message().channelId();
+            List<String> authorIds = committed.keySet().stream().map(pending -> pending.message().userId()).toList();
+            try {
+                unreadCounters.recordMessages(channelId, authorIds);
+            } catch (RuntimeException e) {
+                log.warn("Failed to update unread counters for channel {}: {}", channelId, e.getMessage());
+            }
+        }
+    }
+
+    private static void commitEvent(MessageBatchWrittenEvent event, List<PendingWrite> batch,
+                                    Map<PendingWrite, MessageDTO> committed) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.channelId = batch.get(0).message().channelId().toString();
+        event.batchSize = batch.size();
+        event.failed = committed == null;
+        if (committed != null && !committed.isEmpty()) {
+            event.committedMessages = committed.size();
+            Comparator<MessageDTO> bySeq = Comparator.comparingLong(MessageDTO::getSeq);
+            event.firstMessageId = Collections.min(committed.values(), bySeq).getId().toString();
+            event.lastMessageId = Collections.max(committed.values(), bySeq).getId().toString();
+        }
+        event.commit();
+    }
+
+    private Map<PendingWrite, MessageDTO> persist(List<PendingWrite> batch) {
+        List<NewMessage> messages = batch.stream().map(PendingWrite::message).toList();
+        List<WriteCheck> checks = messageRepository.checkWrites(messages);
+
+        List<Integer> acceptedIndexes = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            RuntimeException rejection = validate(messages.get(i), checks.get(i));
+            if (rejection != null) {
+                batch.get(i).result().completeExceptionally(rejection);
+            } else {
+                acceptedIndexes.add(i);
+            }
+        }
+        Map<PendingWrite, MessageDTO> accepted = new IdentityHashMap<>();
+        if (acceptedIndexes.isEmpty()) {
+            return accepted;
+        }
+
+        // Sequence numbers are taken only for accepted messages, in mailbox order
+        Map<UUID, Long> nextSeq = new HashMap<>();
+        acceptedIndexes.stream()
+                .collect(Collectors.groupingBy(i -> messages.get(i).channelId(), Collectors.counting()))
+                .forEach((channelId, count) ->
+                        nextSeq.put(channelId, sequenceAllocator.allocate(channelId, count.intValue())));
+
+        List<NewMessage> rows = new ArrayList<>(acceptedIndexes.size());
+        for (int i : acceptedIndexes) {
+            NewMessage message = messages.get(i);
+            NewMessage sequenced = message.withSeq(nextSeq.merge(message.channelId(), 1L, Long::sum) - 1);
+            rows.add(sequenced);
+            accepted.put(batch.get(i), MessageServiceImpl.toDTO(toEntity(sequenced), checks.get(i).username()));
+        }
+        messageRepository.insertMessages(rows);
+        nextSeq.keySet().forEach(resourceVersions::bumpChannel);
+        log.debug("Committing {} messages in one batch", rows.size());
+        return accepted;
+    }
+
+    private RuntimeException validate(NewMessage message, WriteCheck check) {
+        if (!check.channelFound()) {
+            return new EntityNotFoundException("Channel not found: " + message.channelId());
+        }
+        if (check.username() == null) {
+            return new EntityNotFoundException("User not found: " + message.userId());
+        }
+        if (!check.hasAccess()) {
+            log.warn("User {} attempted to send message to private channel {}", message.userId(), message.channelId());
+            return new AccessDeniedException("You do not have access to this channel");
+        }
+        if (!check.parentFound()) {
+            return new EntityNotFoundException("Parent message not found: " + message.parentId());
+        }
+        return null;
+    }
+
+    /**
+     * The row as an unmanaged entity, so the DTO comes from the same mapping as stored messages.
+     */
+    private static Message toEntity(NewMessage message) {
+        return Message.builder()
+                .id(message.id())
+                .content(message.content())
+                .createdBy(User.builder().userId(message.userId()).build())
+                .channel(Channel.builder().id(message.channelId()).build())
+                .parent(message.parentId() != null ? Message.builder().id(message.parentId()).build() : null)
+                .seq(message.seq())
+                .createdAt(message.createdAt())
+                .build();
+    }
+}
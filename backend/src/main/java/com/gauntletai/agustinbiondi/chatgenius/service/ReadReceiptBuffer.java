@@ -0,0 +1,89 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelMembershipRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelMembershipRepositoryCustom.ReadPosition;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind buffer for ChannelMembership.lastReadAt. Clients mark channels read on
+ * every scroll, so only the newest position per (user, channel) is kept in memory and the
+ * positions are written in batches on an interval and at shutdown. A receipt that was
+ * buffered but not yet flushed is lost if the process dies, which only means the channel
+ * looks read a few seconds earlier than it was.
+ */
+@Slf4j
+@Component
+public class ReadReceiptBuffer {
+
+    private record MembershipKey(UUID channelId, String userId) {}
+
+    private final ChannelMembershipRepository membershipRepository;
+    private final Map<MembershipKey, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong receivedReceipts = new AtomicLong();
+    private final AtomicLong flushedReceipts = new AtomicLong();
+
+    public ReadReceiptBuffer(ChannelMembershipRepository membershipRepository) {
+        this.membershipRepository = membershipRepository;
+    }
+
+    public int getPendingReceipts() {
+        return pending.size();
+    }
+
+    public long getReceivedReceipts() {
+        return receivedReceipts.get();
+    }
+
+    public long getFlushedReceipts() {
+        return flushedReceipts.get();
+    }
+
+    public void record(UUID channelId, String userId, LocalDateTime readAt) {
+        receivedReceipts.incrementAndGet();
+        keepNewest(new MembershipKey(channelId, userId), readAt);
+    }
+
+    @Scheduled(fixedDelayString = "${app.read-receipts.flush-interval-ms:2000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<ReadPosition> positions = new ArrayList<>(pending.size());
+        for (MembershipKey key : List.copyOf(pending.keySet())) {
+            LocalDateTime readAt = pending.remove(key);
+            if (readAt != null) {
+                positions.add(new ReadPosition(key.channelId(), key.userId(), readAt));
+            }
+        }
+        try {
+            membershipRepository.updateLastReadAt(positions);
+            flushedReceipts.addAndGet(positions.size());
+            log.debug("Flushed {} read receipts", positions.size());
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush {} read receipts, retrying next run: {}", positions.size(), e.getMessage());
+            positions.forEach(position ->
+                    keepNewest(new MembershipKey(position.channelId(), position.userId()), position.readAt()));
+        }
+    }
+
+    private void keepNewest(MembershipKey key, LocalDateTime readAt) {
+        pending.merge(key, readAt, (current, next) -> next.isAfter(current) ? next : current);
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+}
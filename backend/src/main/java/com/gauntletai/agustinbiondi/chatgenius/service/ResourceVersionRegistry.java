@@ -0,0 +1,132 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.gauntletai.agustinbiondi.chatgenius.util.TransactionCallbacks;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory version counters for channels and users, used to build ETags before any
+ * repository work runs. Write paths bump the counters after their transaction commits.
+ * Counters start over on restart, so every ETag embeds a per-boot epoch to keep
+ * tags from a previous process from ever matching.
+ */
+@Component
+public class ResourceVersionRegistry {
+
+    // 128 bits of SHA-256 keep qualifier collisions out of reach while keeping tags short
+    private static final int QUALIFIER_DIGEST_BYTES = 16;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<UUID, AtomicLong> channelVersions = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> userVersions = new ConcurrentHashMap<>();
+    private final AtomicLong userListVersion = new AtomicLong();
+
+    /**
+     * Identifies this process. Anything else numbered per process, like sync cursors and
+     * resume tokens, is qualified by the same epoch.
+     */
+    public String getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Mark a channel, its metadata and its message pages as changed.
+     */
+    public void bumpChannel(UUID channelId) {
+        TransactionCallbacks.afterCommit(() ->
+                channelVersions.computeIfAbsent(channelId, id -> new AtomicLong()).incrementAndGet());
+    }
+
+    /**
+     * Mark a user profile, and the user listing, as changed.
+     */
+    public void bumpUser(String userId) {
+        TransactionCallbacks.afterCommit(() -> {
+            userVersions.computeIfAbsent(userId, id -> new AtomicLong()).incrementAndGet();
+            userListVersion.incrementAndGet();
+        });
+    }
+
+    public String channelETag(UUID channelId, Object... qualifiers) {
+        return eTag("c", versionOf(channelVersions.get(channelId)), qualifiers);
+    }
+
+    public String userETag(String userId) {
+        return eTag("u", versionOf(userVersions.get(userId)));
+    }
+
+    public String userListETag() {
+        return eTag("ul", userListVersion.get());
+    }
+
+    public String directoryETag(long directoryVersion, Object... qualifiers) {
+        return eTag("d", directoryVersion, qualifiers);
+    }
+
+    private long versionOf(AtomicLong counter) {
+        return counter != null ? counter.get() : 0;
+    }
+
+    private String eTag(String kind, long version, Object... qualifiers) {
+        StringBuilder tag = new StringBuilder("\"").append(kind).append('-').append(epoch).append('-').append(version);
+        if (qualifiers.length > 0) {
+            tag.append('-').append(digest(qualifiers));
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * SHA-256 over the qualifiers. Every field is length-prefixed and every qualifier starts
+     * with its kind, so no two different qualifier lists feed the digest the same bytes.
+     * Pageables are broken down into page, size and each sort order rather than relying on
+     * their string form.
+     */
+    private static String digest(Object... qualifiers) {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        for (Object qualifier : qualifiers) {
+            if (qualifier instanceof Pageable pageable) {
+                update(sha, "pageable");
+                update(sha, pageable.isPaged() ? pageable.getPageNumber() + ":" + pageable.getPageSize() : "unpaged");
+                update(sha, Long.toString(pageable.getSort().stream().count()));
+                for (Sort.Order order : pageable.getSort()) {
+                    update(sha, order.getProperty());
+                    update(sha, order.getDirection().name());
+                    update(sha, Boolean.toString(order.isIgnoreCase()));
+                    update(sha, order.getNullHandling().name());
+                }
+            } else {
+                update(sha, "value");
+                update(sha, qualifier != null ? qualifier.toString() : null);
+            }
+        }
+        return ENCODER.encodeToString(Arrays.copyOf(sha.digest(), QUALIFIER_DIGEST_BYTES));
+    }
+
+    private static void update(MessageDigest sha, String field) {
+        if (field == null) {
+            sha.update(ByteBuffer.allocate(Integer.BYTES).putInt(-1).array());
+            return;
+        }
+        byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+        sha.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+        sha.update(bytes);
+    }
+}
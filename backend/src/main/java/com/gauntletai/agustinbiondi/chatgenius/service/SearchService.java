@@ -0,0 +1,34 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.gauntletai.agustinbiondi.chatgenius.dto.AutocompleteSuggestionDTO;
+import com.gauntletai.agustinbiondi.chatgenius.dto.MessageSearchResponseDTO;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface SearchService {
+    /**
+     * Full-text search over the messages of every channel the user can access, best
+     * matches first. {@code channelId}, {@code authorId} and {@code cursor} are optional.
+     */
+    MessageSearchResponseDTO searchMessages(String userId, String query, UUID channelId, String authorId,
+                                            String cursor, int limit);
+
+    /**
+     * Search-as-you-type over the in-memory index, newest matches first, without paging.
+     * The last word of the query also matches as a prefix. Falls back to database search
+     * while the index is still being built.
+     */
+    MessageSearchResponseDTO instantSearch(String userId, String query, UUID channelId, int limit);
+
+    /**
+     * Users whose name, or a word in it, starts with the prefix; exact and leading matches first.
+     */
+    List<AutocompleteSuggestionDTO> autocompleteUsers(String prefix, int limit);
+
+    /**
+     * Channels the user can see whose name, or a word in it, starts with the prefix.
+     * Direct message channels are not included.
+     */
+    List<AutocompleteSuggestionDTO> autocompleteChannels(String userId, String prefix, int limit);
+}
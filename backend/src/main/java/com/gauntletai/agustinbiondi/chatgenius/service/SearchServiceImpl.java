@@ -0,0 +1,153 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.gauntletai.agustinbiondi.chatgenius.dto.AutocompleteSuggestionDTO;
+import com.gauntletai.agustinbiondi.chatgenius.dto.MessageSearchResponseDTO;
+import com.gauntletai.agustinbiondi.chatgenius.dto.MessageSearchResultDTO;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepositoryCustom.SearchHit;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepositoryCustom.SearchQuery;
+import com.gauntletai.agustinbiondi.chatgenius.search.AutocompleteIndex;
+import com.gauntletai.agustinbiondi.chatgenius.search.MessageSearchIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Message search backed by the generated messages.content_tsv column and its GIN index.
+ * Pages are keyset-paginated on (rank, id); the cursor is an opaque encoding of the last hit.
+ * Instant search is served from {@link MessageSearchIndex} and autocomplete from
+ * {@link AutocompleteIndex} instead.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SearchServiceImpl implements SearchService {
+
+    private final MessageRepository messageRepository;
+    private final MessageSearchIndex messageSearchIndex;
+    private final AutocompleteIndex autocompleteIndex;
+
+    @Override
+    public MessageSearchResponseDTO searchMessages(String userId, String query, UUID channelId, String authorId,
+                                                   String cursor, int limit) {
+        Float afterRank = null;
+        UUID afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            Cursor after = decodeCursor(cursor);
+            afterRank = after.rank();
+            afterId = after.messageId();
+        }
+
+        // Fetch one extra hit to know whether another page exists
+        List<SearchHit> hits = messageRepository.searchMessages(
+                new SearchQuery(userId, query.trim(), channelId, authorId, afterRank, afterId, limit + 1));
+        boolean hasMore = hits.size() > limit;
+        List<SearchHit> page = hasMore ? hits.subList(0, limit) : hits;
+        log.debug("Search by user {} returned {} hits, more={}", userId, page.size(), hasMore);
+
+        String nextCursor = null;
+        if (hasMore) {
+            SearchHit last = page.get(page.size() - 1);
+            nextCursor = encodeCursor(last.rank(), last.messageId());
+        }
+        return MessageSearchResponseDTO.builder()
+                .results(page.stream().map(this::toDTO).toList())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @Override
+    public MessageSearchResponseDTO instantSearch(String userId, String query, UUID channelId, int limit) {
+        if (!messageSearchIndex.covers(userId, channelId)) {
+            return searchMessages(userId, query, channelId, null, null, limit);
+        }
+        // Channel names are not kept in the index; clients resolve them from their channel list
+        List<MessageSearchResultDTO> results = messageSearchIndex.search(userId, query, channelId, limit).stream()
+                .map(hit -> MessageSearchResultDTO.builder()
+                        .messageId(hit.message().id())
+                        .channelId(hit.message().channelId())
+                        .userId(hit.message().userId())
+                        .username(hit.message().username())
+                        .parentId(hit.message().parentId())
+                        .createdAt(hit.message().createdAt())
+                        .seq(hit.message().seq())
+                        .rank(hit.score())
+                        .snippet(hit.snippet())
+                        .build())
+                .toList();
+        log.debug("Instant search by user {} returned {} hits", userId, results.size());
+        return MessageSearchResponseDTO.builder()
+                .results(results)
+                .build();
+    }
+
+    @Override
+    public List<AutocompleteSuggestionDTO> autocompleteUsers(String prefix, int limit) {
+        return autocompleteIndex.users(normalizePrefix(prefix), limit).stream()
+                .map(suggestion -> AutocompleteSuggestionDTO.builder()
+                        .id(suggestion.value())
+                        .name(suggestion.name())
+                        .build())
+                .toList();
+    }
+
+    @Override
+    public List<AutocompleteSuggestionDTO> autocompleteChannels(String userId, String prefix, int limit) {
+        return autocompleteIndex.channels(userId, normalizePrefix(prefix), limit).stream()
+                .map(suggestion -> AutocompleteSuggestionDTO.builder()
+                        .id(suggestion.value().toString())
+                        .name(suggestion.name())
+                        .type(autocompleteIndex.channelType(suggestion.value()))
+                        .build())
+                .toList();
+    }
+
+    // Accept what the terminal shows before a name: @user, #channel
+    private static String normalizePrefix(String prefix) {
+        String trimmed = prefix.trim();
+        return trimmed.startsWith("@") || trimmed.startsWith("#") ? trimmed.substring(1) : trimmed;
+    }
+
+    private MessageSearchResultDTO toDTO(SearchHit hit) {
+        return MessageSearchResultDTO.builder()
+                .messageId(hit.messageId())
+                .channelId(hit.channelId())
+                .channelName(hit.channelName())
+                .userId(hit.userId())
+                .username(hit.username())
+                .parentId(hit.parentId())
+                .createdAt(hit.createdAt())
+                .seq(hit.seq())
+                .rank(hit.rank())
+                .snippet(hit.snippet())
+                .build();
+    }
+
+    // The rank is carried as its exact float bits so the keyset comparison is lossless
+    private static String encodeCursor(float rank, UUID messageId) {
+        String raw = Integer.toHexString(Float.floatToIntBits(rank)) + ":" + messageId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private record Cursor(float rank, UUID messageId) {}
+
+    /**
+     * @throws IllegalArgumentException for anything {@link #encodeCursor} did not produce
+     */
+    private static Cursor decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid search cursor");
+            }
+            return new Cursor(Float.intBitsToFloat(Integer.parseUnsignedInt(parts[0], 16)), UUID.fromString(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid search cursor", e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.gauntletai.agustinbiondi.chatgenius.dto.SyncCursorDTO;
+import com.gauntletai.agustinbiondi.chatgenius.dto.SyncResponseDTO;
+
+import java.util.List;
+
+public interface SyncService {
+    /**
+     * Return everything that changed in the given channels since the client's cursors.
+     * Channels the user cannot access are reported as unavailable.
+     */
+    SyncResponseDTO sync(String userId, String epoch, List<SyncCursorDTO> cursors);
+}
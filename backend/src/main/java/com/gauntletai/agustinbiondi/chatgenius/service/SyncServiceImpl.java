@@ -0,0 +1,149 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.gauntletai.agustinbiondi.chatgenius.dto.ChannelSyncDTO;
+import com.gauntletai.agustinbiondi.chatgenius.dto.MessageDTO;
+import com.gauntletai.agustinbiondi.chatgenius.dto.ReactionDTO;
+import com.gauntletai.agustinbiondi.chatgenius.dto.SyncCursorDTO;
+import com.gauntletai.agustinbiondi.chatgenius.dto.SyncResponseDTO;
+import com.gauntletai.agustinbiondi.chatgenius.model.Channel;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelRepository;
+import com.gauntletai.agustinbiondi.chatgenius.service.ChannelEventBuffer.BufferedEvent;
+import com.gauntletai.agustinbiondi.chatgenius.service.ChannelEventBuffer.EventType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Answers reconnect syncs. Channels whose cursor is still covered by the {@link ChannelEventBuffer}
+ * are served from memory; the others fall back to a (channel_id, seq) index range scan, in which
+ * case reaction changes cannot be reconstructed and the client is told to reload them.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SyncServiceImpl implements SyncService {
+
+    private final ChannelRepository channelRepository;
+    private final MessageService messageService;
+    private final ReactionService reactionService;
+    private final ChannelEventBuffer channelEventBuffer;
+
+    @Value("${app.sync.max-messages-per-channel:200}")
+    private int maxMessagesPerChannel;
+
+    @Override
+    public SyncResponseDTO sync(String userId, String epoch, List<SyncCursorDTO> cursors) {
+        // Taken before reading anything, so events racing with this sync are returned again next time
+        long eventId = channelEventBuffer.getLastEventId();
+
+        Set<UUID> channelIds = cursors.stream().map(SyncCursorDTO::getChannelId).collect(Collectors.toSet());
+        Set<UUID> accessible = channelIds.isEmpty()
+                ? Set.of()
+                : new HashSet<>(channelRepository.findAccessibleChannelIds(channelIds, userId, Channel.Type.PUBLIC));
+
+        List<ChannelSyncDTO> results = new ArrayList<>(cursors.size());
+        Set<UUID> changedReactionMessageIds = new LinkedHashSet<>();
+        int fromBuffer = 0;
+        for (SyncCursorDTO cursor : cursors) {
+            if (!accessible.contains(cursor.getChannelId())) {
+                results.add(ChannelSyncDTO.builder()
+                        .channelId(cursor.getChannelId())
+                        .status(ChannelSyncDTO.Status.UNAVAILABLE)
+                        .build());
+                continue;
+            }
+            Optional<List<BufferedEvent>> events =
+                    channelEventBuffer.eventsSince(cursor.getChannelId(), epoch, cursor.getEventId());
+            ChannelSyncDTO result = events
+                    .map(buffered -> fromBuffer(cursor, buffered, eventId, changedReactionMessageIds))
+                    .orElseGet(() -> fromDatabase(cursor, eventId));
+            if (result.isFromBuffer()) {
+                fromBuffer++;
+            }
+            results.add(result);
+        }
+
+        if (!changedReactionMessageIds.isEmpty()) {
+            Map<UUID, List<ReactionDTO>> reactions =
+                    reactionService.getReactionsForMessages(new ArrayList<>(changedReactionMessageIds));
+            for (ChannelSyncDTO result : results) {
+                if (result.getReactions() != null) {
+                    result.getReactions().replaceAll((messageId, ignored) -> reactions.getOrDefault(messageId, List.of()));
+                }
+            }
+        }
+
+        log.debug("Synced {} channels for user {}, {} from buffer", cursors.size(), userId, fromBuffer);
+        return SyncResponseDTO.builder()
+                .epoch(channelEventBuffer.getEpoch())
+                .channels(results)
+                .build();
+    }
+
+    private ChannelSyncDTO fromBuffer(SyncCursorDTO cursor, List<BufferedEvent> events, long eventId,
+                                      Set<UUID> changedReactionMessageIds) {
+        List<MessageDTO> messages = new ArrayList<>();
+        Map<UUID, List<ReactionDTO>> reactions = new LinkedHashMap<>();
+        for (BufferedEvent event : events) {
+            if (event.type() == EventType.MESSAGE_CREATED && event.message().getSeq() > cursor.getSeq()) {
+                messages.add(event.message());
+            } else if (event.type() == EventType.REACTIONS_CHANGED) {
+                reactions.put(event.messageId(), List.of());
+                changedReactionMessageIds.add(event.messageId());
+            }
+        }
+        messages.sort(Comparator.comparingLong(MessageDTO::getSeq));
+        return ChannelSyncDTO.builder()
+                .channelId(cursor.getChannelId())
+                .status(ChannelSyncDTO.Status.OK)
+                .messages(messages)
+                .reactions(reactions)
+                .fromBuffer(true)
+                .cursor(nextCursor(cursor, messages, eventId))
+                .build();
+    }
+
+    private ChannelSyncDTO fromDatabase(SyncCursorDTO cursor, long eventId) {
+        List<MessageDTO> messages =
+                messageService.getMessagesAfterSeq(cursor.getChannelId(), cursor.getSeq(), maxMessagesPerChannel + 1);
+        boolean hasMore = messages.size() > maxMessagesPerChannel;
+        if (hasMore) {
+            messages = messages.subList(0, maxMessagesPerChannel);
+        }
+        SyncCursorDTO next = nextCursor(cursor, messages, eventId);
+        if (hasMore) {
+            // Keep the old event position until the client has caught up on messages
+            next.setEventId(cursor.getEventId());
+        }
+        return ChannelSyncDTO.builder()
+                .channelId(cursor.getChannelId())
+                .status(ChannelSyncDTO.Status.OK)
+                .messages(messages)
+                .reactionsReset(true)
+                .hasMore(hasMore)
+                .cursor(next)
+                .build();
+    }
+
+    private SyncCursorDTO nextCursor(SyncCursorDTO cursor, List<MessageDTO> messages, long eventId) {
+        long seq = messages.isEmpty() ? cursor.getSeq() : messages.get(messages.size() - 1).getSeq();
+        return SyncCursorDTO.builder()
+                .channelId(cursor.getChannelId())
+                .seq(Math.max(seq, cursor.getSeq()))
+                .eventId(eventId)
+                .build();
+    }
+}
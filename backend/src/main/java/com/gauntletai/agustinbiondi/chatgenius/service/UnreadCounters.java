@@ -0,0 +1,341 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelMembershipRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelMembershipRepositoryCustom.UnreadCount;
+import com.gauntletai.agustinbiondi.chatgenius.websocket.WebSocketEventHandler;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unread message counts per (user, channel), maintained incrementally instead of counted.
+ * A channel's counters are loaded from channel_memberships.unread_count the first time the
+ * channel is touched, bumped in memory for every committed message and reset by mark-read.
+ * Changed counters are written back in batches on an interval and at shutdown, and pushed
+ * to their connected users as small per-channel deltas. This process is the only writer of
+ * unread_count, so the in-memory value is authoritative whenever a channel is loaded.
+ */
+@Slf4j
+@Component
+public class UnreadCounters {
+
+    /**
+     * Counters of one channel's members. All access goes through the instance monitor;
+     * a retired instance has been evicted and must be reloaded.
+     */
+    private static final class ChannelCounters {
+        private final Map<String, Integer> counts;
+        private final Set<String> dirty = new HashSet<>();
+        private long lastTouchedNanos = System.nanoTime();
+        private boolean retired;
+
+        private ChannelCounters(Map<String, Integer> counts) {
+            this.counts = counts;
+        }
+    }
+
+    private final ChannelMembershipRepository membershipRepository;
+    private final WebSocketEventHandler webSocketEventHandler;
+    private final SimpUserRegistry simpUserRegistry;
+    private final Map<UUID, ChannelCounters> channels = new ConcurrentHashMap<>();
+    private final Map<String, Set<UUID>> pendingPushes = new ConcurrentHashMap<>();
+    // Loads currently reading a channel's snapshot, and channels whose members changed meanwhile
+    private final Map<UUID, Integer> loadsInFlight = new ConcurrentHashMap<>();
+    private final Set<UUID> pendingRefreshes = ConcurrentHashMap.newKeySet();
+    private final long idleNanos;
+
+    private final AtomicLong flushedCounters = new AtomicLong();
+    private final AtomicLong pushedDeltas = new AtomicLong();
+
+    public UnreadCounters(ChannelMembershipRepository membershipRepository,
+                          WebSocketEventHandler webSocketEventHandler,
+                          SimpUserRegistry simpUserRegistry,
+                          @Value("${app.unread.idle-eviction-ms:600000}") long idleEvictionMs) {
+        this.membershipRepository = membershipRepository;
+        this.webSocketEventHandler = webSocketEventHandler;
+        this.simpUserRegistry = simpUserRegistry;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleEvictionMs);
+    }
+
+    public int getLoadedChannels() {
+        return channels.size();
+    }
+
+    public long getFlushedCounters() {
+        return flushedCounters.get();
+    }
+
+    public long getPushedDeltas() {
+        return pushedDeltas.get();
+    }
+
+    /**
+     * Count committed messages as unread for every member of the channel except their authors.
+     */
+    public void recordMessages(UUID channelId, List<String> authorIds) {
+        Map<String, Integer> authored = new HashMap<>();
+        authorIds.forEach(authorId -> authored.merge(authorId, 1, Integer::sum));
+        Set<String> changed = new HashSet<>();
+        while (true) {
+            ChannelCounters counters = load(channelId, true);
+            synchronized (counters) {
+                if (counters.retired) {
+                    continue;
+                }
+                counters.counts.replaceAll((userId, count) -> {
+                    int added = authorIds.size() - authored.getOrDefault(userId, 0);
+                    if (added == 0) {
+                        return count;
+                    }
+                    counters.dirty.add(userId);
+                    changed.add(userId);
+                    return count + added;
+                });
+                counters.lastTouchedNanos = System.nanoTime();
+            }
+            break;
+        }
+        changed.forEach(userId -> schedulePush(userId, channelId));
+    }
+
+    /**
+     * Reset a member's counter after they have read the channel.
+     *
+     * @return false when the user is not a member of the channel
+     */
+    public boolean reset(UUID channelId, String userId) {
+        while (true) {
+            // Any id can arrive here, so a channel without members is not cached
+            ChannelCounters counters = load(channelId, false);
+            if (counters == null) {
+                return false;
+            }
+            synchronized (counters) {
+                if (counters.retired) {
+                    continue;
+                }
+                Integer previous = counters.counts.get(userId);
+                if (previous == null) {
+                    return false;
+                }
+                if (previous != 0) {
+                    counters.counts.put(userId, 0);
+                    counters.dirty.add(userId);
+                }
+                counters.lastTouchedNanos = System.nanoTime();
+            }
+            break;
+        }
+        schedulePush(userId, channelId);
+        return true;
+    }
+
+    /**
+     * Unread counts for every live channel the user belongs to: the stored values,
+     * overridden by the in-memory ones of channels that are currently loaded.
+     */
+    public Map<UUID, Integer> countsFor(String userId) {
+        Map<UUID, Integer> counts = membershipRepository.findUnreadCountsByUserId(userId);
+        counts.replaceAll((channelId, stored) -> {
+            Integer current = currentCount(channelId, userId);
+            return current != null ? current : stored;
+        });
+        return counts;
+    }
+
+    /**
+     * Pick up members added to or removed from a loaded channel. Existing members keep
+     * their in-memory counts; new ones start from the stored value. A channel that is still
+     * being loaded is refreshed as soon as its load completes.
+     */
+    public void refreshMembers(UUID channelId) {
+        // Queued first, so a load that caches the channel after the lookup below still sees it
+        pendingRefreshes.add(channelId);
+        ChannelCounters counters = channels.get(channelId);
+        if (counters == null && loadsInFlight.containsKey(channelId)) {
+            // Its snapshot may predate the change; the load applies the refresh once it completes
+            return;
+        }
+        if (pendingRefreshes.remove(channelId) && counters != null) {
+            applyRefresh(channelId, counters);
+        }
+    }
+
+    /**
+     * Drop a deleted channel without writing its counters back.
+     */
+    public void forgetChannel(UUID channelId) {
+        ChannelCounters counters = channels.remove(channelId);
+        if (counters != null) {
+            synchronized (counters) {
+                counters.retired = true;
+            }
+        }
+    }
+
+    /**
+     * Drop every counter of a deleted user.
+     */
+    public void forgetUser(String userId) {
+        pendingPushes.remove(userId);
+        for (ChannelCounters counters : channels.values()) {
+            synchronized (counters) {
+                counters.counts.remove(userId);
+                counters.dirty.remove(userId);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.unread.push-interval-ms:250}")
+    public void pushDeltas() {
+        for (String userId : List.copyOf(pendingPushes.keySet())) {
+            Set<UUID> channelIds = pendingPushes.remove(userId);
+            if (channelIds == null || channelIds.isEmpty()) {
+                continue;
+            }
+            Map<UUID, Integer> delta = new HashMap<>();
+            for (UUID channelId : channelIds) {
+                Integer count = currentCount(channelId, userId);
+                if (count != null) {
+                    delta.put(channelId, count);
+                }
+            }
+            if (!delta.isEmpty()) {
+                webSocketEventHandler.sendUnreadCounts(userId, delta);
+                pushedDeltas.incrementAndGet();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.unread.flush-interval-ms:5000}")
+    public void flush() {
+        List<UnreadCount> changed = new ArrayList<>();
+        for (Map.Entry<UUID, ChannelCounters> entry : channels.entrySet()) {
+            ChannelCounters counters = entry.getValue();
+            synchronized (counters) {
+                for (String userId : counters.dirty) {
+                    changed.add(new UnreadCount(entry.getKey(), userId, counters.counts.getOrDefault(userId, 0)));
+                }
+                counters.dirty.clear();
+            }
+        }
+        if (!changed.isEmpty()) {
+            try {
+                membershipRepository.updateUnreadCounts(changed);
+                flushedCounters.addAndGet(changed.size());
+                log.debug("Flushed {} unread counters", changed.size());
+            } catch (RuntimeException e) {
+                log.warn("Failed to flush {} unread counters, retrying next run: {}", changed.size(), e.getMessage());
+                markDirty(changed);
+            }
+        }
+        evictIdleChannels();
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * The channel's counters, loaded on first use. A channel with no stored members, which
+     * includes ids that name no channel at all, is only cached when {@code cacheEmpty} is set;
+     * otherwise null is returned for it.
+     */
+    private ChannelCounters load(UUID channelId, boolean cacheEmpty) {
+        ChannelCounters counters = channels.get(channelId);
+        if (counters != null) {
+            return counters;
+        }
+        // Loaded outside the map so the query does not block other channels; a concurrent
+        // loader that wins the race is used instead and this copy is dropped
+        ChannelCounters result;
+        loadsInFlight.merge(channelId, 1, Integer::sum);
+        try {
+            Map<String, Integer> stored = membershipRepository.findUnreadCountsByChannelId(channelId);
+            if (stored.isEmpty() && !cacheEmpty) {
+                result = null;
+            } else {
+                ChannelCounters loaded = new ChannelCounters(stored);
+                ChannelCounters existing = channels.putIfAbsent(channelId, loaded);
+                result = existing != null ? existing : loaded;
+            }
+        } finally {
+            loadsInFlight.computeIfPresent(channelId, (id, loads) -> loads > 1 ? loads - 1 : null);
+        }
+        // Membership changes that arrived while the snapshot was being read
+        if (pendingRefreshes.remove(channelId)) {
+            ChannelCounters cached = channels.get(channelId);
+            if (cached != null) {
+                applyRefresh(channelId, cached);
+            }
+        }
+        return result;
+    }
+
+    private void applyRefresh(UUID channelId, ChannelCounters counters) {
+        Map<String, Integer> stored = membershipRepository.findUnreadCountsByChannelId(channelId);
+        synchronized (counters) {
+            counters.counts.keySet().retainAll(stored.keySet());
+            counters.dirty.retainAll(stored.keySet());
+            stored.forEach(counters.counts::putIfAbsent);
+        }
+    }
+
+    private Integer currentCount(UUID channelId, String userId) {
+        ChannelCounters counters = channels.get(channelId);
+        if (counters == null) {
+            return null;
+        }
+        synchronized (counters) {
+            return counters.counts.get(userId);
+        }
+    }
+
+    private void schedulePush(String userId, UUID channelId) {
+        if (simpUserRegistry.getUser(userId) != null) {
+            pendingPushes.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(channelId);
+        }
+    }
+
+    private void markDirty(Collection<UnreadCount> counts) {
+        for (UnreadCount count : counts) {
+            ChannelCounters counters = channels.get(count.channelId());
+            if (counters != null) {
+                synchronized (counters) {
+                    if (counters.counts.containsKey(count.userId())) {
+                        counters.dirty.add(count.userId());
+                    }
+                }
+            }
+        }
+    }
+
+    private void evictIdleChannels() {
+        long cutoff = System.nanoTime() - idleNanos;
+        channels.forEach((channelId, counters) -> {
+            synchronized (counters) {
+                if (!counters.dirty.isEmpty() || counters.lastTouchedNanos - cutoff >= 0) {
+                    return;
+                }
+                counters.retired = true;
+            }
+            channels.remove(channelId, counters);
+        });
+    }
+}
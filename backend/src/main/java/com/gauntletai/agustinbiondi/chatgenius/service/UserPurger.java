@@ -0,0 +1,143 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.gauntletai.agustinbiondi.chatgenius.model.Channel;
+import com.gauntletai.agustinbiondi.chatgenius.model.User;
+import com.gauntletai.agustinbiondi.chatgenius.model.UserPurgeJob;
+import com.gauntletai.agustinbiondi.chatgenius.model.UserPurgeJob.Stage;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelMembershipRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ReactionRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.UserPurgeJobRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Works through {@link UserPurgeJob}s created by {@link UserService#deleteUser}.
+ * Reactions and memberships are deleted, messages and channels are handed to the
+ * {@link User#DELETED_USER_ID} tombstone, and finally the user row is removed.
+ * Every batch commits together with its checkpoint, so a crash only repeats
+ * work that was rolled back.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserPurger {
+
+    private final UserPurgeJobRepository jobRepository;
+    private final UserRepository userRepository;
+    private final ReactionRepository reactionRepository;
+    private final ChannelMembershipRepository membershipRepository;
+    private final MessageRepository messageRepository;
+    private final ChannelRepository channelRepository;
+    private final ChannelDirectoryCache channelDirectoryCache;
+    private final ResourceVersionRegistry resourceVersions;
+    private final UnreadCounters unreadCounters;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.users.purge.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.users.purge.jobs-per-run:5}")
+    private int jobsPerRun;
+
+    private final AtomicLong purgedUsers = new AtomicLong();
+    private final AtomicLong processedRows = new AtomicLong();
+
+    public long getPurgedUsers() {
+        return purgedUsers.get();
+    }
+
+    public long getProcessedRows() {
+        return processedRows.get();
+    }
+
+    @Scheduled(fixedDelayString = "${app.users.purge.interval-ms:5000}")
+    public void purgeDeletedUsers() {
+        List<UserPurgeJob> jobs = jobRepository.findPendingJobs(Stage.DONE, PageRequest.of(0, jobsPerRun));
+        for (UserPurgeJob job : jobs) {
+            try {
+                purge(job.getUserId(), job.getStage());
+            } catch (RuntimeException e) {
+                log.error("Failed to purge user {} at stage {}, will retry on the next run",
+                        job.getUserId(), job.getStage(), e);
+            }
+        }
+    }
+
+    void purge(String userId, Stage resumeFrom) {
+        long start = System.nanoTime();
+        log.info("Purging user {} from stage {}", userId, resumeFrom);
+        // Stages run in declaration order, starting with the one a resumed job stopped at
+        for (Stage stage : Stage.values()) {
+            if (stage.compareTo(resumeFrom) >= 0) {
+                purgeStage(userId, stage);
+            }
+        }
+        log.info("Purged user {} in {} ms", userId, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void purgeStage(String userId, Stage stage) {
+        switch (stage) {
+            case REACTIONS -> runStage(userId, Stage.REACTIONS,
+                    () -> reactionRepository.deleteBatchByUserId(userId, batchSize));
+            case MEMBERSHIPS -> {
+                List<String> directMessagePartners =
+                        membershipRepository.findCoMemberUserIds(userId, Channel.Type.DIRECT_MESSAGE);
+                runStage(userId, Stage.MEMBERSHIPS,
+                        () -> membershipRepository.deleteBatchByUserId(userId, batchSize));
+                channelDirectoryCache.invalidatePublic();
+                channelDirectoryCache.invalidateUsers(directMessagePartners);
+                unreadCounters.forgetUser(userId);
+            }
+            case MESSAGES -> {
+                List<UUID> channelIds = messageRepository.findChannelIdsByCreatedBy(userId);
+                runStage(userId, Stage.MESSAGES,
+                        () -> messageRepository.reassignBatchByCreatedBy(userId, User.DELETED_USER_ID, batchSize));
+                channelIds.forEach(resourceVersions::bumpChannel);
+            }
+            case CHANNELS -> runStage(userId, Stage.CHANNELS,
+                    () -> channelRepository.reassignBatchByCreatedBy(userId, User.DELETED_USER_ID, batchSize));
+            case USER -> {
+                transactionTemplate.executeWithoutResult(status -> {
+                    userRepository.deleteById(userId);
+                    jobRepository.advanceStage(userId, Stage.DONE.name());
+                });
+                resourceVersions.bumpUser(userId);
+                purgedUsers.incrementAndGet();
+            }
+            case DONE -> {
+                // Nothing left to do
+            }
+        }
+    }
+
+    private void runStage(String userId, Stage stage, IntSupplier batch) {
+        Stage next = Stage.values()[stage.ordinal() + 1];
+        int rows;
+        do {
+            rows = transactionTemplate.execute(status -> {
+                int affected = batch.getAsInt();
+                if (affected > 0) {
+                    jobRepository.recordProgress(userId, affected);
+                } else {
+                    jobRepository.advanceStage(userId, next.name());
+                }
+                return affected;
+            });
+            processedRows.addAndGet(rows);
+        } while (rows > 0);
+        log.debug("User {} finished purge stage {}", userId, stage);
+    }
+}
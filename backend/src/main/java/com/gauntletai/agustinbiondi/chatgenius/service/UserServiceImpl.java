@@ -2,13 +2,18 @@ package com.gauntletai.agustinbiondi.chatgenius.service;
 
 import com.gauntletai.agustinbiondi.chatgenius.dto.UserDTO;
 import com.gauntletai.agustinbiondi.chatgenius.model.User;
+import com.gauntletai.agustinbiondi.chatgenius.model.UserPurgeJob;
+import com.gauntletai.agustinbiondi.chatgenius.repository.UserPurgeJobRepository;
 import com.gauntletai.agustinbiondi.chatgenius.repository.UserRepository;
+import com.gauntletai.agustinbiondi.chatgenius.search.AutocompleteIndex;
+import com.gauntletai.agustinbiondi.chatgenius.util.TransactionCallbacks;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -19,6 +24,9 @@ import java.util.stream.Collectors;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final UserPurgeJobRepository userPurgeJobRepository;
+    private final ResourceVersionRegistry resourceVersions;
+    private final AutocompleteIndex autocompleteIndex;
 
     @Override
     @Transactional
@@ -41,23 +49,41 @@ public class UserServiceImpl implements UserService {
                 .build();
 
         log.info("Creating new user: {}", user.getUserId());
-        return toDTO(userRepository.save(user));
+        UserDTO createdUser = toDTO(userRepository.save(user));
+        resourceVersions.bumpUser(userId);
+        TransactionCallbacks.afterCommit(() -> autocompleteIndex.putUser(userId, username));
+        return createdUser;
     }
 
+    /**
+     * Anonymize the user and hand the removal of their data to {@link UserPurger}.
+     * Repeated calls for an already deleted user are ignored, so webhook retries are safe.
+     */
     @Override
     @Transactional
     public void deleteUser(String userId) {
-        if (!userRepository.existsById(userId)) {
-            throw new EntityNotFoundException("User not found with ID: " + userId);
+        if (User.DELETED_USER_ID.equals(userId)) {
+            throw new IllegalArgumentException("The deleted user placeholder cannot be deleted");
         }
-        log.info("Deleting user: {}", userId);
-        userRepository.deleteById(userId);
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new EntityNotFoundException("User not found with ID: " + userId));
+        if (user.isDeleted()) {
+            log.info("User {} is already deleted", userId);
+            return;
+        }
+        log.info("Deleting user {} and scheduling purge of their data", userId);
+        user.setDeletedAt(Instant.now());
+        user.setUsername("Deleted user");
+        user.setEmail(userId + "@deleted.invalid");
+        userPurgeJobRepository.save(UserPurgeJob.builder().userId(userId).build());
+        resourceVersions.bumpUser(userId);
+        TransactionCallbacks.afterCommit(() -> autocompleteIndex.removeUser(userId));
     }
 
     @Override
     @Transactional(readOnly = true)
     public boolean userExists(String userId) {
-        return userRepository.existsById(userId);
+        return userRepository.existsByUserIdAndDeletedAtIsNull(userId);
     }
 
     @Override
@@ -75,13 +101,13 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional(readOnly = true)
     public Optional<UserDTO> findById(String userId) {
-        return userRepository.findById(userId).map(this::toDTO);
+        return userRepository.findByUserIdAndDeletedAtIsNull(userId).map(this::toDTO);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<UserDTO> findAll() {
-        return userRepository.findAll().stream()
+        return userRepository.findAllByDeletedAtIsNull().stream()
                 .map(this::toDTO)
                 .collect(Collectors.toList());
     }
@@ -1,5 +1,6 @@
 package com.gauntletai.agustinbiondi.chatgenius.service.impl;
 
+import com.gauntletai.agustinbiondi.chatgenius.diagnostics.ReactionWrittenEvent;
 import com.gauntletai.agustinbiondi.chatgenius.dto.ReactionDTO;
 import com.gauntletai.agustinbiondi.chatgenius.model.Message;
 import com.gauntletai.agustinbiondi.chatgenius.model.Reaction;
@@ -7,7 +8,10 @@ import com.gauntletai.agustinbiondi.chatgenius.model.User;
 import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepository;
 import com.gauntletai.agustinbiondi.chatgenius.repository.ReactionRepository;
 import com.gauntletai.agustinbiondi.chatgenius.repository.UserRepository;
+import com.gauntletai.agustinbiondi.chatgenius.service.ChannelEventBuffer;
 import com.gauntletai.agustinbiondi.chatgenius.service.ReactionService;
+import com.gauntletai.agustinbiondi.chatgenius.service.ResourceVersionRegistry;
+import com.gauntletai.agustinbiondi.chatgenius.util.TransactionCallbacks;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,10 +38,18 @@ public class ReactionServiceImpl implements ReactionService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ResourceVersionRegistry resourceVersions;
+
+    @Autowired
+    private ChannelEventBuffer channelEventBuffer;
+
     @Override
     @Transactional
     public ReactionDTO addReaction(String userId, UUID messageId, String emoji) {
         log.debug("Adding reaction {} to message {} by user {}", emoji, messageId, userId);
+        ReactionWrittenEvent event = new ReactionWrittenEvent();
+        event.begin();
         
         // Find the message and user
         Message message = messageRepository.findById(messageId)
@@ -60,6 +72,8 @@ public class ReactionServiceImpl implements ReactionService {
                 .build();
 
         Reaction savedReaction = reactionRepository.save(newReaction);
+        resourceVersions.bumpChannel(message.getChannel().getId());
+        recordAfterCommit(event, message.getChannel().getId(), messageId, userId, emoji, "ADD");
 
         // Convert to DTO and return
         return ReactionDTO.builder()
@@ -75,14 +89,17 @@ public class ReactionServiceImpl implements ReactionService {
     @Transactional
     public void removeReaction(String userId, UUID messageId, String emoji) {
         log.debug("Removing reaction {} from message {} by user {}", emoji, messageId, userId);
+        ReactionWrittenEvent event = new ReactionWrittenEvent();
+        event.begin();
         
         // Verify the message exists
-        if (!messageRepository.existsById(messageId)) {
-            throw new EntityNotFoundException("Message not found: " + messageId);
-        }
+        UUID channelId = messageRepository.findChannelIdById(messageId)
+                .orElseThrow(() -> new EntityNotFoundException("Message not found: " + messageId));
 
         // Delete the reaction if it exists
         reactionRepository.deleteByUserUserIdAndMessageIdAndEmoji(userId, messageId, emoji);
+        resourceVersions.bumpChannel(channelId);
+        recordAfterCommit(event, channelId, messageId, userId, emoji, "REMOVE");
     }
 
     @Override
@@ -147,4 +164,24 @@ public class ReactionServiceImpl implements ReactionService {
 
         return reactionRepository.countByMessageIdAndEmoji(messageId, emoji);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Once the reaction change commits, offer it to syncing clients and emit its JFR event.
+     * A rolled-back change must not reach the sync buffer.
+     */
+    private void recordAfterCommit(ReactionWrittenEvent event, UUID channelId, UUID messageId,
+                                   String userId, String emoji, String operation) {
+        TransactionCallbacks.afterCommit(() -> {
+            channelEventBuffer.recordReactionsChanged(channelId, messageId);
+            event.end();
+            if (event.shouldCommit()) {
+                event.channelId = channelId.toString();
+                event.messageId = messageId.toString();
+                event.userId = userId;
+                event.emoji = emoji;
+                event.operation = operation;
+                event.commit();
+            }
+        });
+    }
+}
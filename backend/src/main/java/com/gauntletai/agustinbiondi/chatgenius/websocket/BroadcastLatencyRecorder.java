@@ -0,0 +1,95 @@
+package com.gauntletai.agustinbiondi.chatgenius.websocket;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long a client's SEND takes to come back out as a broadcast: from the frame
+ * arriving on the transport thread, through the inbound queue and the handler, to the
+ * handler's reply being handed to the broker. The arrival time travels in a header; the
+ * broadcast is sent from the thread handling the frame, which holds that time meanwhile.
+ */
+@Component
+@RequiredArgsConstructor
+public class BroadcastLatencyRecorder {
+
+    public static final String METRIC_NAME = "stomp.broadcast.latency";
+
+    private static final String RECEIVED_AT_HEADER = "chatgenius.receivedAtNanos";
+    private static final String BROKER_PREFIX = "/topic/";
+
+    private final MeterRegistry meterRegistry;
+    private final ThreadLocal<Long> handling = new ThreadLocal<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * Stamps SEND frames with their arrival time. Register on the client inbound channel.
+     */
+    public ChannelInterceptor arrivalStamper() {
+        return new ExecutorChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                SimpMessageHeaderAccessor accessor =
+                        MessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+                if (accessor != null && accessor.isMutable() && SimpMessageType.MESSAGE.equals(accessor.getMessageType())) {
+                    accessor.setHeader(RECEIVED_AT_HEADER, System.nanoTime());
+                }
+                return message;
+            }
+
+            @Override
+            public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+                Object receivedAt = message.getHeaders().get(RECEIVED_AT_HEADER);
+                if (receivedAt instanceof Long nanos) {
+                    handling.set(nanos);
+                }
+                return message;
+            }
+
+            @Override
+            public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler,
+                                            Exception ex) {
+                handling.remove();
+            }
+        };
+    }
+
+    /**
+     * Times broadcasts made while handling a stamped frame. Register on the broker channel.
+     */
+    public ChannelInterceptor broadcastTimer() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                Long receivedAt = handling.get();
+                String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+                // Only shared topics: user destinations carry the session id and would add a series per session
+                if (receivedAt != null && destination != null && destination.startsWith(BROKER_PREFIX)) {
+                    timer(destination).record(System.nanoTime() - receivedAt, TimeUnit.NANOSECONDS);
+                }
+                return message;
+            }
+        };
+    }
+
+    private Timer timer(String destination) {
+        return timers.computeIfAbsent(destination, d -> Timer.builder(METRIC_NAME)
+                .description("Time from a STOMP SEND arriving to its broadcast reaching the broker")
+                .tag("destination", d)
+                .register(meterRegistry));
+    }
+}
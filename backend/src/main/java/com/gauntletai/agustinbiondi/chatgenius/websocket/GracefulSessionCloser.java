@@ -0,0 +1,84 @@
+package com.gauntletai.agustinbiondi.chatgenius.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closes every WebSocket session with 1012 (service restart) when the application shuts
+ * down, before the broker would drop them with a bare 1001. The close reason carries a
+ * per-session reconnect delay drawn from a window sized to the number of open sessions,
+ * so clients come back spread out instead of all at once.
+ */
+@Slf4j
+@Component
+public class GracefulSessionCloser {
+
+    public static final String RECONNECT_AFTER_PREFIX = "reconnect-after-ms=";
+
+    private static final int SERVICE_RESTART = 1012;
+
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    private final long minDelayMillis;
+    private final long maxDelayMillis;
+    private final int reconnectsPerSecond;
+
+    public GracefulSessionCloser(
+            @Value("${app.websocket.shutdown.reconnect-min-ms:1000}") long minDelayMillis,
+            @Value("${app.websocket.shutdown.reconnect-max-ms:30000}") long maxDelayMillis,
+            @Value("${app.websocket.shutdown.reconnects-per-second:200}") int reconnectsPerSecond) {
+        this.minDelayMillis = minDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.reconnectsPerSecond = reconnectsPerSecond;
+    }
+
+    /**
+     * Wraps the STOMP handler so open sessions can be reached at shutdown.
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                sessions.put(session.getId(), session);
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void closeSessions() {
+        List<WebSocketSession> open = List.copyOf(sessions.values());
+        if (open.isEmpty()) {
+            return;
+        }
+        long window = Math.max(minDelayMillis,
+                Math.min(maxDelayMillis, open.size() * 1000L / Math.max(1, reconnectsPerSecond)));
+        log.info("Closing {} WebSocket sessions, clients asked to reconnect within {} ms", open.size(), window);
+        for (WebSocketSession session : open) {
+            long delay = ThreadLocalRandom.current().nextLong(minDelayMillis, Math.max(minDelayMillis, window) + 1);
+            try {
+                session.close(new CloseStatus(SERVICE_RESTART, RECONNECT_AFTER_PREFIX + delay));
+            } catch (IOException | RuntimeException e) {
+                log.debug("Failed to close WebSocket session {}", session.getId(), e);
+            }
+        }
+    }
+}
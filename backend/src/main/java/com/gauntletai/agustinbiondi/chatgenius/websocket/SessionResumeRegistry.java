@@ -0,0 +1,397 @@
+package com.gauntletai.agustinbiondi.chatgenius.websocket;
+
+import com.gauntletai.agustinbiondi.chatgenius.dto.WebSocketSessionDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.MimeType;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps enough state about STOMP sessions to resume them after a dropped connection.
+ * Every broadcast to a {@code /topic} destination is numbered and carries its number in
+ * the {@value #EVENT_ID_HEADER} header. Live sessions record their broker subscriptions;
+ * when a session disconnects its subscriptions are kept for a short while. A client that
+ * reconnects with a resume token, and the id of the last broadcast it received in the
+ * {@code last-event-id} CONNECT header, gets those subscriptions registered on its new
+ * session and every later broadcast replayed from a bounded in-memory buffer.
+ * <p>
+ * All of this state lives in one process. After a server restart a resume token still
+ * authenticates the CONNECT, but nothing else is restored: the client has to subscribe
+ * again and catch up through {@code /api/sync}, and the session reply says so with
+ * {@code resumed=false, replayComplete=false}.
+ */
+@Slf4j
+@Component
+public class SessionResumeRegistry {
+
+    public static final String EVENT_ID_HEADER = "event-id";
+
+    private static final String BROKER_PREFIX = "/topic/";
+    private static final ResumeOutcome NOT_RESUMED = new ResumeOutcome(false, 0, 0, true);
+    private static final ResumeOutcome RESUME_FAILED = new ResumeOutcome(false, 0, 0, false);
+
+    private final SessionResumeTokens tokens;
+    private final MessageChannel clientOutboundChannel;
+    private final MessageChannel brokerChannel;
+    private final int replayCapacity;
+    private final int maxDetachedSessions;
+    private final long detachedTtlMillis;
+    private final long outcomeWaitMillis;
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+
+    private final Map<String, LiveSession> liveSessions = new ConcurrentHashMap<>();
+    private final Map<String, DetachedSession> detachedSessions = new ConcurrentHashMap<>();
+    private final Deque<ReplayEvent> replayBuffer = new ArrayDeque<>();
+    private long lastEventId;
+    // Held from numbering a broadcast until the broker has queued it for every subscriber, so
+    // each session is sent broadcasts in id order (the broker preserves publish order)
+    private final ReentrantLock publishLock = new ReentrantLock();
+
+    private final AtomicLong resumedSessions = new AtomicLong();
+    private final AtomicLong failedResumes = new AtomicLong();
+    private final AtomicLong replayedEvents = new AtomicLong();
+
+    public SessionResumeRegistry(
+            SessionResumeTokens tokens,
+            @Lazy @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+            @Lazy @Qualifier("brokerChannel") MessageChannel brokerChannel,
+            @Value("${app.websocket.replay.capacity:2000}") int replayCapacity,
+            @Value("${app.websocket.resume.max-detached-sessions:10000}") int maxDetachedSessions,
+            @Value("${app.websocket.resume.detached-ttl-ms:120000}") long detachedTtlMillis,
+            @Value("${app.websocket.resume.outcome-wait-ms:2000}") long outcomeWaitMillis) {
+        this.tokens = tokens;
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.brokerChannel = brokerChannel;
+        this.replayCapacity = replayCapacity;
+        this.maxDetachedSessions = maxDetachedSessions;
+        this.detachedTtlMillis = detachedTtlMillis;
+        this.outcomeWaitMillis = outcomeWaitMillis;
+    }
+
+    public int getLiveSessions() {
+        return liveSessions.size();
+    }
+
+    public int getLiveSubscriptions() {
+        return liveSessions.values().stream().mapToInt(session -> session.subscriptions.size()).sum();
+    }
+
+    public int getDetachedSessions() {
+        return detachedSessions.size();
+    }
+
+    public long getResumedSessions() {
+        return resumedSessions.get();
+    }
+
+    public long getFailedResumes() {
+        return failedResumes.get();
+    }
+
+    public long getReplayedEvents() {
+        return replayedEvents.get();
+    }
+
+    /**
+     * Records SUBSCRIBE and UNSUBSCRIBE frames that made it past authentication, and drops
+     * a SUBSCRIBE the broker already holds because it was restored from the previous session.
+     * Register on the client inbound channel after the authenticating interceptor.
+     */
+    public ChannelInterceptor subscriptionTracker() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                return trackSubscription(message.getHeaders()) ? message : null;
+            }
+        };
+    }
+
+    /**
+     * Numbers every broadcast to a broker destination and copies it into the replay buffer.
+     * Register on the broker channel, which must deliver in the sending thread, and keep
+     * the broker's publish order.
+     */
+    public ChannelInterceptor broadcastRecorder() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                return recordBroadcast(message);
+            }
+
+            @Override
+            public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent,
+                                            Exception ex) {
+                if (isBroadcast(message)) {
+                    publishLock.unlock();
+                }
+            }
+        };
+    }
+
+    /**
+     * Claim the detached state of the session a resume token was issued to. Called while
+     * the new session's CONNECT is authenticated; the subscriptions are restored and the
+     * missed broadcasts replayed once the CONNECTED frame has gone out.
+     *
+     * @param lastReceivedEventId the {@value #EVENT_ID_HEADER} of the last broadcast the client
+     *                            received, or null when it did not say
+     */
+    public void beginResume(String sessionId, String userId, SessionResumeTokens.ResumeToken token,
+                            Long lastReceivedEventId) {
+        LiveSession session = new LiveSession(userId);
+        session.lastReceivedEventId = lastReceivedEventId;
+        DetachedSession previous = tokens.getEpoch().equals(token.epoch())
+                ? detachedSessions.remove(token.sessionId())
+                : null;
+        if (previous == null || !previous.userId().equals(userId)) {
+            failedResumes.incrementAndGet();
+            session.outcome.complete(RESUME_FAILED);
+        } else {
+            session.pendingRestore = previous;
+        }
+        liveSessions.put(sessionId, session);
+    }
+
+    @EventListener
+    public void onSessionConnected(SessionConnectedEvent event) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        Principal user = event.getUser();
+        if (sessionId == null || user == null) {
+            return;
+        }
+        LiveSession session = liveSessions.computeIfAbsent(sessionId, id -> new LiveSession(user.getName()));
+        DetachedSession previous = session.pendingRestore;
+        if (previous == null) {
+            session.outcome.complete(NOT_RESUMED);
+            return;
+        }
+        session.pendingRestore = null;
+        try {
+            session.outcome.complete(restore(sessionId, session, user, previous));
+        } catch (RuntimeException e) {
+            log.warn("Failed to resume session {} for user {}", sessionId, user.getName(), e);
+            session.outcome.complete(RESUME_FAILED);
+        }
+    }
+
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        LiveSession session = liveSessions.remove(event.getSessionId());
+        if (session == null || session.subscriptions.isEmpty()) {
+            return;
+        }
+        if (detachedSessions.size() >= maxDetachedSessions) {
+            log.debug("Detached session limit {} reached, session {} cannot be resumed",
+                    maxDetachedSessions, event.getSessionId());
+            return;
+        }
+        // Broadcasts sent to the dead socket before the drop was noticed are newer than what the
+        // client last received; only the client can say where its stream actually stopped
+        long detectedAt;
+        synchronized (replayBuffer) {
+            detectedAt = lastEventId;
+        }
+        detachedSessions.put(event.getSessionId(), new DetachedSession(
+                session.userId, Map.copyOf(session.subscriptions), detectedAt, System.currentTimeMillis()));
+    }
+
+    /**
+     * Issue a fresh resume token and report how the session was resumed, waiting briefly
+     * for a restore that is still replaying.
+     */
+    public WebSocketSessionDTO describe(String sessionId, String userId) {
+        LiveSession session = liveSessions.get(sessionId);
+        ResumeOutcome outcome = session != null ? awaitOutcome(session) : NOT_RESUMED;
+        return WebSocketSessionDTO.builder()
+                .resumeToken(tokens.issue(userId, sessionId))
+                .epoch(tokens.getEpoch())
+                .resumed(outcome.resumed())
+                .restoredSubscriptions(outcome.restoredSubscriptions())
+                .replayedEvents(outcome.replayedEvents())
+                .replayComplete(outcome.replayComplete())
+                .build();
+    }
+
+    @Scheduled(fixedDelayString = "${app.websocket.resume.sweep-interval-ms:30000}")
+    public void expireDetachedSessions() {
+        long cutoff = System.currentTimeMillis() - detachedTtlMillis;
+        detachedSessions.values().removeIf(detached -> detached.detachedAt() < cutoff);
+    }
+
+    private ResumeOutcome restore(String sessionId, LiveSession session, Principal user, DetachedSession previous) {
+        // Subscribe before taking the snapshot so nothing falls between replay and live delivery;
+        // the overlap can deliver a broadcast twice and clients already drop duplicate ids
+        previous.subscriptions().forEach((subscriptionId, destination) -> {
+            if (session.subscriptions.putIfAbsent(subscriptionId, destination) != null) {
+                // The client subscribed again before the restore got to it
+                return;
+            }
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+            accessor.setSessionId(sessionId);
+            accessor.setSubscriptionId(subscriptionId);
+            accessor.setDestination(destination);
+            accessor.setUser(user);
+            brokerChannel.send(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+        });
+
+        // Without the client's position, replay from when the drop was detected and say the
+        // replay may have a gap: anything written to the dead socket before that is lost
+        Long lastReceived = session.lastReceivedEventId;
+        long replayAfter = lastReceived != null ? lastReceived : previous.detectedAtEventId();
+        List<ReplayEvent> missed;
+        boolean complete;
+        synchronized (replayBuffer) {
+            ReplayEvent oldest = replayBuffer.peekFirst();
+            complete = lastReceived != null && (oldest == null || oldest.id() <= replayAfter + 1);
+            missed = replayBuffer.stream()
+                    .filter(event -> event.id() > replayAfter)
+                    .toList();
+        }
+
+        int replayed = 0;
+        for (ReplayEvent event : missed) {
+            for (Map.Entry<String, String> subscription : previous.subscriptions().entrySet()) {
+                if (pathMatcher.match(subscription.getValue(), event.destination())) {
+                    SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+                    accessor.setSessionId(sessionId);
+                    accessor.setSubscriptionId(subscription.getKey());
+                    accessor.setDestination(event.destination());
+                    accessor.setContentType(event.contentType());
+                    accessor.setNativeHeader(EVENT_ID_HEADER, Long.toString(event.id()));
+                    clientOutboundChannel.send(MessageBuilder.createMessage(event.payload(), accessor.getMessageHeaders()));
+                    replayed++;
+                }
+            }
+        }
+
+        resumedSessions.incrementAndGet();
+        replayedEvents.addAndGet(replayed);
+        log.debug("Resumed session {} for user {}: {} subscriptions, {} events replayed, complete={}",
+                sessionId, user.getName(), previous.subscriptions().size(), replayed, complete);
+        return new ResumeOutcome(true, previous.subscriptions().size(), replayed, complete);
+    }
+
+    private boolean trackSubscription(Map<String, Object> headers) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(headers);
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(headers);
+        if (sessionId == null || subscriptionId == null) {
+            return true;
+        }
+        if (SimpMessageType.SUBSCRIBE.equals(type)) {
+            String destination = SimpMessageHeaderAccessor.getDestination(headers);
+            Principal user = SimpMessageHeaderAccessor.getUser(headers);
+            if (destination != null && destination.startsWith(BROKER_PREFIX) && user != null) {
+                String existing = liveSessions.computeIfAbsent(sessionId, id -> new LiveSession(user.getName()))
+                        .subscriptions.put(subscriptionId, destination);
+                if (destination.equals(existing)) {
+                    return false;
+                }
+            }
+        } else if (SimpMessageType.UNSUBSCRIBE.equals(type)) {
+            LiveSession session = liveSessions.get(sessionId);
+            if (session != null) {
+                session.subscriptions.remove(subscriptionId);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the broadcast stamped with its event id, or the message itself if it is not one
+     */
+    private Message<?> recordBroadcast(Message<?> message) {
+        if (!isBroadcast(message)) {
+            return message;
+        }
+        Map<String, Object> headers = message.getHeaders();
+        byte[] payload = (byte[]) message.getPayload();
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        Object contentTypeHeader = headers.get(MessageHeaders.CONTENT_TYPE);
+        MimeType contentType = contentTypeHeader instanceof String value
+                ? MimeType.valueOf(value)
+                : (MimeType) contentTypeHeader;
+        // Released in afterSendCompletion, once the broker has handed the broadcast on
+        publishLock.lock();
+        long eventId;
+        synchronized (replayBuffer) {
+            eventId = ++lastEventId;
+            replayBuffer.addLast(new ReplayEvent(eventId, destination, payload, contentType));
+            if (replayBuffer.size() > replayCapacity) {
+                replayBuffer.removeFirst();
+            }
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        accessor.setNativeHeader(EVENT_ID_HEADER, Long.toString(eventId));
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private static boolean isBroadcast(Message<?> message) {
+        Map<String, Object> headers = message.getHeaders();
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        return SimpMessageType.MESSAGE.equals(SimpMessageHeaderAccessor.getMessageType(headers))
+                && message.getPayload() instanceof byte[]
+                && destination != null && destination.startsWith(BROKER_PREFIX);
+    }
+
+    private ResumeOutcome awaitOutcome(LiveSession session) {
+        try {
+            return session.outcome.get(outcomeWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return RESUME_FAILED;
+        } catch (ExecutionException | TimeoutException e) {
+            return RESUME_FAILED;
+        }
+    }
+
+    private static final class LiveSession {
+        private final String userId;
+        private final Map<String, String> subscriptions = new ConcurrentHashMap<>();
+        private final CompletableFuture<ResumeOutcome> outcome = new CompletableFuture<>();
+        private volatile DetachedSession pendingRestore;
+        private volatile Long lastReceivedEventId;
+
+        private LiveSession(String userId) {
+            this.userId = userId;
+        }
+    }
+
+    private record DetachedSession(String userId, Map<String, String> subscriptions, long detectedAtEventId,
+                                   long detachedAt) {
+    }
+
+    private record ReplayEvent(long id, String destination, byte[] payload, MimeType contentType) {
+    }
+
+    private record ResumeOutcome(boolean resumed, int restoredSubscriptions, int replayedEvents, boolean replayComplete) {
+    }
+}
@@ -0,0 +1,104 @@
+package com.gauntletai.agustinbiondi.chatgenius.websocket;
+
+import com.gauntletai.agustinbiondi.chatgenius.service.ResourceVersionRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Issues and verifies the HMAC-signed resume tokens handed to STOMP sessions.
+ * A token names the user, the session it was issued to and the process epoch of
+ * {@link ResourceVersionRegistry}, so a reconnecting client can skip the Clerk round
+ * trip and, within the same process, pick its old subscriptions back up. Tokens only survive a restart when
+ * app.websocket.resume.secret is configured; otherwise every boot signs with a fresh key.
+ */
+@Slf4j
+@Component
+public class SessionResumeTokens {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final String epoch;
+    private final SecretKeySpec key;
+    private final long ttlMillis;
+
+    public SessionResumeTokens(
+            ResourceVersionRegistry resourceVersions,
+            @Value("${app.websocket.resume.secret:}") String secret,
+            @Value("${app.websocket.resume.ttl-ms:3600000}") long ttlMillis) {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            log.info("No app.websocket.resume.secret configured, resume tokens will not survive a restart");
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.ttlMillis = ttlMillis;
+        this.epoch = resourceVersions.getEpoch();
+    }
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    public String issue(String userId, String sessionId) {
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        String payload = String.join("\n", userId, sessionId, epoch, Long.toString(expiresAt));
+        String encoded = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return encoded + "." + ENCODER.encodeToString(sign(encoded));
+    }
+
+    /**
+     * Returns the token's claims when the signature checks out and it has not expired.
+     */
+    public Optional<ResumeToken> verify(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return Optional.empty();
+        }
+        try {
+            String encoded = token.substring(0, dot);
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(encoded), signature)) {
+                return Optional.empty();
+            }
+            String[] parts = new String(DECODER.decode(encoded), StandardCharsets.UTF_8).split("\n");
+            if (parts.length != 4) {
+                return Optional.empty();
+            }
+            ResumeToken claims = new ResumeToken(parts[0], parts[1], parts[2], Long.parseLong(parts[3]));
+            return claims.expiresAt() > System.currentTimeMillis() ? Optional.of(claims) : Optional.empty();
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to sign resume token", e);
+        }
+    }
+
+    public record ResumeToken(String userId, String sessionId, String epoch, long expiresAt) {
+    }
+}
@@ -2,6 +2,7 @@ package com.gauntletai.agustinbiondi.chatgenius.websocket;
 
 import com.gauntletai.agustinbiondi.chatgenius.dto.ChannelDTO;
 import com.gauntletai.agustinbiondi.chatgenius.dto.ReactionDTO;
+import com.gauntletai.agustinbiondi.chatgenius.service.ChannelDirectoryCache;
 import com.gauntletai.agustinbiondi.chatgenius.service.ReactionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,6 +11,7 @@ import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Slf4j
@@ -18,44 +20,63 @@ import java.util.UUID;
 public class WebSocketEventHandler {
     private final SimpMessagingTemplate messagingTemplate;
     private final ReactionService reactionService;
+    private final ChannelDirectoryCache channelDirectoryCache;
 
     public void broadcastChannelCreated(ChannelDTO channel) {
         log.debug("Broadcasting channel created event for channel: {}", channel.getId());
         messagingTemplate.convertAndSend("/topic/channels/events", 
-            new ChannelEvent("CREATED", channel));
+            new ChannelEvent("CREATED", channel, channelDirectoryCache.getVersion()));
         messagingTemplate.convertAndSend("/topic/channels", channel);
     }
 
     public void broadcastChannelDeleted(ChannelDTO channel) {
         log.debug("Broadcasting channel deleted event for channel: {}", channel.getId());
         messagingTemplate.convertAndSend("/topic/channels/events", 
-            new ChannelEvent("DELETED", channel));
+            new ChannelEvent("DELETED", channel, channelDirectoryCache.getVersion()));
         messagingTemplate.convertAndSend("/topic/channels", channel);
     }
 
     public void broadcastChannelUpdated(ChannelDTO channel) {
         log.debug("Broadcasting channel updated event for channel: {}", channel.getId());
         messagingTemplate.convertAndSend("/topic/channels/events", 
-            new ChannelEvent("UPDATED", channel));
+            new ChannelEvent("UPDATED", channel, channelDirectoryCache.getVersion()));
         messagingTemplate.convertAndSend("/topic/channels", channel);
     }
 
+    public void broadcastChannelMembershipChanged(ChannelDTO channel) {
+        log.debug("Broadcasting membership changed event for channel: {}", channel.getId());
+        messagingTemplate.convertAndSend("/topic/channels/events", 
+            new ChannelEvent("MEMBERSHIP_CHANGED", channel, channelDirectoryCache.getVersion()));
+    }
+
     public void broadcastReactionUpdate(UUID messageId) {
         log.debug("Broadcasting reaction update for message: {}", messageId);
         List<ReactionDTO> reactions = reactionService.getReactionsForMessage(messageId);
         messagingTemplate.convertAndSend("/topic/reactions", 
             new ReactionUpdateEvent(messageId, reactions));
     }
+
+    public void sendUnreadCounts(String userId, Map<UUID, Integer> unreadCounts) {
+        log.debug("Sending {} unread counts to user: {}", unreadCounts.size(), userId);
+        messagingTemplate.convertAndSendToUser(userId, "/queue/unread",
+            new UnreadCountsEvent(unreadCounts));
+    }
 }
 
 @lombok.Value
 class ChannelEvent {
     String type;
     ChannelDTO channel;
+    long directoryVersion;
 }
 
 @lombok.Value
 class ReactionUpdateEvent {
     UUID messageId;
     List<ReactionDTO> reactions;
-} 
\ No newline at end of file
+}
+
+@lombok.Value
+class UnreadCountsEvent {
+    Map<UUID, Integer> unreadCounts;
+}
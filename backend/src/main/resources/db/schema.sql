@@ -0,0 +1,104 @@
+-- Runs after Hibernate's ddl-auto update (spring.jpa.defer-datasource-initialization).
+-- Every statement must be idempotent: this script executes on each startup.
+
+-- Backfill canonical pair keys for direct message channels created before dm_key existed.
+-- When duplicate DMs exist for a pair, only the oldest one receives the key.
+-- Ids are ordered by code point (COLLATE "C") like Channel.directMessageKey, not by the
+-- database collation, which orders mixed-case Clerk ids differently.
+WITH pair_keys AS (
+    SELECT m.channel_id,
+           CASE WHEN COUNT(*) = 1
+                THEN MIN(m.user_id COLLATE "C") || ':' || MIN(m.user_id COLLATE "C")
+                ELSE MIN(m.user_id COLLATE "C") || ':' || MAX(m.user_id COLLATE "C")
+           END AS dm_key
+    FROM channel_memberships m
+    JOIN channels c ON c.id = m.channel_id
+    WHERE c.type = 'DIRECT_MESSAGE' AND c.dm_key IS NULL
+    GROUP BY m.channel_id
+    HAVING COUNT(*) <= 2
+),
+ranked AS (
+    SELECT k.channel_id, k.dm_key,
+           ROW_NUMBER() OVER (PARTITION BY k.dm_key ORDER BY c.created_at, c.id) AS rn
+    FROM pair_keys k
+    JOIN channels c ON c.id = k.channel_id
+)
+UPDATE channels c
+SET dm_key = r.dm_key
+FROM ranked r
+WHERE c.id = r.channel_id
+  AND r.rn = 1
+  AND NOT EXISTS (SELECT 1 FROM channels o WHERE o.dm_key = r.dm_key);
+
+-- Channel names are unique among live channels only, so a deleted channel's name can be
+-- reused while the purger is still removing it.
+ALTER TABLE channels DROP CONSTRAINT IF EXISTS uk_channels_name_non_dm;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_channels_name_active
+    ON channels (name, type) WHERE deleted_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_channels_deleted_at
+    ON channels (deleted_at) WHERE deleted_at IS NOT NULL;
+
+-- Placeholder owner for messages and channels of deleted users (User.DELETED_USER_ID).
+INSERT INTO users (user_id, username, email, role, created_at, deleted_at)
+VALUES ('deleted-user', 'Deleted user', 'deleted-user@deleted.invalid', 'USER', now(), now())
+ON CONFLICT (user_id) DO NOTHING;
+
+-- Per-channel message sequence numbers. message_seq_reserved is deliberately not mapped on
+-- the Channel entity so JPA updates can never overwrite a reservation.
+ALTER TABLE channels ADD COLUMN IF NOT EXISTS message_seq_reserved BIGINT NOT NULL DEFAULT 0;
+
+-- Number messages written before seq existed, after any sequence already used in the channel.
+UPDATE channels c
+SET message_seq_reserved = GREATEST(c.message_seq_reserved, s.max_seq)
+FROM (
+    SELECT channel_id, COALESCE(MAX(seq), 0) + COUNT(*) FILTER (WHERE seq IS NULL) AS max_seq
+    FROM messages
+    WHERE channel_id IN (SELECT channel_id FROM messages WHERE seq IS NULL)
+    GROUP BY channel_id
+) s
+WHERE c.id = s.channel_id;
+
+WITH numbered AS (
+    SELECT m.id,
+           COALESCE(mx.max_seq, 0) + ROW_NUMBER() OVER (PARTITION BY m.channel_id ORDER BY m.created_at, m.id) AS seq
+    FROM messages m
+    LEFT JOIN (SELECT channel_id, MAX(seq) AS max_seq FROM messages
+               WHERE channel_id IN (SELECT channel_id FROM messages WHERE seq IS NULL)
+               GROUP BY channel_id) mx
+           ON mx.channel_id = m.channel_id
+    WHERE m.seq IS NULL
+)
+UPDATE messages m
+SET seq = n.seq
+FROM numbered n
+WHERE m.id = n.id;
+
+ALTER TABLE messages ALTER COLUMN seq SET NOT NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_messages_channel_seq ON messages (channel_id, seq);
+
+-- Maintained unread counters (UnreadCounters). Not mapped on ChannelMembership so JPA saves
+-- never overwrite a flushed count. Existing memberships are counted once from last_read_at.
+ALTER TABLE channel_memberships ADD COLUMN IF NOT EXISTS unread_count INTEGER;
+
+UPDATE channel_memberships m
+SET unread_count = (
+    SELECT COUNT(*)
+    FROM messages msg
+    WHERE msg.channel_id = m.channel_id
+      AND msg.created_by <> m.user_id
+      AND (m.last_read_at IS NULL OR msg.created_at > m.last_read_at)
+)
+WHERE m.unread_count IS NULL;
+
+ALTER TABLE channel_memberships ALTER COLUMN unread_count SET DEFAULT 0;
+ALTER TABLE channel_memberships ALTER COLUMN unread_count SET NOT NULL;
+
+-- Full-text search (SearchServiceImpl). A stored generated column keeps the tsvector in
+-- step with content on every insert and edit without touching the write paths.
+-- Adding the column rewrites messages under an ACCESS EXCLUSIVE lock and the plain CREATE
+-- INDEX blocks writes while it builds. On a large existing table, run the ALTER in a
+-- maintenance window and the index as CREATE INDEX CONCURRENTLY before deploying; both
+-- statements below are then no-ops.
+ALTER TABLE messages ADD COLUMN IF NOT EXISTS content_tsv tsvector
+    GENERATED ALWAYS AS (to_tsvector('english', content)) STORED;
+CREATE INDEX IF NOT EXISTS idx_messages_content_tsv ON messages USING GIN (content_tsv);
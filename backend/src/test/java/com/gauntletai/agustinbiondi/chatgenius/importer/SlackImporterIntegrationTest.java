@@ -0,0 +1,209 @@
+package com.gauntletai.agustinbiondi.chatgenius.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gauntletai.agustinbiondi.chatgenius.dto.MessageDTO;
+import com.gauntletai.agustinbiondi.chatgenius.model.Channel;
+import com.gauntletai.agustinbiondi.chatgenius.model.ImportJob;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelMembershipRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelRepositoryCustomImpl;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ImportJobRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepositoryCustom.NewMessage;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepositoryCustomImpl;
+import com.gauntletai.agustinbiondi.chatgenius.repository.UserRepository;
+import com.gauntletai.agustinbiondi.chatgenius.search.AutocompleteIndex;
+import com.gauntletai.agustinbiondi.chatgenius.search.MessageSearchIndex;
+import com.gauntletai.agustinbiondi.chatgenius.search.ReadableChannels;
+import com.gauntletai.agustinbiondi.chatgenius.service.ChannelDirectoryCache;
+import com.gauntletai.agustinbiondi.chatgenius.service.ChannelEventBuffer;
+import com.gauntletai.agustinbiondi.chatgenius.service.MessageSequenceAllocator;
+import com.gauntletai.agustinbiondi.chatgenius.service.MessageWritePipeline;
+import com.gauntletai.agustinbiondi.chatgenius.service.ResourceVersionRegistry;
+import com.gauntletai.agustinbiondi.chatgenius.service.UnreadCounters;
+import com.gauntletai.agustinbiondi.chatgenius.util.UuidV7;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Imports a small archive into a channel that already has live messages, against a real
+ * Postgres. Repositories backed by JPA are mocked; their custom JDBC parts, the sequence
+ * allocator and the event buffer are the real ones. Skipped unless TEST_DB_URL points at a
+ * local database, see {@code MessageSearchIntegrationTest}.
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_DB_URL", matches = ".+")
+class SlackImporterIntegrationTest {
+
+	private static final String SCHEMA = "import_test_" + Long.toHexString(System.nanoTime());
+
+	private static SingleConnectionDataSource dataSource;
+	private static JdbcTemplate jdbcTemplate;
+	private static TransactionTemplate transactionTemplate;
+	private static MessageRepositoryCustomImpl messages;
+	private static ChannelRepository channelRepository;
+
+	@BeforeAll
+	static void createSchema() {
+		dataSource = new SingleConnectionDataSource(System.getenv("TEST_DB_URL"),
+				env("TEST_DB_USER", "postgres"), env("TEST_DB_PASSWORD", "postgres"), true);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		messages = new MessageRepositoryCustomImpl(jdbcTemplate);
+		channelRepository = mock(ChannelRepository.class, delegatesTo(new ChannelRepositoryCustomImpl(jdbcTemplate)));
+
+		jdbcTemplate.execute("CREATE SCHEMA " + SCHEMA);
+		jdbcTemplate.execute("SET search_path TO " + SCHEMA);
+		jdbcTemplate.execute("CREATE TABLE channels (id UUID PRIMARY KEY, " +
+				"message_seq_reserved BIGINT NOT NULL DEFAULT 0)");
+		jdbcTemplate.execute("CREATE TABLE messages (id UUID PRIMARY KEY, channel_id UUID NOT NULL, " +
+				"created_by VARCHAR(255) NOT NULL, parent_id UUID, type VARCHAR(255), content TEXT NOT NULL, " +
+				"created_at TIMESTAMPTZ NOT NULL, edited_at TIMESTAMPTZ, is_edited BOOLEAN NOT NULL, " +
+				"seq BIGINT NOT NULL)");
+		// Same definition as db/schema.sql
+		jdbcTemplate.execute("CREATE UNIQUE INDEX uk_messages_channel_seq ON messages (channel_id, seq)");
+		jdbcTemplate.execute("CREATE TABLE reactions (id UUID PRIMARY KEY, emoji VARCHAR(32) NOT NULL, " +
+				"user_id VARCHAR(255) NOT NULL, message_id UUID NOT NULL, UNIQUE (message_id, user_id, emoji))");
+	}
+
+	@AfterAll
+	static void dropSchema() {
+		if (jdbcTemplate != null) {
+			jdbcTemplate.execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+			dataSource.destroy();
+		}
+	}
+
+	@Test
+	void liveMessagesAfterAnImportAreNumberedAfterIt() throws IOException {
+		UUID channelId = UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO channels (id) VALUES (?)", channelId);
+		MessageSequenceAllocator allocator = new MessageSequenceAllocator(channelRepository, transactionTemplate, 100);
+		ChannelEventBuffer eventBuffer = new ChannelEventBuffer(new ResourceVersionRegistry(), 500, 5000);
+
+		// Leaves the rest of a block cached in the allocator
+		long firstLive = sendLive(allocator, channelId, "before the import");
+		importer(allocator, eventBuffer, channelId).run(job(archive()));
+		long secondLive = sendLive(allocator, channelId, "after the import");
+
+		List<Long> imported = jdbcTemplate.queryForList(
+				"SELECT seq FROM messages WHERE channel_id = ? AND created_by LIKE 'slack:%' ORDER BY seq",
+				Long.class, channelId);
+		assertThat(imported).hasSize(3).allSatisfy(seq -> assertThat(seq).isGreaterThan(firstLive));
+		assertThat(secondLive).isGreaterThan(imported.get(imported.size() - 1));
+		assertThat(jdbcTemplate.queryForObject("SELECT count(DISTINCT seq) FROM messages WHERE channel_id = ?",
+				Integer.class, channelId)).isEqualTo(5);
+	}
+
+	@Test
+	void importDropsBufferedEventsOfTheChannel() throws IOException {
+		UUID channelId = UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO channels (id) VALUES (?)", channelId);
+		MessageSequenceAllocator allocator = new MessageSequenceAllocator(channelRepository, transactionTemplate, 100);
+		ChannelEventBuffer eventBuffer = new ChannelEventBuffer(new ResourceVersionRegistry(), 500, 5000);
+		eventBuffer.recordMessageCreated(MessageDTO.builder().id(UUID.randomUUID()).channelId(channelId).seq(1).build());
+		long cursor = eventBuffer.getLastEventId();
+		assertThat(eventBuffer.eventsSince(channelId, eventBuffer.getEpoch(), cursor)).contains(List.of());
+
+		importer(allocator, eventBuffer, channelId).run(job(archive()));
+
+		// The imported messages are not in the buffer, so the cursor must go to the database
+		assertThat(eventBuffer.eventsSince(channelId, eventBuffer.getEpoch(), cursor)).isEmpty();
+		assertThat(eventBuffer.eventsSince(channelId, eventBuffer.getEpoch(), eventBuffer.getLastEventId()))
+				.contains(List.of());
+	}
+
+	private static long sendLive(MessageSequenceAllocator allocator, UUID channelId, String content) {
+		return transactionTemplate.execute(status -> {
+			long seq = allocator.allocate(channelId, 1);
+			messages.insertMessages(List.of(
+					new NewMessage(UuidV7.generate(), channelId, "alice", null, content, Instant.now(), seq)));
+			return seq;
+		});
+	}
+
+	/**
+	 * An importer whose "general" channel maps onto the given live channel.
+	 */
+	private static SlackImporter importer(MessageSequenceAllocator allocator, ChannelEventBuffer eventBuffer,
+										  UUID channelId) {
+		ChannelRepository channels =
+				mock(ChannelRepository.class, delegatesTo(new ChannelRepositoryCustomImpl(jdbcTemplate)));
+		doReturn(0).when(channels).insertImportedChannel(any(), anyString(), any(), anyString(), anyString(), any());
+		doReturn(Optional.of(channelId)).when(channels).findIdByNameAndType("general", Channel.Type.PUBLIC);
+		// Only pauses the channel around each import batch; live sends here go straight to the allocator
+		MessageWritePipeline writePipeline = new MessageWritePipeline(mock(MessageRepository.class),
+				mock(ResourceVersionRegistry.class), allocator, eventBuffer, mock(MessageSearchIndex.class),
+				mock(UnreadCounters.class), transactionTemplate, 1, 10, 10, 0, 60000);
+		return new SlackImporter(mock(ImportJobRepository.class), mock(UserRepository.class), channels,
+				mock(ChannelMembershipRepository.class),
+				mock(MessageRepository.class, delegatesTo(messages)), writePipeline, eventBuffer,
+				mock(ChannelDirectoryCache.class), mock(ResourceVersionRegistry.class), mock(MessageSearchIndex.class),
+				mock(AutocompleteIndex.class), mock(ReadableChannels.class), transactionTemplate, new ObjectMapper(),
+				1000, 5, 60000);
+	}
+
+	private static ImportJob job(Path archive) {
+		return ImportJob.builder()
+				.id(UUID.randomUUID())
+				.archivePath(archive.toString())
+				.requestedBy("admin")
+				.build();
+	}
+
+	/**
+	 * One channel with a thread and three messages. Message ids derive from the Slack channel
+	 * id, so each call uses a new one.
+	 */
+	private static Path archive() throws IOException {
+		Path file = Files.createTempFile("slack-import-", ".zip");
+		String slackChannelId = "C" + Long.toHexString(System.nanoTime());
+		Map<String, String> entries = Map.of(
+				"users.json", "[{\"id\": \"U1\", \"name\": \"ana\"}]",
+				"channels.json", "[{\"id\": \"" + slackChannelId + "\", \"name\": \"general\", " +
+						"\"created\": 1577836800, \"members\": [\"U1\"]}]",
+				"general/2020-01-01.json", "[" +
+						"{\"type\": \"message\", \"user\": \"U1\", \"ts\": \"1577869200.000100\", \"text\": \"hello\"}," +
+						"{\"type\": \"message\", \"user\": \"U1\", \"ts\": \"1577869260.000200\", " +
+						"\"thread_ts\": \"1577869200.000100\", \"text\": \"a reply\"}," +
+						"{\"type\": \"message\", \"user\": \"U1\", \"ts\": \"1577869320.000300\", \"text\": \"bye\"}]");
+		try (OutputStream out = Files.newOutputStream(file); ZipOutputStream zip = new ZipOutputStream(out)) {
+			for (Map.Entry<String, String> entry : entries.entrySet()) {
+				zip.putNextEntry(new ZipEntry(entry.getKey()));
+				zip.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+				zip.closeEntry();
+			}
+		}
+		return file;
+	}
+
+	private static String env(String name, String defaultValue) {
+		String value = System.getenv(name);
+		return value != null && !value.isBlank() ? value : defaultValue;
+	}
+}
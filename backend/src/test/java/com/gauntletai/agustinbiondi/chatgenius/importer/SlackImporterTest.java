@@ -0,0 +1,77 @@
+package com.gauntletai.agustinbiondi.chatgenius.importer;
+
+import com.gauntletai.agustinbiondi.chatgenius.importer.SlackImporter.MappedUser;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlackImporterTest {
+
+	private static final Map<String, MappedUser> USERS = Map.of("U1", new MappedUser("slack:U1", "ana"));
+
+	@Test
+	void turnsMentionsIntoNames() {
+		assertThat(content("hi <@U1>, <@U2|bob> and <@U3>")).isEqualTo("hi @ana, @bob and @U3");
+		assertThat(content("see <#C1|general> or <#C2>")).isEqualTo("see #general or #C2");
+		assertThat(content("<!here> <!subteam^S1|devs>")).isEqualTo("@here @devs");
+	}
+
+	@Test
+	void keepsLinkLabelsOrUrls() {
+		assertThat(content("docs at <https://example.com/a|the wiki> and <https://example.com/b>"))
+				.isEqualTo("docs at the wiki and https://example.com/b");
+		assertThat(content("<mailto:ana@example.com|>")).isEqualTo("mailto:ana@example.com");
+	}
+
+	@Test
+	void restoresEscapedCharactersOnce() {
+		assertThat(content("a &lt;b&gt; &amp;&amp; c")).isEqualTo("a <b> && c");
+		// An escaped entity in the original text stays an entity
+		assertThat(content("&amp;lt;")).isEqualTo("&lt;");
+	}
+
+	@Test
+	void keepsDollarSignsAndBackslashesInReplacements() {
+		assertThat(content("<https://example.com|costs $1 \\o/>")).isEqualTo("costs $1 \\o/");
+	}
+
+	@Test
+	void stripsWhitespaceAndNulCharacters() {
+		assertThat(content("  hello\u0000 world \n")).isEqualTo("hello world");
+		assertThat(content(null)).isEmpty();
+	}
+
+	@Test
+	void namesFilesOfMessagesWithoutText() {
+		assertThat(SlackImporter.content(message("  ", List.of("a.png", "b.pdf")), USERS))
+				.isEqualTo("[file] a.png, b.pdf");
+		assertThat(SlackImporter.content(message("caption", List.of("a.png")), USERS)).isEqualTo("caption");
+	}
+
+	@Test
+	void parsesSlackTimestampsToTheMicrosecond() {
+		assertThat(SlackImporter.instantOf("1577869200.000100"))
+				.isEqualTo(Instant.ofEpochSecond(1577869200, 100_000));
+		assertThat(SlackImporter.instantOf("1577869200.5")).isEqualTo(Instant.ofEpochSecond(1577869200, 500_000_000));
+		assertThat(SlackImporter.instantOf("1577869200")).isEqualTo(Instant.ofEpochSecond(1577869200));
+		assertThat(SlackImporter.instantOf("1577869200.123456789999"))
+				.isEqualTo(Instant.ofEpochSecond(1577869200, 123_456_789));
+	}
+
+	@Test
+	void ordersTimestampsLikeTheirStrings() {
+		assertThat(SlackImporter.instantOf("1577869200.000099")).isBefore(SlackImporter.instantOf("1577869200.000100"));
+	}
+
+	private static String content(String text) {
+		return SlackImporter.content(message(text, List.of()), USERS);
+	}
+
+	private static SlackArchive.Message message(String text, List<String> fileNames) {
+		return new SlackArchive.Message("1577869200.000100", null, "U1", null, text, null, fileNames, List.of());
+	}
+}
@@ -0,0 +1,90 @@
+package com.gauntletai.agustinbiondi.chatgenius.repository;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bulk membership inserts against a real Postgres, connected with the same
+ * reWriteBatchedInserts setting as the application. Skipped unless TEST_DB_URL points at a
+ * local database, see {@link MessageSearchIntegrationTest}.
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_DB_URL", matches = ".+")
+class ChannelMembershipInsertIntegrationTest {
+
+	private static final String SCHEMA = "membership_test_" + Long.toHexString(System.nanoTime());
+
+	private static SingleConnectionDataSource dataSource;
+	private static JdbcTemplate jdbcTemplate;
+	private static ChannelMembershipRepositoryCustomImpl repository;
+
+	@BeforeAll
+	static void createSchema() {
+		dataSource = new SingleConnectionDataSource(System.getenv("TEST_DB_URL"),
+				env("TEST_DB_USER", "postgres"), env("TEST_DB_PASSWORD", "postgres"), true);
+		Properties properties = new Properties();
+		properties.setProperty("reWriteBatchedInserts", "true");
+		dataSource.setConnectionProperties(properties);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		repository = new ChannelMembershipRepositoryCustomImpl(jdbcTemplate);
+		// Smaller than the inserts below, so they span several statements
+		ReflectionTestUtils.setField(repository, "batchSize", 2);
+
+		jdbcTemplate.execute("CREATE SCHEMA " + SCHEMA);
+		jdbcTemplate.execute("SET search_path TO " + SCHEMA);
+		jdbcTemplate.execute("CREATE TABLE channel_memberships (id UUID PRIMARY KEY, channel_id UUID NOT NULL, " +
+				"user_id VARCHAR(255) NOT NULL, joined_at TIMESTAMP, unread_count INT NOT NULL DEFAULT 0, " +
+				"UNIQUE (channel_id, user_id))");
+	}
+
+	@AfterAll
+	static void dropSchema() {
+		if (jdbcTemplate != null) {
+			jdbcTemplate.execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+			dataSource.destroy();
+		}
+	}
+
+	@Test
+	void countsOnlyNewlyCreatedMemberships() {
+		UUID channelId = UUID.randomUUID();
+
+		assertThat(repository.insertMembershipsIgnoringExisting(channelId, List.of("alice", "bob", "carol")))
+				.isEqualTo(3);
+		assertThat(repository.insertMembershipsIgnoringExisting(channelId, List.of("bob", "dave", "alice", "erin", "frank")))
+				.isEqualTo(3);
+		assertThat(repository.insertMembershipsIgnoringExisting(channelId, List.of("alice", "bob")))
+				.isZero();
+
+		assertThat(jdbcTemplate.queryForList(
+				"SELECT user_id FROM channel_memberships WHERE channel_id = ? ORDER BY user_id", String.class, channelId))
+				.containsExactly("alice", "bob", "carol", "dave", "erin", "frank");
+	}
+
+	@Test
+	void leavesOtherChannelsAlone() {
+		UUID first = UUID.randomUUID();
+		UUID second = UUID.randomUUID();
+		repository.insertMembershipsIgnoringExisting(first, List.of("alice", "bob"));
+
+		assertThat(repository.insertMembershipsIgnoringExisting(second, List.of("alice", "bob"))).isEqualTo(2);
+		assertThat(jdbcTemplate.queryForObject(
+				"SELECT count(*) FROM channel_memberships WHERE channel_id IN (?, ?)", Integer.class, first, second))
+				.isEqualTo(4);
+	}
+
+	private static String env(String name, String defaultValue) {
+		String value = System.getenv(name);
+		return value != null && !value.isBlank() ? value : defaultValue;
+	}
+}
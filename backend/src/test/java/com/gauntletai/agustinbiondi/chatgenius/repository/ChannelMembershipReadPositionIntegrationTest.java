@@ -0,0 +1,114 @@
+package com.gauntletai.agustinbiondi.chatgenius.repository;
+
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelMembershipRepositoryCustom.ReadPosition;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Batched last_read_at updates against a real Postgres. Skipped unless TEST_DB_URL points
+ * at a local database, see {@link MessageSearchIntegrationTest}.
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_DB_URL", matches = ".+")
+class ChannelMembershipReadPositionIntegrationTest {
+
+	private static final String SCHEMA = "read_position_test_" + Long.toHexString(System.nanoTime());
+	private static final LocalDateTime NOON = LocalDateTime.parse("2024-01-01T12:00:00");
+
+	private static SingleConnectionDataSource dataSource;
+	private static JdbcTemplate jdbcTemplate;
+	private static ChannelMembershipRepositoryCustomImpl repository;
+
+	@BeforeAll
+	static void createSchema() {
+		dataSource = new SingleConnectionDataSource(System.getenv("TEST_DB_URL"),
+				env("TEST_DB_USER", "postgres"), env("TEST_DB_PASSWORD", "postgres"), true);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		repository = new ChannelMembershipRepositoryCustomImpl(jdbcTemplate);
+		// Smaller than the updates below, so they span several statements
+		ReflectionTestUtils.setField(repository, "batchSize", 2);
+
+		jdbcTemplate.execute("CREATE SCHEMA " + SCHEMA);
+		jdbcTemplate.execute("SET search_path TO " + SCHEMA);
+		jdbcTemplate.execute("CREATE TABLE channel_memberships (id UUID PRIMARY KEY, channel_id UUID NOT NULL, " +
+				"user_id VARCHAR(255) NOT NULL, last_read_at TIMESTAMP, UNIQUE (channel_id, user_id))");
+	}
+
+	@AfterAll
+	static void dropSchema() {
+		if (jdbcTemplate != null) {
+			jdbcTemplate.execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+			dataSource.destroy();
+		}
+	}
+
+	@Test
+	void persistsEveryPosition() {
+		UUID channelId = UUID.randomUUID();
+		insertMembers(channelId, "alice", "bob", "carol");
+
+		repository.updateLastReadAt(List.of(
+				new ReadPosition(channelId, "alice", NOON),
+				new ReadPosition(channelId, "bob", NOON.plusMinutes(1)),
+				new ReadPosition(channelId, "carol", NOON.plusMinutes(2))));
+
+		assertThat(lastReadAt(channelId, "alice")).isEqualTo(NOON);
+		assertThat(lastReadAt(channelId, "bob")).isEqualTo(NOON.plusMinutes(1));
+		assertThat(lastReadAt(channelId, "carol")).isEqualTo(NOON.plusMinutes(2));
+	}
+
+	@Test
+	void neverMovesAPositionBackwards() {
+		UUID channelId = UUID.randomUUID();
+		insertMembers(channelId, "alice", "bob");
+		repository.updateLastReadAt(List.of(
+				new ReadPosition(channelId, "alice", NOON.plusMinutes(5)),
+				new ReadPosition(channelId, "bob", NOON)));
+
+		repository.updateLastReadAt(List.of(
+				new ReadPosition(channelId, "alice", NOON),
+				new ReadPosition(channelId, "bob", NOON.plusMinutes(5))));
+
+		assertThat(lastReadAt(channelId, "alice")).isEqualTo(NOON.plusMinutes(5));
+		assertThat(lastReadAt(channelId, "bob")).isEqualTo(NOON.plusMinutes(5));
+	}
+
+	@Test
+	void ignoresPositionsOfNonMembers() {
+		UUID channelId = UUID.randomUUID();
+		insertMembers(channelId, "alice");
+
+		repository.updateLastReadAt(List.of(new ReadPosition(channelId, "mallory", NOON)));
+
+		assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM channel_memberships WHERE channel_id = ?",
+				Integer.class, channelId)).isEqualTo(1);
+		assertThat(lastReadAt(channelId, "alice")).isNull();
+	}
+
+	private static void insertMembers(UUID channelId, String... userIds) {
+		for (String userId : userIds) {
+			jdbcTemplate.update("INSERT INTO channel_memberships (id, channel_id, user_id) VALUES (?, ?, ?)",
+					UUID.randomUUID(), channelId, userId);
+		}
+	}
+
+	private static LocalDateTime lastReadAt(UUID channelId, String userId) {
+		return jdbcTemplate.queryForObject("SELECT last_read_at FROM channel_memberships " +
+				"WHERE channel_id = ? AND user_id = ?", LocalDateTime.class, channelId, userId);
+	}
+
+	private static String env(String name, String defaultValue) {
+		String value = System.getenv(name);
+		return value != null && !value.isBlank() ? value : defaultValue;
+	}
+}
@@ -0,0 +1,149 @@
+package com.gauntletai.agustinbiondi.chatgenius.repository;
+
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepositoryCustom.ImportedMessage;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepositoryCustom.ImportedReaction;
+import com.gauntletai.agustinbiondi.chatgenius.util.UuidV7;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * COPY-based archive import against a real Postgres. The staging tables are dropped on
+ * commit, so every call runs in its own transaction like a SlackImporter batch. Skipped
+ * unless TEST_DB_URL points at a local database, see {@link MessageSearchIntegrationTest}.
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_DB_URL", matches = ".+")
+class MessageImportIntegrationTest {
+
+	private static final String SCHEMA = "import_copy_test_" + Long.toHexString(System.nanoTime());
+	private static final Instant START = Instant.parse("2020-01-01T09:00:00Z");
+
+	private static SingleConnectionDataSource dataSource;
+	private static JdbcTemplate jdbcTemplate;
+	private static TransactionTemplate transactionTemplate;
+	private static MessageRepositoryCustomImpl repository;
+
+	@BeforeAll
+	static void createSchema() {
+		dataSource = new SingleConnectionDataSource(System.getenv("TEST_DB_URL"),
+				env("TEST_DB_USER", "postgres"), env("TEST_DB_PASSWORD", "postgres"), true);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		repository = new MessageRepositoryCustomImpl(jdbcTemplate);
+
+		jdbcTemplate.execute("CREATE SCHEMA " + SCHEMA);
+		jdbcTemplate.execute("SET search_path TO " + SCHEMA);
+		jdbcTemplate.execute("CREATE TABLE channels (id UUID PRIMARY KEY, " +
+				"message_seq_reserved BIGINT NOT NULL DEFAULT 0)");
+		jdbcTemplate.execute("CREATE TABLE messages (id UUID PRIMARY KEY, channel_id UUID NOT NULL, " +
+				"created_by VARCHAR(255) NOT NULL, parent_id UUID, type VARCHAR(255), content TEXT NOT NULL, " +
+				"created_at TIMESTAMPTZ NOT NULL, edited_at TIMESTAMPTZ, is_edited BOOLEAN NOT NULL, " +
+				"seq BIGINT NOT NULL, UNIQUE (channel_id, seq))");
+		jdbcTemplate.execute("CREATE TABLE reactions (id UUID PRIMARY KEY, emoji VARCHAR(32) NOT NULL, " +
+				"user_id VARCHAR(255) NOT NULL, message_id UUID NOT NULL, UNIQUE (message_id, user_id, emoji))");
+	}
+
+	@AfterAll
+	static void dropSchema() {
+		if (jdbcTemplate != null) {
+			jdbcTemplate.execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+			dataSource.destroy();
+		}
+	}
+
+	@Test
+	void rerunInsertsNothing() {
+		UUID channelId = channel();
+		ImportedMessage first = message(0, null, "first, with \"quotes\", commas\nand a newline");
+		ImportedMessage second = message(1, first.id(), "a reply");
+		List<ImportedReaction> reactions = List.of(
+				new ImportedReaction(first.id(), "slack:U1", ":tada:"),
+				new ImportedReaction(second.id(), "slack:U2", ":+1:"));
+
+		assertThat(copy(channelId, List.of(first, second))).isEqualTo(2);
+		assertThat(copyReactions(reactions)).isEqualTo(2);
+		assertThat(copy(channelId, List.of(first, second))).isZero();
+		assertThat(copyReactions(reactions)).isZero();
+
+		assertThat(jdbcTemplate.queryForObject("SELECT message_seq_reserved FROM channels WHERE id = ?",
+				Long.class, channelId)).isEqualTo(2);
+		assertThat(jdbcTemplate.queryForObject("SELECT content FROM messages WHERE id = ?", String.class, first.id()))
+				.isEqualTo(first.content());
+	}
+
+	@Test
+	void numbersOnlyNewMessagesInArchiveOrder() {
+		UUID channelId = channel();
+		ImportedMessage first = message(0, null, "first");
+		ImportedMessage second = message(1, null, "second");
+		ImportedMessage third = message(2, null, "third");
+		copy(channelId, List.of(first, third));
+
+		assertThat(copy(channelId, List.of(first, second, third))).isEqualTo(1);
+		assertThat(seqs(channelId)).containsExactly(Map.entry(first.id(), 1L), Map.entry(third.id(), 2L),
+				Map.entry(second.id(), 3L));
+	}
+
+	@Test
+	void repliesToMissingParentsBecomeTopLevel() {
+		UUID channelId = channel();
+		ImportedMessage parent = message(0, null, "parent in an earlier batch");
+		ImportedMessage inBatchParent = message(1, null, "parent in the same batch");
+		copy(channelId, List.of(parent));
+
+		ImportedMessage toEarlier = message(2, parent.id(), "reply to the earlier batch");
+		ImportedMessage toSameBatch = message(3, inBatchParent.id(), "reply within the batch");
+		ImportedMessage orphan = message(4, UUID.randomUUID(), "reply to a message outside the archive");
+		copy(channelId, List.of(inBatchParent, toEarlier, toSameBatch, orphan));
+
+		assertThat(parentOf(toEarlier)).isEqualTo(parent.id());
+		assertThat(parentOf(toSameBatch)).isEqualTo(inBatchParent.id());
+		assertThat(parentOf(orphan)).isNull();
+	}
+
+	private static int copy(UUID channelId, List<ImportedMessage> messages) {
+		return transactionTemplate.execute(status -> repository.copyImportedMessages(channelId, messages));
+	}
+
+	private static int copyReactions(List<ImportedReaction> reactions) {
+		return transactionTemplate.execute(status -> repository.copyImportedReactions(reactions));
+	}
+
+	private static UUID channel() {
+		UUID channelId = UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO channels (id) VALUES (?)", channelId);
+		return channelId;
+	}
+
+	private static ImportedMessage message(int minute, UUID parentId, String content) {
+		Instant createdAt = START.plusSeconds(minute * 60L);
+		return new ImportedMessage(UuidV7.derive(createdAt.toEpochMilli(), "test:" + UUID.randomUUID()),
+				"slack:U1", parentId, "TEXT", content, createdAt, null);
+	}
+
+	private static UUID parentOf(ImportedMessage message) {
+		return jdbcTemplate.queryForObject("SELECT parent_id FROM messages WHERE id = ?", UUID.class, message.id());
+	}
+
+	private static List<Map.Entry<UUID, Long>> seqs(UUID channelId) {
+		return jdbcTemplate.query("SELECT id, seq FROM messages WHERE channel_id = ? ORDER BY seq",
+				(rs, rowNum) -> Map.entry(rs.getObject("id", UUID.class), rs.getLong("seq")), channelId);
+	}
+
+	private static String env(String name, String defaultValue) {
+		String value = System.getenv(name);
+		return value != null && !value.isBlank() ? value : defaultValue;
+	}
+}
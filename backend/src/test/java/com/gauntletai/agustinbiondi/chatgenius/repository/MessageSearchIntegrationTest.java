@@ -0,0 +1,164 @@
+package com.gauntletai.agustinbiondi.chatgenius.repository;
+
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepositoryCustom.IndexableMessage;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepositoryCustom.SearchHit;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepositoryCustom.SearchQuery;
+import com.gauntletai.agustinbiondi.chatgenius.util.UuidV7;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the full-text search query against a real Postgres, in a throwaway schema that mirrors
+ * the columns it reads. Skipped unless TEST_DB_URL points at a local database, e.g.
+ * <pre>
+ * TEST_DB_URL=jdbc:postgresql://localhost:5432/chatgenius ./gradlew test --tests '*MessageSearchIntegrationTest'
+ * </pre>
+ * TEST_DB_USER and TEST_DB_PASSWORD are optional.
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_DB_URL", matches = ".+")
+class MessageSearchIntegrationTest {
+
+	private static final String SCHEMA = "search_test_" + Long.toHexString(System.nanoTime());
+
+	private static SingleConnectionDataSource dataSource;
+	private static JdbcTemplate jdbcTemplate;
+	private static MessageRepositoryCustomImpl repository;
+
+	private static final UUID GENERAL = UUID.randomUUID();
+	private static final UUID SECRET = UUID.randomUUID();
+	private static final UUID DELETED = UUID.randomUUID();
+
+	@BeforeAll
+	static void createSchema() {
+		dataSource = new SingleConnectionDataSource(System.getenv("TEST_DB_URL"),
+				env("TEST_DB_USER", "postgres"), env("TEST_DB_PASSWORD", "postgres"), true);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		repository = new MessageRepositoryCustomImpl(jdbcTemplate);
+
+		jdbcTemplate.execute("CREATE SCHEMA " + SCHEMA);
+		jdbcTemplate.execute("SET search_path TO " + SCHEMA);
+		jdbcTemplate.execute("CREATE TABLE users (user_id VARCHAR(255) PRIMARY KEY, username VARCHAR(255) NOT NULL)");
+		jdbcTemplate.execute("CREATE TABLE channels (id UUID PRIMARY KEY, name VARCHAR(255) NOT NULL, " +
+				"type VARCHAR(32) NOT NULL, deleted_at TIMESTAMPTZ)");
+		jdbcTemplate.execute("CREATE TABLE channel_memberships (channel_id UUID NOT NULL, user_id VARCHAR(255) NOT NULL)");
+		jdbcTemplate.execute("CREATE TABLE messages (id UUID PRIMARY KEY, channel_id UUID NOT NULL, " +
+				"created_by VARCHAR(255) NOT NULL, parent_id UUID, content TEXT NOT NULL, " +
+				"created_at TIMESTAMPTZ NOT NULL, seq BIGINT NOT NULL)");
+		// Same definitions as db/schema.sql
+		jdbcTemplate.execute("ALTER TABLE messages ADD COLUMN content_tsv tsvector " +
+				"GENERATED ALWAYS AS (to_tsvector('english', content)) STORED");
+		jdbcTemplate.execute("CREATE INDEX ON messages USING GIN (content_tsv)");
+
+		jdbcTemplate.update("INSERT INTO users VALUES ('alice', 'Alice'), ('bob', 'Bob'), ('carol', 'Carol')");
+		jdbcTemplate.update("INSERT INTO channels VALUES (?, 'general', 'PUBLIC', NULL), (?, 'secret', 'PRIVATE', NULL), " +
+				"(?, 'old', 'PUBLIC', now())", GENERAL, SECRET, DELETED);
+		jdbcTemplate.update("INSERT INTO channel_memberships VALUES (?, 'bob')", SECRET);
+
+		long seq = 0;
+		for (int i = 0; i < 25; i++) {
+			insert(GENERAL, i % 2 == 0 ? "alice" : "bob", "Deploying the release build number " + i, ++seq);
+		}
+		insert(GENERAL, "alice", "Release notes <script>alert(1)</script> are ready", ++seq);
+		insert(SECRET, "bob", "The secret release date is Friday", 1);
+		insert(DELETED, "alice", "Release plan for a deleted channel", 1);
+	}
+
+	@AfterAll
+	static void dropSchema() {
+		if (jdbcTemplate != null) {
+			jdbcTemplate.execute("DROP SCHEMA " + SCHEMA + " CASCADE");
+			dataSource.destroy();
+		}
+	}
+
+	@Test
+	void onlyReturnsMessagesFromAccessibleChannels() {
+		List<SearchHit> forCarol = search("carol", "release", null, null, 100);
+		assertThat(forCarol).hasSize(26).allMatch(hit -> hit.channelId().equals(GENERAL));
+
+		List<SearchHit> forBob = search("bob", "release", null, null, 100);
+		assertThat(forBob).hasSize(27).anyMatch(hit -> hit.channelId().equals(SECRET));
+	}
+
+	@Test
+	void appliesChannelAndAuthorFilters() {
+		assertThat(search("bob", "release", SECRET, null, 100))
+				.extracting(SearchHit::channelName).containsOnly("secret");
+		assertThat(search("carol", "release", GENERAL, "alice", 100))
+				.hasSize(14).allMatch(hit -> hit.userId().equals("alice"));
+	}
+
+	@Test
+	void keysetPagesCoverEveryHitOnce() {
+		List<SearchHit> all = search("carol", "deploying build", null, null, 100);
+		assertThat(all).hasSize(25);
+
+		List<UUID> paged = new ArrayList<>();
+		Float afterRank = null;
+		UUID afterId = null;
+		while (true) {
+			List<SearchHit> page = repository.searchMessages(
+					new SearchQuery("carol", "deploying build", null, null, afterRank, afterId, 10));
+			page.forEach(hit -> paged.add(hit.messageId()));
+			if (page.size() < 10) {
+				break;
+			}
+			afterRank = page.get(page.size() - 1).rank();
+			afterId = page.get(page.size() - 1).messageId();
+		}
+		assertThat(paged).containsExactlyElementsOf(all.stream().map(SearchHit::messageId).toList());
+	}
+
+	@Test
+	void highlightsMatchesInEscapedSnippets() {
+		SearchHit hit = search("carol", "notes", null, null, 10).get(0);
+		assertThat(hit.snippet()).contains("<mark>notes</mark>").contains("&lt;script&gt;").doesNotContain("<script>");
+	}
+
+	@Test
+	void readsIndexHitsBackFromLiveChannelsOnly() {
+		UUID secretMessage = messageId(SECRET);
+		UUID deletedChannelMessage = messageId(DELETED);
+
+		List<IndexableMessage> found = repository.findIndexableMessages(
+				List.of(secretMessage, deletedChannelMessage, UUID.randomUUID()));
+
+		assertThat(found).singleElement().satisfies(message -> {
+			assertThat(message.id()).isEqualTo(secretMessage);
+			assertThat(message.username()).isEqualTo("Bob");
+			assertThat(message.content()).isEqualTo("The secret release date is Friday");
+			assertThat(message.seq()).isEqualTo(1);
+		});
+		assertThat(repository.findIndexableMessages(List.of())).isEmpty();
+	}
+
+	private static UUID messageId(UUID channelId) {
+		return jdbcTemplate.queryForObject("SELECT id FROM messages WHERE channel_id = ?", UUID.class, channelId);
+	}
+
+	private static List<SearchHit> search(String userId, String text, UUID channelId, String authorId, int limit) {
+		return repository.searchMessages(new SearchQuery(userId, text, channelId, authorId, null, null, limit));
+	}
+
+	private static void insert(UUID channelId, String userId, String content, long seq) {
+		jdbcTemplate.update("INSERT INTO messages (id, channel_id, created_by, content, created_at, seq) " +
+				"VALUES (?, ?, ?, ?, ?, ?)", UuidV7.generate(), channelId, userId, content, Timestamp.from(Instant.now()), seq);
+	}
+
+	private static String env(String name, String defaultValue) {
+		String value = System.getenv(name);
+		return value != null && !value.isBlank() ? value : defaultValue;
+	}
+}
@@ -0,0 +1,114 @@
+package com.gauntletai.agustinbiondi.chatgenius.search;
+
+import com.gauntletai.agustinbiondi.chatgenius.model.Channel;
+import com.gauntletai.agustinbiondi.chatgenius.model.User;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.UserRepository;
+import com.gauntletai.agustinbiondi.chatgenius.search.PrefixIndex.Suggestion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AutocompleteIndexTest {
+
+	private final UUID general = UUID.randomUUID();
+	private final UUID secret = UUID.randomUUID();
+	private final UUID direct = UUID.randomUUID();
+
+	private ReadableChannels readableChannels;
+	private AutocompleteIndex index;
+
+	@BeforeEach
+	void indexChannels() {
+		readableChannels = mock(ReadableChannels.class);
+		when(readableChannels.of("alice")).thenReturn(Set.of(general, secret));
+		when(readableChannels.of("bob")).thenReturn(Set.of(general));
+		index = new AutocompleteIndex(null, null, readableChannels);
+
+		index.putChannel(general, "general", Channel.Type.PUBLIC);
+		index.putChannel(secret, "general-secret", Channel.Type.PRIVATE);
+		index.putChannel(direct, "general-dm", Channel.Type.DIRECT_MESSAGE);
+	}
+
+	@Test
+	void suggestsPrivateChannelsToMembersOnly() {
+		assertThat(index.channels("alice", "gen", 10)).extracting(Suggestion::value).containsExactly(general, secret);
+		assertThat(index.channels("bob", "gen", 10)).extracting(Suggestion::value).containsExactly(general);
+	}
+
+	@Test
+	void looksUpMembershipOnlyForPrivateCandidates() {
+		index.putChannel(UUID.randomUUID(), "random", Channel.Type.PUBLIC);
+
+		assertThat(index.channels("bob", "ran", 10)).hasSize(1);
+		verify(readableChannels, never()).of(anyString());
+	}
+
+	@Test
+	void forgetsRemovedChannels() {
+		index.removeChannel(secret);
+
+		assertThat(index.channels("alice", "gen", 10)).extracting(Suggestion::value).containsExactly(general);
+		assertThat(index.channelType(secret)).isNull();
+		assertThat(index.getIndexedChannels()).isEqualTo(1);
+	}
+
+	@Test
+	void loadDoesNotBringBackEntriesRemovedWhileItRan() {
+		UserRepository userRepository = mock(UserRepository.class);
+		ChannelRepository channelRepository = mock(ChannelRepository.class);
+		AutocompleteIndex loading = new AutocompleteIndex(userRepository, channelRepository, readableChannels);
+		UUID deleted = UUID.randomUUID();
+		// Each snapshot is read before the removal it still contains
+		when(userRepository.findAllByDeletedAtIsNull()).thenAnswer(invocation -> {
+			List<User> snapshot = List.of(user("user-1", "alice"), user("user-2", "alicia"));
+			loading.removeUser("user-2");
+			return snapshot;
+		});
+		when(channelRepository.findAll()).thenAnswer(invocation -> {
+			List<Channel> snapshot = List.of(channel(general, "general"), channel(deleted, "general-old"));
+			loading.removeChannel(deleted);
+			return snapshot;
+		});
+
+		loading.load();
+
+		assertThat(loading.users("ali", 10)).extracting(Suggestion::value).containsExactly("user-1");
+		assertThat(loading.channels("alice", "gen", 10)).extracting(Suggestion::value).containsExactly(general);
+		assertThat(loading.channelType(deleted)).isNull();
+
+		// Once loaded, a removed entry can come back
+		loading.putUser("user-2", "alicia");
+		assertThat(loading.users("ali", 10)).hasSize(2);
+	}
+
+	@Test
+	void neverSuggestsTheDeletedUser() {
+		index.putUser("user-1", "Deleted user fan");
+		index.putUser(User.DELETED_USER_ID, "Deleted user");
+
+		assertThat(index.users("deleted", 10)).extracting(Suggestion::value).containsExactly("user-1");
+
+		index.removeUser("user-1");
+
+		assertThat(index.users("deleted", 10)).isEmpty();
+	}
+
+	private static User user(String userId, String username) {
+		return User.builder().userId(userId).username(username).build();
+	}
+
+	private static Channel channel(UUID channelId, String name) {
+		return Channel.builder().id(channelId).name(name).type(Channel.Type.PUBLIC).build();
+	}
+}
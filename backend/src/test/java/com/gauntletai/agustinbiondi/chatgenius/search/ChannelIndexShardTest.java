@@ -0,0 +1,142 @@
+package com.gauntletai.agustinbiondi.chatgenius.search;
+
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepositoryCustom.IndexableMessage;
+import com.gauntletai.agustinbiondi.chatgenius.search.ChannelIndexShard.Match;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChannelIndexShardTest {
+
+	private static final UUID CHANNEL = UUID.randomUUID();
+	private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+	private ChannelIndexShard shard;
+	private IndexableMessage deploy;
+	private IndexableMessage notes;
+	private IndexableMessage relay;
+	private IndexableMessage reversed;
+
+	@BeforeEach
+	void indexMessages() {
+		shard = new ChannelIndexShard();
+		deploy = message(1, "alice", "Deploying the release build now");
+		notes = message(2, "bob", "Release notes: the release build is green, release it");
+		relay = message(3, "alice", "The relay station is down");
+		reversed = message(4, "bob", "Build the release before lunch");
+		for (IndexableMessage message : List.of(deploy, notes, relay, reversed)) {
+			assertThat(shard.add(message)).isTrue();
+		}
+	}
+
+	@Test
+	void matchesWholeTermsNewestFirst() {
+		assertThat(ids(search("release "))).containsExactly(reversed.id(), notes.id(), deploy.id());
+		assertThat(search("releas ")).isEmpty();
+		assertThat(search("missing ")).isEmpty();
+	}
+
+	@Test
+	void requiresEveryClause() {
+		assertThat(ids(search("release green "))).containsExactly(notes.id());
+		assertThat(search("release relay ")).isEmpty();
+	}
+
+	@Test
+	void expandsPrefixes() {
+		assertThat(ids(search("rel"))).containsExactly(reversed.id(), relay.id(), notes.id(), deploy.id());
+		assertThat(ids(search("dep* now "))).containsExactly(deploy.id());
+	}
+
+	@Test
+	void scoresByOccurrences() {
+		List<Match> matches = search("release ");
+
+		assertThat(matches).extracting(Match::score).containsExactly(1, 3, 1);
+	}
+
+	@Test
+	void matchesPhrasesInOrderOnly() {
+		assertThat(ids(search("\"release build\""))).containsExactly(notes.id(), deploy.id());
+		assertThat(ids(search("\"build the release\""))).containsExactly(reversed.id());
+		assertThat(search("\"build release\"")).isEmpty();
+		assertThat(search("\"release build now lunch\"")).isEmpty();
+	}
+
+	@Test
+	void matchesPhrasesEndingInAPrefix() {
+		assertThat(ids(search("\"the rel"))).containsExactly(reversed.id(), relay.id(), notes.id(), deploy.id());
+		assertThat(ids(search("\"release bu"))).containsExactly(notes.id(), deploy.id());
+		assertThat(ids(search("\"rel* station\""))).containsExactly(relay.id());
+	}
+
+	@Test
+	void limitsToTheNewest() {
+		assertThat(ids(shard.search(IndexQuery.parse("the "), 2))).containsExactly(reversed.id(), relay.id());
+		assertThat(shard.search(IndexQuery.parse("the "), 0)).isEmpty();
+	}
+
+	@Test
+	void ranksByCreationTimeNotInsertionOrder() {
+		// As the startup rebuild does when live messages were indexed first
+		IndexableMessage older = new IndexableMessage(UUID.randomUUID(), CHANNEL, "carol", "carol", null,
+				"An older release", START.minusSeconds(60), 0);
+		shard.add(older);
+
+		assertThat(ids(search("release "))).containsExactly(reversed.id(), notes.id(), deploy.id(), older.id());
+	}
+
+	@Test
+	void ignoresMessagesAlreadyIndexed() {
+		assertThat(shard.add(deploy)).isFalse();
+		assertThat(shard.size()).isEqualTo(4);
+		assertThat(search("deploying ")).hasSize(1);
+	}
+
+	@Test
+	void recognisesMessagesAfterTheIdTableGrows() {
+		List<IndexableMessage> more = new ArrayList<>();
+		for (long seq = 5; seq < 1_000; seq++) {
+			more.add(message(seq, "carol", "message " + seq));
+		}
+		more.forEach(shard::add);
+
+		assertThat(more).allSatisfy(message -> assertThat(shard.add(message)).isFalse());
+		assertThat(shard.add(deploy)).isFalse();
+		assertThat(shard.size()).isEqualTo(999);
+	}
+
+	@Test
+	void keepsSortKeysForEachHit() {
+		assertThat(search("relay ")).singleElement().satisfies(match -> {
+			assertThat(match.createdAt()).isEqualTo(relay.createdAt());
+			assertThat(match.seq()).isEqualTo(3);
+		});
+	}
+
+	@Test
+	void storesEachPostingCompactly() {
+		assertThat(shard.termCount()).isEqualTo(14);
+		// A byte for the doc gap and the count of each of the 22 postings, and one per position
+		assertThat(shard.postingBytes()).isEqualTo(22 * 2 + 24);
+	}
+
+	private List<Match> search(String text) {
+		return shard.search(IndexQuery.parse(text), 10);
+	}
+
+	private static List<UUID> ids(List<Match> matches) {
+		return matches.stream().map(Match::messageId).toList();
+	}
+
+	private static IndexableMessage message(long seq, String userId, String content) {
+		return new IndexableMessage(UUID.randomUUID(), CHANNEL, userId, userId, null, content,
+				START.plusSeconds(seq * 60), seq);
+	}
+}
@@ -0,0 +1,78 @@
+package com.gauntletai.agustinbiondi.chatgenius.search;
+
+import com.gauntletai.agustinbiondi.chatgenius.search.IndexQuery.Clause;
+import com.gauntletai.agustinbiondi.chatgenius.search.IndexQuery.Word;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndexQueryTest {
+
+	@Test
+	void treatsTheWordBeingTypedAsAPrefix() {
+		assertThat(IndexQuery.parse("deploy rel").clauses()).containsExactly(
+				clause(new Word("deploy", false)),
+				clause(new Word("rel", true)));
+		assertThat(IndexQuery.parse("deploy rel ").clauses()).containsExactly(
+				clause(new Word("deploy", false)),
+				clause(new Word("rel", false)));
+	}
+
+	@Test
+	void starMarksAPrefixAnywhere() {
+		assertThat(IndexQuery.parse("dep* release ").clauses()).containsExactly(
+				clause(new Word("dep", true)),
+				clause(new Word("release", false)));
+	}
+
+	@Test
+	void quotesMakeAPhrase() {
+		assertThat(IndexQuery.parse("\"Release Notes\" draft ").clauses()).containsExactly(
+				clause(new Word("release", false), new Word("notes", false)),
+				clause(new Word("draft", false)));
+		// An unclosed quote is a phrase still being typed
+		assertThat(IndexQuery.parse("about \"release no").clauses()).containsExactly(
+				clause(new Word("about", false)),
+				clause(new Word("release", false), new Word("no", true)));
+		assertThat(IndexQuery.parse("\"release no*\" ").clauses()).containsExactly(
+				clause(new Word("release", false), new Word("no", true)));
+	}
+
+	@Test
+	void ignoresEmptyQueriesAndPhrases() {
+		assertThat(IndexQuery.parse("").isEmpty()).isTrue();
+		assertThat(IndexQuery.parse("  ,.; ").isEmpty()).isTrue();
+		assertThat(IndexQuery.parse("\"\" \" \"").isEmpty()).isTrue();
+	}
+
+	@Test
+	void keepsAtMostMaxClauses() {
+		String text = "a b c d e f g h i j k l m n o p q r s t ";
+
+		assertThat(IndexQuery.parse(text).clauses()).hasSize(IndexQuery.MAX_CLAUSES);
+	}
+
+	@Test
+	void highlightsEveryMatchingWordAndEscapesHtml() {
+		IndexQuery query = IndexQuery.parse("rel* b ");
+
+		assertThat(query.highlight("<b>Release</b> relay & more", 200))
+				.isEqualTo("&lt;<mark>b</mark>&gt;<mark>Release</mark>&lt;/<mark>b</mark>&gt; <mark>relay</mark> &amp; more");
+	}
+
+	@Test
+	void cutsLongContentAroundTheFirstMatch() {
+		String content = "filler ".repeat(40) + "the release happened " + "tail ".repeat(40);
+
+		String snippet = IndexQuery.parse("release ").highlight(content, 60);
+
+		assertThat(snippet).startsWith("…").endsWith("…").contains("<mark>release</mark>");
+		assertThat(snippet.replace("<mark>", "").replace("</mark>", "")).hasSizeLessThanOrEqualTo(62);
+	}
+
+	private static Clause clause(Word... words) {
+		return new Clause(List.of(words));
+	}
+}
@@ -0,0 +1,134 @@
+package com.gauntletai.agustinbiondi.chatgenius.search;
+
+import com.gauntletai.agustinbiondi.chatgenius.dto.MessageDTO;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepositoryCustom.IndexableMessage;
+import com.gauntletai.agustinbiondi.chatgenius.search.MessageSearchIndex.Hit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MessageSearchIndexTest {
+
+	private final UUID general = UUID.randomUUID();
+	private final UUID random = UUID.randomUUID();
+	private final UUID secret = UUID.randomUUID();
+	// The messages table
+	private final Map<UUID, IndexableMessage> stored = new ConcurrentHashMap<>();
+
+	private MessageSearchIndex index;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void indexMessages() {
+		ReadableChannels readableChannels = mock(ReadableChannels.class);
+		when(readableChannels.of("alice")).thenReturn(Set.of(general, random));
+		MessageRepository messageRepository = mock(MessageRepository.class);
+		when(messageRepository.findIndexableMessages(anyCollection())).thenAnswer(invocation ->
+				invocation.getArgument(0, Collection.class).stream().map(stored::get).filter(m -> m != null).toList());
+		// Everything fits in one page of the rebuild
+		when(messageRepository.scanIndexableMessages(any(), anyLong(), anyInt())).thenAnswer(invocation ->
+				invocation.getArgument(1, Long.class) == Long.MIN_VALUE
+						? stored.values().stream().sorted(Comparator.comparing(IndexableMessage::channelId)
+								.thenComparingLong(IndexableMessage::seq)).toList()
+						: List.of());
+		index = new MessageSearchIndex(messageRepository, readableChannels, true, 100, 3);
+
+		index.index(message(general, 1, "Release notes are up"));
+		index.index(message(random, 1, "Who broke the release?"));
+		index.index(message(secret, 1, "Secret release plans"));
+	}
+
+	@Test
+	void searchesOnlyReadableChannels() {
+		assertThat(search(null)).extracting(hit -> hit.message().channelId()).containsExactlyInAnyOrder(general, random);
+		assertThat(search(secret)).isEmpty();
+		assertThat(search(general)).extracting(Hit::snippet).containsExactly("<mark>Release</mark> notes are up");
+	}
+
+	@Test
+	void readsHitsFromTheDatabase() {
+		IndexableMessage notes = stored.get(new UUID(general.getMostSignificantBits(), 1));
+		// The author was purged and the other message deleted after both were indexed
+		stored.put(notes.id(), new IndexableMessage(notes.id(), general, "deleted-user", "Deleted user", null,
+				notes.content(), notes.createdAt(), notes.seq()));
+		stored.remove(new UUID(random.getMostSignificantBits(), 1));
+
+		assertThat(search(null)).extracting(hit -> hit.message().userId()).containsExactly("deleted-user");
+	}
+
+	@Test
+	void forgetsDeletedChannels() {
+		index.dropChannel(random);
+
+		assertThat(search(null)).extracting(hit -> hit.message().channelId()).containsExactly(general);
+		assertThat(index.getIndexedChannels()).isEqualTo(2);
+		assertThat(index.getIndexedMessages()).isEqualTo(2);
+	}
+
+	@Test
+	void countsEachMessageOnce() {
+		index.index(message(general, 1, "Release notes are up"));
+
+		assertThat(index.getIndexedMessages()).isEqualTo(3);
+	}
+
+	@Test
+	void leavesOversizedChannelsToTheDatabase() {
+		assertThat(index.covers("alice", null)).isFalse();
+		for (long seq = 2; seq <= 4; seq++) {
+			message(general, seq, "Release candidate " + seq);
+		}
+
+		ReflectionTestUtils.invokeMethod(index, "rebuild");
+		index.index(message(general, 5, "Release candidate 5"));
+
+		assertThat(index.covers("alice", random)).isTrue();
+		assertThat(index.covers("alice", general)).isFalse();
+		assertThat(index.covers("alice", null)).isFalse();
+		assertThat(index.getOversizedChannels()).isEqualTo(1);
+		assertThat(index.getIndexedChannels()).isEqualTo(2);
+		assertThat(index.getIndexedMessages()).isEqualTo(2);
+		assertThat(search(general)).isEmpty();
+	}
+
+	private List<Hit> search(UUID channelId) {
+		return index.search("alice", "release ", channelId, 10);
+	}
+
+	/**
+	 * A message as the write pipeline hands it over, after storing it.
+	 */
+	private MessageDTO message(UUID channelId, long seq, String content) {
+		// Ids derived from the channel and seq, so the same message indexed twice is recognised
+		UUID id = new UUID(channelId.getMostSignificantBits(), seq);
+		Instant createdAt = Instant.parse("2024-01-01T00:00:00Z").plusSeconds(seq);
+		stored.put(id, new IndexableMessage(id, channelId, "bob", "bob", null, content, createdAt, seq));
+		return MessageDTO.builder()
+				.id(id)
+				.channelId(channelId)
+				.createdBy("bob")
+				.username("bob")
+				.content(content)
+				.seq(seq)
+				.createdAt(createdAt.toString())
+				.build();
+	}
+}
@@ -0,0 +1,121 @@
+package com.gauntletai.agustinbiondi.chatgenius.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PostingListTest {
+
+	@Test
+	void roundTripsVarintsOfEveryWidth() {
+		// Gaps that need one to five varint bytes
+		int[] docIds = {0, 127, 128 + 127, 16_383 + 255, 2_097_151 + 16_638, Integer.MAX_VALUE};
+		int[][] positions = {{0}, {127, 128}, {0, 16_383, 16_384}, {2_097_151, 2_097_152},
+				{268_435_455, 268_435_456}, {Integer.MAX_VALUE}};
+		PostingList postings = new PostingList();
+		for (int i = 0; i < docIds.length; i++) {
+			postings.add(docIds[i], positions[i], positions[i].length);
+		}
+
+		PostingList.Cursor cursor = postings.cursor();
+		for (int i = 0; i < docIds.length; i++) {
+			assertThat(cursor.next()).isTrue();
+			assertThat(cursor.docId()).isEqualTo(docIds[i]);
+			assertThat(cursor.frequency()).isEqualTo(positions[i].length);
+			assertThat(Arrays.copyOf(cursor.positions(), cursor.frequency())).containsExactly(positions[i]);
+		}
+		assertThat(cursor.next()).isFalse();
+		assertThat(postings.documents()).isEqualTo(docIds.length);
+	}
+
+	@Test
+	void roundTripsRandomPostings() {
+		Random random = new Random(42);
+		List<int[]> expected = new ArrayList<>();
+		PostingList postings = new PostingList();
+		int docId = -1;
+		for (int i = 0; i < 2_000; i++) {
+			docId += 1 + random.nextInt(i % 10 == 0 ? 100_000 : 3);
+			int[] docPositions = new int[1 + random.nextInt(6)];
+			int position = -1;
+			for (int p = 0; p < docPositions.length; p++) {
+				position += 1 + random.nextInt(500);
+				docPositions[p] = position;
+			}
+			postings.add(docId, docPositions, docPositions.length);
+			expected.add(prepend(docId, docPositions));
+		}
+
+		PostingList.Cursor cursor = postings.cursor();
+		for (int[] doc : expected) {
+			assertThat(cursor.next()).isTrue();
+			assertThat(cursor.docId()).isEqualTo(doc[0]);
+			assertThat(Arrays.copyOf(cursor.positions(), cursor.frequency()))
+					.containsExactly(Arrays.copyOfRange(doc, 1, doc.length));
+		}
+		assertThat(cursor.next()).isFalse();
+	}
+
+	@Test
+	void skipsPositionsThatAreNotRead() {
+		PostingList postings = new PostingList();
+		postings.add(3, new int[]{1, 200, 70_000}, 3);
+		postings.add(9, new int[]{5}, 1);
+		postings.add(10, new int[]{300, 301}, 2);
+
+		PostingList.Cursor cursor = postings.cursor();
+		assertThat(cursor.next()).isTrue();
+		assertThat(cursor.next()).isTrue();
+		assertThat(cursor.docId()).isEqualTo(9);
+		assertThat(cursor.next()).isTrue();
+		assertThat(cursor.docId()).isEqualTo(10);
+		assertThat(Arrays.copyOf(cursor.positions(), 2)).containsExactly(300, 301);
+	}
+
+	@Test
+	void usesOnlyTheGivenNumberOfPositions() {
+		PostingList postings = new PostingList();
+		postings.add(0, new int[]{4, 8, 99, 99}, 2);
+
+		PostingList.Cursor cursor = postings.cursor();
+		cursor.next();
+		assertThat(cursor.frequency()).isEqualTo(2);
+		assertThat(Arrays.copyOf(cursor.positions(), 2)).containsExactly(4, 8);
+		assertThat(postings.sizeInBytes()).isEqualTo(4);
+	}
+
+	@Test
+	void cursorSeesOnlyPostingsPresentWhenCreated() {
+		PostingList postings = new PostingList();
+		postings.add(1, new int[]{0}, 1);
+		PostingList.Cursor cursor = postings.cursor();
+		for (int docId = 2; docId < 100; docId++) {
+			postings.add(docId, new int[]{0}, 1);
+		}
+
+		assertThat(cursor.next()).isTrue();
+		assertThat(cursor.next()).isFalse();
+	}
+
+	@Test
+	void rejectsDocIdsOutOfOrder() {
+		PostingList postings = new PostingList();
+		postings.add(5, new int[]{0}, 1);
+
+		assertThatThrownBy(() -> postings.add(5, new int[]{0}, 1)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> postings.add(4, new int[]{0}, 1)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static int[] prepend(int first, int[] rest) {
+		int[] all = new int[rest.length + 1];
+		all[0] = first;
+		System.arraycopy(rest, 0, all, 1, rest.length);
+		return all;
+	}
+}
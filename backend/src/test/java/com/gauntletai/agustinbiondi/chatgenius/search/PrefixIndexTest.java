@@ -0,0 +1,177 @@
+package com.gauntletai.agustinbiondi.chatgenius.search;
+
+import com.gauntletai.agustinbiondi.chatgenius.search.PrefixIndex.Suggestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefixIndexTest {
+
+	@Test
+	void ranksExactThenNameStartThenLaterWord() {
+		PrefixIndex<Integer> index = new PrefixIndex<>();
+		index.put(1, "dev-agustin");
+		index.put(2, "agustin");
+		index.put(3, "Ag");
+		index.put(4, "agatha");
+		index.put(5, "bob");
+
+		List<Suggestion<Integer>> suggestions = index.lookup("AG", 10, value -> true);
+
+		assertThat(suggestions).extracting(Suggestion::name).containsExactly("Ag", "agatha", "agustin", "dev-agustin");
+		assertThat(suggestions).extracting(Suggestion::tier).containsExactly(0, 1, 1, 2);
+	}
+
+	@Test
+	void skipsLaterWordsWhenNameStartsFillTheResult() {
+		PrefixIndex<Integer> index = new PrefixIndex<>();
+		index.put(1, "release team");
+		index.put(2, "release");
+		index.put(3, "the release");
+
+		assertThat(index.lookup("rel", 2, value -> true)).extracting(Suggestion::value).containsExactly(2, 1);
+		assertThat(index.lookup("rel", 3, value -> true)).extracting(Suggestion::value).containsExactly(2, 1, 3);
+	}
+
+	@Test
+	void suggestsANameOnceEvenWhenSeveralWordsMatch() {
+		PrefixIndex<Integer> index = new PrefixIndex<>();
+		index.put(1, "ops ops");
+		index.put(2, "dev ops ops");
+
+		assertThat(index.lookup("op", 10, value -> true)).extracting(Suggestion::value).containsExactly(1, 2);
+	}
+
+	@Test
+	void replacesAndRemovesNames() {
+		PrefixIndex<Integer> index = new PrefixIndex<>();
+		index.put(1, "alpha team");
+		index.put(1, "beta");
+
+		assertThat(index.lookup("al", 10, value -> true)).isEmpty();
+		assertThat(index.lookup("te", 10, value -> true)).isEmpty();
+		assertThat(index.lookup("be", 10, value -> true)).extracting(Suggestion::value).containsExactly(1);
+		assertThat(index.size()).isEqualTo(1);
+
+		index.remove(1);
+		index.remove(2);
+
+		assertThat(index.lookup("be", 10, value -> true)).isEmpty();
+		assertThat(index.size()).isZero();
+	}
+
+	@Test
+	void putAllAbsentKeepsNamesAlreadyPut() {
+		PrefixIndex<Integer> index = new PrefixIndex<>();
+		index.put(1, "renamed");
+
+		index.putAllAbsent(Map.of(1, "stale", 2, "loaded"));
+
+		assertThat(index.lookup("stale", 10, value -> true)).isEmpty();
+		assertThat(index.lookup("renamed", 10, value -> true)).extracting(Suggestion::value).containsExactly(1);
+		assertThat(index.lookup("loaded", 10, value -> true)).extracting(Suggestion::value).containsExactly(2);
+	}
+
+	@Test
+	void appliesTheFilterToCandidates() {
+		PrefixIndex<Integer> index = new PrefixIndex<>();
+		for (int i = 0; i < 10; i++) {
+			index.put(i, "channel-" + i);
+		}
+
+		assertThat(index.lookup("chan", 3, value -> value % 2 == 1)).extracting(Suggestion::value).containsExactly(1, 3, 5);
+	}
+
+	@Test
+	void looksAtMostMaxCandidates() {
+		PrefixIndex<Integer> index = new PrefixIndex<>();
+		Map<Integer, String> names = new HashMap<>();
+		for (int i = 0; i < PrefixIndex.MAX_CANDIDATES + 10; i++) {
+			names.put(i, String.format("user%05d", i));
+		}
+		index.putAllAbsent(names);
+		int last = PrefixIndex.MAX_CANDIDATES - 1;
+
+		assertThat(index.lookup("user", 10, value -> value == last)).extracting(Suggestion::value).containsExactly(last);
+		assertThat(index.lookup("user", 10, value -> value == last + 1)).isEmpty();
+		// A longer prefix starts its window further on
+		assertThat(index.lookup("user020", 10, value -> value == last + 1)).extracting(Suggestion::value)
+				.containsExactly(last + 1);
+	}
+
+	@Test
+	void lookupsNeverMissARenamedValue() throws Exception {
+		PrefixIndex<Integer> index = new PrefixIndex<>();
+		index.put(1, "swap one");
+		AtomicBoolean writing = new AtomicBoolean(true);
+		AtomicReference<List<Suggestion<Integer>>> failure = new AtomicReference<>();
+		CountDownLatch readersDone = new CountDownLatch(4);
+
+		List<Thread> readers = new ArrayList<>();
+		for (int r = 0; r < 4; r++) {
+			readers.add(Thread.ofPlatform().start(() -> {
+				try {
+					while (writing.get() && failure.get() == null) {
+						List<Suggestion<Integer>> found = index.lookup("swap", 10, value -> true);
+						if (found.stream().filter(suggestion -> suggestion.value() == 1).count() != 1) {
+							failure.set(found);
+						}
+					}
+				} finally {
+					readersDone.countDown();
+				}
+			}));
+		}
+		for (int i = 0; i < 20_000; i++) {
+			index.put(1, i % 2 == 0 ? "swap two" : "swap one");
+			index.put(2, "swap other " + i);
+			index.remove(2);
+			index.putAllAbsent(Map.of(3, "swap loaded " + i));
+			index.remove(3);
+		}
+		writing.set(false);
+		readersDone.await();
+
+		assertThat(failure.get()).isNull();
+		assertThat(index.size()).isEqualTo(1);
+	}
+
+	@Test
+	void putAlwaysWinsOverAConcurrentInitialLoad() throws Exception {
+		for (int i = 0; i < 500; i++) {
+			PrefixIndex<Integer> index = new PrefixIndex<>();
+			CountDownLatch start = new CountDownLatch(1);
+			Thread loader = Thread.ofPlatform().start(() -> {
+				await(start);
+				index.putAllAbsent(Map.of(1, "stale", 2, "loaded"));
+			});
+			Thread writer = Thread.ofPlatform().start(() -> {
+				await(start);
+				index.put(1, "fresh");
+			});
+			start.countDown();
+			loader.join();
+			writer.join();
+
+			assertThat(index.lookup("stale", 10, value -> true)).isEmpty();
+			assertThat(index.lookup("fresh", 10, value -> true)).extracting(Suggestion::value).containsExactly(1);
+			assertThat(index.size()).isEqualTo(2);
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
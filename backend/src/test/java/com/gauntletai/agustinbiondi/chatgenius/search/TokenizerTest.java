@@ -0,0 +1,51 @@
+package com.gauntletai.agustinbiondi.chatgenius.search;
+
+import com.gauntletai.agustinbiondi.chatgenius.search.Tokenizer.Token;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenizerTest {
+
+	@Test
+	void splitsOnAnythingButLettersAndDigits() {
+		assertThat(terms("Deploy v2.1 to prod-eu, ASAP!")).containsExactly("deploy", "v2", "1", "to", "prod", "eu", "asap");
+		assertThat(terms("  \t\n ")).isEmpty();
+		assertThat(terms(null)).isEmpty();
+	}
+
+	@Test
+	void recordsTheRangeOfEachToken() {
+		String text = "héllo, wörld";
+		List<Token> tokens = Tokenizer.tokenize(text);
+
+		assertThat(tokens).containsExactly(new Token("héllo", 0, 5), new Token("wörld", 7, 12));
+		assertThat(text.substring(tokens.get(1).start(), tokens.get(1).end())).isEqualTo("wörld");
+	}
+
+	@Test
+	void keepsSupplementaryCharactersWhole() {
+		String text = "𝐀bc 😀 日本語";
+		List<Token> tokens = Tokenizer.tokenize(text);
+
+		// The mathematical bold A is a letter outside the BMP, the emoji is not a letter
+		assertThat(tokens).extracting(Token::term).containsExactly("𝐀bc", "日本語");
+		assertThat(tokens.get(0).end()).isEqualTo(4);
+	}
+
+	@Test
+	void truncatesLongTermsButNotTheirRange() {
+		String text = "x".repeat(Tokenizer.MAX_TERM_LENGTH + 10) + " end";
+		List<Token> tokens = Tokenizer.tokenize(text);
+
+		assertThat(tokens.get(0).term()).hasSize(Tokenizer.MAX_TERM_LENGTH);
+		assertThat(tokens.get(0).end()).isEqualTo(Tokenizer.MAX_TERM_LENGTH + 10);
+		assertThat(tokens.get(1).term()).isEqualTo("end");
+	}
+
+	private static List<String> terms(String text) {
+		return Tokenizer.tokenize(text).stream().map(Token::term).toList();
+	}
+}
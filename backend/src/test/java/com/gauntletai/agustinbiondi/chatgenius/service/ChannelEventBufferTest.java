@@ -0,0 +1,132 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.gauntletai.agustinbiondi.chatgenius.dto.MessageDTO;
+import com.gauntletai.agustinbiondi.chatgenius.service.ChannelEventBuffer.BufferedEvent;
+import com.gauntletai.agustinbiondi.chatgenius.service.ChannelEventBuffer.EventType;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChannelEventBufferTest {
+
+	private final UUID channelId = UUID.randomUUID();
+
+	@Test
+	void returnsEventsAfterTheCursor() {
+		ChannelEventBuffer buffer = new ChannelEventBuffer(new ResourceVersionRegistry(), 10, 10);
+		buffer.recordMessageCreated(message(channelId, 1));
+		long cursor = buffer.getLastEventId();
+		MessageDTO second = message(channelId, 2);
+		buffer.recordMessageCreated(second);
+		buffer.recordReactionsChanged(channelId, second.getId());
+
+		List<BufferedEvent> events = buffer.eventsSince(channelId, buffer.getEpoch(), cursor).orElseThrow();
+
+		assertThat(events).extracting(BufferedEvent::type)
+				.containsExactly(EventType.MESSAGE_CREATED, EventType.REACTIONS_CHANGED);
+		assertThat(events).extracting(BufferedEvent::messageId).containsOnly(second.getId());
+		assertThat(buffer.eventsSince(channelId, buffer.getEpoch(), buffer.getLastEventId())).contains(List.of());
+	}
+
+	@Test
+	void sharesTheProcessEpochOfTheETags() {
+		ResourceVersionRegistry resourceVersions = new ResourceVersionRegistry();
+
+		assertThat(new ChannelEventBuffer(resourceVersions, 10, 10).getEpoch()).isEqualTo(resourceVersions.getEpoch());
+		assertThat(resourceVersions.channelETag(channelId)).contains("-" + resourceVersions.getEpoch() + "-");
+	}
+
+	@Test
+	void cannotAnswerCursorsOfAnotherEpoch() {
+		ChannelEventBuffer buffer = new ChannelEventBuffer(new ResourceVersionRegistry(), 10, 10);
+		buffer.recordMessageCreated(message(channelId, 1));
+
+		assertThat(buffer.eventsSince(channelId, "other", 0)).isEmpty();
+		assertThat(buffer.eventsSince(channelId, null, 0)).isEmpty();
+		assertThat(buffer.getMisses()).isEqualTo(2);
+	}
+
+	@Test
+	void coversOnlyCursorsAfterTheNewestDroppedEvent() {
+		ChannelEventBuffer buffer = new ChannelEventBuffer(new ResourceVersionRegistry(), 3, 10);
+		for (long seq = 1; seq <= 5; seq++) {
+			buffer.recordMessageCreated(message(channelId, seq));
+		}
+
+		// Events 1 and 2 were dropped; a cursor at 2 still has everything after it
+		assertThat(buffer.eventsSince(channelId, buffer.getEpoch(), 0)).isEmpty();
+		assertThat(buffer.eventsSince(channelId, buffer.getEpoch(), 1)).isEmpty();
+		assertThat(buffer.eventsSince(channelId, buffer.getEpoch(), 2).orElseThrow())
+				.extracting(event -> event.message().getSeq()).containsExactly(3L, 4L, 5L);
+	}
+
+	@Test
+	void channelsWithoutLogsAreCompleteOnlySinceTheLastClear() {
+		ChannelEventBuffer buffer = new ChannelEventBuffer(new ResourceVersionRegistry(), 10, 2);
+		UUID other = UUID.randomUUID();
+		UUID third = UUID.randomUUID();
+		UUID quiet = UUID.randomUUID();
+
+		assertThat(buffer.eventsSince(quiet, buffer.getEpoch(), 0)).contains(List.of());
+
+		buffer.recordMessageCreated(message(channelId, 1));
+		buffer.recordMessageCreated(message(other, 1));
+		long beforeClear = buffer.getLastEventId();
+		// A third channel clears every log
+		buffer.recordMessageCreated(message(third, 1));
+
+		assertThat(buffer.eventsSince(channelId, buffer.getEpoch(), 0)).isEmpty();
+		assertThat(buffer.eventsSince(quiet, buffer.getEpoch(), 0)).isEmpty();
+		assertThat(buffer.eventsSince(quiet, buffer.getEpoch(), beforeClear)).contains(List.of());
+		assertThat(buffer.eventsSince(third, buffer.getEpoch(), beforeClear).orElseThrow()).hasSize(1);
+	}
+
+	@Test
+	void invalidatedChannelsFallBackForEveryEarlierCursor() {
+		ChannelEventBuffer buffer = new ChannelEventBuffer(new ResourceVersionRegistry(), 10, 10);
+		buffer.recordMessageCreated(message(channelId, 1));
+		long newest = buffer.getLastEventId();
+
+		buffer.invalidateChannel(channelId);
+
+		assertThat(buffer.eventsSince(channelId, buffer.getEpoch(), newest)).isEmpty();
+		assertThat(buffer.eventsSince(channelId, buffer.getEpoch(), buffer.getLastEventId())).contains(List.of());
+
+		buffer.recordMessageCreated(message(channelId, 2));
+
+		assertThat(buffer.eventsSince(channelId, buffer.getEpoch(), newest + 1).orElseThrow()).hasSize(1);
+	}
+
+	@Test
+	void invalidatesOnlyOnceTheTransactionCommits() {
+		ChannelEventBuffer buffer = new ChannelEventBuffer(new ResourceVersionRegistry(), 10, 10);
+		buffer.recordMessageCreated(message(channelId, 1));
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			buffer.invalidateChannel(channelId);
+			assertThat(buffer.eventsSince(channelId, buffer.getEpoch(), 0)).isPresent();
+
+			TransactionSynchronizationUtils.triggerAfterCommit();
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		assertThat(buffer.eventsSince(channelId, buffer.getEpoch(), 0)).isEqualTo(Optional.empty());
+	}
+
+	static MessageDTO message(UUID channelId, long seq) {
+		return MessageDTO.builder()
+				.id(UUID.randomUUID())
+				.channelId(channelId)
+				.content("message " + seq)
+				.seq(seq)
+				.build();
+	}
+}
@@ -0,0 +1,141 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gauntletai.agustinbiondi.chatgenius.dto.ChannelDTO;
+import com.gauntletai.agustinbiondi.chatgenius.model.Channel;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepositoryCustom.ExportedMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class ChannelExportServiceImplTest {
+
+	private static final Instant CREATED = Instant.parse("2024-03-01T10:15:30Z");
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final ChannelDTO channel = ChannelDTO.builder()
+			.id(UUID.randomUUID())
+			.name("general")
+			.description("Company-wide \"announcements\"")
+			.type(Channel.Type.PUBLIC)
+			.createdBy("alice")
+			.createdAt(CREATED)
+			.build();
+
+	private MessageRepository messageRepository;
+
+	@BeforeEach
+	void setUp() {
+		messageRepository = mock(MessageRepository.class);
+	}
+
+	@Test
+	void writesAChannelLineThenOneLinePerMessage() throws Exception {
+		UUID parentId = UUID.randomUUID();
+		UUID replyId = UUID.randomUUID();
+		String reactions = "[{\"emoji\":\"👍\",\"userIds\":[\"bob\"]}]";
+		stream(new ExportedMessage(parentId, 1, null, "alice", "alice", "TEXT", "Hello\nworld", CREATED, null, "[]"),
+				new ExportedMessage(replyId, 2, parentId, "bob", "bob", "TEXT", "Hi", CREATED.plusSeconds(5),
+						CREATED.plusSeconds(9), reactions));
+		ChannelExportServiceImpl exports = exports(1, 100);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		exports.writeExport(channel, out);
+
+		String ndjson = out.toString(StandardCharsets.UTF_8);
+		assertThat(ndjson).endsWith("\n");
+		List<String> lines = ndjson.lines().toList();
+		assertThat(lines).hasSize(3);
+
+		JsonNode header = objectMapper.readTree(lines.get(0));
+		assertThat(header.get("kind").asText()).isEqualTo("channel");
+		assertThat(header.get("id").asText()).isEqualTo(channel.getId().toString());
+		assertThat(header.get("description").asText()).isEqualTo("Company-wide \"announcements\"");
+		assertThat(header.get("createdAt").asText()).isEqualTo("2024-03-01T10:15:30Z");
+
+		JsonNode parent = objectMapper.readTree(lines.get(1));
+		assertThat(parent.get("kind").asText()).isEqualTo("message");
+		assertThat(parent.get("parentId").isNull()).isTrue();
+		assertThat(parent.get("content").asText()).isEqualTo("Hello\nworld");
+		assertThat(parent.get("editedAt").isNull()).isTrue();
+		assertThat(parent.get("reactions").isArray()).isTrue();
+		assertThat(parent.get("reactions")).isEmpty();
+
+		// Reactions are copied through as the JSON the database built, not as a string
+		assertThat(lines.get(2)).contains("\"parentId\":\"" + parentId + "\"")
+				.contains("\"reactions\":" + reactions);
+		JsonNode reply = objectMapper.readTree(lines.get(2));
+		assertThat(reply.get("seq").asLong()).isEqualTo(2);
+		assertThat(reply.get("editedAt").asText()).isEqualTo("2024-03-01T10:15:39Z");
+		assertThat(reply.get("reactions").get(0).get("emoji").asText()).isEqualTo("👍");
+
+		assertThat(exports.getExportedMessages()).isEqualTo(2);
+		assertThat(exports.getActiveExports()).isZero();
+	}
+
+	@Test
+	void turnsExportsAwayWhenNoSlotFreesUp() throws Exception {
+		CountDownLatch streaming = new CountDownLatch(1);
+		CountDownLatch finish = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			streaming.countDown();
+			finish.await();
+			return null;
+		}).when(messageRepository).streamChannelMessages(eq(channel.getId()), anyInt(), any());
+		ChannelExportServiceImpl exports = exports(1, 50);
+		Thread running = Thread.ofPlatform().start(() -> {
+			try {
+				exports.writeExport(channel, new ByteArrayOutputStream());
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		streaming.await();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		assertThatThrownBy(() -> exports.writeExport(channel, out))
+				.isInstanceOfSatisfying(ResponseStatusException.class,
+						e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+		assertThat(out.size()).isZero();
+
+		finish.countDown();
+		running.join();
+		assertThat(exports.getActiveExports()).isZero();
+	}
+
+	private ChannelExportServiceImpl exports(int maxConcurrent, long slotTimeoutMs) {
+		return new ChannelExportServiceImpl(null, messageRepository, objectMapper,
+				mock(PlatformTransactionManager.class), 100, maxConcurrent, slotTimeoutMs);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void stream(ExportedMessage... messages) {
+		doAnswer(invocation -> {
+			Consumer<ExportedMessage> sink = invocation.getArgument(2, Consumer.class);
+			for (ExportedMessage message : messages) {
+				sink.accept(message);
+			}
+			return null;
+		}).when(messageRepository).streamChannelMessages(eq(channel.getId()), anyInt(), any());
+	}
+}
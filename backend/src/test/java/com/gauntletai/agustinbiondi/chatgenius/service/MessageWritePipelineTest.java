@@ -0,0 +1,150 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.gauntletai.agustinbiondi.chatgenius.dto.MessageDTO;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepositoryCustom.NewMessage;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepositoryCustom.WriteCheck;
+import com.gauntletai.agustinbiondi.chatgenius.search.MessageSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MessageWritePipelineTest {
+
+	private final UUID channelId = UUID.randomUUID();
+	// Each call to insertMessages, in order
+	private final List<List<NewMessage>> inserts = new CopyOnWriteArrayList<>();
+	private final CountDownLatch firstInsertStarted = new CountDownLatch(1);
+	private final CountDownLatch releaseFirstInsert = new CountDownLatch(1);
+
+	private MessageRepository messageRepository;
+	private MessageWritePipeline pipeline;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		messageRepository = mock(MessageRepository.class);
+		when(messageRepository.checkWrites(any())).thenAnswer(invocation -> Collections.nCopies(
+				invocation.getArgument(0, List.class).size(), new WriteCheck(true, true, "alice", true)));
+		doAnswer(invocation -> {
+			inserts.add(invocation.getArgument(0));
+			if (inserts.size() == 1) {
+				firstInsertStarted.countDown();
+				releaseFirstInsert.await(5, TimeUnit.SECONDS);
+			}
+			return null;
+		}).when(messageRepository).insertMessages(any());
+
+		MessageSequenceAllocator sequenceAllocator = mock(MessageSequenceAllocator.class);
+		AtomicLong nextSeq = new AtomicLong(1);
+		when(sequenceAllocator.allocate(any(), anyInt()))
+				.thenAnswer(invocation -> nextSeq.getAndAdd(invocation.getArgument(1, Integer.class)));
+		TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+		when(transactionTemplate.execute(any()))
+				.thenAnswer(invocation -> invocation.getArgument(0, TransactionCallback.class).doInTransaction(null));
+
+		// A linger far longer than any test waits, so a batch that lingers shows up as a timeout
+		pipeline = new MessageWritePipeline(messageRepository, mock(ResourceVersionRegistry.class), sequenceAllocator,
+				mock(ChannelEventBuffer.class), mock(MessageSearchIndex.class), mock(UnreadCounters.class),
+				transactionTemplate, 8, 100, 256, 60_000, 60_000);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		releaseFirstInsert.countDown();
+		pipeline.stop();
+	}
+
+	@Test
+	void writesALoneMessageWithoutLingering() throws Exception {
+		releaseFirstInsert.countDown();
+
+		MessageDTO saved = submit("hello").get(5, TimeUnit.SECONDS);
+
+		assertThat(saved.getContent()).isEqualTo("hello");
+		assertThat(saved.getUsername()).isEqualTo("alice");
+		assertThat(saved.getChannelId()).isEqualTo(channelId);
+		assertThat(saved.getSeq()).isEqualTo(1);
+		assertThat(saved.getReactions()).isEmpty();
+	}
+
+	@Test
+	void withdrawsOnlyMessagesStillInTheMailbox() throws Exception {
+		CompletableFuture<MessageDTO> writing = submit("being written");
+		assertThat(firstInsertStarted.await(5, TimeUnit.SECONDS)).isTrue();
+		CompletableFuture<MessageDTO> queued = submit("still queued");
+
+		assertThat(queued.cancel(false)).isTrue();
+		assertThat(writing.cancel(false)).isFalse();
+		releaseFirstInsert.countDown();
+
+		assertThat(writing.get(5, TimeUnit.SECONDS).getContent()).isEqualTo("being written");
+		assertThat(submit("next").get(5, TimeUnit.SECONDS).getSeq()).isEqualTo(2);
+		assertThat(inserts).flatExtracting(batch -> batch.stream().map(NewMessage::content).toList())
+				.containsExactly("being written", "next");
+	}
+
+	@Test
+	void pausesTheChannelForExclusiveWork() throws Exception {
+		CompletableFuture<MessageDTO> writing = submit("being written");
+		assertThat(firstInsertStarted.await(5, TimeUnit.SECONDS)).isTrue();
+		List<String> order = new CopyOnWriteArrayList<>();
+		CountDownLatch exclusiveStarted = new CountDownLatch(1);
+		CountDownLatch releaseExclusive = new CountDownLatch(1);
+		CompletableFuture<Void> exclusive = CompletableFuture.runAsync(() ->
+				pipeline.runExclusively(channelId, () -> {
+					order.add("exclusive");
+					exclusiveStarted.countDown();
+					await(releaseExclusive);
+				}));
+
+		// Waits for the batch being written
+		assertThat(exclusiveStarted.await(200, TimeUnit.MILLISECONDS)).isFalse();
+		releaseFirstInsert.countDown();
+		writing.get(5, TimeUnit.SECONDS);
+		assertThat(exclusiveStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+		// Holds back the next batch until it is done
+		CompletableFuture<MessageDTO> queued = submit("queued behind").thenApply(message -> {
+			order.add(message.getContent());
+			return message;
+		});
+		Thread.sleep(100);
+		assertThat(queued).isNotDone();
+		releaseExclusive.countDown();
+		exclusive.get(5, TimeUnit.SECONDS);
+		queued.get(5, TimeUnit.SECONDS);
+
+		assertThat(order).containsExactly("exclusive", "queued behind");
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private CompletableFuture<MessageDTO> submit(String content) {
+		return pipeline.submit(channelId, "alice", content, null);
+	}
+}
@@ -0,0 +1,85 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelMembershipRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelMembershipRepositoryCustom.ReadPosition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class ReadReceiptBufferTest {
+
+	private final UUID channelId = UUID.randomUUID();
+	private final LocalDateTime noon = LocalDateTime.parse("2024-01-01T12:00:00");
+
+	private ChannelMembershipRepository membershipRepository;
+	private ReadReceiptBuffer buffer;
+
+	@BeforeEach
+	void setUp() {
+		membershipRepository = mock(ChannelMembershipRepository.class);
+		buffer = new ReadReceiptBuffer(membershipRepository);
+	}
+
+	@Test
+	void keepsOnlyTheNewestPositionPerMembership() {
+		buffer.record(channelId, "alice", noon);
+		buffer.record(channelId, "alice", noon.plusMinutes(5));
+		// Arrives late, after a newer receipt
+		buffer.record(channelId, "alice", noon.plusMinutes(1));
+		buffer.record(channelId, "bob", noon);
+
+		buffer.flush();
+
+		assertThat(flushed(1)).containsExactlyInAnyOrder(
+				new ReadPosition(channelId, "alice", noon.plusMinutes(5)),
+				new ReadPosition(channelId, "bob", noon));
+		assertThat(buffer.getReceivedReceipts()).isEqualTo(4);
+		assertThat(buffer.getFlushedReceipts()).isEqualTo(2);
+		assertThat(buffer.getPendingReceipts()).isZero();
+	}
+
+	@Test
+	void writesNothingWhenNothingIsPending() {
+		buffer.flush();
+
+		verifyNoInteractions(membershipRepository);
+	}
+
+	@Test
+	void keepsPositionsOfAFailedFlushForTheNextOne() {
+		doThrow(new IllegalStateException("database down"))
+				.doNothing()
+				.when(membershipRepository).updateLastReadAt(any());
+		buffer.record(channelId, "alice", noon.plusMinutes(5));
+
+		buffer.flush();
+		// Older than the position that failed to flush, so it must not replace it
+		buffer.record(channelId, "alice", noon);
+		buffer.flush();
+
+		assertThat(flushed(2)).containsExactly(new ReadPosition(channelId, "alice", noon.plusMinutes(5)));
+		assertThat(buffer.getFlushedReceipts()).isEqualTo(1);
+	}
+
+	/**
+	 * The positions of the last of {@code calls} flushes.
+	 */
+	@SuppressWarnings("unchecked")
+	private List<ReadPosition> flushed(int calls) {
+		ArgumentCaptor<List<ReadPosition>> positions = ArgumentCaptor.forClass(List.class);
+		verify(membershipRepository, times(calls)).updateLastReadAt(positions.capture());
+		return positions.getValue();
+	}
+}
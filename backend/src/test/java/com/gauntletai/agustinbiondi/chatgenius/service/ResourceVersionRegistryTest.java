@@ -0,0 +1,63 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResourceVersionRegistryTest {
+
+	private final UUID channelId = UUID.randomUUID();
+	private final ResourceVersionRegistry registry = new ResourceVersionRegistry();
+
+	@Test
+	void equalQualifiersGiveEqualTags() {
+		assertThat(registry.channelETag(channelId, "alice", PageRequest.of(1, 20, Sort.by("createdAt"))))
+				.isEqualTo(registry.channelETag(channelId, "alice", PageRequest.of(1, 20, Sort.by("createdAt"))));
+	}
+
+	@Test
+	void qualifiersWithEqualHashCodesGiveDifferentTags() {
+		// "Aa" and "BB" share a hash code, so Objects.hash cannot tell these lists apart
+		assertThat("Aa".hashCode()).isEqualTo("BB".hashCode());
+		assertThat(registry.channelETag(channelId, "Aa")).isNotEqualTo(registry.channelETag(channelId, "BB"));
+		assertThat(registry.channelETag(channelId, "alice", "Aa", "BB"))
+				.isNotEqualTo(registry.channelETag(channelId, "alice", "BB", "Aa"));
+	}
+
+	@Test
+	void everyPartOfThePageIsPartOfTheTag() {
+		Pageable page = PageRequest.of(1, 20, Sort.by("createdAt"));
+
+		assertThat(registry.channelETag(channelId, "alice", page))
+				.isNotEqualTo(registry.channelETag(channelId, "alice", PageRequest.of(2, 20, Sort.by("createdAt"))))
+				.isNotEqualTo(registry.channelETag(channelId, "alice", PageRequest.of(1, 21, Sort.by("createdAt"))))
+				.isNotEqualTo(registry.channelETag(channelId, "alice", PageRequest.of(1, 20, Sort.by("editedAt"))))
+				.isNotEqualTo(registry.channelETag(channelId, "alice",
+						PageRequest.of(1, 20, Sort.by(Sort.Direction.DESC, "createdAt"))))
+				.isNotEqualTo(registry.channelETag(channelId, "alice",
+						PageRequest.of(1, 20, Sort.by(Sort.Order.asc("createdAt").ignoreCase()))))
+				.isNotEqualTo(registry.channelETag(channelId, "alice", Pageable.unpaged()));
+	}
+
+	@Test
+	void fieldsCannotRunIntoEachOther() {
+		assertThat(registry.channelETag(channelId, "ab", "c")).isNotEqualTo(registry.channelETag(channelId, "a", "bc"));
+		assertThat(registry.channelETag(channelId, PageRequest.of(0, 20, Sort.by("a", "b"))))
+				.isNotEqualTo(registry.channelETag(channelId, PageRequest.of(0, 20, Sort.by("a,b"))));
+		assertThat(registry.channelETag(channelId, (Object) null)).isNotEqualTo(registry.channelETag(channelId, "null"));
+	}
+
+	@Test
+	void bumpingAChannelChangesItsTags() {
+		String before = registry.channelETag(channelId, "alice", PageRequest.of(0, 20));
+
+		registry.bumpChannel(channelId);
+
+		assertThat(registry.channelETag(channelId, "alice", PageRequest.of(0, 20))).isNotEqualTo(before);
+	}
+}
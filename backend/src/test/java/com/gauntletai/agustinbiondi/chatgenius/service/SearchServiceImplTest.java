@@ -0,0 +1,70 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.gauntletai.agustinbiondi.chatgenius.dto.MessageSearchResponseDTO;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepositoryCustom.SearchHit;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepositoryCustom.SearchQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SearchServiceImplTest {
+
+	private MessageRepository messageRepository;
+	private SearchServiceImpl searchService;
+
+	@BeforeEach
+	void setUp() {
+		messageRepository = mock(MessageRepository.class);
+		searchService = new SearchServiceImpl(messageRepository, null, null);
+	}
+
+	@Test
+	void continuesFromTheLastHitOfThePreviousPage() {
+		SearchHit first = hit(0.5f);
+		SearchHit second = hit(0.1f / 3);
+		when(messageRepository.searchMessages(any())).thenReturn(List.of(first, second, hit(0.01f)));
+
+		MessageSearchResponseDTO page = searchService.searchMessages("alice", " release ", null, null, null, 2);
+		searchService.searchMessages("alice", "release", null, null, page.getNextCursor(), 2);
+
+		ArgumentCaptor<SearchQuery> queries = ArgumentCaptor.forClass(SearchQuery.class);
+		verify(messageRepository, times(2)).searchMessages(queries.capture());
+		assertThat(page.getResults()).hasSize(2);
+		assertThat(queries.getAllValues().get(0).text()).isEqualTo("release");
+		assertThat(queries.getAllValues().get(0).limit()).isEqualTo(3);
+		// The rank survives the round trip bit for bit
+		assertThat(queries.getAllValues().get(1).afterRank()).isEqualTo(second.rank());
+		assertThat(queries.getAllValues().get(1).afterId()).isEqualTo(second.messageId());
+	}
+
+	// Not base64, no separator, a rank that is not hex, an id that is not a UUID
+	@ParameterizedTest
+	@ValueSource(strings = {"not base64!", "bm8tc2VwYXJhdG9y", "eno6YWJj", "M2YwMDAwMDA6bm90LWEtdXVpZA"})
+	void rejectsCursorsItDidNotIssue(String cursor) {
+		assertThatThrownBy(() -> searchService.searchMessages("alice", "release", null, null, cursor, 20))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessage("Invalid search cursor");
+		verify(messageRepository, never()).searchMessages(any());
+	}
+
+	private static SearchHit hit(float rank) {
+		return new SearchHit(UUID.randomUUID(), UUID.randomUUID(), "general", "bob", "bob", null,
+				Instant.parse("2024-01-01T00:00:00Z"), 1, rank, "<mark>release</mark>");
+	}
+}
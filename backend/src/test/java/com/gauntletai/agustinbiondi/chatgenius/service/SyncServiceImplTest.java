@@ -0,0 +1,135 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.gauntletai.agustinbiondi.chatgenius.dto.ChannelSyncDTO;
+import com.gauntletai.agustinbiondi.chatgenius.dto.MessageDTO;
+import com.gauntletai.agustinbiondi.chatgenius.dto.ReactionDTO;
+import com.gauntletai.agustinbiondi.chatgenius.dto.SyncCursorDTO;
+import com.gauntletai.agustinbiondi.chatgenius.dto.SyncResponseDTO;
+import com.gauntletai.agustinbiondi.chatgenius.model.Channel;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.gauntletai.agustinbiondi.chatgenius.service.ChannelEventBufferTest.message;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SyncServiceImplTest {
+
+	private final UUID channelId = UUID.randomUUID();
+
+	private ChannelRepository channelRepository;
+	private MessageService messageService;
+	private ReactionService reactionService;
+	private ChannelEventBuffer buffer;
+	private SyncServiceImpl syncService;
+
+	@BeforeEach
+	void setUp() {
+		channelRepository = mock(ChannelRepository.class);
+		messageService = mock(MessageService.class);
+		reactionService = mock(ReactionService.class);
+		buffer = new ChannelEventBuffer(new ResourceVersionRegistry(), 3, 10);
+		syncService = new SyncServiceImpl(channelRepository, messageService, reactionService, buffer);
+		ReflectionTestUtils.setField(syncService, "maxMessagesPerChannel", 2);
+		when(channelRepository.findAccessibleChannelIds(any(), eq("alice"), eq(Channel.Type.PUBLIC)))
+				.thenReturn(List.of(channelId));
+	}
+
+	@Test
+	void servesCoveredCursorsFromTheBuffer() {
+		buffer.recordMessageCreated(message(channelId, 1));
+		long eventId = buffer.getLastEventId();
+		MessageDTO second = message(channelId, 2);
+		buffer.recordMessageCreated(second);
+		buffer.recordReactionsChanged(channelId, second.getId());
+		ReactionDTO reaction = ReactionDTO.builder().emoji("👍").messageId(second.getId()).build();
+		when(reactionService.getReactionsForMessages(List.of(second.getId())))
+				.thenReturn(Map.of(second.getId(), List.of(reaction)));
+
+		ChannelSyncDTO result = sync(buffer.getEpoch(), 1, eventId);
+
+		assertThat(result.isFromBuffer()).isTrue();
+		assertThat(result.getMessages()).containsExactly(second);
+		assertThat(result.getReactions()).containsExactly(Map.entry(second.getId(), List.of(reaction)));
+		assertThat(result.isReactionsReset()).isFalse();
+		assertThat(result.getCursor().getSeq()).isEqualTo(2);
+		assertThat(result.getCursor().getEventId()).isEqualTo(buffer.getLastEventId());
+		verify(messageService, never()).getMessagesAfterSeq(any(), anyLong(), anyInt());
+	}
+
+	@Test
+	void skipsBufferedMessagesTheClientAlreadyHas() {
+		long eventId = buffer.getLastEventId();
+		buffer.recordMessageCreated(message(channelId, 1));
+		buffer.recordMessageCreated(message(channelId, 2));
+
+		ChannelSyncDTO result = sync(buffer.getEpoch(), 2, eventId);
+
+		assertThat(result.isFromBuffer()).isTrue();
+		assertThat(result.getMessages()).isEmpty();
+		assertThat(result.getCursor().getSeq()).isEqualTo(2);
+	}
+
+	@Test
+	void readsTheDatabaseForCursorsOfAnotherEpoch() {
+		buffer.recordMessageCreated(message(channelId, 1));
+		List<MessageDTO> stored = List.of(message(channelId, 1));
+		when(messageService.getMessagesAfterSeq(channelId, 0, 3)).thenReturn(stored);
+
+		ChannelSyncDTO result = sync("previous-boot", 0, 0);
+
+		assertThat(result.isFromBuffer()).isFalse();
+		assertThat(result.isReactionsReset()).isTrue();
+		assertThat(result.isHasMore()).isFalse();
+		assertThat(result.getMessages()).isEqualTo(stored);
+		assertThat(result.getCursor().getEventId()).isEqualTo(buffer.getLastEventId());
+	}
+
+	@Test
+	void readsTheDatabaseWhenEventsWereDropped() {
+		for (long seq = 1; seq <= 5; seq++) {
+			buffer.recordMessageCreated(message(channelId, seq));
+		}
+		List<MessageDTO> stored = List.of(message(channelId, 1), message(channelId, 2), message(channelId, 3));
+		when(messageService.getMessagesAfterSeq(channelId, 0, 3)).thenReturn(stored);
+
+		ChannelSyncDTO result = sync(buffer.getEpoch(), 0, 0);
+
+		// One page of two messages; the event position stays put until the client has caught up
+		assertThat(result.isFromBuffer()).isFalse();
+		assertThat(result.isHasMore()).isTrue();
+		assertThat(result.getMessages()).isEqualTo(stored.subList(0, 2));
+		assertThat(result.getCursor().getSeq()).isEqualTo(2);
+		assertThat(result.getCursor().getEventId()).isZero();
+	}
+
+	@Test
+	void reportsChannelsTheUserCannotRead() {
+		UUID hidden = UUID.randomUUID();
+
+		SyncResponseDTO response = syncService.sync("alice", buffer.getEpoch(),
+				List.of(SyncCursorDTO.builder().channelId(hidden).build()));
+
+		assertThat(response.getEpoch()).isEqualTo(buffer.getEpoch());
+		assertThat(response.getChannels()).singleElement()
+				.extracting(ChannelSyncDTO::getStatus).isEqualTo(ChannelSyncDTO.Status.UNAVAILABLE);
+	}
+
+	private ChannelSyncDTO sync(String epoch, long seq, long eventId) {
+		SyncCursorDTO cursor = SyncCursorDTO.builder().channelId(channelId).seq(seq).eventId(eventId).build();
+		return syncService.sync("alice", epoch, List.of(cursor)).getChannels().get(0);
+	}
+}
@@ -0,0 +1,107 @@
+package com.gauntletai.agustinbiondi.chatgenius.service;
+
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelMembershipRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ChannelMembershipRepositoryCustom.UnreadCount;
+import com.gauntletai.agustinbiondi.chatgenius.websocket.WebSocketEventHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UnreadCountersTest {
+
+	private final UUID channelId = UUID.randomUUID();
+
+	private ChannelMembershipRepository membershipRepository;
+	private UnreadCounters counters;
+
+	@BeforeEach
+	void setUp() {
+		membershipRepository = mock(ChannelMembershipRepository.class);
+		when(membershipRepository.findUnreadCountsByChannelId(any())).thenAnswer(invocation -> new HashMap<>());
+		when(membershipRepository.findUnreadCountsByChannelId(channelId))
+				.thenAnswer(invocation -> new HashMap<>(Map.of("alice", 2, "bob", 0)));
+		counters = new UnreadCounters(membershipRepository, mock(WebSocketEventHandler.class),
+				mock(SimpUserRegistry.class), 600_000);
+	}
+
+	@Test
+	void resetOfAnUnknownChannelLoadsNothing() {
+		for (int i = 0; i < 100; i++) {
+			assertThat(counters.reset(UUID.randomUUID(), "alice")).isFalse();
+		}
+
+		assertThat(counters.getLoadedChannels()).isZero();
+	}
+
+	@Test
+	void resetOfANonMemberLeavesTheCountersAlone() {
+		assertThat(counters.reset(channelId, "mallory")).isFalse();
+
+		counters.flush();
+
+		verify(membershipRepository, never()).updateUnreadCounts(any());
+	}
+
+	@Test
+	void countsMessagesForEveryMemberButTheAuthor() {
+		counters.recordMessages(channelId, List.of("alice", "bob", "bob"));
+		assertThat(counters.reset(channelId, "alice")).isTrue();
+
+		assertThat(flushed()).containsExactlyInAnyOrder(
+				new UnreadCount(channelId, "alice", 0),
+				new UnreadCount(channelId, "bob", 1));
+		assertThat(counters.getFlushedCounters()).isEqualTo(2);
+	}
+
+	@Test
+	void appliesMembershipChangesThatArriveDuringALoad() throws Exception {
+		CountDownLatch loadStarted = new CountDownLatch(1);
+		CountDownLatch releaseLoad = new CountDownLatch(1);
+		AtomicInteger loads = new AtomicInteger();
+		when(membershipRepository.findUnreadCountsByChannelId(channelId)).thenAnswer(invocation -> {
+			if (loads.getAndIncrement() == 0) {
+				// Read before carol joined
+				loadStarted.countDown();
+				releaseLoad.await(5, TimeUnit.SECONDS);
+				return new HashMap<>(Map.of("alice", 2, "bob", 0));
+			}
+			return new HashMap<>(Map.of("alice", 2, "bob", 0, "carol", 0));
+		});
+		CompletableFuture<Void> recording = CompletableFuture.runAsync(
+				() -> counters.recordMessages(channelId, List.of("alice")));
+		assertThat(loadStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+		counters.refreshMembers(channelId);
+		releaseLoad.countDown();
+		recording.get(5, TimeUnit.SECONDS);
+
+		assertThat(flushed()).containsExactlyInAnyOrder(
+				new UnreadCount(channelId, "bob", 1),
+				new UnreadCount(channelId, "carol", 1));
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<UnreadCount> flushed() {
+		counters.flush();
+		ArgumentCaptor<List<UnreadCount>> written = ArgumentCaptor.forClass(List.class);
+		verify(membershipRepository).updateUnreadCounts(written.capture());
+		return written.getValue();
+	}
+}
@@ -0,0 +1,112 @@
+package com.gauntletai.agustinbiondi.chatgenius.service.impl;
+
+import com.gauntletai.agustinbiondi.chatgenius.model.Channel;
+import com.gauntletai.agustinbiondi.chatgenius.model.Message;
+import com.gauntletai.agustinbiondi.chatgenius.model.User;
+import com.gauntletai.agustinbiondi.chatgenius.repository.MessageRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.ReactionRepository;
+import com.gauntletai.agustinbiondi.chatgenius.repository.UserRepository;
+import com.gauntletai.agustinbiondi.chatgenius.service.ChannelEventBuffer;
+import com.gauntletai.agustinbiondi.chatgenius.service.ChannelEventBuffer.BufferedEvent;
+import com.gauntletai.agustinbiondi.chatgenius.service.ChannelEventBuffer.EventType;
+import com.gauntletai.agustinbiondi.chatgenius.service.ResourceVersionRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactionServiceImplTest {
+
+	private final UUID channelId = UUID.randomUUID();
+	private final UUID messageId = UUID.randomUUID();
+
+	@Mock
+	private ReactionRepository reactionRepository;
+
+	@Mock
+	private MessageRepository messageRepository;
+
+	@Mock
+	private UserRepository userRepository;
+
+	@Mock
+	private ResourceVersionRegistry resourceVersions;
+
+	@Spy
+	private ChannelEventBuffer channelEventBuffer = new ChannelEventBuffer(new ResourceVersionRegistry(), 10, 10);
+
+	@InjectMocks
+	private ReactionServiceImpl reactionService;
+
+	@BeforeEach
+	void beginTransaction() {
+		// Stands in for the @Transactional proxy, which these tests call around
+		TransactionSynchronizationManager.initSynchronization();
+	}
+
+	@AfterEach
+	void endTransaction() {
+		TransactionSynchronizationManager.clearSynchronization();
+	}
+
+	@Test
+	void recordsAnAddedReactionOnceItCommits() {
+		Message message = Message.builder().id(messageId).channel(Channel.builder().id(channelId).build()).build();
+		when(messageRepository.findById(messageId)).thenReturn(Optional.of(message));
+		when(userRepository.findById("alice")).thenReturn(Optional.of(User.builder().userId("alice").build()));
+		when(reactionRepository.findByUserUserIdAndMessageIdAndEmoji("alice", messageId, "👍")).thenReturn(Optional.empty());
+		when(reactionRepository.save(any())).then(returnsFirstArg());
+
+		reactionService.addReaction("alice", messageId, "👍");
+
+		assertThat(bufferedEvents()).isEmpty();
+		TransactionSynchronizationUtils.triggerAfterCommit();
+		assertThat(bufferedEvents()).extracting(BufferedEvent::type, BufferedEvent::messageId)
+				.containsExactly(tuple(EventType.REACTIONS_CHANGED, messageId));
+	}
+
+	@Test
+	void recordsARemovedReactionOnceItCommits() {
+		when(messageRepository.findChannelIdById(messageId)).thenReturn(Optional.of(channelId));
+
+		reactionService.removeReaction("alice", messageId, "👍");
+
+		assertThat(bufferedEvents()).isEmpty();
+		TransactionSynchronizationUtils.triggerAfterCommit();
+		assertThat(bufferedEvents()).extracting(BufferedEvent::messageId).containsExactly(messageId);
+	}
+
+	@Test
+	void rolledBackChangesNeverReachTheBuffer() {
+		when(messageRepository.findChannelIdById(messageId)).thenReturn(Optional.of(channelId));
+
+		reactionService.removeReaction("alice", messageId, "👍");
+		TransactionSynchronizationUtils.invokeAfterCompletion(
+				TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+
+		assertThat(bufferedEvents()).isEmpty();
+		assertThat(channelEventBuffer.getLastEventId()).isZero();
+	}
+
+	private List<BufferedEvent> bufferedEvents() {
+		return channelEventBuffer.eventsSince(channelId, channelEventBuffer.getEpoch(), 0).orElseThrow();
+	}
+}
@@ -0,0 +1,38 @@
+package com.gauntletai.agustinbiondi.chatgenius.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidV7Test {
+
+	@Test
+	void setsVersionAndVariant() {
+		UUID uuid = UuidV7.generate();
+
+		assertThat(uuid.version()).isEqualTo(7);
+		assertThat(uuid.variant()).isEqualTo(2);
+	}
+
+	@Test
+	void embedsCurrentTimestamp() {
+		long before = System.currentTimeMillis();
+		UUID uuid = UuidV7.generate();
+		long after = System.currentTimeMillis();
+
+		assertThat(UuidV7.timestampOf(uuid)).isBetween(before, after + 1);
+	}
+
+	@Test
+	void isStrictlyIncreasingWithinTheSameMillisecond() {
+		UUID previous = UuidV7.generate();
+		for (int i = 0; i < 100_000; i++) {
+			UUID next = UuidV7.generate();
+			// Postgres compares uuid values as unsigned bytes, i.e. by the string form
+			assertThat(next.toString()).isGreaterThan(previous.toString());
+			previous = next;
+		}
+	}
+}
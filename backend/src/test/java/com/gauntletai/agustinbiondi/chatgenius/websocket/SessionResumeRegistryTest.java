@@ -0,0 +1,179 @@
+package com.gauntletai.agustinbiondi.chatgenius.websocket;
+
+import com.gauntletai.agustinbiondi.chatgenius.dto.WebSocketSessionDTO;
+import com.gauntletai.agustinbiondi.chatgenius.service.ResourceVersionRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class SessionResumeRegistryTest {
+
+	private final Principal alice = () -> "alice";
+
+	private SessionResumeTokens tokens;
+	private MessageChannel clientOutboundChannel;
+	private SessionResumeRegistry registry;
+	private ChannelInterceptor broadcasts;
+
+	@BeforeEach
+	void setUp() {
+		tokens = new SessionResumeTokens(new ResourceVersionRegistry(), "test-secret", 60_000);
+		clientOutboundChannel = mock(MessageChannel.class);
+		registry = registry(100);
+	}
+
+	@Test
+	void replaysFromTheLastBroadcastTheClientReceived() throws Exception {
+		connect("old");
+		long received = broadcast("first");
+		// Written to the socket after the network dropped, before the server noticed
+		broadcast("lost");
+		registry.onSessionDisconnect(new SessionDisconnectEvent(this, connected("old"), "old",
+				CloseStatus.GOING_AWAY, alice));
+		// From another thread, which would block if a broadcast had kept the publish lock
+		CompletableFuture.runAsync(() -> broadcast("after")).get(5, TimeUnit.SECONDS);
+
+		WebSocketSessionDTO session = resume("old", "new", received);
+
+		assertThat(session.isResumed()).isTrue();
+		assertThat(session.isReplayComplete()).isTrue();
+		assertThat(replayed()).containsExactly("lost", "after");
+		assertThat(replayedIds()).containsExactly(Long.toString(received + 1), Long.toString(received + 2));
+	}
+
+	@Test
+	void cannotVouchForTheReplayWithoutTheClientsPosition() {
+		connect("old");
+		broadcast("first");
+		broadcast("lost");
+		registry.onSessionDisconnect(new SessionDisconnectEvent(this, connected("old"), "old",
+				CloseStatus.GOING_AWAY, alice));
+		broadcast("after");
+
+		WebSocketSessionDTO session = resume("old", "new", null);
+
+		assertThat(session.isResumed()).isTrue();
+		assertThat(session.isReplayComplete()).isFalse();
+		assertThat(replayed()).containsExactly("after");
+	}
+
+	@Test
+	void reportsGapsTheBufferNoLongerCovers() {
+		registry = registry(2);
+		connect("old");
+		long received = broadcast("first");
+		registry.onSessionDisconnect(new SessionDisconnectEvent(this, connected("old"), "old",
+				CloseStatus.GOING_AWAY, alice));
+		broadcast("second");
+		broadcast("third");
+		broadcast("fourth");
+
+		WebSocketSessionDTO session = resume("old", "new", received);
+
+		assertThat(session.isReplayComplete()).isFalse();
+		assertThat(replayed()).containsExactly("third", "fourth");
+	}
+
+	@Test
+	void restoresNothingFromAnotherProcess() {
+		connect("old");
+		registry.onSessionDisconnect(new SessionDisconnectEvent(this, connected("old"), "old",
+				CloseStatus.GOING_AWAY, alice));
+		SessionResumeTokens.ResumeToken token = tokens.verify(tokens.issue("alice", "old")).orElseThrow();
+
+		registry.beginResume("new", "alice",
+				new SessionResumeTokens.ResumeToken("alice", "old", "previous-boot", token.expiresAt()), 0L);
+		registry.onSessionConnected(new SessionConnectedEvent(this, connected("new"), alice));
+		WebSocketSessionDTO session = registry.describe("new", "alice");
+
+		assertThat(session.isResumed()).isFalse();
+		assertThat(session.isReplayComplete()).isFalse();
+		assertThat(session.getRestoredSubscriptions()).isZero();
+	}
+
+	private SessionResumeRegistry registry(int replayCapacity) {
+		SessionResumeRegistry created = new SessionResumeRegistry(tokens, clientOutboundChannel,
+				mock(MessageChannel.class), replayCapacity, 100, 60_000, 1_000);
+		broadcasts = created.broadcastRecorder();
+		return created;
+	}
+
+	private void connect(String sessionId) {
+		SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+		subscribe.setSessionId(sessionId);
+		subscribe.setSubscriptionId("messages");
+		subscribe.setDestination("/topic/messages");
+		subscribe.setUser(alice);
+		registry.subscriptionTracker().preSend(
+				MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()), null);
+	}
+
+	/**
+	 * Send a broadcast through the broker channel interceptor, as the broker would.
+	 *
+	 * @return its event id
+	 */
+	private long broadcast(String payload) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		accessor.setDestination("/topic/messages");
+		accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+		Message<?> stamped = broadcasts.preSend(
+				MessageBuilder.createMessage(payload.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders()),
+				null);
+		broadcasts.afterSendCompletion(stamped, null, true, null);
+		return Long.parseLong(SimpMessageHeaderAccessor.getFirstNativeHeader(
+				SessionResumeRegistry.EVENT_ID_HEADER, stamped.getHeaders()));
+	}
+
+	private WebSocketSessionDTO resume(String previousSessionId, String sessionId, Long lastReceivedEventId) {
+		SessionResumeTokens.ResumeToken token = tokens.verify(tokens.issue("alice", previousSessionId)).orElseThrow();
+		registry.beginResume(sessionId, "alice", token, lastReceivedEventId);
+		registry.onSessionConnected(new SessionConnectedEvent(this, connected(sessionId), alice));
+		return registry.describe(sessionId, "alice");
+	}
+
+	private static Message<byte[]> connected(String sessionId) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT_ACK);
+		accessor.setSessionId(sessionId);
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Message<byte[]>> sent() {
+		ArgumentCaptor<Message<byte[]>> messages = ArgumentCaptor.forClass(Message.class);
+		verify(clientOutboundChannel, atLeast(0)).send(messages.capture());
+		return messages.getAllValues();
+	}
+
+	private List<String> replayed() {
+		return sent().stream().map(message -> new String(message.getPayload(), StandardCharsets.UTF_8)).toList();
+	}
+
+	private List<String> replayedIds() {
+		return sent().stream()
+				.map(message -> SimpMessageHeaderAccessor.getFirstNativeHeader(
+						SessionResumeRegistry.EVENT_ID_HEADER, message.getHeaders()))
+				.toList();
+	}
+}
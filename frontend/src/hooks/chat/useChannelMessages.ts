@@ -1,9 +1,14 @@
-import { useCallback } from 'react';
+import { useCallback, useEffect, useRef } from 'react';
 import { useWebSocketSubscription } from '../websocket/useWebSocketSubscription';
-import { MessageDTO } from '../../types';
+import { webSocketManager } from '../../services/websocket/WebSocketManager';
+import { syncService } from '../../services/syncService';
+import { MessageDTO, SyncCursor, WebSocketSession } from '../../types';
 import { logger } from '../../utils/logger';
 import { useQueryClient } from '@tanstack/react-query';
 
+// Upper bound on sync round trips for one reconnect; the server sends a page per channel each time
+const MAX_SYNC_PAGES = 10;
+
 interface UseChannelMessagesOptions {
   channelId: string;
   onError?: (error: Error) => void;
@@ -12,32 +17,83 @@ interface UseChannelMessagesOptions {
 
 export function useChannelMessages({ channelId, onError, enabled = true }: UseChannelMessagesOptions) {
   const queryClient = useQueryClient();
+  // Where the last sync of this channel left off; the epoch says which server process issued the event id
+  const syncPosition = useRef<{ epoch: string | null; eventId: number }>({ epoch: null, eventId: 0 });
 
-  const handleMessage = useCallback((message: MessageDTO) => {
-    logger.debug('state', 'Received message', { channelId, messageId: message.id });
+  const appendMessages = useCallback((messages: MessageDTO[]) => {
+    if (!messages.length) return;
 
     // Update the messages query cache
     queryClient.setQueryData(['messages', channelId, 'parents'], (old: any) => {
-      if (!old) return { content: [message], totalPages: 1, totalElements: 1, size: 20, number: 0 };
+      if (!old) {
+        return { content: messages, totalPages: 1, totalElements: messages.length, size: 20, number: 0 };
+      }
 
-      // Create a new array with the new message
-      const updatedContent = [...old.content, message];
+      // A resumed session may deliver a broadcast twice, and a sync can overlap live delivery
+      const knownIds = new Set(old.content.map((message: MessageDTO) => message.id));
+      const added = messages.filter(message => !knownIds.has(message.id));
+      if (!added.length) return old;
 
       // No need to sort since backend sends messages in correct order
-      logger.debug('state', 'Updated messages array', { 
+      const updatedContent = [...old.content, ...added];
+      logger.debug('state', 'Updated messages array', {
         messageCount: updatedContent.length,
-        latestMessageId: message.id,
-        latestMessageTimestamp: message.createdAt
+        latestMessageId: added[added.length - 1].id,
+        latestMessageTimestamp: added[added.length - 1].createdAt
       });
 
       return {
         ...old,
         content: updatedContent,
-        totalElements: old.totalElements + 1
+        totalElements: old.totalElements + added.length
       };
     });
   }, [channelId, queryClient]);
 
+  const handleMessage = useCallback((message: MessageDTO) => {
+    logger.debug('state', 'Received message', { channelId, messageId: message.id });
+    appendMessages([message]);
+  }, [channelId, appendMessages]);
+
+  // The server could not replay everything this connection missed, so catch up over HTTP
+  const handleSession = useCallback(async (session: WebSocketSession) => {
+    if (session.replayComplete) return;
+
+    const cached = queryClient.getQueryData<{ content: MessageDTO[] }>(['messages', channelId, 'parents']);
+    const seq = (cached?.content ?? []).reduce((highest, message) => Math.max(highest, message.seq ?? 0), 0);
+    let cursor: SyncCursor = { channelId, seq, eventId: syncPosition.current.eventId };
+    let epoch = syncPosition.current.epoch;
+    logger.debug('state', 'Replay incomplete, syncing channel', { channelId, cursor });
+
+    try {
+      for (let page = 0; page < MAX_SYNC_PAGES; page++) {
+        const response = await syncService.sync(epoch, [cursor]);
+        const result = response.channels.find(channel => channel.channelId === channelId);
+        epoch = response.epoch;
+        if (!result || result.status !== 'OK' || !result.cursor) break;
+
+        // Thread replies are loaded with their thread, only top-level messages belong in this list
+        appendMessages((result.messages ?? []).filter(message => !message.parentId));
+        cursor = result.cursor;
+        if (!result.hasMore) break;
+      }
+      syncPosition.current = { epoch, eventId: cursor.eventId };
+    } catch (error) {
+      logger.error('state', 'Failed to sync channel after reconnect', { channelId, error });
+      onError?.(error as Error);
+    }
+  }, [channelId, queryClient, appendMessages, onError]);
+
+  // Registered independently of the connection state, so the session reply that follows a reconnect is not missed
+  useEffect(() => {
+    if (!enabled || !channelId) return;
+
+    webSocketManager.addSessionHandler(handleSession);
+    return () => {
+      webSocketManager.removeSessionHandler(handleSession);
+    };
+  }, [channelId, enabled, handleSession]);
+
   const { sendMessage } = useWebSocketSubscription({
     channelId,
     onMessage: handleMessage,
@@ -47,4 +103,4 @@ export function useChannelMessages({ channelId, onError, enabled = true }: UseCh
   return {
     sendMessage,
   };
-} 
\ No newline at end of file
+}
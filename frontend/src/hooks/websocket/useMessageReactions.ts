@@ -1,5 +1,5 @@
 import { useState, useEffect, useCallback, useRef } from 'react';
-import { ReactionDTO } from '../../types';
+import { ReactionDTO, WebSocketSession } from '../../types';
 import { webSocketManager } from '../../services/websocket/WebSocketManager';
 import { addReaction, removeReaction, getReactionsForMessages } from '../../services/apiClient';
 import { logger } from '../../utils/logger';
@@ -102,6 +102,22 @@ export function useMessageReactions({ messageIds, enabled = true }: UseMessageRe
         };
     }, [enabled, isConnected, handleReactionUpdate]);
 
+    // Reaction changes the server could not replay after a reconnect are fetched again
+    useEffect(() => {
+        if (!enabled) return;
+
+        const handleSession = (session: WebSocketSession) => {
+            if (!session.replayComplete && lastFetchedMessageIds.current.length) {
+                fetchReactions();
+            }
+        };
+        webSocketManager.addSessionHandler(handleSession);
+
+        return () => {
+            webSocketManager.removeSessionHandler(handleSession);
+        };
+    }, [enabled, fetchReactions]);
+
     // Cleanup on unmount
     useEffect(() => {
         return () => {
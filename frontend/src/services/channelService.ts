@@ -66,11 +66,13 @@ export const channelService = {
     await apiClient.delete(`${CHANNELS_BASE_URL}/${channelId}/members`);
   },
 
-  // Get channel members
-  getChannelMembers: async (channelId: string): Promise<Set<string>> => {
-    logger.debug('api', `Fetching members for channel ${channelId}`);
-    const response = await apiClient.get(`${CHANNELS_BASE_URL}/${channelId}/members`);
-    return new Set(response.data);
+  // Get one page of channel member IDs
+  getChannelMembers: async (channelId: string, page = 0, size = 100): Promise<Set<string>> => {
+    logger.debug('api', `Fetching members for channel ${channelId}, page ${page}`);
+    const response = await apiClient.get(`${CHANNELS_BASE_URL}/${channelId}/members`, {
+      params: { page, size }
+    });
+    return new Set(response.data.content);
   },
 
   // Check if user is member
@@ -80,11 +82,34 @@ export const channelService = {
     return response.data;
   },
 
+  // Unread counts for all of the user's channels, keyed by channel id
+  getUnreadCounts: async (): Promise<Record<string, number>> => {
+    logger.debug('api', 'Fetching unread counts');
+    const response = await apiClient.get(`${CHANNELS_BASE_URL}/unread`);
+    return response.data;
+  },
+
+  // Mark a channel as read, resetting its unread count
+  markChannelRead: async (channelId: string): Promise<void> => {
+    logger.debug('api', `Marking channel ${channelId} as read`);
+    await apiClient.post(`${CHANNELS_BASE_URL}/${channelId}/read`);
+  },
+
   // Create or get DM channel
   createOrGetDirectMessageChannel: async (otherUserId: string): Promise<Channel> => {
     logger.debug('api', `Creating/getting DM channel with user ${otherUserId}`);
     const response = await apiClient.post(`${CHANNELS_BASE_URL}/dm/${otherUserId}`);
     return response.data;
+  },
+
+  // Download the channel's full history as NDJSON, one message per line after a channel header line
+  exportChannel: async (channelId: string, gzip = false): Promise<Blob> => {
+    logger.debug('api', `Exporting channel ${channelId}`);
+    const response = await apiClient.get(`${CHANNELS_BASE_URL}/${channelId}/export`, {
+      params: { gzip },
+      responseType: 'blob',
+    });
+    return response.data;
   }
 };
 
@@ -233,4 +258,11 @@ export const useCreateOrGetDirectMessageChannel = () => {
       queryClient.invalidateQueries({ queryKey: ['channels'] });
     },
   });
-};
\ No newline at end of file
+};
+
+export const useUnreadCounts = () => {
+  return useQuery({
+    queryKey: ['channels', 'unread'],
+    queryFn: channelService.getUnreadCounts,
+  });
+};
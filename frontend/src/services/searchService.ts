@@ -0,0 +1,40 @@
+import apiClient from './apiClient';
+import { logger } from '../utils/logger';
+import { AutocompleteSuggestion, MessageSearchResponse } from '../types';
+
+export interface MessageSearchParams {
+  q: string;
+  channelId?: string;
+  authorId?: string;
+  cursor?: string;
+  limit?: number;
+}
+
+export const searchService = {
+  // Full-text search across accessible channels, best matches first
+  searchMessages: async (params: MessageSearchParams): Promise<MessageSearchResponse> => {
+    logger.debug('api', `Searching messages for "${params.q}"`);
+    const response = await apiClient.get('/search/messages', { params });
+    return response.data;
+  },
+
+  // Search-as-you-type over the server's in-memory index, newest matches first
+  instantSearchMessages: async (
+    params: Pick<MessageSearchParams, 'q' | 'channelId' | 'limit'>
+  ): Promise<MessageSearchResponse> => {
+    const response = await apiClient.get('/search/messages/instant', { params });
+    return response.data;
+  },
+
+  // Ranked name completion for "dm @ag" style input
+  autocompleteUsers: async (q: string, limit?: number): Promise<AutocompleteSuggestion[]> => {
+    const response = await apiClient.get('/search/users', { params: { q, limit } });
+    return response.data;
+  },
+
+  // Public channels and the user's private channels; direct messages are not included
+  autocompleteChannels: async (q: string, limit?: number): Promise<AutocompleteSuggestion[]> => {
+    const response = await apiClient.get('/search/channels', { params: { q, limit } });
+    return response.data;
+  },
+};
@@ -0,0 +1,12 @@
+import apiClient from './apiClient';
+import { logger } from '../utils/logger';
+import { SyncCursor, SyncResponse } from '../types';
+
+export const syncService = {
+  // Catch up all open channels in one request after a reconnect
+  sync: async (epoch: string | null, cursors: SyncCursor[]): Promise<SyncResponse> => {
+    logger.debug('api', `Syncing ${cursors.length} channels`);
+    const response = await apiClient.post('/sync', { epoch, cursors });
+    return response.data;
+  },
+};
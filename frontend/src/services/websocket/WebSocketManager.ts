@@ -1,6 +1,6 @@
-import { Client, IFrame } from '@stomp/stompjs';
+import { Client, IFrame, IMessage } from '@stomp/stompjs';
 import { logger } from '../../utils/logger';
-import { ReactionDTO, MessageDTO, Channel } from '../../types';
+import { ReactionDTO, MessageDTO, Channel, WebSocketSession } from '../../types';
 import SockJS from 'sockjs-client';
 
 type ChannelEvent = {
@@ -12,6 +12,10 @@ type MessageHandler = (message: MessageDTO) => void;
 type ReactionHandler = (messageId: string, reactions: ReactionDTO[]) => void;
 type PresenceHandler = (channelId: string, userId: string) => void;
 type ChannelEventHandler = (event: ChannelEvent) => void;
+type SessionHandler = (session: WebSocketSession) => void;
+type UnreadCountsHandler = (unreadCounts: Record<string, number>) => void;
+
+const RECONNECT_AFTER_PREFIX = 'reconnect-after-ms=';
 
 export class WebSocketManager {
   private static instance: WebSocketManager;
@@ -23,11 +27,18 @@ export class WebSocketManager {
   private authToken: string | null = null;
   private reconnectTimeout: NodeJS.Timeout | null = null;
   private isConnecting: boolean = false;
+  private resumeToken: string | null = null;
+  // Id of the last /topic broadcast received, so a resumed session replays from exactly there
+  private lastEventId: string | null = null;
+  private eventEpoch: string | null = null;
+  private serverReconnectDelay: number | null = null;
 
   private messageHandlers: Set<MessageHandler> = new Set();
   private reactionHandlers: Set<ReactionHandler> = new Set();
   private presenceHandlers: Set<PresenceHandler> = new Set();
   private channelEventHandlers: Set<ChannelEventHandler> = new Set();
+  private sessionHandlers: Set<SessionHandler> = new Set();
+  private unreadCountsHandlers: Set<UnreadCountsHandler> = new Set();
 
   private constructor() {
     this.setupClient();
@@ -40,9 +51,7 @@ export class WebSocketManager {
 
     this.client = new Client({
       webSocketFactory: () => new SockJS('http://localhost:8080/ws'),
-      connectHeaders: this.authToken ? {
-        Authorization: `Bearer ${this.authToken}`
-      } : {},
+      connectHeaders: this.buildConnectHeaders(),
       reconnectDelay: 5000,
       heartbeatIncoming: 4000,
       heartbeatOutgoing: 4000,
@@ -51,8 +60,26 @@ export class WebSocketManager {
       }
     });
 
+    // Auto-reconnects reuse the client, so pick up the latest resume token each time
+    this.client.beforeConnect = () => {
+      this.client!.connectHeaders = this.buildConnectHeaders();
+    };
+
+    this.client.onWebSocketClose = (event: CloseEvent) => {
+      // On graceful shutdown the server suggests a jittered delay so clients do not all return at once
+      if (event.reason?.startsWith(RECONNECT_AFTER_PREFIX)) {
+        const delay = Number(event.reason.substring(RECONNECT_AFTER_PREFIX.length));
+        if (Number.isFinite(delay)) {
+          logger.debug('state', `Server asked to reconnect after ${delay}ms`);
+          this.serverReconnectDelay = delay;
+          this.client!.reconnectDelay = delay;
+        }
+      }
+    };
+
     this.client.onConnect = () => {
       logger.debug('state', 'WebSocket connected');
+      this.client!.reconnectDelay = 5000;
       this.reconnectAttempts = 0;
       this.isConnecting = false;
       this.setupSubscriptions();
@@ -81,14 +108,51 @@ export class WebSocketManager {
     };
   }
 
+  private buildConnectHeaders(): Record<string, string> {
+    const headers: Record<string, string> = {};
+    if (this.authToken) {
+      headers.Authorization = `Bearer ${this.authToken}`;
+    }
+    if (this.resumeToken) {
+      headers['resume-token'] = this.resumeToken;
+      if (this.lastEventId) {
+        headers['last-event-id'] = this.lastEventId;
+      }
+    }
+    return headers;
+  }
+
   private setupSubscriptions() {
     if (!this.client?.connected) {
       logger.warn('state', 'Cannot setup subscriptions - WebSocket not connected');
       return;
     }
 
+    // Resume token for the next reconnect, and whether missed events were replayed
+    this.client.subscribe('/app/session', (message) => {
+      try {
+        const session = JSON.parse(message.body) as WebSocketSession;
+        this.resumeToken = session.resumeToken;
+        // Event ids restart with every server process
+        if (session.epoch !== this.eventEpoch) {
+          this.eventEpoch = session.epoch;
+          this.lastEventId = null;
+        }
+        logger.debug('state', 'Session established', {
+          resumed: session.resumed,
+          replayedEvents: session.replayedEvents,
+          replayComplete: session.replayComplete
+        });
+        this.sessionHandlers.forEach(handler => handler(session));
+      } catch (error) {
+        logger.error('state', 'Failed to parse session info', error);
+      }
+    });
+
+    // Fixed subscription ids let a resumed session keep receiving on the ids the server restored
     // Subscribe to messages
     this.client.subscribe('/topic/messages', (message) => {
+      this.rememberEventId(message);
       try {
         const messageData = JSON.parse(message.body) as MessageDTO;
         logger.debug('state', 'Received message', { messageId: messageData.id });
@@ -97,11 +161,13 @@ export class WebSocketManager {
         logger.error('state', 'Failed to parse message', error);
       }
     }, {
+      id: 'messages',
       Authorization: `Bearer ${this.authToken}`
     });
 
     // Subscribe to reactions
     this.client.subscribe('/topic/reactions', (message) => {
+      this.rememberEventId(message);
       try {
         const { messageId, reactions } = JSON.parse(message.body);
         logger.debug('state', 'Received reactions update', { messageId });
@@ -110,11 +176,13 @@ export class WebSocketManager {
         logger.error('state', 'Failed to parse reactions update', error);
       }
     }, {
+      id: 'reactions',
       Authorization: `Bearer ${this.authToken}`
     });
 
     // Subscribe to presence
     this.client.subscribe('/topic/presence', (message) => {
+      this.rememberEventId(message);
       try {
         const { channelId, userId } = JSON.parse(message.body);
         logger.debug('state', 'Received presence update', { channelId, userId });
@@ -123,11 +191,13 @@ export class WebSocketManager {
         logger.error('state', 'Failed to parse presence update', error);
       }
     }, {
+      id: 'presence',
       Authorization: `Bearer ${this.authToken}`
     });
 
     // Subscribe to channel events
     this.client.subscribe('/topic/channels/events', (message) => {
+      this.rememberEventId(message);
       try {
         const event = JSON.parse(message.body) as ChannelEvent;
         logger.debug('state', 'Received channel event', { type: event.type, channelId: event.channel.id });
@@ -136,8 +206,32 @@ export class WebSocketManager {
         logger.error('state', 'Failed to parse channel event', error);
       }
     }, {
+      id: 'channel-events',
       Authorization: `Bearer ${this.authToken}`
     });
+
+    this.setupUserSubscriptions();
+  }
+
+  private rememberEventId(message: IMessage) {
+    const eventId = message.headers['event-id'];
+    // A replay can overlap live delivery, so never step back to an older id
+    if (eventId && (!this.lastEventId || Number(eventId) > Number(this.lastEventId))) {
+      this.lastEventId = eventId;
+    }
+  }
+
+  private setupUserSubscriptions() {
+    // Unread count deltas for this user's channels
+    this.client!.subscribe('/user/queue/unread', (message) => {
+      try {
+        const { unreadCounts } = JSON.parse(message.body);
+        logger.debug('state', 'Received unread counts', { channels: Object.keys(unreadCounts).length });
+        this.unreadCountsHandlers.forEach(handler => handler(unreadCounts));
+      } catch (error) {
+        logger.error('state', 'Failed to parse unread counts', error);
+      }
+    });
   }
 
   private scheduleReconnect() {
@@ -150,7 +244,8 @@ export class WebSocketManager {
       return;
     }
 
-    const delay = Math.min(1000 * Math.pow(2, this.reconnectAttempts), 30000);
+    const delay = this.serverReconnectDelay ?? Math.min(1000 * Math.pow(2, this.reconnectAttempts), 30000);
+    this.serverReconnectDelay = null;
     logger.debug('state', `Scheduling reconnect in ${delay}ms (attempt ${this.reconnectAttempts + 1})`);
 
     this.reconnectTimeout = setTimeout(() => {
@@ -298,6 +393,22 @@ export class WebSocketManager {
     this.presenceHandlers.delete(handler);
   }
 
+  addSessionHandler(handler: SessionHandler) {
+    this.sessionHandlers.add(handler);
+  }
+
+  removeSessionHandler(handler: SessionHandler) {
+    this.sessionHandlers.delete(handler);
+  }
+
+  addUnreadCountsHandler(handler: UnreadCountsHandler) {
+    this.unreadCountsHandlers.add(handler);
+  }
+
+  removeUnreadCountsHandler(handler: UnreadCountsHandler) {
+    this.unreadCountsHandlers.delete(handler);
+  }
+
   addChannelEventHandler(handler: ChannelEventHandler) {
     this.channelEventHandlers.add(handler);
   }
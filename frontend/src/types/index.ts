@@ -27,6 +27,7 @@ export interface Channel {
     createdByUsername: string;
     createdAt: string;
     members: ChannelMember[];
+    memberCount: number;
     messageCount: number;
     fileCount: number;
 }
@@ -46,6 +47,7 @@ export interface MessageDTO {
     editedAt?: string;
     isEdited: boolean;
     parentId?: UUID;
+    seq: number;
     reactions: ReactionDTO[];
     replyCount: number;
     topReplies?: MessageDTO[];
@@ -69,4 +71,62 @@ export interface ReactionDTO {
     userId: string;
     username: string;
     messageId: string;
-} 
\ No newline at end of file
+} 
+export interface SyncCursor {
+    channelId: UUID;
+    seq: number;
+    eventId: number;
+}
+
+export interface ChannelSync {
+    channelId: UUID;
+    status: 'OK' | 'UNAVAILABLE';
+    messages?: MessageDTO[];
+    reactions?: Record<UUID, ReactionDTO[]>;
+    reactionsReset: boolean;
+    hasMore: boolean;
+    fromBuffer: boolean;
+    cursor?: SyncCursor;
+}
+
+export interface SyncResponse {
+    epoch: string;
+    channels: ChannelSync[];
+}
+
+export interface WebSocketSession {
+    resumeToken: string;
+    epoch: string;
+    resumed: boolean;
+    restoredSubscriptions: number;
+    replayedEvents: number;
+    replayComplete: boolean;
+}
+
+export interface MessageSearchResult {
+    messageId: UUID;
+    channelId: UUID;
+    // null for instant search results; resolve from the channel list
+    channelName: string | null;
+    userId: string;
+    username: string;
+    parentId: UUID | null;
+    createdAt: string;
+    seq: number;
+    rank: number;
+    // HTML-escaped, matched terms wrapped in <mark>
+    snippet: string;
+}
+
+export interface AutocompleteSuggestion {
+    // User id or channel id
+    id: string;
+    name: string;
+    // Channel type; null for users
+    type: 'PUBLIC' | 'PRIVATE' | null;
+}
+
+export interface MessageSearchResponse {
+    results: MessageSearchResult[];
+    nextCursor: string | null;
+}